@@ -1,3 +1,6 @@
+-- Esquema inicial, igual a la versión 1 de las migraciones de Flyway (V1__esquema_inicial.sql). Los cambios
+-- posteriores los aplica la aplicación al iniciar con las migraciones de src/main/resources/db/migration, a partir
+-- de la línea base 1, así que este script no debe incluirlos.
 CREATE DATABASE IF NOT EXISTS gestion_prestamos;
 USE gestion_prestamos;
 
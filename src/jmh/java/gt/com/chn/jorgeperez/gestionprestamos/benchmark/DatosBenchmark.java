@@ -0,0 +1,84 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Construye en memoria los grafos de clientes, préstamos y pagos que usan los benchmarks.
+ * Los datos se generan con una semilla fija para que todas las ejecuciones midan lo mismo.
+ */
+final class DatosBenchmark {
+
+    private static final long UN_DIA = 24L * 60 * 60 * 1000;
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Crea un cliente con sus préstamos, y cada préstamo con sus pagos, enlazados en ambos sentidos.
+     *
+     * @param prestamos         Cantidad de préstamos del cliente.
+     * @param pagosPorPrestamo  Cantidad de pagos de cada préstamo.
+     * @return El cliente con el grafo completo.
+     */
+    static Cliente cliente(int prestamos, int pagosPorPrestamo) {
+        Random aleatorio = new Random(42);
+        Cliente cliente = new Cliente();
+        cliente.setClienteId(1L);
+        cliente.setNombre("María José");
+        cliente.setApellido("Pérez López");
+        cliente.setNumeroIdentificacion("1234567890101");
+        cliente.setFechaNacimiento(new Date(0));
+        cliente.setDireccion("5a. Avenida 10-20, Zona 1, Guatemala");
+        cliente.setCorreoElectronico("maria.perez@example.com");
+        cliente.setTelefono("55555555");
+        for (int i = 0; i < prestamos; i++) {
+            Prestamo prestamo = prestamo(i + 1L, pagosPorPrestamo, aleatorio);
+            prestamo.setCliente(cliente);
+            cliente.getPrestamos().add(prestamo);
+        }
+        return cliente;
+    }
+
+    /**
+     * Crea un préstamo aprobado con sus pagos. El total pagado, la cantidad de pagos y la fecha del último pago
+     * quedan calculados como los mantiene el registro de pagos.
+     */
+    static Prestamo prestamo(long prestamoId, int pagos, Random aleatorio) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setPrestamoId(prestamoId);
+        prestamo.setMontoSolicitado(BigDecimal.valueOf(100_000_000L + aleatorio.nextInt(100_000_000), 2));
+        prestamo.setPlazo(36);
+        prestamo.setEstado(EstadoPrestamo.APROBADO);
+        prestamo.setFechaSolicitud(new Date(1_704_067_200_000L));
+        prestamo.setTasaInteres(new BigDecimal("12.50"));
+
+        BigDecimal saldo = prestamo.getMontoSolicitado();
+        Date fechaUltimoPago = null;
+        for (int i = 0; i < pagos; i++) {
+            Pago pago = new Pago();
+            pago.setPagoId(prestamoId * 1_000_000 + i);
+            pago.setPrestamo(prestamo);
+            pago.setMontoPago(BigDecimal.valueOf(1_000 + aleatorio.nextInt(100_000), 2));
+            pago.setFechaPago(new Date(1_704_067_200_000L + aleatorio.nextInt(365) * UN_DIA));
+            pago.setSaldoAnterior(saldo);
+            saldo = saldo.subtract(pago.getMontoPago());
+            pago.setSaldoActual(saldo);
+            prestamo.getPagos().add(pago);
+            if (fechaUltimoPago == null || pago.getFechaPago().after(fechaUltimoPago)) {
+                fechaUltimoPago = pago.getFechaPago();
+            }
+        }
+        prestamo.setSaldoActual(saldo);
+        prestamo.setTotalPagado(prestamo.getMontoSolicitado().subtract(saldo));
+        prestamo.setNumeroPagos(pagos);
+        prestamo.setFechaUltimoPago(fechaUltimoPago);
+        return prestamo;
+    }
+}
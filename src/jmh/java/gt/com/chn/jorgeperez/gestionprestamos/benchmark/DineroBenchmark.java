@@ -0,0 +1,63 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la suma de un millón de montos de pagos con {@code BigDecimal} (con stream, como se calculaban los saldos, y
+ * con un ciclo) frente a la misma suma con {@link Dinero} en centavos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DineroBenchmark {
+
+    private static final int PAGOS = 1_000_000;
+
+    private BigDecimal[] montosBigDecimal;
+
+    private Dinero[] montosDinero;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        montosBigDecimal = new BigDecimal[PAGOS];
+        montosDinero = new Dinero[PAGOS];
+        for (int i = 0; i < PAGOS; i++) {
+            long centavos = 1_000 + aleatorio.nextInt(100_000);
+            montosBigDecimal[i] = BigDecimal.valueOf(centavos, 2);
+            montosDinero[i] = Dinero.deCentavos(centavos);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalConStream() {
+        return Arrays.stream(montosBigDecimal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalConCiclo() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal monto : montosBigDecimal) {
+            total = total.add(monto);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Dinero dinero() {
+        Dinero total = Dinero.CERO;
+        for (Dinero monto : montosDinero) {
+            total = total.sumar(monto);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,68 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la generación de las respuestas de error de {@link GlobalExceptionHandler}: búsqueda del mensaje traducido,
+ * construcción del ApiError y su serialización a JSON. Las excepciones se crean una sola vez, para no medir la
+ * captura de la pila. El registro en el log está desactivado con logback-benchmark.xml, de modo que no se mide la
+ * escritura del log.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class ManejoErroresBenchmark {
+
+    private static final Locale LOCALE = new Locale("es", "GT");
+
+    private GlobalExceptionHandler exceptionHandler;
+
+    private ObjectMapper objectMapper;
+
+    private CustomExceptions.InvalidOperationException errorServicio;
+
+    private CustomExceptions.PrestamoNotFoundException prestamoNoEncontrado;
+
+    private IllegalArgumentException errorInesperado;
+
+    @Setup
+    public void preparar() {
+        // Misma fuente de mensajes que InternationalizationConfig
+        ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+        messageSource.setBasename("classpath:messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        exceptionHandler = new GlobalExceptionHandler(messageSource);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        errorServicio = new CustomExceptions.InvalidOperationException("El monto del pago excede el saldo pendiente del préstamo con ID: 1");
+        prestamoNoEncontrado = new CustomExceptions.PrestamoNotFoundException(1L);
+        errorInesperado = new IllegalArgumentException("Argumento no válido");
+    }
+
+    @Benchmark
+    public byte[] errorDeServicio() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(exceptionHandler.handleServiceException(errorServicio).getBody());
+    }
+
+    @Benchmark
+    public byte[] prestamoNoEncontrado() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(exceptionHandler.handlePrestamoNotFoundException(prestamoNoEncontrado, LOCALE).getBody());
+    }
+
+    @Benchmark
+    public byte[] errorInesperado() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(exceptionHandler.handleAll(errorInesperado).getBody());
+    }
+}
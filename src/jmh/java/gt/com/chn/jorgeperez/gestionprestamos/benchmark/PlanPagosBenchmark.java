@@ -0,0 +1,70 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gt.com.chn.jorgeperez.gestionprestamos.model.PlanPagos;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cuántos planes de pago de 360 meses se generan por segundo con {@link PlanPagos} (centavos en {@code long}),
+ * frente al mismo cálculo hecho cuota por cuota con {@code BigDecimal}, y cuántos se obtienen de una caché como la de
+ * {@code PlanPagosServiceImpl} cuando los términos ya se calcularon.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlanPagosBenchmark {
+
+    private static final long MONTO_CENTAVOS = 25_000_000L;
+
+    private static final int PLAZO = 360;
+
+    private static final long TASA_CENTESIMAS = 975;
+
+    private Cache<Long, PlanPagos> planes;
+
+    @Setup
+    public void preparar() {
+        planes = Caffeine.newBuilder().maximumSize(1000).build();
+        planes.put(TASA_CENTESIMAS, PlanPagos.calcular(MONTO_CENTAVOS, PLAZO, TASA_CENTESIMAS));
+    }
+
+    @Benchmark
+    public PlanPagos centavos() {
+        return PlanPagos.calcular(MONTO_CENTAVOS, PLAZO, TASA_CENTESIMAS);
+    }
+
+    @Benchmark
+    public BigDecimal[] bigDecimal() {
+        return calcularConBigDecimal(BigDecimal.valueOf(MONTO_CENTAVOS, 2), PLAZO, BigDecimal.valueOf(TASA_CENTESIMAS, 2));
+    }
+
+    @Benchmark
+    public PlanPagos memoizado() {
+        return planes.get(TASA_CENTESIMAS, tasa -> PlanPagos.calcular(MONTO_CENTAVOS, PLAZO, tasa));
+    }
+
+    // El mismo plan con BigDecimal en cada cuota, redondeando los intereses al centavo; devuelve el saldo tras cada cuota
+    private static BigDecimal[] calcularConBigDecimal(BigDecimal monto, int plazo, BigDecimal tasaAnual) {
+        BigDecimal tasaMensual = tasaAnual.divide(BigDecimal.valueOf(1200), MathContext.DECIMAL128);
+        BigDecimal factor = BigDecimal.ONE.add(tasaMensual).pow(plazo, MathContext.DECIMAL128);
+        BigDecimal cuota = monto.multiply(tasaMensual).multiply(factor).divide(factor.subtract(BigDecimal.ONE), 2, RoundingMode.HALF_UP);
+        BigDecimal[] saldos = new BigDecimal[plazo];
+        BigDecimal saldo = monto;
+        for (int i = 0; i < plazo; i++) {
+            BigDecimal interes = saldo.multiply(tasaMensual).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal capital = i == plazo - 1 ? saldo : cuota.subtract(interes).min(saldo);
+            saldo = saldo.subtract(capital);
+            saldos[i] = saldo;
+        }
+        return saldos;
+    }
+}
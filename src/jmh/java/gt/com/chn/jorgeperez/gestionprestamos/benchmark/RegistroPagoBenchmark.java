@@ -0,0 +1,89 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.AcumuladosCartera;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.ExposicionCredito;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.PagoServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide {@link PagoServiceImpl#registrarPago} sin base de datos: validación del monto, aritmética de saldos,
+ * actualización de los totales de la cartera y de la exposición del cliente y construcción del pago. Los repositorios se reemplazan por implementaciones en memoria que responden de inmediato,
+ * de modo que el resultado refleja solo el trabajo del servicio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistroPagoBenchmark {
+
+    private PagoServiceImpl pagoService;
+
+    private SolicitudPagoDTO solicitud;
+
+    @Setup
+    public void preparar() {
+        Prestamo prestamo = DatosBenchmark.prestamo(1L, 0, new Random(42));
+
+        PrestamoRepository prestamoRepository = repositorio(PrestamoRepository.class, (metodo, argumentos) -> switch (metodo) {
+            case "aplicarPago" -> 1;
+            case "findResumenByPrestamoId" -> Optional.of(new ResumenPrestamoDTO(prestamo.getPrestamoId(), 1L, prestamo.getMontoSolicitado(), prestamo.getSaldoActual(),
+                    prestamo.getEstado(), prestamo.getFechaSolicitud(), null, null));
+            case "getReferenceById" -> prestamo;
+            default -> throw new UnsupportedOperationException(metodo);
+        });
+        PagoRepository pagoRepository = repositorio(PagoRepository.class, (metodo, argumentos) -> switch (metodo) {
+            case "save" -> argumentos[0];
+            default -> throw new UnsupportedOperationException(metodo);
+        });
+
+        pagoService = new PagoServiceImpl(pagoRepository);
+        ReflectionTestUtils.setField(pagoService, "prestamoRepository", prestamoRepository);
+        // Fuera de una transacción, los totales de la cartera se actualizan en memoria sin tocar la base de datos
+        ReflectionTestUtils.setField(pagoService, "acumuladosCartera", new AcumuladosCartera(null, null, null, null));
+        // Fuera de una transacción, el cambio de la exposición del cliente se acumula en memoria hasta el volcado
+        ReflectionTestUtils.setField(pagoService, "exposicionCredito", new ExposicionCredito(null, null, null, new BigDecimal("500000.00"), Duration.ofMinutes(10)));
+
+        solicitud = new SolicitudPagoDTO();
+        solicitud.setPrestamoId(prestamo.getPrestamoId());
+        solicitud.setMontoPago(new BigDecimal("1250.75"));
+        solicitud.setFechaPago(new Date());
+    }
+
+    @Benchmark
+    public Pago registrarPago() {
+        return pagoService.registrarPago(solicitud);
+    }
+
+    /**
+     * Respuesta de un repositorio en memoria según el nombre del método invocado.
+     */
+    interface Respuesta {
+        Object responder(String metodo, Object[] argumentos);
+    }
+
+    static <T> T repositorio(Class<T> tipo, Respuesta respuesta) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+            case "toString" -> tipo.getSimpleName() + " en memoria";
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == argumentos[0];
+            default -> respuesta.responder(metodo.getName(), argumentos);
+        }));
+    }
+}
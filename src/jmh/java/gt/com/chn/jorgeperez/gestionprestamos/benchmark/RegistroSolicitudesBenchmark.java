@@ -0,0 +1,76 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.config.RegistroSolicitudes;
+import gt.com.chn.jorgeperez.gestionprestamos.controller.ClienteController;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el tiempo que el registro en el log agrega a cada solicitud de {@code POST /clientes} en el hilo que la atiende.
+ * <ul>
+ *     <li>{@code entidadSincrono}: el registro anterior, con la entidad completa en el mensaje y la escritura del archivo
+ *     en el mismo hilo.</li>
+ *     <li>{@code estructuradoSincrono}: {@link RegistroSolicitudes} con el endpoint y el número de identificación,
+ *     escribiendo todavía en el mismo hilo.</li>
+ *     <li>{@code estructuradoAsincrono}: el registro actual, con la cola acotada de logback-spring.xml. Cuando la cola
+ *     se llena, los eventos INFO se descartan en lugar de hacer esperar a la solicitud.</li>
+ *     <li>{@code estructuradoMuestreado}: el registro actual con un muestreo del 10 %.</li>
+ * </ul>
+ * Cada configuración de log se carga en su propia JVM; el archivo se escribe en el directorio temporal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class RegistroSolicitudesBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteController.class);
+
+    private Cliente cliente;
+
+    private RegistroSolicitudes registro;
+
+    private RegistroSolicitudes registroMuestreado;
+
+    @Setup
+    public void preparar() {
+        // El cliente como llega en el cuerpo de la solicitud, sin préstamos
+        cliente = DatosBenchmark.cliente(0, 0);
+        registro = new RegistroSolicitudes(new MockEnvironment());
+        registroMuestreado = new RegistroSolicitudes(new MockEnvironment().withProperty("registro.solicitudes.muestreo.agregar-cliente", "0.1"));
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-registro-sincrono.xml")
+    public void entidadSincrono() {
+        log.info("Agregando cliente: {}", cliente);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-registro-sincrono.xml")
+    public void estructuradoSincrono() {
+        registrar(registro);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-registro-asincrono.xml")
+    public void estructuradoAsincrono() {
+        registrar(registro);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-registro-asincrono.xml")
+    public void estructuradoMuestreado() {
+        registrar(registroMuestreado);
+    }
+
+    private void registrar(RegistroSolicitudes registroSolicitudes) {
+        registroSolicitudes.info(log, "agregar-cliente").addKeyValue("numeroIdentificacion", cliente.getNumeroIdentificacion()).log("Agregando cliente");
+    }
+}
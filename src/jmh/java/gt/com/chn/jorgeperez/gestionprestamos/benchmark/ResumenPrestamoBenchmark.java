@@ -0,0 +1,61 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el mapeo de {@link Prestamo} a {@link ResumenPrestamoDTO} de los resúmenes de préstamos de un cliente:
+ * tomando la fecha del último pago de la columna fecha_ultimo_pago, como hace la consulta actual, o buscándola
+ * entre los pagos de cada préstamo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResumenPrestamoBenchmark {
+
+    @Param({"10", "1000"})
+    public int prestamos;
+
+    @Param({"12", "60"})
+    public int pagosPorPrestamo;
+
+    private List<Prestamo> listaPrestamos;
+
+    @Setup
+    public void preparar() {
+        listaPrestamos = new ArrayList<>(DatosBenchmark.cliente(prestamos, pagosPorPrestamo).getPrestamos());
+        listaPrestamos.sort(Comparator.comparing(Prestamo::getPrestamoId));
+    }
+
+    @Benchmark
+    public List<ResumenPrestamoDTO> resumenConFechaUltimoPagoDelPrestamo() {
+        List<ResumenPrestamoDTO> resumen = new ArrayList<>(listaPrestamos.size());
+        for (Prestamo prestamo : listaPrestamos) {
+            resumen.add(new ResumenPrestamoDTO(prestamo.getPrestamoId(), 1L, prestamo.getMontoSolicitado(), prestamo.getSaldoActual(), prestamo.getEstado(),
+                    prestamo.getFechaSolicitud(), prestamo.getFechaFinalizacion(), prestamo.getFechaUltimoPago()));
+        }
+        return resumen;
+    }
+
+    @Benchmark
+    public List<ResumenPrestamoDTO> resumenConFechaUltimoPagoDeLosPagos() {
+        List<ResumenPrestamoDTO> resumen = new ArrayList<>(listaPrestamos.size());
+        for (Prestamo prestamo : listaPrestamos) {
+            Date fechaUltimoPago = prestamo.getPagos().stream().map(Pago::getFechaPago).max(Comparator.naturalOrder()).orElse(null);
+            resumen.add(new ResumenPrestamoDTO(prestamo.getPrestamoId(), 1L, prestamo.getMontoSolicitado(), prestamo.getSaldoActual(), prestamo.getEstado(),
+                    prestamo.getFechaSolicitud(), prestamo.getFechaFinalizacion(), fechaUltimoPago));
+        }
+        return resumen;
+    }
+}
@@ -0,0 +1,58 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara dos formas de calcular el saldo pendiente de un préstamo: sumar los montos de todos sus pagos con
+ * BigDecimal, como se hacía antes de guardar el total pagado en el préstamo, y restar la columna total_pagado
+ * que hoy lee {@code calcularSaldoPendiente}. El costo de la suma crece con la cantidad de pagos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaldoPendienteBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int pagos;
+
+    private Prestamo prestamo;
+
+    private List<Pago> listaPagos;
+
+    @Setup
+    public void preparar() {
+        prestamo = DatosBenchmark.prestamo(1L, pagos, new Random(42));
+        listaPagos = new ArrayList<>(prestamo.getPagos());
+    }
+
+    @Benchmark
+    public BigDecimal sumaDePagosConStream() {
+        BigDecimal totalPagado = listaPagos.stream().map(Pago::getMontoPago).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return prestamo.getMontoSolicitado().subtract(totalPagado);
+    }
+
+    @Benchmark
+    public BigDecimal sumaDePagosConCiclo() {
+        BigDecimal totalPagado = BigDecimal.ZERO;
+        for (Pago pago : listaPagos) {
+            totalPagado = totalPagado.add(pago.getMontoPago());
+        }
+        return prestamo.getMontoSolicitado().subtract(totalPagado);
+    }
+
+    @Benchmark
+    public BigDecimal totalPagadoDelPrestamo() {
+        return prestamo.getMontoSolicitado().subtract(prestamo.getTotalPagado());
+    }
+}
@@ -0,0 +1,52 @@
+package gt.com.chn.jorgeperez.gestionprestamos.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la serialización a JSON de los grafos de {@link Cliente} y {@link Prestamo} que devuelven los controladores,
+ * con un ObjectMapper configurado como el que Spring Boot usa para las respuestas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionJsonBenchmark {
+
+    @Param({"1", "20"})
+    public int prestamos;
+
+    @Param({"0", "60"})
+    public int pagosPorPrestamo;
+
+    private ObjectMapper objectMapper;
+
+    private Cliente cliente;
+
+    private Prestamo prestamo;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cliente = DatosBenchmark.cliente(prestamos, pagosPorPrestamo);
+        prestamo = cliente.getPrestamos().iterator().next();
+    }
+
+    @Benchmark
+    public byte[] serializarCliente() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cliente);
+    }
+
+    @Benchmark
+    public byte[] serializarPrestamo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(prestamo);
+    }
+}
@@ -0,0 +1,55 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cachés en memoria de las lecturas más frecuentes: datos básicos de clientes, encabezados de préstamos y saldos.
+ * <p>
+ * Cada caché está acotada por cantidad de entradas y por tiempo desde que se guardó cada entrada. Las entradas se
+ * invalidan una por una en los métodos que modifican los datos. Dentro de una transacción, la invalidación se
+ * aplica al confirmarse, de modo que una lectura posterior no vuelva a guardar el valor anterior.
+ * Las estadísticas de aciertos, fallos y desalojos se publican en /actuator/prometheus ({@code cache_gets_total},
+ * {@code cache_evictions_total}) y las cachés se pueden consultar en /actuator/caches.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Datos básicos del cliente ({@link gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO}) por ID de cliente.
+     */
+    public static final String CLIENTES = "clientes";
+
+    /**
+     * IDs de clientes que existen. Solo se guardan los que existen, para que un cliente nuevo no aparezca como inexistente.
+     */
+    public static final String CLIENTES_EXISTENTES = "clientesExistentes";
+
+    /**
+     * Encabezado del préstamo ({@link gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO}) por ID de préstamo.
+     */
+    public static final String PRESTAMOS = "prestamos";
+
+    /**
+     * Saldo actual del préstamo por ID de préstamo.
+     */
+    public static final String SALDOS = "saldos";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.maximo-entradas:10000}") long maximoEntradas,
+                                     @Value("${cache.expiracion:10m}") Duration expiracion) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(CLIENTES, CLIENTES_EXISTENTES, PRESTAMOS, SALDOS);
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(maximoEntradas).expireAfterWrite(expiracion).recordStats());
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,74 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Regiones de la caché de segundo nivel de Hibernate, almacenadas en Caffeine a través de JCache.
+ * <p>
+ * Se guardan las entidades {@code Cliente} y {@code Prestamo}, la colección de préstamos de cada cliente y los
+ * resultados de las consultas por estado que repiten los tableros de consulta. Cada región tiene su propio límite
+ * de entradas, configurable en application.properties; las regiones que Hibernate no encuentre aquí hacen fallar el
+ * arranque ({@code hibernate.javax.cache.missing_cache_strategy=fail}) en lugar de crearse sin límite.
+ * Las estadísticas de cada región se publican en /actuator/prometheus ({@code hibernate_second_level_cache_requests_total},
+ * {@code hibernate_cache_query_requests_total}).
+ */
+@Configuration
+public class CacheHibernateConfig {
+
+    /**
+     * Región de las entidades {@code Cliente}.
+     */
+    public static final String REGION_CLIENTES = "entidad.cliente";
+
+    /**
+     * Región de las entidades {@code Prestamo}.
+     */
+    public static final String REGION_PRESTAMOS = "entidad.prestamo";
+
+    /**
+     * Región de la colección de préstamos de cada cliente.
+     */
+    public static final String REGION_PRESTAMOS_DE_CLIENTE = "coleccion.cliente.prestamos";
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(@Value("${cache.hibernate.clientes.maximo-entradas:10000}") long maximoClientes,
+                                                                     @Value("${cache.hibernate.prestamos.maximo-entradas:50000}") long maximoPrestamos,
+                                                                     @Value("${cache.hibernate.prestamos-de-cliente.maximo-entradas:10000}") long maximoPrestamosDeCliente,
+                                                                     @Value("${cache.hibernate.consultas.maximo-entradas:1000}") long maximoConsultas,
+                                                                     @Value("${cache.hibernate.expiracion:10m}") Duration expiracion) {
+        return propiedades -> {
+            // Un CacheManager propio por cada EntityManagerFactory, porque Hibernate lo cierra al cerrarse la fábrica
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                    .getCacheManager(URI.create("gestion-prestamos-" + UUID.randomUUID()), CacheHibernateConfig.class.getClassLoader());
+            cacheManager.createCache(REGION_CLIENTES, region(maximoClientes, expiracion));
+            cacheManager.createCache(REGION_PRESTAMOS, region(maximoPrestamos, expiracion));
+            cacheManager.createCache(REGION_PRESTAMOS_DE_CLIENTE, region(maximoPrestamosDeCliente, expiracion));
+            cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(maximoConsultas, expiracion));
+            // Las marcas de actualización por tabla no deben desalojarse: sin ellas, una consulta guardada parecería vigente
+            cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>().setStoreByValue(false));
+            propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximoEntradas, Duration expiracion) {
+        // Hibernate guarda copias desensambladas e inmutables del estado, así que no hace falta copiarlas otra vez
+        return new CaffeineConfiguration<>()
+                .setMaximumSize(OptionalLong.of(maximoEntradas))
+                .setExpireAfterWrite(OptionalLong.of(expiracion.toNanos()))
+                .setStoreByValue(false);
+    }
+}
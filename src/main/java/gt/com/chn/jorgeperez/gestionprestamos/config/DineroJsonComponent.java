@@ -0,0 +1,40 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Escribe y lee los montos {@link Dinero} en JSON como números con dos decimales ({@code 150.00}), igual que los
+ * montos {@code BigDecimal}. Un monto con más de dos decimales se rechaza al leerlo.
+ */
+@JsonComponent
+public class DineroJsonComponent {
+
+    public static class Serializador extends JsonSerializer<Dinero> {
+
+        @Override
+        public void serialize(Dinero monto, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            generador.writeNumber(monto.aBigDecimal());
+        }
+    }
+
+    public static class Deserializador extends JsonDeserializer<Dinero> {
+
+        @Override
+        public Dinero deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            try {
+                return Dinero.de(parser.getDecimalValue());
+            } catch (ArithmeticException e) {
+                return (Dinero) contexto.handleWeirdNumberValue(Dinero.class, parser.getNumberValue(), "el monto debe tener dos decimales como máximo");
+            }
+        }
+    }
+}
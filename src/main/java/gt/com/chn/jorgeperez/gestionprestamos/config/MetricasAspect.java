@@ -0,0 +1,71 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas de Micrometer que Spring Boot no registra por sí mismo.
+ * <ul>
+ *     <li>{@code gestion.servicios}: duración de cada método público de los servicios ({@code *Service}), etiquetada
+ *     con el servicio, el método, el resultado ({@code exito} o {@code error}) y la excepción lanzada.</li>
+ *     <li>{@code gestion.excepciones.manejadas}: cantidad de excepciones que responde
+ *     {@link gt.com.chn.jorgeperez.gestionprestamos.exception.GlobalExceptionHandler}, por tipo de excepción y
+ *     código HTTP de la respuesta.</li>
+ * </ul>
+ * Los endpoints ({@code http.server.requests}), los métodos de los repositorios
+ * ({@code spring.data.repository.invocations}) y el pool de conexiones ({@code hikaricp.connections.*}) los
+ * instrumenta Spring Boot Actuator.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+    private static final String NINGUNA = "ninguna";
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricasAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * gt.com.chn.jorgeperez.gestionprestamos.service..*Service+.*(..))")
+    public Object medirServicio(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "exito";
+        String excepcion = NINGUNA;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            resultado = "error";
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            muestra.stop(Timer.builder("gestion.servicios")
+                    .description("Duración de los métodos de los servicios")
+                    .tag("servicio", joinPoint.getTarget().getClass().getSimpleName())
+                    .tag("metodo", joinPoint.getSignature().getName())
+                    .tag("resultado", resultado)
+                    .tag("excepcion", excepcion)
+                    .register(meterRegistry));
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* gt.com.chn.jorgeperez.gestionprestamos.exception.GlobalExceptionHandler.*(..)) " +
+            "&& @annotation(org.springframework.web.bind.annotation.ExceptionHandler) && args(excepcion, ..)", returning = "respuesta")
+    public void contarExcepcion(Exception excepcion, Object respuesta) {
+        String estado = respuesta instanceof ResponseEntity<?> entidad ? String.valueOf(entidad.getStatusCode().value()) : NINGUNA;
+        Counter.builder("gestion.excepciones.manejadas")
+                .description("Excepciones respondidas por el manejador global de excepciones")
+                .tag("tipo", excepcion.getClass().getSimpleName())
+                .tag("estado", estado)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,12 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas periódicas del paquete {@code job}, que se ejecutan en el planificador de Spring.
+ */
+@Configuration
+@EnableScheduling
+public class ProgramacionConfig {
+}
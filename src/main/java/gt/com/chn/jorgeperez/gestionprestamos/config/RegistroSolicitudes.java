@@ -0,0 +1,63 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registro estructurado de las solicitudes que reciben los controladores.
+ * <p>
+ * Cada línea lleva el nombre del endpoint y, como pares clave-valor, solo los IDs y los campos escalares que
+ * identifican la operación ({@code %kvp} en logback-spring.xml). Nunca se registran entidades completas: su
+ * {@code toString()} recorre asociaciones que pueden dispararse como cargas diferidas solo para armar el mensaje.
+ * Tampoco se registran datos personales ni texto libre, como el número de identificación del cliente o el motivo
+ * de un rechazo; para identificar al cliente o al préstamo basta su ID.
+ * <p>
+ * El muestreo se configura por endpoint con {@code registro.solicitudes.muestreo.<endpoint>}, una fracción entre 0 y 1
+ * de las solicitudes que se registran; los endpoints sin valor propio usan {@code registro.solicitudes.muestreo-por-defecto}.
+ * Si la solicitud no se registra, se devuelve un constructor vacío que descarta los pares clave-valor sin crear objetos.
+ */
+@Component
+public class RegistroSolicitudes {
+
+    private static final String PREFIJO_MUESTREO = "registro.solicitudes.muestreo.";
+
+    private final Environment environment;
+
+    private final double muestreoPorDefecto;
+
+    // Los nombres de endpoint son constantes de los controladores, así que el mapa no crece sin límite
+    private final Map<String, Double> muestreoPorEndpoint = new ConcurrentHashMap<>();
+
+    public RegistroSolicitudes(Environment environment) {
+        this.environment = environment;
+        this.muestreoPorDefecto = environment.getProperty("registro.solicitudes.muestreo-por-defecto", Double.class, 1.0);
+    }
+
+    /**
+     * Inicia el registro en nivel INFO de una solicitud al endpoint indicado, si el nivel está habilitado y la
+     * solicitud entra en la muestra.
+     *
+     * @param log      Logger del controlador.
+     * @param endpoint Nombre del endpoint, por ejemplo {@code agregar-cliente}.
+     * @return El constructor del evento, con el endpoint ya agregado, o uno que no registra nada.
+     */
+    public LoggingEventBuilder info(Logger log, String endpoint) {
+        if (!log.isInfoEnabled() || !muestrear(endpoint)) {
+            return NOPLoggingEventBuilder.singleton();
+        }
+        return log.atInfo().addKeyValue("endpoint", endpoint);
+    }
+
+    private boolean muestrear(String endpoint) {
+        double fraccion = muestreoPorEndpoint.computeIfAbsent(endpoint,
+                nombre -> environment.getProperty(PREFIJO_MUESTREO + nombre, Double.class, muestreoPorDefecto));
+        return fraccion >= 1.0 || (fraccion > 0.0 && ThreadLocalRandom.current().nextDouble() < fraccion);
+    }
+}
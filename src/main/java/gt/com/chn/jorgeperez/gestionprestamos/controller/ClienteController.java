@@ -1,14 +1,23 @@
 package gt.com.chn.jorgeperez.gestionprestamos.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.config.RegistroSolicitudes;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ClienteDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.mapper.ClienteMapper;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
 import gt.com.chn.jorgeperez.gestionprestamos.service.ClienteService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
 import java.util.List;
 
@@ -20,51 +29,77 @@ public class ClienteController {
 
     private final ClienteService clienteService;
 
+    private final ClienteMapper clienteMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final RegistroSolicitudes registroSolicitudes;
+
     @Autowired
-    public ClienteController(ClienteService clienteService) {
+    public ClienteController(ClienteService clienteService, ClienteMapper clienteMapper, ObjectMapper objectMapper, RegistroSolicitudes registroSolicitudes) {
         this.clienteService = clienteService;
+        this.clienteMapper = clienteMapper;
+        this.objectMapper = objectMapper;
+        this.registroSolicitudes = registroSolicitudes;
     }
 
     @PostMapping
-    public ResponseEntity<Cliente> agregarCliente(@RequestBody Cliente cliente) {
-        log.info("Agregando cliente: {}", cliente);
+    public ResponseEntity<ClienteDTO> agregarCliente(@RequestBody Cliente cliente) {
         Cliente clienteGuardado = clienteService.guardarCliente(cliente);
-        return new ResponseEntity<>(clienteGuardado, HttpStatus.CREATED);
+        // Se registra después de guardar, con el ID asignado: el número de identificación es un dato personal
+        registroSolicitudes.info(log, "agregar-cliente").addKeyValue("clienteId", clienteGuardado.getClienteId()).log("Cliente agregado");
+        return new ResponseEntity<>(clienteMapper.aDTO(clienteGuardado), HttpStatus.CREATED);
     }
 
+    // Listar clientes por páginas: ?after=<último clienteId recibido>&limit=<tamaño de página>
     @GetMapping
-    public ResponseEntity<List<Cliente>> listarTodosLosClientes() {
-        log.info("Listando todos los clientes");
-        System.out.println("Listando todos los clientes");
-        List<Cliente> clientes = clienteService.listarTodosLosClientes();
+    public ResponseEntity<List<ResumenClienteDTO>> listarClientes(@RequestParam(name = "after", defaultValue = "0") Long despuesDe, @RequestParam(name = "limit", defaultValue = "50") int limite) {
+        registroSolicitudes.info(log, "listar-clientes").addKeyValue("despuesDe", despuesDe).addKeyValue("limite", limite).log("Listando clientes");
+        List<ResumenClienteDTO> clientes = clienteService.listarClientes(despuesDe, limite);
         return new ResponseEntity<>(clientes, HttpStatus.OK);
     }
 
+    // Exportar todos los clientes como NDJSON (un cliente por línea), sin cargarlos completos en memoria
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarClientes() {
+        registroSolicitudes.info(log, "exportar-clientes").log("Exportando todos los clientes en formato NDJSON");
+        StreamingResponseBody cuerpo = salida -> clienteService.exportarClientes(cliente -> {
+            try {
+                salida.write(objectMapper.writeValueAsBytes(cliente));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+
+    // Los préstamos y sus pagos se cargan en la misma consulta, así que la conversión no accede a la base de datos
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> obtenerClientePorId(@PathVariable Long id) {
-        log.info("Obteniendo cliente por ID: {}", id);
-        return clienteService.obtenerClientePorId(id).map(cliente -> new ResponseEntity<>(cliente, HttpStatus.OK)).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<ClienteDTO> obtenerClientePorId(@PathVariable Long id) {
+        registroSolicitudes.info(log, "obtener-cliente").addKeyValue("clienteId", id).log("Obteniendo cliente por ID");
+        return clienteService.obtenerClienteConPrestamosPorId(id).map(cliente -> new ResponseEntity<>(clienteMapper.aDTO(cliente), HttpStatus.OK)).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Datos básicos del cliente, sin sus préstamos; se sirven desde la caché de clientes
+    @GetMapping("/{id}/resumen")
+    public ResponseEntity<ResumenClienteDTO> obtenerResumenCliente(@PathVariable Long id) {
+        registroSolicitudes.info(log, "obtener-resumen-cliente").addKeyValue("clienteId", id).log("Obteniendo resumen del cliente");
+        return ResponseEntity.ok(clienteService.obtenerResumenClientePorId(id));
     }
 
+    // La respuesta contiene solo los datos básicos del cliente, sin sus préstamos
     @PutMapping("/{id}")
-    public ResponseEntity<Cliente> actualizarCliente(@PathVariable Long id, @RequestBody Cliente clienteActualizado) {
-        log.info("Actualizando cliente con ID: {}", id);
-        return clienteService.obtenerClientePorId(id).map(cliente -> {
-            cliente.setNombre(clienteActualizado.getNombre());
-            cliente.setApellido(clienteActualizado.getApellido());
-            cliente.setNumeroIdentificacion(clienteActualizado.getNumeroIdentificacion());
-            cliente.setFechaNacimiento(clienteActualizado.getFechaNacimiento());
-            cliente.setDireccion(clienteActualizado.getDireccion());
-            cliente.setCorreoElectronico(clienteActualizado.getCorreoElectronico());
-            cliente.setTelefono(clienteActualizado.getTelefono());
-            Cliente clienteGuardado = clienteService.actualizarCliente(cliente);
-            return new ResponseEntity<>(clienteGuardado, HttpStatus.OK);
-        }).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<ResumenClienteDTO> actualizarCliente(@PathVariable Long id, @RequestBody Cliente clienteActualizado) {
+        registroSolicitudes.info(log, "actualizar-cliente").addKeyValue("clienteId", id).log("Actualizando cliente");
+        Cliente clienteGuardado = clienteService.actualizarCliente(id, clienteActualizado);
+        ResumenClienteDTO respuesta = new ResumenClienteDTO(clienteGuardado.getClienteId(), clienteGuardado.getNombre(), clienteGuardado.getApellido(), clienteGuardado.getNumeroIdentificacion(), clienteGuardado.getCorreoElectronico(), clienteGuardado.getTelefono(), clienteGuardado.isActivo());
+        return new ResponseEntity<>(respuesta, HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarCliente(@PathVariable Long id) {
-        log.info("Eliminando cliente con ID: {}", id);
+        registroSolicitudes.info(log, "eliminar-cliente").addKeyValue("clienteId", id).log("Eliminando cliente");
         clienteService.eliminarCliente(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
@@ -1,19 +1,37 @@
 package gt.com.chn.jorgeperez.gestionprestamos.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.config.RegistroSolicitudes;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenLotePagosDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
-import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.service.IdempotenciaPagoService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PagoLoteService;
 import gt.com.chn.jorgeperez.gestionprestamos.service.PagoService;
 import gt.com.chn.jorgeperez.gestionprestamos.service.PrestamoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/pagos")
@@ -27,35 +45,83 @@ public class PagoController {
     @Autowired
     private PrestamoService prestamoService;
 
+    @Autowired
+    private PagoLoteService pagoLoteService;
+
+    @Autowired
+    private IdempotenciaPagoService idempotenciaPagoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RegistroSolicitudes registroSolicitudes;
+
     // Listar préstamos aprobados por cliente
     @GetMapping("/prestamos-aprobados/{clienteId}")
     public ResponseEntity<List<ResumenPrestamoDTO>> listarPrestamosAprobadosPorCliente(@PathVariable Long clienteId) {
-        log.info("Listando préstamos aprobados para el cliente con ID: {}", clienteId);
+        registroSolicitudes.info(log, "prestamos-aprobados").addKeyValue("clienteId", clienteId).log("Listando préstamos aprobados del cliente");
         List<ResumenPrestamoDTO> prestamos = pagoService.listarPrestamosAprobadosPorCliente(clienteId);
         return ResponseEntity.ok(prestamos);
     }
 
-    // Registrar pago
+    // Registrar pago. Con la cabecera Idempotency-Key, los reintentos con la misma clave devuelven el pago original
     @PostMapping("/registrar")
-    public ResponseEntity<Pago> registrarPago(@RequestBody Pago pago) {
-        log.info("Registrando pago: {}", pago);
-        Pago pagoGuardado = pagoService.guardarPago(pago);
-        return new ResponseEntity<>(pagoGuardado, HttpStatus.CREATED);
+    public ResponseEntity<PagoDTO> registrarPago(@RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia, @RequestBody SolicitudPagoDTO solicitudPagoDTO) {
+        registroSolicitudes.info(log, "registrar-pago").addKeyValue("prestamoId", solicitudPagoDTO.getPrestamoId()).addKeyValue("montoPago", solicitudPagoDTO.getMontoPago())
+                .addKeyValue("claveIdempotencia", claveIdempotencia).log("Registrando pago");
+        PagoDTO pagoRegistrado = idempotenciaPagoService.registrarPago(claveIdempotencia, solicitudPagoDTO);
+        return new ResponseEntity<>(pagoRegistrado, HttpStatus.CREATED);
+    }
+
+    // Registrar un lote de pagos (archivo de remesas del banco) en CSV o NDJSON.
+    // El cuerpo se procesa línea por línea y la respuesta es NDJSON: un resultado por línea y el resumen al final.
+    @PostMapping(value = "/lote", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void registrarLote(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipoContenido, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PagoLoteService.Formato formato = MediaType.APPLICATION_NDJSON.includes(tipoContenido) ? PagoLoteService.Formato.NDJSON : PagoLoteService.Formato.CSV;
+        Charset codificacion = tipoContenido.getCharset() != null ? tipoContenido.getCharset() : StandardCharsets.UTF_8;
+        registroSolicitudes.info(log, "registrar-lote").addKeyValue("formato", formato).log("Registrando lote de pagos");
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream salida = response.getOutputStream();
+        try (Reader lector = new InputStreamReader(request.getInputStream(), codificacion)) {
+            ResumenLotePagosDTO resumen = pagoLoteService.registrarLote(lector, formato, resultado -> escribirLinea(salida, resultado));
+            escribirLinea(salida, resumen);
+        }
+        salida.flush();
+    }
+
+    private void escribirLinea(OutputStream salida, Object valor) {
+        try {
+            salida.write(objectMapper.writeValueAsBytes(valor));
+            salida.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     // Consultar saldo pendiente
     @GetMapping("/saldo-pendiente/{prestamoId}")
     public ResponseEntity<BigDecimal> consultarSaldoPendiente(@PathVariable Long prestamoId) {
-        log.info("Consultando saldo pendiente para el préstamo con ID: {}", prestamoId);
+        registroSolicitudes.info(log, "saldo-pendiente").addKeyValue("prestamoId", prestamoId).log("Consultando saldo pendiente");
         BigDecimal saldoPendiente = pagoService.consultarSaldoPendiente(prestamoId);
         return ResponseEntity.ok(saldoPendiente);
     }
 
+    // Consultar los saldos de varios préstamos en una sola solicitud; los préstamos que no existen se omiten
+    @PostMapping("/saldos")
+    public ResponseEntity<Map<Long, BigDecimal>> consultarSaldosPendientes(@RequestBody List<Long> prestamoIds) {
+        registroSolicitudes.info(log, "saldos-pendientes").addKeyValue("cantidad", prestamoIds.size()).log("Consultando saldos pendientes");
+        return ResponseEntity.ok(pagoService.consultarSaldosPendientes(prestamoIds));
+    }
+
     // Actualizar estado de préstamo al finiquitar deuda
     @PutMapping("/finalizar-prestamo/{prestamoId}")
     public ResponseEntity<?> finalizarPrestamo(@PathVariable Long prestamoId) {
         try {
-            log.info("Finalizando préstamo con ID: {}", prestamoId);
+            registroSolicitudes.info(log, "finalizar-prestamo").addKeyValue("prestamoId", prestamoId).log("Finalizando préstamo");
             pagoService.finalizarPrestamo(prestamoId);
             return ResponseEntity.ok().build();
         } catch (RuntimeException e) {
@@ -1,19 +1,37 @@
 package gt.com.chn.jorgeperez.gestionprestamos.controller;
 
+import gt.com.chn.jorgeperez.gestionprestamos.config.RegistroSolicitudes;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PlanPagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PrestamoDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.RespuestaAprobacionDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenDevengoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenMorosidadDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.mapper.PrestamoMapper;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
 import gt.com.chn.jorgeperez.gestionprestamos.service.ClienteService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.DevengoInteresService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.MorosidadService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PlanPagosService;
 import gt.com.chn.jorgeperez.gestionprestamos.service.PrestamoService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.RevisionPrestamoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -28,44 +46,128 @@ public class PrestamoController {
     @Autowired
     private ClienteService clienteService;
 
+    @Autowired
+    private PlanPagosService planPagosService;
+
+    @Autowired
+    private MorosidadService morosidadService;
+
+    @Autowired
+    private DevengoInteresService devengoInteresService;
+
+    @Autowired
+    private RevisionPrestamoService revisionPrestamoService;
+
+    @Autowired
+    private PrestamoMapper prestamoMapper;
+
+    @Autowired
+    private RegistroSolicitudes registroSolicitudes;
+
     // Permitir a un cliente solicitar un nuevo préstamo bancario
     @PostMapping
-    public ResponseEntity<Prestamo> solicitarPrestamo(@RequestBody SolicitudPrestamoDTO solicitud) {
-        log.info("Solicitando nuevo préstamo: {}", solicitud.toString());
+    public ResponseEntity<PrestamoDTO> solicitarPrestamo(@RequestBody SolicitudPrestamoDTO solicitud) {
+        registroSolicitudes.info(log, "solicitar-prestamo").addKeyValue("clienteId", solicitud.getClienteId()).addKeyValue("montoSolicitado", solicitud.getMontoSolicitado()).addKeyValue("plazo", solicitud.getPlazo()).log("Solicitando nuevo préstamo");
         Prestamo nuevoPrestamo = prestamoService.guardarPrestamo(solicitud);
-        return new ResponseEntity<>(nuevoPrestamo, HttpStatus.CREATED);
+        return new ResponseEntity<>(prestamoMapper.aDTO(nuevoPrestamo), HttpStatus.CREATED);
     }
 
 
-    // Ver la lista de solicitudes de préstamos pendientes para cada cliente, incluyendo su estado actual
+    // Ver la lista de solicitudes de préstamos pendientes para cada cliente, incluyendo su estado actual.
+    // Los pagos se cargan en la misma consulta, así que la conversión no accede a la base de datos
     @GetMapping("/pendientes/cliente/{clienteId}")
-    public ResponseEntity<List<Prestamo>> solicitudesPendientesPorCliente(@PathVariable Long clienteId) {
-        log.info("Consultando solicitudes de préstamos pendientes para el cliente con ID: {}", clienteId);
+    public ResponseEntity<List<PrestamoDTO>> solicitudesPendientesPorCliente(@PathVariable Long clienteId) {
+        registroSolicitudes.info(log, "solicitudes-pendientes").addKeyValue("clienteId", clienteId).log("Consultando solicitudes de préstamos pendientes del cliente");
         List<Prestamo> prestamosPendientes = prestamoService.obtenerSolicitudesPrestamosPendientesPorClienteId(clienteId);
-        return new ResponseEntity<>(prestamosPendientes, HttpStatus.OK);
+        return new ResponseEntity<>(prestamoMapper.aDTOs(prestamosPendientes), HttpStatus.OK);
+    }
+
+    // Totales de la cartera por estado: cantidad de préstamos, monto solicitado y saldo actual
+    @GetMapping("/cartera")
+    public ResponseEntity<List<ResumenCarteraDTO>> obtenerResumenCartera() {
+        registroSolicitudes.info(log, "resumen-cartera").log("Consultando totales de la cartera");
+        return ResponseEntity.ok(prestamoService.obtenerResumenCartera());
+    }
+
+    // Préstamos en mora según el último cálculo de morosidad, del más atrasado al menos atrasado; opcionalmente de un tramo
+    @GetMapping("/morosos")
+    public ResponseEntity<List<MorosidadDTO>> listarMorosos(@RequestParam(required = false) TramoMorosidad tramo) {
+        registroSolicitudes.info(log, "prestamos-morosos").addKeyValue("tramo", tramo).log("Consultando préstamos en mora");
+        return ResponseEntity.ok(morosidadService.listarMorosos(tramo));
+    }
+
+    // Recalcular la morosidad a la fecha del día sin esperar a la ejecución programada
+    @PostMapping("/morosos/calcular")
+    public ResponseEntity<ResumenMorosidadDTO> calcularMorosidad() {
+        registroSolicitudes.info(log, "calcular-morosidad").log("Calculando morosidad de la cartera");
+        return ResponseEntity.ok(morosidadService.calcularMorosidad(LocalDate.now()));
+    }
+
+    // Devengar los intereses de un día, por defecto el anterior, sin esperar a la ejecución programada
+    @PostMapping("/intereses/devengar")
+    public ResponseEntity<ResumenDevengoDTO> devengarIntereses(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        LocalDate dia = fecha != null ? fecha : LocalDate.now().minusDays(1);
+        registroSolicitudes.info(log, "devengar-intereses").addKeyValue("fecha", dia).log("Devengando intereses");
+        return ResponseEntity.ok(devengoInteresService.devengarIntereses(dia));
+    }
+
+    // Reservar para un revisor las solicitudes en proceso más antiguas que ningún otro revisor tenga reservadas
+    @PostMapping("/revision/reservar")
+    public ResponseEntity<List<SolicitudPendienteDTO>> reservarSolicitudes(@RequestParam String revisor, @RequestParam(defaultValue = "10") int cantidad) {
+        registroSolicitudes.info(log, "reservar-solicitudes").addKeyValue("revisor", revisor).addKeyValue("cantidad", cantidad).log("Reservando solicitudes para revisión");
+        return ResponseEntity.ok(revisionPrestamoService.reservarSolicitudes(revisor, cantidad));
+    }
+
+    // Devolver a la cola una solicitud reservada sin aprobarla ni rechazarla
+    @PostMapping("/revision/{prestamoId}/liberar")
+    public ResponseEntity<Void> liberarSolicitud(@PathVariable Long prestamoId, @RequestParam String revisor) {
+        registroSolicitudes.info(log, "liberar-solicitud").addKeyValue("prestamoId", prestamoId).addKeyValue("revisor", revisor).log("Liberando solicitud reservada");
+        revisionPrestamoService.liberarSolicitud(prestamoId, revisor);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Recibir por Server-Sent Events las solicitudes en proceso que se guarden, en lugar de consultar las pendientes
+    @GetMapping(value = "/revision/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirSolicitudesPendientes() {
+        registroSolicitudes.info(log, "suscribir-solicitudes").log("Suscribiendo a las solicitudes pendientes");
+        return revisionPrestamoService.suscribirSolicitudesPendientes();
+    }
+
+    // Consultar el encabezado de un préstamo; se sirve desde la caché de préstamos
+    @GetMapping("/{id}")
+    public ResponseEntity<ResumenPrestamoDTO> obtenerPrestamo(@PathVariable Long id) {
+        registroSolicitudes.info(log, "obtener-prestamo").addKeyValue("prestamoId", id).log("Consultando préstamo");
+        return ResponseEntity.ok(prestamoService.obtenerResumenPrestamoPorId(id));
+    }
+
+    // Plan de pagos del préstamo con amortización francesa: cuota fija mensual, capital, intereses y saldo de cada cuota
+    @GetMapping("/{id}/plan")
+    public ResponseEntity<PlanPagosDTO> obtenerPlanPagos(@PathVariable Long id) {
+        registroSolicitudes.info(log, "plan-pagos").addKeyValue("prestamoId", id).log("Consultando plan de pagos");
+        return ResponseEntity.ok(planPagosService.obtenerPlanPagos(id));
     }
 
-    // Aprobar una solicitud de préstamo
+    // Aprobar una solicitud de préstamo; si otro revisor la tiene reservada, la aprobación se rechaza
     @PostMapping("/aprobar/{id}")
-    public ResponseEntity<RespuestaAprobacionDTO> aprobarPrestamo(@PathVariable Long id) {
-        log.info("Aprobando solicitud de préstamo con ID: {}", id);
-        RespuestaAprobacionDTO respuesta = prestamoService.aprobarPrestamo(id);
+    public ResponseEntity<RespuestaAprobacionDTO> aprobarPrestamo(@PathVariable Long id, @RequestParam String revisor) {
+        registroSolicitudes.info(log, "aprobar-prestamo").addKeyValue("prestamoId", id).addKeyValue("revisor", revisor).log("Aprobando solicitud de préstamo");
+        RespuestaAprobacionDTO respuesta = prestamoService.aprobarPrestamo(id, revisor);
         return ResponseEntity.ok(respuesta);
     }
 
 
-    // Rechazar una solicitud de préstamo
+    // Rechazar una solicitud de préstamo; si otro revisor la tiene reservada, el rechazo no se aplica
     @PostMapping("/rechazar/{prestamoId}")
-    public ResponseEntity<Void> rechazarPrestamo(@PathVariable Long prestamoId, @RequestBody String motivoRechazo) {
-        log.info("Rechazando solicitud de préstamo con ID: {}. Motivo: {}", prestamoId, motivoRechazo);
-        prestamoService.rechazarPrestamo(prestamoId, motivoRechazo);
+    public ResponseEntity<Void> rechazarPrestamo(@PathVariable Long prestamoId, @RequestParam String revisor, @RequestBody String motivoRechazo) {
+        registroSolicitudes.info(log, "rechazar-prestamo").addKeyValue("prestamoId", prestamoId).addKeyValue("revisor", revisor).log("Rechazando solicitud de préstamo");
+        prestamoService.rechazarPrestamo(prestamoId, motivoRechazo, revisor);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
     // Listar todos los préstamos de un cliente con su estado
     @GetMapping("/cliente/{clienteId}")
     public ResponseEntity<List<ResumenPrestamoDTO>> listarPrestamosPorCliente(@PathVariable Long clienteId) {
-        log.info("Listando préstamos del cliente con ID: {}", clienteId);
+        registroSolicitudes.info(log, "prestamos-por-cliente").addKeyValue("clienteId", clienteId).log("Listando préstamos del cliente");
         List<ResumenPrestamoDTO> prestamos = prestamoService.obtenerResumenPrestamosPorClienteId(clienteId);
         return new ResponseEntity<>(prestamos, HttpStatus.OK);
     }
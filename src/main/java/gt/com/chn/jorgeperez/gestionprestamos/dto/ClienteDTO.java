@@ -0,0 +1,105 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Datos completos de un cliente, con sus préstamos y los pagos de cada préstamo.
+ */
+public class ClienteDTO {
+    private Long clienteId;
+    private String nombre;
+    private String apellido;
+    private String numeroIdentificacion;
+    private Date fechaNacimiento;
+    private String direccion;
+    private String correoElectronico;
+    private String telefono;
+    private boolean activo;
+    private List<PrestamoDTO> prestamos = new ArrayList<>();
+
+    // Constructor sin argumentos
+    public ClienteDTO() {
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+
+    public void setApellido(String apellido) {
+        this.apellido = apellido;
+    }
+
+    public String getNumeroIdentificacion() {
+        return numeroIdentificacion;
+    }
+
+    public void setNumeroIdentificacion(String numeroIdentificacion) {
+        this.numeroIdentificacion = numeroIdentificacion;
+    }
+
+    public Date getFechaNacimiento() {
+        return fechaNacimiento;
+    }
+
+    public void setFechaNacimiento(Date fechaNacimiento) {
+        this.fechaNacimiento = fechaNacimiento;
+    }
+
+    public String getDireccion() {
+        return direccion;
+    }
+
+    public void setDireccion(String direccion) {
+        this.direccion = direccion;
+    }
+
+    public String getCorreoElectronico() {
+        return correoElectronico;
+    }
+
+    public void setCorreoElectronico(String correoElectronico) {
+        this.correoElectronico = correoElectronico;
+    }
+
+    public String getTelefono() {
+        return telefono;
+    }
+
+    public void setTelefono(String telefono) {
+        this.telefono = telefono;
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    public void setActivo(boolean activo) {
+        this.activo = activo;
+    }
+
+    public List<PrestamoDTO> getPrestamos() {
+        return prestamos;
+    }
+
+    public void setPrestamos(List<PrestamoDTO> prestamos) {
+        this.prestamos = prestamos;
+    }
+}
@@ -0,0 +1,68 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Una cuota del plan de pagos: el monto a pagar, cuánto amortiza del capital, cuánto es de intereses y el saldo que
+ * queda después de pagarla.
+ */
+public class CuotaPlanPagosDTO {
+    private int numeroCuota;
+    private BigDecimal cuota;
+    private BigDecimal capital;
+    private BigDecimal interes;
+    private BigDecimal saldo;
+
+    // Constructor sin argumentos
+    public CuotaPlanPagosDTO() {
+    }
+
+    // Constructor con todos los campos
+    public CuotaPlanPagosDTO(int numeroCuota, BigDecimal cuota, BigDecimal capital, BigDecimal interes, BigDecimal saldo) {
+        this.numeroCuota = numeroCuota;
+        this.cuota = cuota;
+        this.capital = capital;
+        this.interes = interes;
+        this.saldo = saldo;
+    }
+
+    public int getNumeroCuota() {
+        return numeroCuota;
+    }
+
+    public void setNumeroCuota(int numeroCuota) {
+        this.numeroCuota = numeroCuota;
+    }
+
+    public BigDecimal getCuota() {
+        return cuota;
+    }
+
+    public void setCuota(BigDecimal cuota) {
+        this.cuota = cuota;
+    }
+
+    public BigDecimal getCapital() {
+        return capital;
+    }
+
+    public void setCapital(BigDecimal capital) {
+        this.capital = capital;
+    }
+
+    public BigDecimal getInteres() {
+        return interes;
+    }
+
+    public void setInteres(BigDecimal interes) {
+        this.interes = interes;
+    }
+
+    public BigDecimal getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(BigDecimal saldo) {
+        this.saldo = saldo;
+    }
+}
@@ -0,0 +1,101 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Atraso de un préstamo a la fecha del último cálculo de morosidad: días desde el vencimiento de la cuota más
+ * antigua sin cubrir, tramo de antigüedad, cuotas vencidas y monto vencido.
+ */
+public class MorosidadDTO {
+    private Long prestamoId;
+    private Long clienteId;
+    private int diasAtraso;
+    private TramoMorosidad tramo;
+    private int cuotasVencidas;
+    private BigDecimal montoVencido;
+    private BigDecimal saldoActual;
+    private Date fechaCorte;
+
+    // Constructor sin argumentos
+    public MorosidadDTO() {
+    }
+
+    // Constructor con todos los campos
+    public MorosidadDTO(Long prestamoId, Long clienteId, int diasAtraso, TramoMorosidad tramo, int cuotasVencidas, BigDecimal montoVencido, BigDecimal saldoActual, Date fechaCorte) {
+        this.prestamoId = prestamoId;
+        this.clienteId = clienteId;
+        this.diasAtraso = diasAtraso;
+        this.tramo = tramo;
+        this.cuotasVencidas = cuotasVencidas;
+        this.montoVencido = montoVencido;
+        this.saldoActual = saldoActual;
+        this.fechaCorte = fechaCorte;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public int getDiasAtraso() {
+        return diasAtraso;
+    }
+
+    public void setDiasAtraso(int diasAtraso) {
+        this.diasAtraso = diasAtraso;
+    }
+
+    public TramoMorosidad getTramo() {
+        return tramo;
+    }
+
+    public void setTramo(TramoMorosidad tramo) {
+        this.tramo = tramo;
+    }
+
+    public int getCuotasVencidas() {
+        return cuotasVencidas;
+    }
+
+    public void setCuotasVencidas(int cuotasVencidas) {
+        this.cuotasVencidas = cuotasVencidas;
+    }
+
+    public BigDecimal getMontoVencido() {
+        return montoVencido;
+    }
+
+    public void setMontoVencido(BigDecimal montoVencido) {
+        this.montoVencido = montoVencido;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+
+    public Date getFechaCorte() {
+        return fechaCorte;
+    }
+
+    public void setFechaCorte(Date fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+}
@@ -0,0 +1,78 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Datos de un pago registrado, tal como se devuelven al registrar un pago y en los pagos de cada préstamo.
+ */
+public class PagoDTO {
+    private Long pagoId;
+    private Long prestamoId;
+    private BigDecimal montoPago;
+    private Date fechaPago;
+    private BigDecimal saldoAnterior;
+    private BigDecimal saldoActual;
+
+    // Constructor sin argumentos
+    public PagoDTO() {
+    }
+
+    // Constructor con todos los campos
+    public PagoDTO(Long pagoId, Long prestamoId, BigDecimal montoPago, Date fechaPago, BigDecimal saldoAnterior, BigDecimal saldoActual) {
+        this.pagoId = pagoId;
+        this.prestamoId = prestamoId;
+        this.montoPago = montoPago;
+        this.fechaPago = fechaPago;
+        this.saldoAnterior = saldoAnterior;
+        this.saldoActual = saldoActual;
+    }
+
+    public Long getPagoId() {
+        return pagoId;
+    }
+
+    public void setPagoId(Long pagoId) {
+        this.pagoId = pagoId;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public BigDecimal getMontoPago() {
+        return montoPago;
+    }
+
+    public void setMontoPago(BigDecimal montoPago) {
+        this.montoPago = montoPago;
+    }
+
+    public Date getFechaPago() {
+        return fechaPago;
+    }
+
+    public void setFechaPago(Date fechaPago) {
+        this.fechaPago = fechaPago;
+    }
+
+    public BigDecimal getSaldoAnterior() {
+        return saldoAnterior;
+    }
+
+    public void setSaldoAnterior(BigDecimal saldoAnterior) {
+        this.saldoAnterior = saldoAnterior;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+}
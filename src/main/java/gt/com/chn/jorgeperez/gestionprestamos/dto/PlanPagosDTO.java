@@ -0,0 +1,87 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan de pagos de un préstamo con amortización francesa, con los términos del préstamo, los totales y cada cuota.
+ */
+public class PlanPagosDTO {
+    private Long prestamoId;
+    private BigDecimal montoSolicitado;
+    private int plazo;
+    private BigDecimal tasaInteres;
+    private BigDecimal cuotaMensual;
+    private BigDecimal totalIntereses;
+    private BigDecimal totalPagar;
+    private List<CuotaPlanPagosDTO> cuotas = new ArrayList<>();
+
+    // Constructor sin argumentos
+    public PlanPagosDTO() {
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public BigDecimal getMontoSolicitado() {
+        return montoSolicitado;
+    }
+
+    public void setMontoSolicitado(BigDecimal montoSolicitado) {
+        this.montoSolicitado = montoSolicitado;
+    }
+
+    public int getPlazo() {
+        return plazo;
+    }
+
+    public void setPlazo(int plazo) {
+        this.plazo = plazo;
+    }
+
+    public BigDecimal getTasaInteres() {
+        return tasaInteres;
+    }
+
+    public void setTasaInteres(BigDecimal tasaInteres) {
+        this.tasaInteres = tasaInteres;
+    }
+
+    public BigDecimal getCuotaMensual() {
+        return cuotaMensual;
+    }
+
+    public void setCuotaMensual(BigDecimal cuotaMensual) {
+        this.cuotaMensual = cuotaMensual;
+    }
+
+    public BigDecimal getTotalIntereses() {
+        return totalIntereses;
+    }
+
+    public void setTotalIntereses(BigDecimal totalIntereses) {
+        this.totalIntereses = totalIntereses;
+    }
+
+    public BigDecimal getTotalPagar() {
+        return totalPagar;
+    }
+
+    public void setTotalPagar(BigDecimal totalPagar) {
+        this.totalPagar = totalPagar;
+    }
+
+    public List<CuotaPlanPagosDTO> getCuotas() {
+        return cuotas;
+    }
+
+    public void setCuotas(List<CuotaPlanPagosDTO> cuotas) {
+        this.cuotas = cuotas;
+    }
+}
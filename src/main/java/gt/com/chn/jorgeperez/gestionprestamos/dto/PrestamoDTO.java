@@ -0,0 +1,135 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Datos completos de un préstamo, con sus pagos, tal como los devuelven los endpoints de préstamos.
+ */
+public class PrestamoDTO {
+    private Long prestamoId;
+    private BigDecimal montoSolicitado;
+    private Integer plazo;
+    private EstadoPrestamo estado;
+    private Date fechaSolicitud;
+    private BigDecimal tasaInteres;
+    private BigDecimal saldoActual;
+    private Date fechaFinalizacion;
+    private String detalles;
+    private Date fechaUltimoPago;
+    private BigDecimal totalPagado;
+    private Integer numeroPagos;
+    private List<PagoDTO> pagos = new ArrayList<>();
+
+    // Constructor sin argumentos
+    public PrestamoDTO() {
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public BigDecimal getMontoSolicitado() {
+        return montoSolicitado;
+    }
+
+    public void setMontoSolicitado(BigDecimal montoSolicitado) {
+        this.montoSolicitado = montoSolicitado;
+    }
+
+    public Integer getPlazo() {
+        return plazo;
+    }
+
+    public void setPlazo(Integer plazo) {
+        this.plazo = plazo;
+    }
+
+    public EstadoPrestamo getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoPrestamo estado) {
+        this.estado = estado;
+    }
+
+    public Date getFechaSolicitud() {
+        return fechaSolicitud;
+    }
+
+    public void setFechaSolicitud(Date fechaSolicitud) {
+        this.fechaSolicitud = fechaSolicitud;
+    }
+
+    public BigDecimal getTasaInteres() {
+        return tasaInteres;
+    }
+
+    public void setTasaInteres(BigDecimal tasaInteres) {
+        this.tasaInteres = tasaInteres;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+
+    public Date getFechaFinalizacion() {
+        return fechaFinalizacion;
+    }
+
+    public void setFechaFinalizacion(Date fechaFinalizacion) {
+        this.fechaFinalizacion = fechaFinalizacion;
+    }
+
+    public String getDetalles() {
+        return detalles;
+    }
+
+    public void setDetalles(String detalles) {
+        this.detalles = detalles;
+    }
+
+    public Date getFechaUltimoPago() {
+        return fechaUltimoPago;
+    }
+
+    public void setFechaUltimoPago(Date fechaUltimoPago) {
+        this.fechaUltimoPago = fechaUltimoPago;
+    }
+
+    public BigDecimal getTotalPagado() {
+        return totalPagado;
+    }
+
+    public void setTotalPagado(BigDecimal totalPagado) {
+        this.totalPagado = totalPagado;
+    }
+
+    public Integer getNumeroPagos() {
+        return numeroPagos;
+    }
+
+    public void setNumeroPagos(Integer numeroPagos) {
+        this.numeroPagos = numeroPagos;
+    }
+
+    public List<PagoDTO> getPagos() {
+        return pagos;
+    }
+
+    public void setPagos(List<PagoDTO> pagos) {
+        this.pagos = pagos;
+    }
+}
@@ -1,9 +1,11 @@
 package gt.com.chn.jorgeperez.gestionprestamos.dto;
 
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
 public class RespuestaAprobacionDTO {
     private String mensaje;
     private Long prestamoId;
-    private String estado;
+    private EstadoPrestamo estado;
 
     // Constructor, getters y setters
 
@@ -14,7 +16,7 @@ public class RespuestaAprobacionDTO {
         this.mensaje = mensaje;
     }
 
-    public RespuestaAprobacionDTO(String mensaje, Long prestamoId, String estado) {
+    public RespuestaAprobacionDTO(String mensaje, Long prestamoId, EstadoPrestamo estado) {
         this.mensaje = mensaje;
         this.prestamoId = prestamoId;
         this.estado = estado;
@@ -36,11 +38,11 @@ public class RespuestaAprobacionDTO {
         this.prestamoId = prestamoId;
     }
 
-    public String getEstado() {
+    public EstadoPrestamo getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
+    public void setEstado(EstadoPrestamo estado) {
         this.estado = estado;
     }
 }
@@ -0,0 +1,88 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado del procesamiento de una línea de un lote de pagos.
+ * Indica si el pago fue registrado y, en ese caso, el saldo del préstamo antes y después del pago.
+ */
+public class ResultadoLineaPagoDTO {
+    private long linea;
+    private Long prestamoId;
+    private BigDecimal montoPago;
+    private boolean registrado;
+    private BigDecimal saldoAnterior;
+    private BigDecimal saldoActual;
+    private String mensaje;
+
+    // Constructor sin argumentos
+    public ResultadoLineaPagoDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResultadoLineaPagoDTO(long linea, Long prestamoId, BigDecimal montoPago, boolean registrado, BigDecimal saldoAnterior, BigDecimal saldoActual, String mensaje) {
+        this.linea = linea;
+        this.prestamoId = prestamoId;
+        this.montoPago = montoPago;
+        this.registrado = registrado;
+        this.saldoAnterior = saldoAnterior;
+        this.saldoActual = saldoActual;
+        this.mensaje = mensaje;
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    public void setLinea(long linea) {
+        this.linea = linea;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public BigDecimal getMontoPago() {
+        return montoPago;
+    }
+
+    public void setMontoPago(BigDecimal montoPago) {
+        this.montoPago = montoPago;
+    }
+
+    public boolean isRegistrado() {
+        return registrado;
+    }
+
+    public void setRegistrado(boolean registrado) {
+        this.registrado = registrado;
+    }
+
+    public BigDecimal getSaldoAnterior() {
+        return saldoAnterior;
+    }
+
+    public void setSaldoAnterior(BigDecimal saldoAnterior) {
+        this.saldoAnterior = saldoAnterior;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+}
@@ -0,0 +1,60 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de los préstamos que se encuentran en un estado: cuántos son, la suma de sus montos solicitados y la suma
+ * de sus saldos actuales.
+ */
+public class ResumenCarteraDTO {
+    private EstadoPrestamo estado;
+    private long cantidad;
+    private BigDecimal montoSolicitado;
+    private BigDecimal saldoActual;
+
+    // Constructor sin argumentos
+    public ResumenCarteraDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResumenCarteraDTO(EstadoPrestamo estado, long cantidad, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        this.estado = estado;
+        this.cantidad = cantidad;
+        this.montoSolicitado = montoSolicitado;
+        this.saldoActual = saldoActual;
+    }
+
+    public EstadoPrestamo getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoPrestamo estado) {
+        this.estado = estado;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public BigDecimal getMontoSolicitado() {
+        return montoSolicitado;
+    }
+
+    public void setMontoSolicitado(BigDecimal montoSolicitado) {
+        this.montoSolicitado = montoSolicitado;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+}
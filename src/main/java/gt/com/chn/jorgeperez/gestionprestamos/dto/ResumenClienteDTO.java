@@ -0,0 +1,86 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+/**
+ * Proyección liviana de un cliente, sin la relación con sus préstamos.
+ * Se utiliza para listar y exportar clientes sin cargar el grafo de préstamos y pagos.
+ */
+public class ResumenClienteDTO {
+    private Long clienteId;
+    private String nombre;
+    private String apellido;
+    private String numeroIdentificacion;
+    private String correoElectronico;
+    private String telefono;
+    private boolean activo;
+
+    // Constructor sin argumentos
+    public ResumenClienteDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResumenClienteDTO(Long clienteId, String nombre, String apellido, String numeroIdentificacion, String correoElectronico, String telefono, boolean activo) {
+        this.clienteId = clienteId;
+        this.nombre = nombre;
+        this.apellido = apellido;
+        this.numeroIdentificacion = numeroIdentificacion;
+        this.correoElectronico = correoElectronico;
+        this.telefono = telefono;
+        this.activo = activo;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getApellido() {
+        return apellido;
+    }
+
+    public void setApellido(String apellido) {
+        this.apellido = apellido;
+    }
+
+    public String getNumeroIdentificacion() {
+        return numeroIdentificacion;
+    }
+
+    public void setNumeroIdentificacion(String numeroIdentificacion) {
+        this.numeroIdentificacion = numeroIdentificacion;
+    }
+
+    public String getCorreoElectronico() {
+        return correoElectronico;
+    }
+
+    public void setCorreoElectronico(String correoElectronico) {
+        this.correoElectronico = correoElectronico;
+    }
+
+    public String getTelefono() {
+        return telefono;
+    }
+
+    public void setTelefono(String telefono) {
+        this.telefono = telefono;
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+
+    public void setActivo(boolean activo) {
+        this.activo = activo;
+    }
+}
@@ -0,0 +1,69 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Resumen del devengo de intereses de un día: préstamos con interés devengado, total devengado, duración de la
+ * ejecución y rendimiento obtenido en préstamos por segundo.
+ */
+public class ResumenDevengoDTO {
+    private Date fecha;
+    private long prestamosDevengados;
+    private BigDecimal interesDevengado;
+    private long duracionMilisegundos;
+    private double prestamosPorSegundo;
+
+    // Constructor sin argumentos
+    public ResumenDevengoDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResumenDevengoDTO(Date fecha, long prestamosDevengados, BigDecimal interesDevengado, long duracionMilisegundos, double prestamosPorSegundo) {
+        this.fecha = fecha;
+        this.prestamosDevengados = prestamosDevengados;
+        this.interesDevengado = interesDevengado;
+        this.duracionMilisegundos = duracionMilisegundos;
+        this.prestamosPorSegundo = prestamosPorSegundo;
+    }
+
+    public Date getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(Date fecha) {
+        this.fecha = fecha;
+    }
+
+    public long getPrestamosDevengados() {
+        return prestamosDevengados;
+    }
+
+    public void setPrestamosDevengados(long prestamosDevengados) {
+        this.prestamosDevengados = prestamosDevengados;
+    }
+
+    public BigDecimal getInteresDevengado() {
+        return interesDevengado;
+    }
+
+    public void setInteresDevengado(BigDecimal interesDevengado) {
+        this.interesDevengado = interesDevengado;
+    }
+
+    public long getDuracionMilisegundos() {
+        return duracionMilisegundos;
+    }
+
+    public void setDuracionMilisegundos(long duracionMilisegundos) {
+        this.duracionMilisegundos = duracionMilisegundos;
+    }
+
+    public double getPrestamosPorSegundo() {
+        return prestamosPorSegundo;
+    }
+
+    public void setPrestamosPorSegundo(double prestamosPorSegundo) {
+        this.prestamosPorSegundo = prestamosPorSegundo;
+    }
+}
@@ -0,0 +1,66 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+/**
+ * Resumen del procesamiento de un lote de pagos: cantidad de líneas procesadas, pagos registrados y rechazados,
+ * duración total y rendimiento obtenido.
+ */
+public class ResumenLotePagosDTO {
+    private long lineasProcesadas;
+    private long pagosRegistrados;
+    private long pagosRechazados;
+    private long duracionMilisegundos;
+    private double pagosPorSegundo;
+
+    // Constructor sin argumentos
+    public ResumenLotePagosDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResumenLotePagosDTO(long lineasProcesadas, long pagosRegistrados, long pagosRechazados, long duracionMilisegundos, double pagosPorSegundo) {
+        this.lineasProcesadas = lineasProcesadas;
+        this.pagosRegistrados = pagosRegistrados;
+        this.pagosRechazados = pagosRechazados;
+        this.duracionMilisegundos = duracionMilisegundos;
+        this.pagosPorSegundo = pagosPorSegundo;
+    }
+
+    public long getLineasProcesadas() {
+        return lineasProcesadas;
+    }
+
+    public void setLineasProcesadas(long lineasProcesadas) {
+        this.lineasProcesadas = lineasProcesadas;
+    }
+
+    public long getPagosRegistrados() {
+        return pagosRegistrados;
+    }
+
+    public void setPagosRegistrados(long pagosRegistrados) {
+        this.pagosRegistrados = pagosRegistrados;
+    }
+
+    public long getPagosRechazados() {
+        return pagosRechazados;
+    }
+
+    public void setPagosRechazados(long pagosRechazados) {
+        this.pagosRechazados = pagosRechazados;
+    }
+
+    public long getDuracionMilisegundos() {
+        return duracionMilisegundos;
+    }
+
+    public void setDuracionMilisegundos(long duracionMilisegundos) {
+        this.duracionMilisegundos = duracionMilisegundos;
+    }
+
+    public double getPagosPorSegundo() {
+        return pagosPorSegundo;
+    }
+
+    public void setPagosPorSegundo(double pagosPorSegundo) {
+        this.pagosPorSegundo = pagosPorSegundo;
+    }
+}
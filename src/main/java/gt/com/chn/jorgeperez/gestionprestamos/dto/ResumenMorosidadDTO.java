@@ -0,0 +1,82 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Resumen de un cálculo de morosidad: fecha de corte, préstamos aprobados evaluados, préstamos en mora por tramo,
+ * monto vencido total y duración del cálculo.
+ */
+public class ResumenMorosidadDTO {
+    private Date fechaCorte;
+    private long prestamosEvaluados;
+    private long prestamosMorosos;
+    private Map<TramoMorosidad, Long> morososPorTramo;
+    private BigDecimal montoVencido;
+    private long duracionMilisegundos;
+
+    // Constructor sin argumentos
+    public ResumenMorosidadDTO() {
+    }
+
+    // Constructor con todos los campos
+    public ResumenMorosidadDTO(Date fechaCorte, long prestamosEvaluados, long prestamosMorosos, Map<TramoMorosidad, Long> morososPorTramo, BigDecimal montoVencido, long duracionMilisegundos) {
+        this.fechaCorte = fechaCorte;
+        this.prestamosEvaluados = prestamosEvaluados;
+        this.prestamosMorosos = prestamosMorosos;
+        this.morososPorTramo = morososPorTramo;
+        this.montoVencido = montoVencido;
+        this.duracionMilisegundos = duracionMilisegundos;
+    }
+
+    public Date getFechaCorte() {
+        return fechaCorte;
+    }
+
+    public void setFechaCorte(Date fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+
+    public long getPrestamosEvaluados() {
+        return prestamosEvaluados;
+    }
+
+    public void setPrestamosEvaluados(long prestamosEvaluados) {
+        this.prestamosEvaluados = prestamosEvaluados;
+    }
+
+    public long getPrestamosMorosos() {
+        return prestamosMorosos;
+    }
+
+    public void setPrestamosMorosos(long prestamosMorosos) {
+        this.prestamosMorosos = prestamosMorosos;
+    }
+
+    public Map<TramoMorosidad, Long> getMorososPorTramo() {
+        return morososPorTramo;
+    }
+
+    public void setMorososPorTramo(Map<TramoMorosidad, Long> morososPorTramo) {
+        this.morososPorTramo = morososPorTramo;
+    }
+
+    public BigDecimal getMontoVencido() {
+        return montoVencido;
+    }
+
+    public void setMontoVencido(BigDecimal montoVencido) {
+        this.montoVencido = montoVencido;
+    }
+
+    public long getDuracionMilisegundos() {
+        return duracionMilisegundos;
+    }
+
+    public void setDuracionMilisegundos(long duracionMilisegundos) {
+        this.duracionMilisegundos = duracionMilisegundos;
+    }
+}
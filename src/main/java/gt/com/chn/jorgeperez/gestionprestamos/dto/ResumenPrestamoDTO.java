@@ -1,13 +1,16 @@
 package gt.com.chn.jorgeperez.gestionprestamos.dto;
 
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
 import java.math.BigDecimal;
 import java.util.Date;
 
 public class ResumenPrestamoDTO {
     private Long prestamoId;
+    private Long clienteId;
     private BigDecimal montoTotalPrestado;
     private BigDecimal saldoPendiente;
-    private String estado;
+    private EstadoPrestamo estado;
     private Date fechaInicio;
     private Date fechaFin;
     private Date fechaUltimoPago;
@@ -17,8 +20,9 @@ public class ResumenPrestamoDTO {
     }
 
     // Constructor con todos los campos
-    public ResumenPrestamoDTO(Long prestamoId, BigDecimal montoTotalPrestado, BigDecimal saldoPendiente, String estado, Date fechaInicio, Date fechaFin, Date fechaUltimoPago) {
+    public ResumenPrestamoDTO(Long prestamoId, Long clienteId, BigDecimal montoTotalPrestado, BigDecimal saldoPendiente, EstadoPrestamo estado, Date fechaInicio, Date fechaFin, Date fechaUltimoPago) {
         this.prestamoId = prestamoId;
+        this.clienteId = clienteId;
         this.montoTotalPrestado = montoTotalPrestado;
         this.saldoPendiente = saldoPendiente;
         this.estado = estado;
@@ -35,6 +39,14 @@ public class ResumenPrestamoDTO {
         this.prestamoId = prestamoId;
     }
 
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
     public BigDecimal getMontoTotalPrestado() {
         return montoTotalPrestado;
     }
@@ -51,11 +63,11 @@ public class ResumenPrestamoDTO {
         this.saldoPendiente = saldoPendiente;
     }
 
-    public String getEstado() {
+    public EstadoPrestamo getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
+    public void setEstado(EstadoPrestamo estado) {
         this.estado = estado;
     }
 
@@ -0,0 +1,37 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Saldo actual de un préstamo, tal como se lee en la consulta de saldos de varios préstamos.
+ */
+public class SaldoPrestamoDTO {
+    private Long prestamoId;
+    private BigDecimal saldoActual;
+
+    // Constructor sin argumentos
+    public SaldoPrestamoDTO() {
+    }
+
+    // Constructor con todos los campos
+    public SaldoPrestamoDTO(Long prestamoId, BigDecimal saldoActual) {
+        this.prestamoId = prestamoId;
+        this.saldoActual = saldoActual;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public void setSaldoActual(BigDecimal saldoActual) {
+        this.saldoActual = saldoActual;
+    }
+}
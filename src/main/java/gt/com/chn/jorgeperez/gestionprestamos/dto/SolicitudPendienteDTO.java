@@ -0,0 +1,99 @@
+package gt.com.chn.jorgeperez.gestionprestamos.dto;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Solicitud de préstamo en proceso en la cola de revisión: los datos que el revisor necesita para evaluarla y, si la
+ * tiene reservada, quién la reservó y hasta cuándo.
+ */
+public class SolicitudPendienteDTO {
+    private Long prestamoId;
+    private Long clienteId;
+    private BigDecimal montoSolicitado;
+    private Integer plazo;
+    private BigDecimal tasaInteres;
+    private Date fechaSolicitud;
+    private String revisor;
+    private Date reservadaHasta;
+
+    // Constructor sin argumentos
+    public SolicitudPendienteDTO() {
+    }
+
+    // Constructor con todos los campos
+    public SolicitudPendienteDTO(Long prestamoId, Long clienteId, BigDecimal montoSolicitado, Integer plazo, BigDecimal tasaInteres, Date fechaSolicitud, String revisor, Date reservadaHasta) {
+        this.prestamoId = prestamoId;
+        this.clienteId = clienteId;
+        this.montoSolicitado = montoSolicitado;
+        this.plazo = plazo;
+        this.tasaInteres = tasaInteres;
+        this.fechaSolicitud = fechaSolicitud;
+        this.revisor = revisor;
+        this.reservadaHasta = reservadaHasta;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public void setPrestamoId(Long prestamoId) {
+        this.prestamoId = prestamoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public void setClienteId(Long clienteId) {
+        this.clienteId = clienteId;
+    }
+
+    public BigDecimal getMontoSolicitado() {
+        return montoSolicitado;
+    }
+
+    public void setMontoSolicitado(BigDecimal montoSolicitado) {
+        this.montoSolicitado = montoSolicitado;
+    }
+
+    public Integer getPlazo() {
+        return plazo;
+    }
+
+    public void setPlazo(Integer plazo) {
+        this.plazo = plazo;
+    }
+
+    public BigDecimal getTasaInteres() {
+        return tasaInteres;
+    }
+
+    public void setTasaInteres(BigDecimal tasaInteres) {
+        this.tasaInteres = tasaInteres;
+    }
+
+    public Date getFechaSolicitud() {
+        return fechaSolicitud;
+    }
+
+    public void setFechaSolicitud(Date fechaSolicitud) {
+        this.fechaSolicitud = fechaSolicitud;
+    }
+
+    public String getRevisor() {
+        return revisor;
+    }
+
+    public void setRevisor(String revisor) {
+        this.revisor = revisor;
+    }
+
+    public Date getReservadaHasta() {
+        return reservadaHasta;
+    }
+
+    public void setReservadaHasta(Date reservadaHasta) {
+        this.reservadaHasta = reservadaHasta;
+    }
+}
@@ -1,5 +1,7 @@
 package gt.com.chn.jorgeperez.gestionprestamos.dto;
 
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
 import java.math.BigDecimal;
 import java.util.Date;
 
@@ -7,7 +9,7 @@ public class SolicitudPrestamoDTO {
     private Long clienteId;
     private BigDecimal montoSolicitado;
     private int plazo;
-    private String estado;
+    private EstadoPrestamo estado;
     private Date fechaSolicitud;
     private BigDecimal tasaInteres;
 
@@ -35,11 +37,11 @@ public class SolicitudPrestamoDTO {
         this.plazo = plazo;
     }
 
-    public String getEstado() {
+    public EstadoPrestamo getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
+    public void setEstado(EstadoPrestamo estado) {
         this.estado = estado;
     }
 
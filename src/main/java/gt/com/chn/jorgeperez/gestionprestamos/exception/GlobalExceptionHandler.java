@@ -16,6 +16,7 @@ import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Locale;
@@ -208,6 +209,17 @@ public class GlobalExceptionHandler {
         return buildResponseEntity(apiError);
     }
 
+    /**
+     * Maneja las solicitudes a rutas que no existen, incluidos los endpoints de Actuator que no se exponen.
+     */
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<Object> handleNoResourceFound(NoResourceFoundException ex) {
+        logError(ex);
+        String message = messageSource.getMessage("recurso.no.encontrado", null, LocaleContextHolder.getLocale());
+        ApiError apiError = new ApiError(HttpStatus.NOT_FOUND, message, ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<ApiError> handleIllegalStateException(IllegalStateException ex) {
         logError(ex);
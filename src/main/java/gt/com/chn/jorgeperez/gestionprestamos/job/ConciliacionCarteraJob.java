@@ -0,0 +1,66 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.AcumuladosCartera;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.BloqueoTareas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Concilia los totales de {@code resumen_cartera} con la tabla de préstamos al iniciar la aplicación y luego cada
+ * {@code cartera.resumen.intervalo-conciliacion}, contado desde el fin de la conciliación anterior. La conciliación al
+ * iniciar recupera los cambios confirmados que una instancia detenida sin volcar no llegó a guardar.
+ * <p>
+ * Cada conciliación toma la fila {@code cartera} de {@code bloqueo_tarea} por {@code cartera.resumen.bloqueo.duracion},
+ * de modo que con varias instancias solo una concilia a la vez; si otra tiene el bloqueo, esta no hace nada. Lo que
+ * las demás instancias aún no vuelcan aparece como diferencia y se corrige en la siguiente conciliación. Se desactiva
+ * con {@code cartera.resumen.conciliar=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "cartera.resumen.conciliar", havingValue = "true", matchIfMissing = true)
+public class ConciliacionCarteraJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionCarteraJob.class);
+
+    private static final String TAREA = "cartera";
+
+    private final AcumuladosCartera acumuladosCartera;
+
+    private final BloqueoTareas bloqueoTareas;
+
+    private final Duration duracionBloqueo;
+
+    @Autowired
+    public ConciliacionCarteraJob(AcumuladosCartera acumuladosCartera, BloqueoTareas bloqueoTareas,
+                                  @Value("${cartera.resumen.bloqueo.duracion:PT10M}") Duration duracionBloqueo) {
+        this.acumuladosCartera = acumuladosCartera;
+        this.bloqueoTareas = bloqueoTareas;
+        this.duracionBloqueo = duracionBloqueo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        conciliar();
+    }
+
+    @Scheduled(fixedDelayString = "${cartera.resumen.intervalo-conciliacion:PT1H}", initialDelayString = "${cartera.resumen.intervalo-conciliacion:PT1H}")
+    public void conciliar() {
+        if (!bloqueoTareas.tomar(TAREA, duracionBloqueo)) {
+            log.info("Otra instancia está conciliando los totales de la cartera");
+            return;
+        }
+        try {
+            acumuladosCartera.conciliar();
+        } finally {
+            bloqueoTareas.liberar(TAREA);
+        }
+    }
+}
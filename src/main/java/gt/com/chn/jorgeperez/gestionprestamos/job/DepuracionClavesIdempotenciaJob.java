@@ -0,0 +1,26 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.IdempotenciaPagoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Elimina de la tabla {@code clave_idempotencia} las claves con más de {@code pagos.idempotencia.expiracion} de
+ * antigüedad cada {@code pagos.idempotencia.intervalo-depuracion}, contado desde el fin de la depuración anterior.
+ */
+@Component
+public class DepuracionClavesIdempotenciaJob {
+
+    private final IdempotenciaPagoService idempotenciaPagoService;
+
+    @Autowired
+    public DepuracionClavesIdempotenciaJob(IdempotenciaPagoService idempotenciaPagoService) {
+        this.idempotenciaPagoService = idempotenciaPagoService;
+    }
+
+    @Scheduled(fixedDelayString = "${pagos.idempotencia.intervalo-depuracion:PT1H}", initialDelayString = "${pagos.idempotencia.intervalo-depuracion:PT1H}")
+    public void depurar() {
+        idempotenciaPagoService.depurarClavesVencidas();
+    }
+}
@@ -0,0 +1,36 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.DevengoInteresService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Devenga los intereses hasta el día anterior según la expresión cron {@code intereses.devengo.cron}, por defecto
+ * todos los días a las 0:30, y también al iniciar la aplicación. Cada ejecución continúa primero los devengos que
+ * quedaron a medias y devenga los días que no llegaron a devengarse.
+ */
+@Component
+public class DevengoInteresJob implements ApplicationRunner {
+
+    private final DevengoInteresService devengoInteresService;
+
+    @Autowired
+    public DevengoInteresJob(DevengoInteresService devengoInteresService) {
+        this.devengoInteresService = devengoInteresService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        devengar();
+    }
+
+    @Scheduled(cron = "${intereses.devengo.cron:0 30 0 * * *}")
+    public void devengar() {
+        devengoInteresService.devengarPendientes(LocalDate.now().minusDays(1));
+    }
+}
@@ -0,0 +1,26 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.ExposicionCredito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Vuelca la exposición de crédito de los clientes que cambiaron a la tabla {@code exposicion_cliente} cada
+ * {@code prestamos.limite-credito.intervalo-volcado}, contado desde el fin del volcado anterior.
+ */
+@Component
+public class ExposicionCreditoJob {
+
+    private final ExposicionCredito exposicionCredito;
+
+    @Autowired
+    public ExposicionCreditoJob(ExposicionCredito exposicionCredito) {
+        this.exposicionCredito = exposicionCredito;
+    }
+
+    @Scheduled(fixedDelayString = "${prestamos.limite-credito.intervalo-volcado:PT5S}", initialDelayString = "${prestamos.limite-credito.intervalo-volcado:PT5S}")
+    public void volcar() {
+        exposicionCredito.volcar();
+    }
+}
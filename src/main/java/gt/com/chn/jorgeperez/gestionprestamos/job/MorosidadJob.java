@@ -0,0 +1,28 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.MorosidadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Recalcula la tabla {@code morosidad} a la fecha del día según la expresión cron {@code morosidad.calculo.cron},
+ * por defecto todos los días a las 2:00.
+ */
+@Component
+public class MorosidadJob {
+
+    private final MorosidadService morosidadService;
+
+    @Autowired
+    public MorosidadJob(MorosidadService morosidadService) {
+        this.morosidadService = morosidadService;
+    }
+
+    @Scheduled(cron = "${morosidad.calculo.cron:0 0 2 * * *}")
+    public void calcular() {
+        morosidadService.calcularMorosidad(LocalDate.now());
+    }
+}
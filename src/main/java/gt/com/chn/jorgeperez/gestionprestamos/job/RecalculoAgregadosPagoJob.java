@@ -0,0 +1,67 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inicializa el total pagado, la cantidad de pagos y la fecha del último pago de los préstamos existentes
+ * a partir de la tabla de pagos. Se ejecuta al iniciar la aplicación solo si
+ * {@code prestamos.agregados-pagos.recalcular-al-iniciar=true}, y recorre los préstamos por rangos de IDs,
+ * cada rango en su propia transacción, para no bloquear la tabla completa.
+ */
+@Component
+@ConditionalOnProperty(name = "prestamos.agregados-pagos.recalcular-al-iniciar", havingValue = "true")
+public class RecalculoAgregadosPagoJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RecalculoAgregadosPagoJob.class);
+
+    private final PrestamoRepository prestamoRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int tamanoBloque;
+
+    @Autowired
+    public RecalculoAgregadosPagoJob(PrestamoRepository prestamoRepository, TransactionTemplate transactionTemplate,
+                                     @Value("${prestamos.agregados-pagos.tamano-bloque:1000}") int tamanoBloque) {
+        this.prestamoRepository = prestamoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        recalcular();
+    }
+
+    /**
+     * Recalcula los acumulados de pagos de todos los préstamos.
+     *
+     * @return La cantidad de préstamos actualizados.
+     */
+    public long recalcular() {
+        Long maximo = prestamoRepository.findMaxPrestamoId();
+        if (maximo == null) {
+            return 0;
+        }
+
+        long inicio = System.currentTimeMillis();
+        long actualizados = 0;
+        for (long desde = 1; desde <= maximo; desde += tamanoBloque) {
+            long inicioRango = desde;
+            long finRango = desde + tamanoBloque - 1;
+            Integer filas = transactionTemplate.execute(estado -> prestamoRepository.recalcularAgregadosDePagos(inicioRango, finRango));
+            actualizados += filas == null ? 0 : filas;
+        }
+        log.info("Acumulados de pagos recalculados para {} préstamos en {} ms", actualizados, System.currentTimeMillis() - inicio);
+        return actualizados;
+    }
+}
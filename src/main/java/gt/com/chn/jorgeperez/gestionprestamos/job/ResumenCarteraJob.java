@@ -0,0 +1,27 @@
+package gt.com.chn.jorgeperez.gestionprestamos.job;
+
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.AcumuladosCartera;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantiene la tabla {@code resumen_cartera}: vuelca los contadores en memoria cada
+ * {@code cartera.resumen.intervalo-volcado}, contado desde el fin del volcado anterior. La conciliación con la tabla de
+ * préstamos la ejecuta {@link ConciliacionCarteraJob}.
+ */
+@Component
+public class ResumenCarteraJob {
+
+    private final AcumuladosCartera acumuladosCartera;
+
+    @Autowired
+    public ResumenCarteraJob(AcumuladosCartera acumuladosCartera) {
+        this.acumuladosCartera = acumuladosCartera;
+    }
+
+    @Scheduled(fixedDelayString = "${cartera.resumen.intervalo-volcado:PT5S}", initialDelayString = "${cartera.resumen.intervalo-volcado:PT5S}")
+    public void volcar() {
+        acumuladosCartera.volcar();
+    }
+}
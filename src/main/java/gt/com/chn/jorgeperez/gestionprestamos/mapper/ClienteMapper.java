@@ -0,0 +1,17 @@
+package gt.com.chn.jorgeperez.gestionprestamos.mapper;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ClienteDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import org.mapstruct.Mapper;
+
+/**
+ * Convierte los clientes en los DTOs que devuelven los endpoints. La implementación la genera MapStruct al compilar.
+ * <p>
+ * Se leen los préstamos del cliente y sus pagos, por lo que deben estar cargados (por ejemplo con
+ * {@link Cliente#GRAFO_CON_PRESTAMOS_Y_PAGOS}) o la conversión debe hacerse dentro de la transacción.
+ */
+@Mapper(componentModel = "spring", uses = PrestamoMapper.class)
+public interface ClienteMapper {
+
+    ClienteDTO aDTO(Cliente cliente);
+}
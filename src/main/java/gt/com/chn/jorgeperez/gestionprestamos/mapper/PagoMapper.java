@@ -0,0 +1,22 @@
+package gt.com.chn.jorgeperez.gestionprestamos.mapper;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Convierte los pagos en los DTOs que devuelven los endpoints. La implementación la genera MapStruct al compilar.
+ */
+@Mapper(componentModel = "spring")
+public interface PagoMapper {
+
+    /**
+     * Convierte un pago. Del préstamo solo se lee su ID, que no requiere inicializar el préstamo si es una referencia perezosa.
+     *
+     * @param pago El pago.
+     * @return Los datos del pago.
+     */
+    @Mapping(target = "prestamoId", source = "prestamo.prestamoId")
+    PagoDTO aDTO(Pago pago);
+}
@@ -0,0 +1,21 @@
+package gt.com.chn.jorgeperez.gestionprestamos.mapper;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+/**
+ * Convierte los préstamos en los DTOs que devuelven los endpoints. La implementación la genera MapStruct al compilar.
+ * <p>
+ * Se leen los pagos de cada préstamo, por lo que deben estar cargados (por ejemplo con {@link Prestamo#GRAFO_CON_PAGOS})
+ * o la conversión debe hacerse dentro de la transacción: sin Open Session In View no hay sesión al serializar la respuesta.
+ */
+@Mapper(componentModel = "spring", uses = PagoMapper.class)
+public interface PrestamoMapper {
+
+    PrestamoDTO aDTO(Prestamo prestamo);
+
+    List<PrestamoDTO> aDTOs(List<Prestamo> prestamos);
+}
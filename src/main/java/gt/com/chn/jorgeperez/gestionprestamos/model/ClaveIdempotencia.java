@@ -0,0 +1,99 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Date;
+
+/**
+ * La clase ClaveIdempotencia registra una clave enviada en la cabecera {@code Idempotency-Key} junto con el pago
+ * que produjo, de modo que los reintentos de la misma solicitud devuelvan el pago original en lugar de registrar otro.
+ */
+
+@Entity
+@Table(name = "clave_idempotencia")
+public class ClaveIdempotencia implements Persistable<String> {
+
+    /**
+     * Clave enviada por el cliente de la API.
+     */
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+
+    /**
+     * Huella (SHA-256) de la solicitud original, para detectar la reutilización de una clave con datos distintos.
+     */
+    @Column(name = "huella_solicitud", nullable = false, length = 64)
+    private String huellaSolicitud;
+
+    /**
+     * Identificador del pago registrado con esta clave.
+     */
+    @Column(name = "pago_id")
+    private Long pagoId;
+
+    /**
+     * Fecha y hora en que se recibió la clave por primera vez.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "fecha_creacion", nullable = false)
+    private Date fechaCreacion;
+
+    /**
+     * Indica si la clave aún no se ha guardado. Como el identificador lo asigna el cliente, permite que
+     * {@code save} inserte directamente en lugar de consultar la clave antes de hacer merge.
+     */
+    @Transient
+    private boolean nueva = true;
+
+    @Override
+    public String getId() {
+        return clave;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nueva;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarGuardada() {
+        this.nueva = false;
+    }
+
+    // Getters y Setters
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHuellaSolicitud() {
+        return huellaSolicitud;
+    }
+
+    public void setHuellaSolicitud(String huellaSolicitud) {
+        this.huellaSolicitud = huellaSolicitud;
+    }
+
+    public Long getPagoId() {
+        return pagoId;
+    }
+
+    public void setPagoId(Long pagoId) {
+        this.pagoId = pagoId;
+    }
+
+    public Date getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(Date fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
@@ -1,10 +1,13 @@
 package gt.com.chn.jorgeperez.gestionprestamos.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheHibernateConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.Length;
 
 import java.util.Date;
@@ -14,18 +17,38 @@ import java.util.Set;
 /**
  * La clase Cliente representa un cliente en el sistema de gestión de préstamos bancarios.
  * Contiene información personal del cliente, así como una relación con los préstamos que el cliente haya solicitado.
+ * El cliente y su colección de préstamos se guardan en la caché de segundo nivel.
  */
 
 @Entity
 @Table(name = "cliente")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.REGION_CLIENTES)
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Cliente.GRAFO_CON_PRESTAMOS, attributeNodes = @NamedAttributeNode("prestamos")),
+        @NamedEntityGraph(name = Cliente.GRAFO_CON_PRESTAMOS_Y_PAGOS,
+                attributeNodes = @NamedAttributeNode(value = "prestamos", subgraph = "prestamo.pagos"),
+                subgraphs = @NamedSubgraph(name = "prestamo.pagos", attributeNodes = @NamedAttributeNode("pagos")))
+})
 
 public class Cliente {
 
     /**
-     * Identificador único del cliente.
+     * Grafo de carga que incluye los préstamos del cliente.
+     */
+    public static final String GRAFO_CON_PRESTAMOS = "Cliente.conPrestamos";
+
+    /**
+     * Grafo de carga que incluye los préstamos del cliente y los pagos de cada préstamo.
+     */
+    public static final String GRAFO_CON_PRESTAMOS_Y_PAGOS = "Cliente.conPrestamosYPagos";
+
+    /**
+     * Identificador único del cliente, asignado desde la tabla secuencia_id.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cliente_generador")
+    @TableGenerator(name = "cliente_generador", table = "secuencia_id", pkColumnName = "nombre_secuencia", valueColumnName = "valor_siguiente", pkColumnValue = "cliente", allocationSize = 50)
     @Column(name = "cliente_id")
     private Long clienteId;
 
@@ -90,9 +113,11 @@ public class Cliente {
 
     /**
      * Conjunto de préstamos solicitados por el cliente.
+     * Se carga de forma perezosa; las consultas que lo necesitan lo solicitan mediante un grafo de carga.
      */
     @JsonManagedReference
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.REGION_PRESTAMOS_DE_CLIENTE)
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Prestamo> prestamos = new HashSet<>();
 
     public Long getClienteId() {
@@ -175,8 +200,9 @@ public class Cliente {
         this.prestamos = prestamos;
     }
 
+    // Sin los préstamos: recorrerlos dispararía su carga diferida y volvería al cliente desde cada préstamo
     @Override
     public String toString() {
-        return "Cliente{" + "clienteId=" + clienteId + ", nombre='" + nombre + '\'' + ", apellido='" + apellido + '\'' + ", numeroIdentificacion='" + numeroIdentificacion + '\'' + ", fechaNacimiento=" + fechaNacimiento + ", direccion='" + direccion + '\'' + ", correoElectronico='" + correoElectronico + '\'' + ", telefono='" + telefono + '\'' + ", activo=" + activo + ", prestamos=" + prestamos + '}';
+        return "Cliente{" + "clienteId=" + clienteId + ", nombre='" + nombre + '\'' + ", apellido='" + apellido + '\'' + ", numeroIdentificacion='" + numeroIdentificacion + '\'' + ", fechaNacimiento=" + fechaNacimiento + ", direccion='" + direccion + '\'' + ", correoElectronico='" + correoElectronico + '\'' + ", telefono='" + telefono + '\'' + ", activo=" + activo + '}';
     }
 }
@@ -0,0 +1,90 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monto de dinero inmutable guardado como una cantidad entera de centavos.
+ * <p>
+ * Todas las columnas de montos son {@code DECIMAL(18, 2)}, así que cualquier monto guardado se representa exactamente
+ * en un {@code long}. Las sumas y restas se hacen con aritmética entera y lanzan {@link ArithmeticException} si el
+ * resultado no cabe, en lugar de desbordarse en silencio. La conversión a {@link BigDecimal} se hace solo al leer o
+ * escribir en la base de datos y en la API ({@link DineroConverter}, {@code DineroJsonComponent}).
+ */
+public final class Dinero implements Comparable<Dinero>, Serializable {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private final long centavos;
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    /**
+     * Convierte un monto a centavos.
+     *
+     * @param monto El monto, con dos decimales como máximo.
+     * @return El monto en centavos.
+     * @throws ArithmeticException Si el monto tiene centésimas de centavo o no cabe en un {@code long} de centavos.
+     */
+    public static Dinero de(BigDecimal monto) {
+        return deCentavos(monto.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    /**
+     * @return -1, 0 o 1 si el monto es negativo, cero o positivo.
+     */
+    public int signum() {
+        return Long.signum(centavos);
+    }
+
+    public boolean esMayorQue(Dinero otro) {
+        return centavos > otro.centavos;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Dinero otro && centavos == otro.centavos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,23 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Convierte los montos {@link Dinero} a las columnas {@code DECIMAL(18, 2)} y de vuelta.
+ */
+@Converter(autoApply = true)
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero monto) {
+        return monto == null ? null : monto.aBigDecimal();
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal monto) {
+        return monto == null ? null : Dinero.de(monto);
+    }
+}
@@ -0,0 +1,104 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estados por los que pasa un préstamo y las transiciones permitidas entre ellos.
+ * <p>
+ * En la base de datos cada estado se guarda con su código de un carácter; en JSON se expone con su etiqueta
+ * ("En Proceso", "Aprobado", "Rechazado", "Finalizado").
+ */
+public enum EstadoPrestamo {
+
+    EN_PROCESO("P", "En Proceso"),
+    APROBADO("A", "Aprobado"),
+    RECHAZADO("R", "Rechazado"),
+    FINALIZADO("F", "Finalizado");
+
+    /**
+     * Tabla de transiciones: para cada estado, los estados desde los que se puede llegar a él.
+     */
+    private static final Map<EstadoPrestamo, Set<EstadoPrestamo>> PREDECESORES = new EnumMap<>(EstadoPrestamo.class);
+
+    static {
+        PREDECESORES.put(EN_PROCESO, EnumSet.noneOf(EstadoPrestamo.class));
+        PREDECESORES.put(APROBADO, EnumSet.of(EN_PROCESO));
+        PREDECESORES.put(RECHAZADO, EnumSet.of(EN_PROCESO));
+        PREDECESORES.put(FINALIZADO, EnumSet.of(APROBADO));
+        PREDECESORES.replaceAll((estado, predecesores) -> Collections.unmodifiableSet(predecesores));
+    }
+
+    private final String codigo;
+
+    private final String etiqueta;
+
+    EstadoPrestamo(String codigo, String etiqueta) {
+        this.codigo = codigo;
+        this.etiqueta = etiqueta;
+    }
+
+    /**
+     * @return El código de un carácter con el que el estado se guarda en la base de datos.
+     */
+    public String getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * @return El nombre del estado que se muestra en la API.
+     */
+    @JsonValue
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+
+    /**
+     * @return Los estados desde los que un préstamo puede pasar a este estado.
+     */
+    public Set<EstadoPrestamo> getPredecesores() {
+        return PREDECESORES.get(this);
+    }
+
+    /**
+     * Indica si un préstamo en este estado puede pasar al estado indicado.
+     *
+     * @param destino El estado al que se quiere pasar.
+     * @return {@code true} si la transición está permitida.
+     */
+    public boolean puedeCambiarA(EstadoPrestamo destino) {
+        return destino.getPredecesores().contains(this);
+    }
+
+    /**
+     * Obtiene el estado que corresponde a un código de la base de datos.
+     *
+     * @param codigo El código del estado.
+     * @return El estado correspondiente.
+     * @throws IllegalArgumentException Si el código no corresponde a ningún estado.
+     */
+    public static EstadoPrestamo desdeCodigo(String codigo) {
+        return Arrays.stream(values()).filter(estado -> estado.codigo.equals(codigo)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Código de estado de préstamo no válido: " + codigo));
+    }
+
+    /**
+     * Obtiene el estado a partir de su etiqueta o de su nombre, sin distinguir mayúsculas.
+     *
+     * @param valor La etiqueta ("En Proceso") o el nombre ("EN_PROCESO") del estado.
+     * @return El estado correspondiente.
+     * @throws IllegalArgumentException Si el valor no corresponde a ningún estado.
+     */
+    @JsonCreator
+    public static EstadoPrestamo desdeEtiqueta(String valor) {
+        return Arrays.stream(values()).filter(estado -> estado.etiqueta.equalsIgnoreCase(valor) || estado.name().equalsIgnoreCase(valor)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Estado del préstamo no válido: " + valor));
+    }
+}
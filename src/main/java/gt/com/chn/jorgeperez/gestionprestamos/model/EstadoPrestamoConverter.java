@@ -0,0 +1,21 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Convierte el estado del préstamo a su código de un carácter para guardarlo en la columna {@code estado}.
+ */
+@Converter(autoApply = true)
+public class EstadoPrestamoConverter implements AttributeConverter<EstadoPrestamo, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoPrestamo estado) {
+        return estado == null ? null : estado.getCodigo();
+    }
+
+    @Override
+    public EstadoPrestamo convertToEntityAttribute(String codigo) {
+        return codigo == null ? null : EstadoPrestamo.desdeCodigo(codigo);
+    }
+}
@@ -0,0 +1,86 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * La clase Morosidad guarda el atraso de un préstamo aprobado a la fecha del último cálculo de morosidad. Solo los
+ * préstamos con cuotas vencidas sin cubrir tienen fila. Las filas las escribe el cálculo de morosidad con lotes JDBC;
+ * la aplicación solo las lee.
+ */
+@Entity
+@Immutable
+@Table(name = "morosidad")
+public class Morosidad {
+
+    @Id
+    @Column(name = "prestamo_id")
+    private Long prestamoId;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    /**
+     * Días transcurridos desde el vencimiento de la cuota más antigua que los pagos aún no cubren.
+     */
+    @Column(name = "dias_atraso", nullable = false)
+    private int diasAtraso;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tramo", length = 12, nullable = false)
+    private TramoMorosidad tramo;
+
+    /**
+     * Cuotas vencidas que los pagos no cubren total o parcialmente.
+     */
+    @Column(name = "cuotas_vencidas", nullable = false)
+    private int cuotasVencidas;
+
+    /**
+     * Suma de las cuotas vencidas menos el total pagado.
+     */
+    @Column(name = "monto_vencido", nullable = false, precision = 18, scale = 2)
+    private BigDecimal montoVencido;
+
+    @Column(name = "saldo_actual", nullable = false, precision = 18, scale = 2)
+    private BigDecimal saldoActual;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "fecha_corte", nullable = false)
+    private Date fechaCorte;
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public Long getClienteId() {
+        return clienteId;
+    }
+
+    public int getDiasAtraso() {
+        return diasAtraso;
+    }
+
+    public TramoMorosidad getTramo() {
+        return tramo;
+    }
+
+    public int getCuotasVencidas() {
+        return cuotasVencidas;
+    }
+
+    public BigDecimal getMontoVencido() {
+        return montoVencido;
+    }
+
+    public BigDecimal getSaldoActual() {
+        return saldoActual;
+    }
+
+    public Date getFechaCorte() {
+        return fechaCorte;
+    }
+}
@@ -18,10 +18,12 @@ import java.util.Date;
 public class Pago {
 
     /**
-     * Identificador único del pago.
+     * Identificador único del pago. Se reserva por bloques de 50 desde la tabla secuencia_id, de modo que
+     * Hibernate no necesita ejecutar cada inserción de inmediato y puede agruparlas en lotes JDBC.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pago_generador")
+    @TableGenerator(name = "pago_generador", table = "secuencia_id", pkColumnName = "nombre_secuencia", valueColumnName = "valor_siguiente", pkColumnValue = "pago", allocationSize = 50)
     @Column(name = "pago_id")
     private Long pagoId;
 
@@ -110,8 +112,9 @@ public class Pago {
         this.saldoActual = saldoActual;
     }
 
+    // Solo el ID del préstamo, para no inicializarlo al registrar el pago
     @Override
     public String toString() {
-        return "Pago{" + "pagoId=" + pagoId + ", prestamo=" + prestamo + ", montoPago=" + montoPago + ", fechaPago=" + fechaPago + ", saldoAnterior=" + saldoAnterior + ", saldoActual=" + saldoActual + '}';
+        return "Pago{" + "pagoId=" + pagoId + ", prestamoId=" + (prestamo != null ? prestamo.getPrestamoId() : null) + ", montoPago=" + montoPago + ", fechaPago=" + fechaPago + ", saldoAnterior=" + saldoAnterior + ", saldoActual=" + saldoActual + '}';
     }
 }
@@ -0,0 +1,137 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Plan de pagos de un préstamo con el sistema de amortización francés: cuota fija mensual, intereses sobre el saldo
+ * y el resto de la cuota como amortización del capital.
+ * <p>
+ * Los montos se manejan en centavos ({@code long}) y la tasa en centésimas de punto porcentual anual
+ * ({@code 12.50 %} es {@code 1250}), de modo que el interés de cada mes se calcula con aritmética entera y se redondea
+ * al centavo (mitad hacia arriba). Solo la cuota fija se calcula con {@code BigDecimal}, una vez por plan. La última
+ * cuota se ajusta para que el saldo termine en cero. El plan es inmutable y se puede compartir entre préstamos con los
+ * mismos términos.
+ */
+public final class PlanPagos {
+
+    // Centésimas de punto porcentual anual a tasa mensual: 100 (porcentaje) * 100 (centésimas) * 12 (meses)
+    private static final long DIVISOR_TASA_MENSUAL = 120_000L;
+
+    private final long montoCentavos;
+
+    private final long tasaCentesimas;
+
+    private final long cuotaFija;
+
+    private final long[] capital;
+
+    private final long[] interes;
+
+    private final long[] saldo;
+
+    private final long totalIntereses;
+
+    private PlanPagos(long montoCentavos, long tasaCentesimas, long cuotaFija, long[] capital, long[] interes, long[] saldo, long totalIntereses) {
+        this.montoCentavos = montoCentavos;
+        this.tasaCentesimas = tasaCentesimas;
+        this.cuotaFija = cuotaFija;
+        this.capital = capital;
+        this.interes = interes;
+        this.saldo = saldo;
+        this.totalIntereses = totalIntereses;
+    }
+
+    /**
+     * Calcula el plan de pagos.
+     *
+     * @param montoCentavos  Monto del préstamo en centavos.
+     * @param plazo          Plazo en meses.
+     * @param tasaCentesimas Tasa de interés anual en centésimas de punto porcentual.
+     * @return El plan con una cuota por mes.
+     * @throws IllegalArgumentException Si el monto o el plazo no son positivos o la tasa es negativa.
+     * @throws ArithmeticException      Si el monto es tan grande que el interés de un mes no cabe en un {@code long}.
+     */
+    public static PlanPagos calcular(long montoCentavos, int plazo, long tasaCentesimas) {
+        if (montoCentavos <= 0 || plazo <= 0 || tasaCentesimas < 0) {
+            throw new IllegalArgumentException("Términos de préstamo inválidos: monto " + montoCentavos + " centavos, plazo " + plazo + " meses, tasa " + tasaCentesimas);
+        }
+        long cuotaFija = cuotaFija(montoCentavos, plazo, tasaCentesimas);
+        long[] capital = new long[plazo];
+        long[] interes = new long[plazo];
+        long[] saldo = new long[plazo];
+        long saldoPendiente = montoCentavos;
+        long totalIntereses = 0;
+        for (int i = 0; i < plazo; i++) {
+            long interesMes = (Math.multiplyExact(saldoPendiente, tasaCentesimas) + DIVISOR_TASA_MENSUAL / 2) / DIVISOR_TASA_MENSUAL;
+            long capitalMes = i == plazo - 1 ? saldoPendiente : Math.min(Math.max(cuotaFija - interesMes, 0), saldoPendiente);
+            saldoPendiente -= capitalMes;
+            capital[i] = capitalMes;
+            interes[i] = interesMes;
+            saldo[i] = saldoPendiente;
+            totalIntereses += interesMes;
+        }
+        return new PlanPagos(montoCentavos, tasaCentesimas, cuotaFija, capital, interes, saldo, totalIntereses);
+    }
+
+    // Cuota = monto * r / (1 - (1 + r)^-plazo), con r la tasa mensual; sin intereses, el monto entre el plazo
+    private static long cuotaFija(long montoCentavos, int plazo, long tasaCentesimas) {
+        BigDecimal monto = BigDecimal.valueOf(montoCentavos);
+        if (tasaCentesimas == 0) {
+            return monto.divide(BigDecimal.valueOf(plazo), 0, RoundingMode.HALF_UP).longValueExact();
+        }
+        BigDecimal tasaMensual = BigDecimal.valueOf(tasaCentesimas).divide(BigDecimal.valueOf(DIVISOR_TASA_MENSUAL), MathContext.DECIMAL128);
+        BigDecimal factor = BigDecimal.ONE.add(tasaMensual).pow(plazo, MathContext.DECIMAL128);
+        return monto.multiply(tasaMensual).multiply(factor)
+                .divide(factor.subtract(BigDecimal.ONE), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    public long getMontoCentavos() {
+        return montoCentavos;
+    }
+
+    public long getTasaCentesimas() {
+        return tasaCentesimas;
+    }
+
+    public int getPlazo() {
+        return capital.length;
+    }
+
+    /**
+     * @return La cuota fija mensual en centavos; la última cuota puede diferir por el ajuste del redondeo.
+     */
+    public long getCuotaFija() {
+        return cuotaFija;
+    }
+
+    public long getTotalIntereses() {
+        return totalIntereses;
+    }
+
+    /**
+     * @param numeroCuota Número de la cuota, de 1 al plazo.
+     * @return Capital amortizado en la cuota, en centavos.
+     */
+    public long getCapital(int numeroCuota) {
+        return capital[numeroCuota - 1];
+    }
+
+    /**
+     * @param numeroCuota Número de la cuota, de 1 al plazo.
+     * @return Intereses de la cuota, en centavos.
+     */
+    public long getInteres(int numeroCuota) {
+        return interes[numeroCuota - 1];
+    }
+
+    /**
+     * @param numeroCuota Número de la cuota, de 1 al plazo.
+     * @return Saldo del préstamo después de pagar la cuota, en centavos.
+     */
+    public long getSaldo(int numeroCuota) {
+        return saldo[numeroCuota - 1];
+    }
+}
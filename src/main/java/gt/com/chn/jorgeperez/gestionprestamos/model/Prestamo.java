@@ -1,10 +1,16 @@
 package gt.com.chn.jorgeperez.gestionprestamos.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheHibernateConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.FutureOrPresent;
-import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.util.Date;
@@ -14,17 +20,27 @@ import java.util.Set;
 /**
  * La clase Prestamo representa un préstamo bancario en el sistema.
  * Contiene los detalles del préstamo solicitado por un cliente, incluyendo la cantidad, el plazo, y el estado del préstamo.
+ * El préstamo se guarda en la caché de segundo nivel; sus pagos no.
  */
 
 @Entity
 @Table(name = "prestamo")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheHibernateConfig.REGION_PRESTAMOS)
+@NamedEntityGraph(name = Prestamo.GRAFO_CON_PAGOS, attributeNodes = @NamedAttributeNode("pagos"))
 public class Prestamo {
 
     /**
-     * Identificador único del préstamo.
+     * Grafo de carga que incluye los pagos del préstamo.
+     */
+    public static final String GRAFO_CON_PAGOS = "Prestamo.conPagos";
+
+    /**
+     * Identificador único del préstamo, asignado desde la tabla secuencia_id.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "prestamo_generador")
+    @TableGenerator(name = "prestamo_generador", table = "secuencia_id", pkColumnName = "nombre_secuencia", valueColumnName = "valor_siguiente", pkColumnValue = "prestamo", allocationSize = 50)
     @Column(name = "prestamo_id")
     private Long prestamoId;
 
@@ -52,11 +68,12 @@ public class Prestamo {
     private Integer plazo;
 
     /**
-     * Estado actual del préstamo (por ejemplo, "Aprobado", "Rechazado", "En Proceso").
+     * Estado actual del préstamo. Se guarda con el código de un carácter de {@link EstadoPrestamo}.
      */
-    @NotEmpty
-    @Column(name = "estado")
-    private String estado;
+    @NotNull
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "estado", length = 1, nullable = false)
+    private EstadoPrestamo estado;
 
     /**
      * Fecha en que se solicitó el préstamo.
@@ -86,9 +103,40 @@ public class Prestamo {
     @Column(name = "detalles", length = 500)
     private String detalles;
 
+    /**
+     * Fecha del pago más reciente. Se mantiene al registrar y eliminar pagos, para no consultar los pagos del préstamo.
+     */
+    @Temporal(TemporalType.DATE)
+    @Column(name = "fecha_ultimo_pago")
+    private Date fechaUltimoPago;
+
+    /**
+     * Suma de los montos de todos los pagos del préstamo.
+     */
+    @NotNull
+    @Column(name = "total_pagado", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalPagado = BigDecimal.ZERO;
+
+    /**
+     * Cantidad de pagos realizados hacia el préstamo.
+     */
+    @NotNull
+    @Column(name = "numero_pagos", nullable = false)
+    private Integer numeroPagos = 0;
+
+    /**
+     * Huella de la solicitud que originó el préstamo, para rechazar solicitudes duplicadas. No cambia después de crear
+     * el préstamo y es nula en los préstamos creados antes de guardarse las huellas.
+     */
+    @JsonIgnore
+    @Column(name = "huella_solicitud", length = 100, updatable = false)
+    private String huellaSolicitud;
+
     /**
      * Conjunto de pagos realizados hacia el préstamo.
+     * Al serializarse no se incluye el préstamo de cada pago, para evitar la referencia circular.
      */
+    @JsonIgnoreProperties("prestamo")
     @OneToMany(mappedBy = "prestamo", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Pago> pagos = new HashSet<>();
 
@@ -124,11 +172,11 @@ public class Prestamo {
         this.plazo = plazo;
     }
 
-    public String getEstado() {
+    public EstadoPrestamo getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
+    public void setEstado(EstadoPrestamo estado) {
         this.estado = estado;
     }
 
@@ -172,6 +220,38 @@ public class Prestamo {
         this.detalles = detalles;
     }
 
+    public Date getFechaUltimoPago() {
+        return fechaUltimoPago;
+    }
+
+    public void setFechaUltimoPago(Date fechaUltimoPago) {
+        this.fechaUltimoPago = fechaUltimoPago;
+    }
+
+    public BigDecimal getTotalPagado() {
+        return totalPagado;
+    }
+
+    public void setTotalPagado(BigDecimal totalPagado) {
+        this.totalPagado = totalPagado;
+    }
+
+    public Integer getNumeroPagos() {
+        return numeroPagos;
+    }
+
+    public void setNumeroPagos(Integer numeroPagos) {
+        this.numeroPagos = numeroPagos;
+    }
+
+    public String getHuellaSolicitud() {
+        return huellaSolicitud;
+    }
+
+    public void setHuellaSolicitud(String huellaSolicitud) {
+        this.huellaSolicitud = huellaSolicitud;
+    }
+
     public Set<Pago> getPagos() {
         return pagos;
     }
@@ -180,8 +260,9 @@ public class Prestamo {
         this.pagos = pagos;
     }
 
+    // Solo el ID del cliente y sin los pagos: leer el ID de un proxy no lo inicializa, y así no se disparan cargas diferidas
     @Override
     public String toString() {
-        return "Prestamo{" + "prestamoId=" + prestamoId + ", cliente=" + cliente + ", montoSolicitado=" + montoSolicitado + ", plazo=" + plazo + ", estado='" + estado + '\'' + ", fechaSolicitud=" + fechaSolicitud + ", tasaInteres=" + tasaInteres + ", saldoActual=" + saldoActual + ", fechaFinalizacion=" + fechaFinalizacion + ", detalles='" + detalles + '\'' + ", pagos=" + pagos + '}';
+        return "Prestamo{" + "prestamoId=" + prestamoId + ", clienteId=" + (cliente != null ? cliente.getClienteId() : null) + ", montoSolicitado=" + montoSolicitado + ", plazo=" + plazo + ", estado=" + estado + ", fechaSolicitud=" + fechaSolicitud + ", tasaInteres=" + tasaInteres + ", saldoActual=" + saldoActual + ", fechaFinalizacion=" + fechaFinalizacion + ", detalles='" + detalles + '\'' + ", fechaUltimoPago=" + fechaUltimoPago + ", totalPagado=" + totalPagado + ", numeroPagos=" + numeroPagos + '}';
     }
 }
@@ -0,0 +1,45 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+/**
+ * Tramos de antigüedad de la mora según los días transcurridos desde el vencimiento de la cuota más antigua sin cubrir.
+ */
+public enum TramoMorosidad {
+
+    DE_1_A_30(1, 30),
+    DE_31_A_60(31, 60),
+    DE_61_A_90(61, 90),
+    MAS_DE_90(91, Integer.MAX_VALUE);
+
+    private final int diasMinimos;
+
+    private final int diasMaximos;
+
+    TramoMorosidad(int diasMinimos, int diasMaximos) {
+        this.diasMinimos = diasMinimos;
+        this.diasMaximos = diasMaximos;
+    }
+
+    public int getDiasMinimos() {
+        return diasMinimos;
+    }
+
+    public int getDiasMaximos() {
+        return diasMaximos;
+    }
+
+    /**
+     * Obtiene el tramo que corresponde a una cantidad de días de atraso.
+     *
+     * @param diasAtraso Los días de atraso, al menos 1.
+     * @return El tramo correspondiente.
+     * @throws IllegalArgumentException Si los días de atraso no son positivos.
+     */
+    public static TramoMorosidad deDias(int diasAtraso) {
+        for (TramoMorosidad tramo : values()) {
+            if (diasAtraso >= tramo.diasMinimos && diasAtraso <= tramo.diasMaximos) {
+                return tramo;
+            }
+        }
+        throw new IllegalArgumentException("Días de atraso no válidos: " + diasAtraso);
+    }
+}
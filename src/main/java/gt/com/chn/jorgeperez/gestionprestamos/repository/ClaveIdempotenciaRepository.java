@@ -0,0 +1,27 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+/**
+ * Repositorio para las claves de idempotencia del registro de pagos.
+ */
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Elimina las claves recibidas antes de la fecha indicada.
+     *
+     * @param limite Fecha y hora a partir de la cual se conservan las claves.
+     * @return La cantidad de claves eliminadas.
+     */
+    @Modifying
+    @Query("delete from ClaveIdempotencia c where c.fechaCreacion < :limite")
+    int deleteByFechaCreacionBefore(@Param("limite") Date limite);
+}
@@ -1,13 +1,24 @@
 package gt.com.chn.jorgeperez.gestionprestamos.repository;
 
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz para definir operaciones de base de datos relacionadas con la entidad Cliente.
@@ -20,11 +31,32 @@ import java.util.List;
  * - count(): Devuelve la cantidad de entidades disponibles.
  * - existsById(ID id): Verifica si existe una entidad con el ID dado.
  * Estos métodos no necesitan ser definidos explícitamente en esta interfaz.
+ * <p>
+ * Los préstamos del cliente se cargan de forma perezosa: findById devuelve solo los datos básicos del cliente,
+ * y los métodos que necesitan los préstamos los solicitan mediante un grafo de carga.
  */
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     // Métodos personalizados...
 
+    /**
+     * Busca un cliente por su ID cargando también sus préstamos en la misma consulta.
+     *
+     * @param clienteId El ID del cliente.
+     * @return Un Optional con el cliente y sus préstamos, si existe.
+     */
+    @EntityGraph(Cliente.GRAFO_CON_PRESTAMOS)
+    Optional<Cliente> findConPrestamosByClienteId(Long clienteId);
+
+    /**
+     * Busca un cliente por su ID cargando también sus préstamos y los pagos de cada préstamo en la misma consulta.
+     *
+     * @param clienteId El ID del cliente.
+     * @return Un Optional con el cliente, sus préstamos y sus pagos, si existe.
+     */
+    @EntityGraph(Cliente.GRAFO_CON_PRESTAMOS_Y_PAGOS)
+    Optional<Cliente> findConPrestamosYPagosByClienteId(Long clienteId);
+
     /**
      * Encuentra clientes por apellido.
      *
@@ -62,6 +94,51 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     List<Cliente> findClientesSinPrestamos();
 
 
-    BigDecimal findTotalPrestamosByClienteId(Long clienteId);
+    /**
+     * Calcula la exposición de crédito de un cliente sumando los saldos de sus préstamos en los estados dados. Los
+     * préstamos sin saldo registrado cuentan con su monto solicitado. Para aplicar el límite de crédito se usa la
+     * exposición que se mantiene en memoria; esta consulta recorre los préstamos del cliente.
+     *
+     * @param clienteId El ID del cliente.
+     * @param estados   Los estados de los préstamos que se suman.
+     * @return La suma de los saldos, o cero si el cliente no tiene préstamos en esos estados.
+     */
+    @Query("select coalesce(sum(coalesce(p.saldoActual, p.montoSolicitado)), 0) from Prestamo p " +
+            "where p.cliente.clienteId = :clienteId and p.estado in :estados")
+    BigDecimal findExposicionByClienteId(@Param("clienteId") Long clienteId, @Param("estados") Collection<EstadoPrestamo> estados);
+
+    /**
+     * Obtiene los datos básicos de un cliente, sin cargar sus préstamos.
+     *
+     * @param clienteId El ID del cliente.
+     * @return Los datos básicos del cliente, o vacío si no existe.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO(c.clienteId, c.nombre, c.apellido, c.numeroIdentificacion, c.correoElectronico, c.telefono, c.activo) " +
+            "from Cliente c where c.clienteId = :clienteId")
+    Optional<ResumenClienteDTO> findResumenByClienteId(@Param("clienteId") Long clienteId);
+
+    /**
+     * Obtiene una página de clientes posteriores a un ID dado (paginación por conjunto de claves),
+     * proyectando solo los datos básicos del cliente sin cargar sus préstamos.
+     *
+     * @param despuesDe El ID del último cliente de la página anterior; se devuelven clientes con ID mayor.
+     * @param pageable  Define la cantidad máxima de clientes a devolver.
+     * @return Una lista de clientes ordenada por ID ascendente.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO(c.clienteId, c.nombre, c.apellido, c.numeroIdentificacion, c.correoElectronico, c.telefono, c.activo) " +
+            "from Cliente c where c.clienteId > :despuesDe order by c.clienteId")
+    List<ResumenClienteDTO> findResumenByClienteIdGreaterThan(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    /**
+     * Recorre todos los clientes con un cursor de solo avance, leyendo las filas por bloques
+     * para que la memoria utilizada no dependa de la cantidad de clientes.
+     * El Stream debe consumirse y cerrarse dentro de una transacción.
+     *
+     * @return Un Stream con los datos básicos de todos los clientes, ordenado por ID ascendente.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO(c.clienteId, c.nombre, c.apellido, c.numeroIdentificacion, c.correoElectronico, c.telefono, c.activo) " +
+            "from Cliente c order by c.clienteId")
+    Stream<ResumenClienteDTO> streamResumenClientes();
 
 }
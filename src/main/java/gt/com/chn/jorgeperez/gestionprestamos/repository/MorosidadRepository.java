@@ -0,0 +1,37 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Morosidad;
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio para el resultado del cálculo de morosidad. Las consultas leen solo la tabla {@code morosidad}.
+ */
+@Repository
+public interface MorosidadRepository extends JpaRepository<Morosidad, Long> {
+
+    /**
+     * Obtiene los préstamos en mora, del más atrasado al menos atrasado.
+     *
+     * @return El atraso de cada préstamo en mora.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO(m.prestamoId, m.clienteId, m.diasAtraso, m.tramo, m.cuotasVencidas, m.montoVencido, m.saldoActual, m.fechaCorte) " +
+            "from Morosidad m order by m.diasAtraso desc, m.prestamoId")
+    List<MorosidadDTO> findMorosos();
+
+    /**
+     * Obtiene los préstamos en mora de un tramo, del más atrasado al menos atrasado.
+     *
+     * @param tramo El tramo de antigüedad de la mora.
+     * @return El atraso de cada préstamo en mora del tramo.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO(m.prestamoId, m.clienteId, m.diasAtraso, m.tramo, m.cuotasVencidas, m.montoVencido, m.saldoActual, m.fechaCorte) " +
+            "from Morosidad m where m.tramo = :tramo order by m.diasAtraso desc, m.prestamoId")
+    List<MorosidadDTO> findMorososByTramo(@Param("tramo") TramoMorosidad tramo);
+}
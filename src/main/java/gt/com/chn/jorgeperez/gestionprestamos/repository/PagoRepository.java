@@ -90,10 +90,14 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
 
     /**
      * Encuentra el último pago realizado para un préstamo específico, ordenado por fecha de pago de manera descendente.
+     * La condición se escribe sobre {@code pg.prestamo.prestamoId} para que se aplique a la columna {@code prestamo_id}
+     * del pago y use idx_pago_prestamo_fecha; la consulta derivada del nombre unía la tabla de préstamos y recorría
+     * todos los pagos.
      *
      * @param prestamoId El identificador del préstamo.
      * @return Un Optional conteniendo el pago más reciente si existe.
      */
-    Optional<Pago> findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc(Long prestamoId);
+    @Query("select pg from Pago pg where pg.prestamo.prestamoId = :prestamoId order by pg.fechaPago desc limit 1")
+    Optional<Pago> findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc(@Param("prestamoId") Long prestamoId);
 
 }
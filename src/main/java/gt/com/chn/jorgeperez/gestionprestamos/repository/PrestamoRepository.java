@@ -1,13 +1,25 @@
 package gt.com.chn.jorgeperez.gestionprestamos.repository;
 
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SaldoPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Prestamo.
@@ -27,12 +39,14 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     // Métodos personalizados...
 
     /**
-     * Encuentra préstamos por su estado.
+     * Encuentra préstamos por su estado. El resultado se guarda en la caché de consultas de Hibernate
+     * hasta que cambie algún préstamo.
      *
      * @param estado El estado del préstamo.
      * @return Una lista de préstamos que se encuentran en el estado especificado.
      */
-    List<Prestamo> findByEstado(String estado);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    List<Prestamo> findByEstado(EstadoPrestamo estado);
 
     /**
      * Encuentra préstamos que superen un monto solicitado específico.
@@ -53,24 +67,231 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
 
 
     /**
-     * Encuentra el total de monto prestado por estado del préstamo.
+     * Encuentra el total de monto prestado por estado del préstamo. El resultado se guarda en la caché de consultas
+     * de Hibernate hasta que cambie algún préstamo.
      *
      * @param estado El estado del préstamo.
      * @return El total del monto prestado para préstamos en el estado especificado.
      */
     @Query("select sum(p.montoSolicitado) from Prestamo p where p.estado = :estado")
-    BigDecimal findTotalMontoPrestadoByEstado(@Param("estado") String estado);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    BigDecimal findTotalMontoPrestadoByEstado(@Param("estado") EstadoPrestamo estado);
 
     /**
-     * Encuentra préstamos que tienen pagos pendientes o atrasados.
+     * Calcula desde la tabla de préstamos la cantidad de préstamos, la suma de los montos solicitados y la suma de los
+     * saldos actuales de cada estado. Recorre la tabla completa: se usa solo para conciliar los totales que se mantienen
+     * en {@code resumen_cartera}. Los préstamos sin saldo registrado cuentan con su monto solicitado.
      *
-     * @return Una lista de préstamos con pagos pendientes o atrasados.
+     * @return Los totales de cada estado que tiene préstamos.
      */
-    @Query("SELECT p FROM Prestamo p INNER JOIN p.pagos pg WHERE pg.fechaPago < CURRENT_DATE AND p.estado = 'En Proceso'")
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO(p.estado, count(p), sum(p.montoSolicitado), sum(coalesce(p.saldoActual, p.montoSolicitado))) " +
+            "from Prestamo p group by p.estado")
+    List<ResumenCarteraDTO> findResumenCartera();
+
+    /**
+     * Encuentra los préstamos en mora según el último cálculo de morosidad, una vez cada uno.
+     *
+     * @return Una lista de préstamos con cuotas vencidas sin cubrir, del más atrasado al menos atrasado.
+     */
+    @Query("select p from Prestamo p, Morosidad m where m.prestamoId = p.prestamoId order by m.diasAtraso desc, p.prestamoId")
     List<Prestamo> findPrestamosConPagosPendientes();
 
 
-    // Filtrar préstamos por clienteId y estado
-    List<Prestamo> findByClienteClienteIdAndEstado(Long clienteId, String estado);
+    // Filtrar préstamos por clienteId y estado, cargando sus pagos en la misma consulta.
+    // El resultado se guarda en la caché de consultas hasta que cambie algún préstamo o pago.
+    // La condición usa la columna cliente_id del préstamo, sin unir la tabla de clientes, para usar idx_prestamo_cliente_estado
+    @EntityGraph(Prestamo.GRAFO_CON_PAGOS)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select p from Prestamo p where p.cliente.clienteId = :clienteId and p.estado = :estado")
+    List<Prestamo> findByClienteClienteIdAndEstado(@Param("clienteId") Long clienteId, @Param("estado") EstadoPrestamo estado);
+
+    /**
+     * Obtiene el resumen de todos los préstamos de un cliente en una sola consulta.
+     * La fecha del último pago se lee de la columna que se mantiene al registrar los pagos, sin consultar la tabla de pagos.
+     *
+     * @param clienteId El ID del cliente.
+     * @return Una lista con el resumen de cada préstamo del cliente.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO(p.prestamoId, p.cliente.clienteId, p.montoSolicitado, p.saldoActual, p.estado, p.fechaSolicitud, p.fechaFinalizacion, p.fechaUltimoPago) " +
+            "from Prestamo p where p.cliente.clienteId = :clienteId order by p.prestamoId")
+    List<ResumenPrestamoDTO> findResumenByClienteId(@Param("clienteId") Long clienteId);
+
+    /**
+     * Obtiene el encabezado de un préstamo, sin cargar su cliente ni sus pagos.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El resumen del préstamo, o vacío si no existe.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO(p.prestamoId, p.cliente.clienteId, p.montoSolicitado, p.saldoActual, p.estado, p.fechaSolicitud, p.fechaFinalizacion, p.fechaUltimoPago) " +
+            "from Prestamo p where p.prestamoId = :prestamoId")
+    Optional<ResumenPrestamoDTO> findResumenByPrestamoId(@Param("prestamoId") Long prestamoId);
+
+    /**
+     * Obtiene el resumen de los préstamos de un cliente que se encuentran en un estado específico, en una sola consulta.
+     *
+     * @param clienteId El ID del cliente.
+     * @param estado    El estado de los préstamos a incluir.
+     * @return Una lista con el resumen de cada préstamo del cliente en el estado especificado.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO(p.prestamoId, p.cliente.clienteId, p.montoSolicitado, p.saldoActual, p.estado, p.fechaSolicitud, p.fechaFinalizacion, p.fechaUltimoPago) " +
+            "from Prestamo p where p.cliente.clienteId = :clienteId and p.estado = :estado order by p.prestamoId")
+    List<ResumenPrestamoDTO> findResumenByClienteIdAndEstado(@Param("clienteId") Long clienteId, @Param("estado") EstadoPrestamo estado);
+
+    /**
+     * Finaliza el préstamo en una sola sentencia UPDATE condicional, solo si su estado actual es uno de los predecesores
+     * indicados y ya no tiene saldo pendiente. El saldo incluye los intereses devengados; los préstamos sin saldo
+     * registrado usan el monto solicitado menos el total pagado.
+     *
+     * @param prestamoId        El ID del préstamo.
+     * @param predecesores      Los estados desde los que se permite finalizar.
+     * @param fechaFinalizacion La fecha de finalización.
+     * @return 1 si el préstamo se finalizó; 0 si no existe, no está en ninguno de los predecesores o tiene saldo pendiente.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Prestamo p set p.estado = gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo.FINALIZADO, p.fechaFinalizacion = :fechaFinalizacion " +
+            "where p.prestamoId = :prestamoId and p.estado in :predecesores and coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) <= 0")
+    int finalizar(@Param("prestamoId") Long prestamoId, @Param("predecesores") Collection<EstadoPrestamo> predecesores, @Param("fechaFinalizacion") Date fechaFinalizacion);
+
+    /**
+     * Consulta el estado actual de un préstamo.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El estado del préstamo, o {@code null} si no existe.
+     */
+    @Query("select p.estado from Prestamo p where p.prestamoId = :prestamoId")
+    EstadoPrestamo findEstadoByPrestamoId(@Param("prestamoId") Long prestamoId);
+
+
+    /**
+     * Aplica un pago al préstamo en una sola sentencia UPDATE condicional: descuenta el monto del saldo y acumula
+     * el total pagado, la cantidad de pagos y la fecha del último pago.
+     * La base de datos serializa los pagos concurrentes sobre el mismo préstamo, por lo que no se pierden
+     * actualizaciones; la condición impide que el saldo quede negativo. Si el préstamo aún no tiene saldo registrado,
+     * se parte del monto solicitado.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @param monto      El monto del pago.
+     * @param fechaPago  La fecha del pago.
+     * @param estado     El estado en el que el préstamo admite pagos.
+     * @return 1 si el pago se aplicó; 0 si el préstamo no existe, no está en ese estado o su saldo es menor que el monto.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Prestamo p set p.saldoActual = coalesce(p.saldoActual, p.montoSolicitado) - :monto, " +
+            "p.totalPagado = p.totalPagado + :monto, p.numeroPagos = p.numeroPagos + 1, " +
+            "p.fechaUltimoPago = case when p.fechaUltimoPago is null or p.fechaUltimoPago < :fechaPago then :fechaPago else p.fechaUltimoPago end " +
+            "where p.prestamoId = :prestamoId and p.estado = :estado and coalesce(p.saldoActual, p.montoSolicitado) >= :monto")
+    int aplicarPago(@Param("prestamoId") Long prestamoId, @Param("monto") BigDecimal monto, @Param("fechaPago") Date fechaPago, @Param("estado") EstadoPrestamo estado);
+
+    /**
+     * Acumula un pago en el total pagado, la cantidad de pagos y la fecha del último pago, sin modificar el saldo.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @param monto      El monto del pago.
+     * @param fechaPago  La fecha del pago.
+     * @return 1 si el préstamo se actualizó; 0 si no existe.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Prestamo p set p.totalPagado = p.totalPagado + :monto, p.numeroPagos = p.numeroPagos + 1, " +
+            "p.fechaUltimoPago = case when p.fechaUltimoPago is null or p.fechaUltimoPago < :fechaPago then :fechaPago else p.fechaUltimoPago end " +
+            "where p.prestamoId = :prestamoId")
+    int acumularPago(@Param("prestamoId") Long prestamoId, @Param("monto") BigDecimal monto, @Param("fechaPago") Date fechaPago);
+
+    /**
+     * Revierte un pago eliminado: devuelve su monto al saldo, lo resta del total pagado y de la cantidad de pagos,
+     * y toma como fecha del último pago la más reciente de los pagos restantes. Debe ejecutarse después de eliminar el pago.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @param monto      El monto del pago eliminado.
+     * @return 1 si el préstamo se actualizó; 0 si no existe.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Prestamo p set p.saldoActual = coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) + :monto, " +
+            "p.totalPagado = p.totalPagado - :monto, p.numeroPagos = p.numeroPagos - 1, " +
+            "p.fechaUltimoPago = (select max(pg.fechaPago) from Pago pg where pg.prestamo.prestamoId = :prestamoId) " +
+            "where p.prestamoId = :prestamoId")
+    int revertirPago(@Param("prestamoId") Long prestamoId, @Param("monto") BigDecimal monto);
+
+    /**
+     * Aplica al préstamo el cambio de monto de un pago modificado en una sola sentencia UPDATE condicional: descuenta
+     * la diferencia del saldo, la suma al total pagado y toma como fecha del último pago la más reciente de sus pagos.
+     * La condición impide que el saldo quede negativo. Debe ejecutarse después de guardar el pago.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @param diferencia El monto nuevo del pago menos el anterior; negativa si el monto disminuyó.
+     * @return 1 si el préstamo se actualizó; 0 si no existe o su saldo es menor que la diferencia.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Prestamo p set p.saldoActual = coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) - :diferencia, " +
+            "p.totalPagado = p.totalPagado + :diferencia, " +
+            "p.fechaUltimoPago = (select max(pg.fechaPago) from Pago pg where pg.prestamo.prestamoId = :prestamoId) " +
+            "where p.prestamoId = :prestamoId and coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) >= :diferencia")
+    int ajustarPago(@Param("prestamoId") Long prestamoId, @Param("diferencia") BigDecimal diferencia);
+
+    /**
+     * Recalcula desde la tabla de pagos el total pagado, la cantidad de pagos y la fecha del último pago
+     * de los préstamos de un rango de IDs. Los préstamos sin saldo registrado toman el monto solicitado menos lo pagado.
+     * Se utiliza para inicializar las columnas en datos existentes.
+     *
+     * @param desde El primer ID del rango.
+     * @param hasta El último ID del rango.
+     * @return La cantidad de préstamos actualizados.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Prestamo p set " +
+            "p.totalPagado = coalesce((select sum(pg.montoPago) from Pago pg where pg.prestamo = p), 0), " +
+            "p.numeroPagos = (select count(pg) from Pago pg where pg.prestamo = p), " +
+            "p.fechaUltimoPago = (select max(pg.fechaPago) from Pago pg where pg.prestamo = p), " +
+            "p.saldoActual = coalesce(p.saldoActual, p.montoSolicitado - coalesce((select sum(pg.montoPago) from Pago pg where pg.prestamo = p), 0)) " +
+            "where p.prestamoId between :desde and :hasta")
+    int recalcularAgregadosDePagos(@Param("desde") Long desde, @Param("hasta") Long hasta);
+
+    /**
+     * Obtiene el ID más alto de los préstamos registrados.
+     *
+     * @return El ID más alto, o {@code null} si no hay préstamos.
+     */
+    @Query("select max(p.prestamoId) from Prestamo p")
+    Long findMaxPrestamoId();
+
+    /**
+     * Obtiene el saldo pendiente de un préstamo, con los intereses devengados, sin consultar sus pagos. Los préstamos sin
+     * saldo registrado usan el monto solicitado menos el total pagado.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El saldo pendiente, o {@code null} si el préstamo no existe.
+     */
+    @Query("select coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) from Prestamo p where p.prestamoId = :prestamoId")
+    BigDecimal findSaldoPendienteByPrestamoId(@Param("prestamoId") Long prestamoId);
+
+    /**
+     * Obtiene la fecha del último pago de un préstamo.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return La fecha del último pago, o {@code null} si el préstamo no tiene pagos.
+     */
+    @Query("select p.fechaUltimoPago from Prestamo p where p.prestamoId = :prestamoId")
+    Date findFechaUltimoPagoByPrestamoId(@Param("prestamoId") Long prestamoId);
+
+    /**
+     * Consulta directamente en la base de datos el saldo actual de un préstamo, sin pasar por el contexto de persistencia.
+     * Los préstamos sin saldo registrado, como los creados antes de guardarlo al solicitarlos, usan el monto solicitado
+     * menos el total pagado.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El saldo actual del préstamo, o {@code null} si el préstamo no existe.
+     */
+    @Query("select coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado) from Prestamo p where p.prestamoId = :prestamoId")
+    BigDecimal findSaldoActualByPrestamoId(@Param("prestamoId") Long prestamoId);
+
+    /**
+     * Consulta en una sola sentencia el saldo actual de varios préstamos, sin cargar las entidades. Los préstamos sin
+     * saldo registrado usan el monto solicitado menos el total pagado.
+     *
+     * @param prestamoIds Los IDs de los préstamos.
+     * @return El saldo de cada préstamo que existe, en cualquier orden.
+     */
+    @Query("select new gt.com.chn.jorgeperez.gestionprestamos.dto.SaldoPrestamoDTO(p.prestamoId, coalesce(p.saldoActual, p.montoSolicitado - p.totalPagado)) " +
+            "from Prestamo p where p.prestamoId in :prestamoIds")
+    List<SaldoPrestamoDTO> findSaldosActualesByPrestamoIdIn(@Param("prestamoIds") Collection<Long> prestamoIds);
 
 }
@@ -1,9 +1,11 @@
 package gt.com.chn.jorgeperez.gestionprestamos.service;
 
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ClienteService {
 
@@ -12,9 +14,15 @@ public interface ClienteService {
 
     Optional<Cliente> obtenerClientePorId(Long id);
 
-    List<Cliente> listarTodosLosClientes();
+    ResumenClienteDTO obtenerResumenClientePorId(Long id);
 
-    Cliente actualizarCliente(Cliente cliente);
+    Optional<Cliente> obtenerClienteConPrestamosPorId(Long id);
+
+    List<ResumenClienteDTO> listarClientes(Long despuesDe, int limite);
+
+    void exportarClientes(Consumer<ResumenClienteDTO> consumidor);
+
+    Cliente actualizarCliente(Long id, Cliente clienteActualizado);
 
     void eliminarCliente(Long id);
 
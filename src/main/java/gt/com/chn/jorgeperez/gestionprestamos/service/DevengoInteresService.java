@@ -0,0 +1,34 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenDevengoDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Interfaz que define el devengo diario de intereses de los préstamos aprobados.
+ */
+public interface DevengoInteresService {
+
+    /**
+     * Devenga el interés de un día sobre el saldo de cada préstamo aprobado y lo suma al saldo. Si el devengo de ese
+     * día quedó a medias, continúa desde el último avance guardado; si ya terminó, no devenga nada.
+     *
+     * @param fecha El día que se devenga.
+     * @return El resumen del devengo del día.
+     * @throws gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions.InvalidOperationException Si ya hay un devengo en curso en esta u otra instancia.
+     * @throws gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions.DatabaseOperationException Si falla el devengo de un bloque de préstamos.
+     */
+    ResumenDevengoDTO devengarIntereses(LocalDate fecha);
+
+    /**
+     * Continúa los devengos que quedaron a medias, por ejemplo porque la aplicación se detuvo o falló una página
+     * durante la ejecución, y luego devenga cada día que falta desde el último devengo completado hasta la fecha
+     * indicada. Si nunca se completó un devengo, solo devenga esa fecha.
+     *
+     * @param hasta El último día que se devenga.
+     * @return El resumen de cada devengo completado; vacío si otra instancia o esta misma ya están devengando.
+     * @throws gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions.DatabaseOperationException Si falla el devengo de un bloque de préstamos.
+     */
+    List<ResumenDevengoDTO> devengarPendientes(LocalDate hasta);
+}
@@ -0,0 +1,28 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+
+/**
+ * Interfaz que define el registro de pagos con clave de idempotencia.
+ * Los reintentos de una solicitud con la misma clave devuelven el pago original sin registrar otro.
+ */
+public interface IdempotenciaPagoService {
+
+    /**
+     * Registra un pago, o devuelve el pago ya registrado con la misma clave.
+     *
+     * @param claveIdempotencia La clave enviada en la cabecera {@code Idempotency-Key}, o {@code null} si no se envió.
+     * @param solicitudPagoDTO  Los datos del pago.
+     * @return El pago registrado.
+     */
+    PagoDTO registrarPago(String claveIdempotencia, SolicitudPagoDTO solicitudPagoDTO);
+
+    /**
+     * Elimina las claves de idempotencia con más antigüedad que la expiración configurada. Un reintento con una clave
+     * eliminada se procesa como una solicitud nueva.
+     *
+     * @return La cantidad de claves eliminadas.
+     */
+    int depurarClavesVencidas();
+}
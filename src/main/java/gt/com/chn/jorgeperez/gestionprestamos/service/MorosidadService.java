@@ -0,0 +1,31 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenMorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Interfaz que define el cálculo de morosidad de la cartera y la consulta de los préstamos en mora.
+ */
+public interface MorosidadService {
+
+    /**
+     * Calcula el atraso de todos los préstamos aprobados a una fecha de corte y reemplaza el contenido de la tabla
+     * {@code morosidad}.
+     *
+     * @param fechaCorte La fecha a la que se calcula el atraso.
+     * @return El resumen del cálculo.
+     */
+    ResumenMorosidadDTO calcularMorosidad(LocalDate fechaCorte);
+
+    /**
+     * Obtiene los préstamos en mora según el último cálculo, del más atrasado al menos atrasado.
+     *
+     * @param tramo El tramo de antigüedad de la mora, o {@code null} para todos los tramos.
+     * @return El atraso de cada préstamo en mora.
+     */
+    List<MorosidadDTO> listarMorosos(TramoMorosidad tramo);
+}
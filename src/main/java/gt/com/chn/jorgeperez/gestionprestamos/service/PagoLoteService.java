@@ -0,0 +1,31 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResultadoLineaPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenLotePagosDTO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Interfaz que define la carga masiva de pagos, como los archivos diarios de remesas bancarias.
+ */
+public interface PagoLoteService {
+
+    /**
+     * Formatos aceptados para los lotes de pagos.
+     */
+    enum Formato {
+        /**
+         * Una línea por pago con las columnas prestamoId,montoPago,fechaPago (yyyy-MM-dd); el encabezado es opcional.
+         */
+        CSV,
+        /**
+         * Un objeto JSON con la forma de SolicitudPagoDTO por línea.
+         */
+        NDJSON
+    }
+
+    ResumenLotePagosDTO registrarLote(Reader lector, Formato formato, Consumer<ResultadoLineaPagoDTO> consumidor) throws IOException;
+
+}
@@ -6,8 +6,10 @@ import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -39,6 +41,9 @@ public interface PagoService {
 
     BigDecimal consultarSaldoPendiente(Long prestamoId);
 
+    // Saldos de varios préstamos por ID; los préstamos que no existen se omiten
+    Map<Long, BigDecimal> consultarSaldosPendientes(Collection<Long> prestamoIds);
+
     void finalizarPrestamo(Long prestamoId);
 
     List<ResumenPrestamoDTO> listarPrestamosAprobadosPorCliente(Long clienteId);
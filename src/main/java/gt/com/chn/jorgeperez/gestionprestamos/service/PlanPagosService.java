@@ -0,0 +1,18 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PlanPagosDTO;
+
+/**
+ * Interfaz que define la consulta del plan de pagos de los préstamos.
+ */
+public interface PlanPagosService {
+
+    /**
+     * Genera el plan de pagos del préstamo con amortización francesa.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El plan con la cuota mensual, los totales y el detalle de cada cuota.
+     * @throws gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions.PrestamoNotFoundException Si el préstamo no existe.
+     */
+    PlanPagosDTO obtenerPlanPagos(Long prestamoId);
+}
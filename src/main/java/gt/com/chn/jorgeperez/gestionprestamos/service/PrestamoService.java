@@ -1,8 +1,10 @@
 package gt.com.chn.jorgeperez.gestionprestamos.service;
 
 import gt.com.chn.jorgeperez.gestionprestamos.dto.RespuestaAprobacionDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
 
@@ -17,6 +19,8 @@ public interface PrestamoService {
 
     Optional<Prestamo> obtenerPrestamoPorId(Long id);
 
+    ResumenPrestamoDTO obtenerResumenPrestamoPorId(Long id);
+
     List<Prestamo> listarTodosLosPrestamos();
 
     Prestamo actualizarPrestamo(Prestamo prestamo);
@@ -24,17 +28,31 @@ public interface PrestamoService {
     void eliminarPrestamo(Long id);
 
     // Métodos específicos para la gestión de la solicitud de préstamos
-    List<Prestamo> buscarPrestamosPorEstado(String estado);
-
-    RespuestaAprobacionDTO aprobarPrestamo(Long id);
-
-    void rechazarPrestamo(Long id, String motivoRechazo);
+    List<Prestamo> buscarPrestamosPorEstado(EstadoPrestamo estado);
+
+    /**
+     * Aprueba una solicitud en proceso. Si otro revisor la tiene reservada en la cola de revisión y su reserva no
+     * venció, la aprobación se rechaza.
+     *
+     * @param revisor El revisor que decide, o {@code null} si no la reservó.
+     */
+    RespuestaAprobacionDTO aprobarPrestamo(Long id, String revisor);
+
+    /**
+     * Rechaza una solicitud en proceso, con la misma comprobación de la reserva que {@link #aprobarPrestamo}.
+     *
+     * @param revisor El revisor que decide, o {@code null} si no la reservó.
+     */
+    void rechazarPrestamo(Long id, String motivoRechazo, String revisor);
 
     List<Prestamo> buscarPrestamosConPagosPendientes();
 
     List<Prestamo> obtenerSolicitudesPrestamosPendientes();
 
-    BigDecimal calcularTotalMontoPrestadoPorEstado(String estado);
+    BigDecimal calcularTotalMontoPrestadoPorEstado(EstadoPrestamo estado);
+
+    // Cantidad de préstamos, total del monto solicitado y total del saldo actual de cada estado
+    List<ResumenCarteraDTO> obtenerResumenCartera();
 
     // Método para registrar detalles específicos de la solicitud al momento de su creación o actualización
     Prestamo registrarDetallesSolicitudPrestamo(Long prestamoId, String detalles);
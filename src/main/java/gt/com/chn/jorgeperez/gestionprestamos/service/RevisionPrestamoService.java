@@ -0,0 +1,40 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Interfaz que define la cola de revisión de las solicitudes de préstamo en proceso: cada revisor reserva un grupo de
+ * solicitudes que ningún otro revisor recibe mientras la reserva no venza, y recibe por Server-Sent Events las
+ * solicitudes nuevas en lugar de consultar periódicamente las pendientes.
+ */
+public interface RevisionPrestamoService {
+
+    /**
+     * Reserva para un revisor las solicitudes en proceso más antiguas que no estén reservadas por otro revisor o cuya
+     * reserva haya vencido. Las que el revisor ya tenía reservadas se incluyen y su reserva se renueva.
+     *
+     * @param revisor  El identificador del revisor.
+     * @param cantidad La cantidad máxima de solicitudes a reservar.
+     * @return Las solicitudes reservadas, de la más antigua a la más reciente.
+     */
+    List<SolicitudPendienteDTO> reservarSolicitudes(String revisor, int cantidad);
+
+    /**
+     * Devuelve a la cola una solicitud reservada por el revisor, sin aprobarla ni rechazarla.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @param revisor    El identificador del revisor que la reservó.
+     */
+    void liberarSolicitud(Long prestamoId, String revisor);
+
+    /**
+     * Registra una conexión que recibe un evento {@code solicitud-pendiente} por cada solicitud en proceso que se
+     * guarde a partir de ahora.
+     *
+     * @return El emisor de eventos de la conexión.
+     */
+    SseEmitter suscribirSolicitudesPendientes();
+}
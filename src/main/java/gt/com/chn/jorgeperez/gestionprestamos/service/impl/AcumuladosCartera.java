@@ -0,0 +1,303 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totales de la cartera por estado del préstamo: cantidad de préstamos, suma de los montos solicitados y suma de los
+ * saldos actuales, sin recorrer la tabla de préstamos en cada consulta.
+ * <p>
+ * Los servicios informan cada cambio con {@code registrar*}. Dentro de una transacción, el cambio se suma a los
+ * contadores en memoria ({@link LongAdder}, en centavos) solo si la transacción se confirma. {@link #volcar()} pasa lo
+ * acumulado a la tabla {@code resumen_cartera} con un UPDATE incremental por estado y vuelve a leerla, y
+ * {@link #conciliar()} recalcula los totales desde la tabla de préstamos, informa las diferencias en el log y en la
+ * métrica {@code gestion.cartera.diferencias} y corrige la tabla. Los préstamos sin saldo registrado cuentan con su
+ * monto solicitado.
+ * <p>
+ * Las consultas devuelven lo último leído de la tabla más lo acumulado en esta instancia. Con varias instancias, cada
+ * una ve los cambios de las demás después de su siguiente volcado. Lo acumulado se pierde si la instancia se detiene
+ * sin volcar; {@code ConciliacionCarteraJob} concilia al iniciar y de forma programada, en una sola instancia a la vez.
+ */
+@Component
+public class AcumuladosCartera {
+
+    private static final Logger log = LoggerFactory.getLogger(AcumuladosCartera.class);
+
+    private static final String CONSULTAR = "select estado, cantidad, monto_solicitado, saldo_actual from resumen_cartera";
+
+    private static final String ACUMULAR = "update resumen_cartera set cantidad = cantidad + ?, monto_solicitado = monto_solicitado + ?, saldo_actual = saldo_actual + ? where estado = ?";
+
+    private static final String INSERTAR = "insert into resumen_cartera (estado, cantidad, monto_solicitado, saldo_actual) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PrestamoRepository prestamoRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<EstadoPrestamo, Acumulado> acumulados = new EnumMap<>(EstadoPrestamo.class);
+
+    @Autowired
+    public AcumuladosCartera(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PrestamoRepository prestamoRepository, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.prestamoRepository = prestamoRepository;
+        this.meterRegistry = meterRegistry;
+        for (EstadoPrestamo estado : EstadoPrestamo.values()) {
+            acumulados.put(estado, new Acumulado());
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        recargar();
+    }
+
+    @PreDestroy
+    void detener() {
+        volcar();
+    }
+
+    /**
+     * Registra un préstamo nuevo.
+     *
+     * @param estado          El estado del préstamo.
+     * @param montoSolicitado El monto solicitado.
+     * @param saldoActual     El saldo actual, o {@code null} si aún no tiene saldo registrado.
+     */
+    public void registrarAlta(EstadoPrestamo estado, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        registrar(estado, 1, centavos(montoSolicitado), centavos(saldoActual == null ? montoSolicitado : saldoActual));
+    }
+
+    /**
+     * Registra la eliminación de un préstamo, con los valores que tenía al eliminarse.
+     */
+    public void registrarBaja(EstadoPrestamo estado, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        registrar(estado, -1, -centavos(montoSolicitado), -centavos(saldoActual == null ? montoSolicitado : saldoActual));
+    }
+
+    /**
+     * Registra que un préstamo pasó de un estado a otro, con su monto y su saldo al momento del cambio.
+     */
+    public void registrarCambioEstado(EstadoPrestamo anterior, EstadoPrestamo nuevo, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        registrarBaja(anterior, montoSolicitado, saldoActual);
+        registrarAlta(nuevo, montoSolicitado, saldoActual);
+    }
+
+    /**
+     * Registra un cambio en el saldo de un préstamo.
+     *
+     * @param estado     El estado del préstamo.
+     * @param diferencia Lo que cambió el saldo: negativo al aplicar un pago, positivo al revertirlo.
+     */
+    public void registrarCambioSaldo(EstadoPrestamo estado, Dinero diferencia) {
+        registrar(estado, 0, 0, diferencia.getCentavos());
+    }
+
+    private void registrar(EstadoPrestamo estado, long cantidad, long montoSolicitado, long saldoActual) {
+        Acumulado acumulado = acumulados.get(estado);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acumulado.sumar(cantidad, montoSolicitado, saldoActual);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acumulado.sumar(cantidad, montoSolicitado, saldoActual);
+            }
+        });
+    }
+
+    /**
+     * @param estado El estado de los préstamos.
+     * @return Los totales de los préstamos que se encuentran en el estado.
+     */
+    public ResumenCarteraDTO obtener(EstadoPrestamo estado) {
+        return acumulados.get(estado).total().aDTO(estado);
+    }
+
+    /**
+     * @return Los totales de cada estado, en el orden de {@link EstadoPrestamo}.
+     */
+    public List<ResumenCarteraDTO> obtenerTodos() {
+        List<ResumenCarteraDTO> totales = new ArrayList<>();
+        acumulados.forEach((estado, acumulado) -> totales.add(acumulado.total().aDTO(estado)));
+        return totales;
+    }
+
+    /**
+     * Pasa los contadores en memoria a la tabla {@code resumen_cartera} y vuelve a leerla. Si la tabla no se puede
+     * actualizar, lo acumulado se conserva para el siguiente volcado.
+     */
+    public synchronized void volcar() {
+        Map<EstadoPrestamo, Totales> cambios = new EnumMap<>(EstadoPrestamo.class);
+        acumulados.forEach((estado, acumulado) -> {
+            Totales cambio = acumulado.drenar();
+            if (!cambio.esCero()) {
+                cambios.put(estado, cambio);
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(transaccion -> cambios.forEach(this::acumularEnTabla));
+        } catch (DataAccessException | TransactionException e) {
+            cambios.forEach((estado, cambio) -> acumulados.get(estado).devolver(cambio));
+            log.warn("No se pudieron guardar los totales de la cartera; se reintentará en el siguiente volcado: {}", e.getMessage());
+            return;
+        }
+        recargar();
+    }
+
+    /**
+     * Recalcula los totales desde la tabla de préstamos y corrige la tabla {@code resumen_cartera} donde no coincidan.
+     * Lo acumulado en memoria que aún no se vuelca no se considera una diferencia.
+     *
+     * @return La diferencia de cada estado en el que los totales no coincidían (tabla de préstamos menos totales
+     * mantenidos); vacío si todos coincidían.
+     */
+    public synchronized Map<EstadoPrestamo, ResumenCarteraDTO> conciliar() {
+        Map<EstadoPrestamo, Totales> diferencias = transactionTemplate.execute(transaccion -> {
+            // Se bloquean las filas del resumen para que otra instancia no las actualice mientras se comparan
+            Map<EstadoPrestamo, Totales> tabla = leerTabla(" for update");
+            Map<EstadoPrestamo, Totales> fuente = new EnumMap<>(EstadoPrestamo.class);
+            for (ResumenCarteraDTO resumen : prestamoRepository.findResumenCartera()) {
+                fuente.put(resumen.getEstado(), new Totales(resumen.getCantidad(), centavos(resumen.getMontoSolicitado()), centavos(resumen.getSaldoActual())));
+            }
+
+            // Lo pendiente se lee después de la tabla de préstamos: un cambio confirmado entre ambas lecturas aparece
+            // como diferencia y se compensa al volcarse, en lugar de contarse dos veces
+            Map<EstadoPrestamo, Totales> encontradas = new EnumMap<>(EstadoPrestamo.class);
+            acumulados.forEach((estado, acumulado) -> {
+                Totales mantenido = tabla.getOrDefault(estado, Totales.CERO).mas(acumulado.pendiente());
+                Totales diferencia = fuente.getOrDefault(estado, Totales.CERO).menos(mantenido);
+                if (!diferencia.esCero()) {
+                    encontradas.put(estado, diferencia);
+                    acumularEnTabla(estado, diferencia);
+                }
+            });
+            return encontradas;
+        });
+        recargar();
+
+        Map<EstadoPrestamo, ResumenCarteraDTO> resultado = new EnumMap<>(EstadoPrestamo.class);
+        diferencias.forEach((estado, diferencia) -> {
+            ResumenCarteraDTO resumen = diferencia.aDTO(estado);
+            log.warn("Diferencia en los totales de la cartera para el estado {}: cantidad {}, monto solicitado {}, saldo actual {}. Se corrigió desde la tabla de préstamos",
+                    estado.getEtiqueta(), resumen.getCantidad(), resumen.getMontoSolicitado(), resumen.getSaldoActual());
+            meterRegistry.counter("gestion.cartera.diferencias", "estado", estado.getCodigo()).increment();
+            resultado.put(estado, resumen);
+        });
+        return resultado;
+    }
+
+    private void acumularEnTabla(EstadoPrestamo estado, Totales cambio) {
+        BigDecimal monto = BigDecimal.valueOf(cambio.montoSolicitado(), 2);
+        BigDecimal saldo = BigDecimal.valueOf(cambio.saldoActual(), 2);
+        if (jdbcTemplate.update(ACUMULAR, cambio.cantidad(), monto, saldo, estado.getCodigo()) == 0) {
+            jdbcTemplate.update(INSERTAR, estado.getCodigo(), cambio.cantidad(), monto, saldo);
+        }
+    }
+
+    private void recargar() {
+        Map<EstadoPrestamo, Totales> tabla = leerTabla("");
+        acumulados.forEach((estado, acumulado) -> acumulado.base = tabla.getOrDefault(estado, Totales.CERO));
+    }
+
+    private Map<EstadoPrestamo, Totales> leerTabla(String bloqueo) {
+        Map<EstadoPrestamo, Totales> tabla = new EnumMap<>(EstadoPrestamo.class);
+        jdbcTemplate.query(CONSULTAR + bloqueo, rs -> {
+            tabla.put(EstadoPrestamo.desdeCodigo(rs.getString(1)), new Totales(rs.getLong(2), centavos(rs.getBigDecimal(3)), centavos(rs.getBigDecimal(4))));
+        });
+        return tabla;
+    }
+
+    // Las columnas son DECIMAL(18, 2): un monto con más decimales se guarda redondeado
+    private static long centavos(BigDecimal monto) {
+        return Dinero.de(monto.setScale(2, RoundingMode.HALF_UP)).getCentavos();
+    }
+
+    /**
+     * Totales de un estado en centavos.
+     */
+    private record Totales(long cantidad, long montoSolicitado, long saldoActual) {
+
+        static final Totales CERO = new Totales(0, 0, 0);
+
+        Totales mas(Totales otros) {
+            return new Totales(cantidad + otros.cantidad, montoSolicitado + otros.montoSolicitado, saldoActual + otros.saldoActual);
+        }
+
+        Totales menos(Totales otros) {
+            return new Totales(cantidad - otros.cantidad, montoSolicitado - otros.montoSolicitado, saldoActual - otros.saldoActual);
+        }
+
+        boolean esCero() {
+            return cantidad == 0 && montoSolicitado == 0 && saldoActual == 0;
+        }
+
+        ResumenCarteraDTO aDTO(EstadoPrestamo estado) {
+            return new ResumenCarteraDTO(estado, cantidad, BigDecimal.valueOf(montoSolicitado, 2), BigDecimal.valueOf(saldoActual, 2));
+        }
+    }
+
+    /**
+     * Totales de un estado: los últimos leídos de la tabla y los cambios de esta instancia que aún no se vuelcan.
+     */
+    private static final class Acumulado {
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder montoSolicitado = new LongAdder();
+        private final LongAdder saldoActual = new LongAdder();
+        private volatile Totales base = Totales.CERO;
+
+        void sumar(long cantidad, long montoSolicitado, long saldoActual) {
+            this.cantidad.add(cantidad);
+            this.montoSolicitado.add(montoSolicitado);
+            this.saldoActual.add(saldoActual);
+        }
+
+        Totales pendiente() {
+            return new Totales(cantidad.sum(), montoSolicitado.sum(), saldoActual.sum());
+        }
+
+        Totales total() {
+            return base.mas(pendiente());
+        }
+
+        // Lo drenado pasa a la base para que las consultas lo sigan viendo mientras se escribe en la tabla
+        Totales drenar() {
+            Totales cambio = new Totales(cantidad.sumThenReset(), montoSolicitado.sumThenReset(), saldoActual.sumThenReset());
+            base = base.mas(cambio);
+            return cambio;
+        }
+
+        void devolver(Totales cambio) {
+            base = base.menos(cambio);
+            sumar(cambio.cantidad(), cambio.montoSolicitado(), cambio.saldoActual());
+        }
+    }
+}
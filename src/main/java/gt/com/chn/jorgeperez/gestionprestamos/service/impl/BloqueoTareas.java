@@ -0,0 +1,63 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Bloqueos de la tabla {@code bloqueo_tarea} para las tareas que deben ejecutarse en una sola instancia a la vez. Una
+ * instancia toma el bloqueo de una tarea si nadie lo tiene o si venció, con una sola sentencia UPDATE condicional, y lo
+ * libera al terminar; si se detiene sin liberarlo, otra instancia puede tomarlo cuando vence.
+ * <p>
+ * El bloqueo es de la instancia, no del hilo: cada servicio evita además, con su propio cerrojo, que dos hilos de la
+ * misma instancia ejecuten la tarea a la vez.
+ */
+@Component
+public class BloqueoTareas {
+
+    private static final String TOMAR = "update bloqueo_tarea set instancia = ?, vence = ? where nombre = ? and (vence is null or vence < ?)";
+
+    private static final String INSERTAR = "insert into bloqueo_tarea (nombre, instancia, vence) values (?, ?, ?)";
+
+    private static final String LIBERAR = "update bloqueo_tarea set instancia = null, vence = null where nombre = ? and instancia = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String instancia = UUID.randomUUID().toString();
+
+    @Autowired
+    public BloqueoTareas(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Toma el bloqueo de una tarea por la duración indicada. La primera vez que se usa una tarea se crea su fila.
+     *
+     * @return {@code false} si otra instancia tiene el bloqueo y aún no vence.
+     */
+    public boolean tomar(String tarea, Duration duracion) {
+        long ahora = System.currentTimeMillis();
+        Timestamp vence = new Timestamp(ahora + duracion.toMillis());
+        if (jdbcTemplate.update(TOMAR, instancia, vence, tarea, new Timestamp(ahora)) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERTAR, tarea, instancia, vence) == 1;
+        } catch (DuplicateKeyException e) {
+            // La fila existe y otra instancia tiene el bloqueo
+            return false;
+        }
+    }
+
+    /**
+     * Libera el bloqueo de una tarea, si lo tiene esta instancia.
+     */
+    public void liberar(String tarea) {
+        jdbcTemplate.update(LIBERAR, tarea, instancia);
+    }
+}
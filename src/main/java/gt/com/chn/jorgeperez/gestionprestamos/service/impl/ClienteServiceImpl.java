@@ -1,19 +1,29 @@
 package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
 
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenClienteDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.repository.ClienteRepository;
 import gt.com.chn.jorgeperez.gestionprestamos.service.ClienteService;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @Service
@@ -21,14 +31,26 @@ public class ClienteServiceImpl implements ClienteService {
 
     private static final Logger log = LoggerFactory.getLogger(ClienteServiceImpl.class);
 
+    /**
+     * Cantidad máxima de clientes que se devuelven en una página del listado.
+     */
+    private static final int LIMITE_MAXIMO = 500;
+
     private final ClienteRepository clienteRepository;
 
+    private final AcumuladosCartera acumuladosCartera;
+
+    private final ExposicionCredito exposicionCredito;
+
     /**
-     * Constructor que inyecta el repositorio de clientes para interactuar con la base de datos.
+     * Constructor que inyecta el repositorio de clientes para interactuar con la base de datos, y los totales de la
+     * cartera y la exposición de crédito, que se actualizan al eliminar un cliente y sus préstamos.
      */
     @Autowired
-    public ClienteServiceImpl(ClienteRepository clienteRepository) {
+    public ClienteServiceImpl(ClienteRepository clienteRepository, AcumuladosCartera acumuladosCartera, ExposicionCredito exposicionCredito) {
         this.clienteRepository = clienteRepository;
+        this.acumuladosCartera = acumuladosCartera;
+        this.exposicionCredito = exposicionCredito;
     }
 
     /**
@@ -39,6 +61,7 @@ public class ClienteServiceImpl implements ClienteService {
      * @throws CustomExceptions.DatabaseOperationException Si ocurre un error relacionado con la base de datos.
      */
     @Override
+    @CacheEvict(value = CacheConfig.CLIENTES, key = "#result.clienteId")
     public Cliente guardarCliente(Cliente cliente) {
         try {
             return clienteRepository.save(cliente);
@@ -48,7 +71,7 @@ public class ClienteServiceImpl implements ClienteService {
     }
 
     /**
-     * Busca un cliente por su ID.
+     * Busca un cliente por su ID, cargando solo sus datos básicos (sin préstamos).
      *
      * @param id El ID del cliente a buscar.
      * @return Un Optional que puede o no contener el cliente buscado.
@@ -64,25 +87,84 @@ public class ClienteServiceImpl implements ClienteService {
     }
 
     /**
-     * Lista todos los clientes registrados en la base de datos.
+     * Obtiene los datos básicos de un cliente. El resultado se guarda en la caché {@value CacheConfig#CLIENTES}
+     * hasta que el cliente se actualice o elimine.
+     *
+     * @param id El ID del cliente.
+     * @return Los datos básicos del cliente.
+     * @throws CustomExceptions.ClienteNotFoundException Si el cliente no existe.
+     */
+    @Override
+    @Cacheable(CacheConfig.CLIENTES)
+    public ResumenClienteDTO obtenerResumenClientePorId(Long id) {
+        return clienteRepository.findResumenByClienteId(id).orElseThrow(() -> new CustomExceptions.ClienteNotFoundException("Cliente no encontrado con ID: " + id));
+    }
+
+    /**
+     * Busca un cliente por su ID, cargando en la misma consulta sus préstamos y los pagos de cada préstamo.
+     *
+     * @param id El ID del cliente a buscar.
+     * @return Un Optional que puede o no contener el cliente buscado.
+     * @throws ServiceException Si ocurre un error al buscar el cliente.
+     */
+    @Override
+    public Optional<Cliente> obtenerClienteConPrestamosPorId(Long id) {
+        try {
+            return Optional.ofNullable(clienteRepository.findConPrestamosYPagosByClienteId(id).orElseThrow(() -> new CustomExceptions.ClienteNotFoundException("Cliente no encontrado con ID: " + id)));
+        } catch (DataAccessException e) {
+            throw new ServiceException("Error al obtener el cliente por ID", e);
+        }
+    }
+
+    /**
+     * Lista una página de clientes usando paginación por conjunto de claves: se devuelven los clientes
+     * cuyo ID es mayor que {@code despuesDe}, ordenados por ID, sin cargar sus préstamos.
+     *
+     * @param despuesDe El ID del último cliente recibido; null o 0 para la primera página.
+     * @param limite    La cantidad máxima de clientes a devolver, acotada entre 1 y {@value #LIMITE_MAXIMO}.
+     * @return Una lista con los datos básicos de los clientes de la página.
+     */
+    @Override
+    public List<ResumenClienteDTO> listarClientes(Long despuesDe, int limite) {
+        int tamanoPagina = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        return clienteRepository.findResumenByClienteIdGreaterThan(despuesDe == null ? 0L : despuesDe, PageRequest.of(0, tamanoPagina));
+    }
+
+    /**
+     * Recorre todos los clientes con un cursor de solo avance y entrega cada uno al consumidor indicado,
+     * sin acumularlos en memoria.
      *
-     * @return Una lista de todos los clientes.
+     * @param consumidor Recibe cada cliente en orden ascendente de ID.
      */
     @Override
-    public List<Cliente> listarTodosLosClientes() {
-        return clienteRepository.findAll();
+    @Transactional(readOnly = true)
+    public void exportarClientes(Consumer<ResumenClienteDTO> consumidor) {
+        try (Stream<ResumenClienteDTO> clientes = clienteRepository.streamResumenClientes()) {
+            clientes.forEach(consumidor);
+        }
     }
 
     /**
-     * Actualiza la información de un cliente existente.
+     * Actualiza la información de un cliente existente. Solo se cargan los datos básicos del cliente,
+     * sin sus préstamos.
      *
-     * @param cliente El cliente con la información actualizada.
+     * @param id                 El ID del cliente a actualizar.
+     * @param clienteActualizado El cliente con la información actualizada.
      * @return El cliente actualizado.
      * @throws ServiceException Si ocurre un error al actualizar el cliente.
      */
     @Override
-    public Cliente actualizarCliente(Cliente cliente) {
+    @CacheEvict(value = CacheConfig.CLIENTES, key = "#id")
+    public Cliente actualizarCliente(Long id, Cliente clienteActualizado) {
         try {
+            Cliente cliente = clienteRepository.findById(id).orElseThrow(() -> new CustomExceptions.ClienteNotFoundException("Cliente no encontrado con ID: " + id));
+            cliente.setNombre(clienteActualizado.getNombre());
+            cliente.setApellido(clienteActualizado.getApellido());
+            cliente.setNumeroIdentificacion(clienteActualizado.getNumeroIdentificacion());
+            cliente.setFechaNacimiento(clienteActualizado.getFechaNacimiento());
+            cliente.setDireccion(clienteActualizado.getDireccion());
+            cliente.setCorreoElectronico(clienteActualizado.getCorreoElectronico());
+            cliente.setTelefono(clienteActualizado.getTelefono());
             return clienteRepository.save(cliente);
         } catch (DataAccessException e) {
             throw new ServiceException("Error al actualizar el cliente", e);
@@ -91,16 +173,20 @@ public class ClienteServiceImpl implements ClienteService {
 
     /**
      * Elimina un cliente de la base de datos por su ID.
+     * Las entradas del cliente en la caché se invalidan antes de eliminarlo, porque el método siempre termina con una excepción.
      *
      * @param id El ID del cliente a eliminar.
      * @throws ServiceException Si ocurre un error al eliminar el cliente.
      */
-
     @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.CLIENTES, key = "#id", beforeInvocation = true),
+            @CacheEvict(value = CacheConfig.CLIENTES_EXISTENTES, key = "#id", beforeInvocation = true)
+    })
     public void eliminarCliente(Long id) {
-        Cliente cliente = clienteRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Cliente no encontrado con ID: " + id));
+        Cliente cliente = clienteRepository.findConPrestamosByClienteId(id).orElseThrow(() -> new EntityNotFoundException("Cliente no encontrado con ID: " + id));
 
-        boolean tieneDeudas = cliente.getPrestamos().stream().anyMatch(prestamo -> !"Finalizado".equals(prestamo.getEstado()));
+        boolean tieneDeudas = cliente.getPrestamos().stream().anyMatch(prestamo -> prestamo.getEstado() != EstadoPrestamo.FINALIZADO);
 
         if (tieneDeudas) {
             // Marcar el cliente como inactivo
@@ -111,11 +197,22 @@ public class ClienteServiceImpl implements ClienteService {
         } else {
             // Eliminar físicamente
             clienteRepository.deleteById(id);
+            // Los préstamos finalizados del cliente se eliminan con él
+            cliente.getPrestamos().forEach(prestamo -> acumuladosCartera.registrarBaja(prestamo.getEstado(), prestamo.getMontoSolicitado(), prestamo.getSaldoActual()));
+            exposicionCredito.quitar(id);
             throw new CustomExceptions.ClienteEliminadoExitosamenteException("Cliente eliminado con éxito");
         }
     }
 
-    // Implementa el método existeCliente aquí
+    /**
+     * Verifica si un cliente existe. Solo las respuestas afirmativas se guardan en la caché
+     * {@value CacheConfig#CLIENTES_EXISTENTES}, para que un cliente recién creado no se informe como inexistente.
+     *
+     * @param clienteId El ID del cliente.
+     * @return {@code true} si el cliente existe.
+     */
+    @Override
+    @Cacheable(value = CacheConfig.CLIENTES_EXISTENTES, unless = "!#result")
     public boolean existeCliente(Long clienteId) {
         return clienteRepository.existsById(clienteId);
     }
@@ -0,0 +1,315 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenDevengoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.service.DevengoInteresService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación del devengo diario de intereses.
+ * <p>
+ * El interés de un día es {@code saldo * tasa anual / 365}, calculado en centavos con aritmética entera y redondeado
+ * al centavo. Los préstamos aprobados se leen por páginas de {@code intereses.devengo.tamano-bloque} IDs ordenados
+ * ({@code prestamo_id > último ID leído}) y cada página se devenga en {@code intereses.devengo.hilos} hilos, en su
+ * propia transacción: se bloquean los préstamos de la página, se insertan las filas de {@code devengo_interes} y se
+ * actualizan los saldos mediante lotes JDBC.
+ * <p>
+ * El avance se guarda en {@code ejecucion_devengo} a medida que terminan las páginas, en el orden en que se leyeron.
+ * Si la aplicación se detiene a medias, el devengo de ese día continúa desde el último avance guardado; las páginas
+ * que se confirmaron después de ese avance no se devengan dos veces porque solo se toman los préstamos sin fila en
+ * {@code devengo_interes} para el día, y la clave de esa tabla rechaza cualquier duplicado.
+ * <p>
+ * Cada devengo toma la fila {@code devengo} de {@code bloqueo_tarea} por {@code intereses.devengo.bloqueo.duracion},
+ * de modo que con varias instancias solo una devenga a la vez. {@link #devengarPendientes(LocalDate)} continúa primero
+ * los días que quedaron en curso y luego devenga los que faltan desde el último completado, así que una ejecución
+ * programada que falló o que no llegó a ejecutarse se recupera en la siguiente.
+ */
+@Service
+public class DevengoInteresServiceImpl implements DevengoInteresService {
+
+    private static final Logger log = LoggerFactory.getLogger(DevengoInteresServiceImpl.class);
+
+    // Saldo en centavos por tasa en centésimas de punto porcentual: 100 por las centésimas, 100 por el porcentaje y 365 días
+    private static final long DIVISOR_TASA_DIARIA = 100L * 100 * 365;
+
+    private static final String TAREA = "devengo";
+
+    private static final String EN_CURSO = "EN_CURSO";
+
+    private static final String COMPLETADO = "COMPLETADO";
+
+    private static final String CONSULTAR_EJECUCION = "select estado, ultimo_prestamo_id from ejecucion_devengo where fecha = ?";
+
+    private static final String INSERTAR_EJECUCION = "insert into ejecucion_devengo (fecha, estado, ultimo_prestamo_id, inicio) values (?, ?, 0, ?)";
+
+    private static final String AVANZAR_EJECUCION = "update ejecucion_devengo set ultimo_prestamo_id = ? where fecha = ?";
+
+    private static final String TERMINAR_EJECUCION = "update ejecucion_devengo set estado = ?, fin = ? where fecha = ?";
+
+    private static final String CONSULTAR_PENDIENTES = "select fecha from ejecucion_devengo where estado = ? order by fecha";
+
+    private static final String CONSULTAR_ULTIMO_COMPLETADO = "select max(fecha) from ejecucion_devengo where estado = ?";
+
+    private static final String SIGUIENTE_PAGINA = "select prestamo_id from prestamo where estado = ? and prestamo_id > ? order by prestamo_id limit ?";
+
+    private static final String CONSULTAR_PRESTAMOS = "select p.prestamo_id, coalesce(p.saldo_actual, p.monto_solicitado), p.tasa_interes, p.cliente_id from prestamo p " +
+            "where p.estado = ? and p.prestamo_id between ? and ? and p.fecha_solicitud < ? and coalesce(p.saldo_actual, p.monto_solicitado) > 0 " +
+            "and not exists (select 1 from devengo_interes d where d.prestamo_id = p.prestamo_id and d.fecha = ?) order by p.prestamo_id for update";
+
+    private static final String INSERTAR_DEVENGO = "insert into devengo_interes (prestamo_id, fecha, saldo_base, tasa_interes, interes) values (?, ?, ?, ?, ?)";
+
+    private static final String ACTUALIZAR_SALDO = "update prestamo set saldo_actual = ? where prestamo_id = ?";
+
+    private static final String CONSULTAR_TOTALES = "select count(*), coalesce(sum(interes), 0) from devengo_interes where fecha = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AcumuladosCartera acumuladosCartera;
+
+    private final ExposicionCredito exposicionCredito;
+
+    private final BloqueoTareas bloqueoTareas;
+
+    private final Cache saldosCache;
+
+    private final Cache prestamosCache;
+
+    private final int hilos;
+
+    private final int tamanoBloque;
+
+    private final Duration duracionBloqueo;
+
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public DevengoInteresServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, AcumuladosCartera acumuladosCartera,
+                                     ExposicionCredito exposicionCredito, BloqueoTareas bloqueoTareas, CacheManager cacheManager,
+                                     @Value("${intereses.devengo.hilos:4}") int hilos, @Value("${intereses.devengo.tamano-bloque:1000}") int tamanoBloque,
+                                     @Value("${intereses.devengo.bloqueo.duracion:PT2H}") Duration duracionBloqueo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.acumuladosCartera = acumuladosCartera;
+        this.exposicionCredito = exposicionCredito;
+        this.bloqueoTareas = bloqueoTareas;
+        this.saldosCache = cacheManager.getCache(CacheConfig.SALDOS);
+        this.prestamosCache = cacheManager.getCache(CacheConfig.PRESTAMOS);
+        this.hilos = hilos;
+        this.tamanoBloque = tamanoBloque;
+        this.duracionBloqueo = duracionBloqueo;
+    }
+
+    @Override
+    public ResumenDevengoDTO devengarIntereses(LocalDate fecha) {
+        if (!enCurso.tryLock()) {
+            throw new CustomExceptions.InvalidOperationException("Ya hay un devengo de intereses en curso.");
+        }
+        try {
+            if (!bloqueoTareas.tomar(TAREA, duracionBloqueo)) {
+                throw new CustomExceptions.InvalidOperationException("Ya hay un devengo de intereses en curso en otra instancia.");
+            }
+            try {
+                return devengar(fecha);
+            } finally {
+                bloqueoTareas.liberar(TAREA);
+            }
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    @Override
+    public List<ResumenDevengoDTO> devengarPendientes(LocalDate hasta) {
+        if (!enCurso.tryLock()) {
+            return List.of();
+        }
+        try {
+            if (!bloqueoTareas.tomar(TAREA, duracionBloqueo)) {
+                log.info("Otra instancia está devengando intereses");
+                return List.of();
+            }
+            try {
+                List<ResumenDevengoDTO> resumenes = new ArrayList<>();
+                for (Date fecha : jdbcTemplate.queryForList(CONSULTAR_PENDIENTES, Date.class, EN_CURSO)) {
+                    log.info("Reanudando el devengo de intereses del {}", fecha);
+                    resumenes.add(devengar(fecha.toLocalDate()));
+                }
+                Date ultimo = jdbcTemplate.queryForObject(CONSULTAR_ULTIMO_COMPLETADO, Date.class, COMPLETADO);
+                LocalDate desde = ultimo == null ? hasta : ultimo.toLocalDate().plusDays(1);
+                for (LocalDate fecha = desde; !fecha.isAfter(hasta); fecha = fecha.plusDays(1)) {
+                    if (fecha.isBefore(hasta)) {
+                        log.info("Devengando los intereses pendientes del {}", fecha);
+                    }
+                    resumenes.add(devengar(fecha));
+                }
+                return resumenes;
+            } finally {
+                bloqueoTareas.liberar(TAREA);
+            }
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    private ResumenDevengoDTO devengar(LocalDate fecha) {
+        long inicio = System.nanoTime();
+        Date dia = Date.valueOf(fecha);
+        Long ultimoProcesado = transactionTemplate.execute(estado -> iniciarEjecucion(dia));
+        if (ultimoProcesado == null) {
+            log.info("Los intereses del {} ya se devengaron", fecha);
+            return resumen(dia, 0, 0);
+        }
+
+        long procesados = 0;
+        Deque<Future<Pagina>> pendientes = new ArrayDeque<>();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            long ultimo = ultimoProcesado;
+            List<Long> ids;
+            while (!(ids = jdbcTemplate.queryForList(SIGUIENTE_PAGINA, Long.class, EstadoPrestamo.APROBADO.getCodigo(), ultimo, tamanoBloque)).isEmpty()) {
+                long primero = ids.get(0);
+                ultimo = ids.get(ids.size() - 1);
+                long ultimoPagina = ultimo;
+                pendientes.add(ejecutor.submit(() -> transactionTemplate.execute(estado -> devengarPagina(dia, primero, ultimoPagina))));
+                // Se leen como máximo dos páginas por hilo por delante de la página más antigua sin terminar
+                if (pendientes.size() >= hilos * 2) {
+                    procesados += guardarAvance(dia, pendientes.poll());
+                }
+            }
+            while (!pendientes.isEmpty()) {
+                procesados += guardarAvance(dia, pendientes.poll());
+            }
+            jdbcTemplate.update(TERMINAR_EJECUCION, COMPLETADO, new Timestamp(System.currentTimeMillis()), dia);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomExceptions.DatabaseOperationException("Devengo de intereses del " + fecha + " interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new CustomExceptions.DatabaseOperationException("Error al devengar los intereses del " + fecha + "; se reanudará desde el último avance guardado", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return resumen(dia, procesados, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Registra el inicio del devengo del día, o recupera su avance si quedó a medias.
+     *
+     * @return El último ID de préstamo procesado, o {@code null} si el devengo del día ya terminó.
+     */
+    private Long iniciarEjecucion(Date dia) {
+        List<Object[]> ejecuciones = jdbcTemplate.query(CONSULTAR_EJECUCION, (rs, fila) -> new Object[]{rs.getString(1), rs.getLong(2)}, dia);
+        if (ejecuciones.isEmpty()) {
+            jdbcTemplate.update(INSERTAR_EJECUCION, dia, EN_CURSO, new Timestamp(System.currentTimeMillis()));
+            return 0L;
+        }
+        Object[] ejecucion = ejecuciones.get(0);
+        return COMPLETADO.equals(ejecucion[0]) ? null : (Long) ejecucion[1];
+    }
+
+    private long guardarAvance(Date dia, Future<Pagina> pendiente) throws InterruptedException, ExecutionException {
+        Pagina pagina = pendiente.get();
+        jdbcTemplate.update(AVANZAR_EJECUCION, pagina.ultimoPrestamoId(), dia);
+        return pagina.prestamos();
+    }
+
+    /**
+     * Bloquea los préstamos aprobados de la página que aún no tienen devengo del día, calcula el interés de cada uno y
+     * escribe las filas de devengo y los nuevos saldos mediante lotes JDBC.
+     */
+    private Pagina devengarPagina(Date dia, long primero, long ultimo) {
+        List<Object[]> devengos = new ArrayList<>();
+        List<Object[]> saldos = new ArrayList<>();
+        Map<Long, Long> interesPorCliente = new HashMap<>();
+        long[] total = {0};
+        jdbcTemplate.query(CONSULTAR_PRESTAMOS, rs -> {
+            Dinero saldo = Dinero.de(rs.getBigDecimal(2));
+            BigDecimal tasa = rs.getBigDecimal(3);
+            // La columna tasa_interes tiene dos decimales, así que la tasa se representa exactamente en centésimas
+            long interes = interesDiario(saldo.getCentavos(), tasa.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+            if (interes == 0) {
+                return;
+            }
+            devengos.add(new Object[]{rs.getLong(1), dia, saldo.aBigDecimal(), tasa, Dinero.deCentavos(interes).aBigDecimal()});
+            saldos.add(new Object[]{saldo.sumar(Dinero.deCentavos(interes)).aBigDecimal(), rs.getLong(1)});
+            interesPorCliente.merge(rs.getLong(4), interes, Long::sum);
+            total[0] += interes;
+        }, EstadoPrestamo.APROBADO.getCodigo(), primero, ultimo, dia, dia);
+
+        if (!devengos.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERTAR_DEVENGO, devengos);
+            jdbcTemplate.batchUpdate(ACTUALIZAR_SALDO, saldos);
+            // Hibernate no ve las actualizaciones hechas por JDBC: se le indica que la tabla prestamo cambió para que
+            // invalide los préstamos y las consultas de la caché de segundo nivel al confirmar
+            entityManager.createNativeQuery("update prestamo set saldo_actual = saldo_actual where 1 = 0")
+                    .unwrap(NativeQuery.class).addSynchronizedEntityClass(Prestamo.class).executeUpdate();
+            // Los totales de la cartera, la exposición de los clientes y las cachés se actualizan solo si la página se confirma
+            acumuladosCartera.registrarCambioSaldo(EstadoPrestamo.APROBADO, Dinero.deCentavos(total[0]));
+            interesPorCliente.forEach((clienteId, interes) -> exposicionCredito.registrarCambioSaldo(clienteId, EstadoPrestamo.APROBADO, Dinero.deCentavos(interes)));
+            for (Object[] saldo : saldos) {
+                saldosCache.evict(saldo[1]);
+                prestamosCache.evict(saldo[1]);
+            }
+        }
+        return new Pagina(ultimo, devengos.size());
+    }
+
+    // Interés de un día redondeado al centavo, la mitad hacia arriba
+    private static long interesDiario(long saldoCentavos, long tasaCentesimas) {
+        return (Math.multiplyExact(saldoCentavos, tasaCentesimas) + DIVISOR_TASA_DIARIA / 2) / DIVISOR_TASA_DIARIA;
+    }
+
+    // Los totales del día incluyen lo devengado antes de una reanudación; el rendimiento, solo lo de esta ejecución
+    private ResumenDevengoDTO resumen(Date dia, long procesados, long nanos) {
+        Object[] totales = jdbcTemplate.queryForObject(CONSULTAR_TOTALES, (rs, fila) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)}, dia);
+        double prestamosPorSegundo = nanos == 0 ? 0 : procesados * 1_000_000_000.0 / nanos;
+        ResumenDevengoDTO resumen = new ResumenDevengoDTO(dia, (Long) totales[0], ((BigDecimal) totales[1]).setScale(2, RoundingMode.UNNECESSARY),
+                TimeUnit.NANOSECONDS.toMillis(nanos), prestamosPorSegundo);
+        if (nanos > 0) {
+            log.info("Intereses del {} devengados: {} préstamos en esta ejecución, {} en el día, {} de interés, en {} ms ({} préstamos/segundo)",
+                    dia, procesados, resumen.getPrestamosDevengados(), resumen.getInteresDevengado(), resumen.getDuracionMilisegundos(), String.format("%.1f", prestamosPorSegundo));
+        }
+        return resumen;
+    }
+
+    private record Pagina(long ultimoPrestamoId, long prestamos) {
+    }
+}
@@ -0,0 +1,346 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exposición de crédito de cada cliente: la suma de los saldos de sus préstamos en proceso y aprobados, para aplicar
+ * el límite de {@code prestamos.limite-credito.maximo-por-cliente} sin sumar los préstamos del cliente en cada
+ * solicitud. Los préstamos sin saldo registrado cuentan con su monto solicitado.
+ * <p>
+ * La exposición se guarda en la tabla {@code exposicion_cliente}, que comparten todas las instancias. {@link #reservar}
+ * comprueba el límite y suma el monto con una sola sentencia UPDATE condicional
+ * ({@code exposicion + monto <= límite}) dentro de la transacción que guarda el préstamo: la fila del cliente queda
+ * bloqueada hasta que la transacción termina, así que de varias solicitudes simultáneas del mismo cliente, en esta o
+ * en otra instancia, solo se aceptan las que caben, y si la transacción se revierte el monto se devuelve con ella.
+ * <p>
+ * Los demás cambios se informan con {@code registrar*} y, dentro de una transacción, se acumulan en memoria solo si se
+ * confirma. {@link #volcar()} los suma a la tabla con un UPDATE incremental por cliente, de modo que los volcados de
+ * varias instancias no se pisan. La exposición que se consulta y se compara con el límite es la de la tabla más lo que
+ * esta instancia aún no vuelca. Lo acumulado se pierde si la instancia se detiene sin volcar: al iniciar, la instancia
+ * que toma la fila {@code exposicion} de {@code bloqueo_tarea} concilia la tabla con los préstamos y corrige solo los
+ * clientes que no coinciden; lo que las demás instancias aún no vuelcan aparece como diferencia.
+ */
+@Component
+public class ExposicionCredito {
+
+    private static final Logger log = LoggerFactory.getLogger(ExposicionCredito.class);
+
+    private static final String TAREA = "exposicion";
+
+    private static final String CONSULTAR = "select exposicion from exposicion_cliente where cliente_id = ?";
+
+    private static final String RESERVAR = "update exposicion_cliente set exposicion = exposicion + ?, actualizado = ? where cliente_id = ? and exposicion + ? <= ?";
+
+    private static final String ACUMULAR = "update exposicion_cliente set exposicion = exposicion + ?, actualizado = ? where cliente_id = ?";
+
+    // Si el cliente se eliminó, no se inserta ninguna fila
+    private static final String INSERTAR = "insert into exposicion_cliente (cliente_id, exposicion, actualizado) select cliente_id, ?, ? from cliente where cliente_id = ?";
+
+    private static final String CONSULTAR_TODO = "select cliente_id, exposicion from exposicion_cliente for update";
+
+    private static final String CALCULAR = "select cliente_id, sum(coalesce(saldo_actual, monto_solicitado)) from prestamo where estado in (?, ?) group by cliente_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BloqueoTareas bloqueoTareas;
+
+    private final long limiteCentavos;
+
+    private final Duration duracionBloqueo;
+
+    // Cambios en centavos que aún no se vuelcan; un cliente sin cambios no tiene entrada
+    private final Map<Long, Long> pendientes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExposicionCredito(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, BloqueoTareas bloqueoTareas,
+                             @Value("${prestamos.limite-credito.maximo-por-cliente:500000.00}") BigDecimal limite,
+                             @Value("${prestamos.limite-credito.bloqueo.duracion:PT10M}") Duration duracionBloqueo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bloqueoTareas = bloqueoTareas;
+        this.limiteCentavos = centavos(limite);
+        this.duracionBloqueo = duracionBloqueo;
+    }
+
+    /**
+     * Concilia la tabla con los préstamos, por si una instancia se detuvo sin volcar la exposición. Si otra instancia
+     * está conciliando, no hace nada.
+     */
+    @PostConstruct
+    void iniciar() {
+        if (!bloqueoTareas.tomar(TAREA, duracionBloqueo)) {
+            log.info("Otra instancia está conciliando la exposición de crédito de los clientes");
+            return;
+        }
+        try {
+            conciliar();
+        } finally {
+            bloqueoTareas.liberar(TAREA);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        volcar();
+    }
+
+    /**
+     * Suma a la exposición del cliente el monto de un préstamo nuevo o de un aumento, si no excede el límite. Se
+     * ejecuta en la transacción activa, que debe ser la que guarda el préstamo: si se revierte, el monto se devuelve.
+     *
+     * @throws CustomExceptions.CreditLimitExceededException Si la exposición del cliente más el monto excede el límite.
+     */
+    public void reservar(Long clienteId, BigDecimal monto) {
+        BigDecimal valor = BigDecimal.valueOf(centavos(monto), 2);
+        // El límite se compara con la tabla más lo que esta instancia aún no vuelca
+        BigDecimal maximo = BigDecimal.valueOf(limiteCentavos - pendientes.getOrDefault(clienteId, 0L), 2);
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        if (jdbcTemplate.update(RESERVAR, valor, ahora, clienteId, valor, maximo) == 1) {
+            return;
+        }
+        if (crearFila(clienteId, ahora) && jdbcTemplate.update(RESERVAR, valor, ahora, clienteId, valor, maximo) == 1) {
+            return;
+        }
+        throw new CustomExceptions.CreditLimitExceededException("el cliente con ID " + clienteId + " tiene una exposición de "
+                + obtener(clienteId) + " y el préstamo de " + monto + " superaría el máximo de " + BigDecimal.valueOf(limiteCentavos, 2) + ".");
+    }
+
+    /**
+     * Descuenta de los cambios por volcar un monto que {@link #reservar} ya sumó a la tabla, cuando el mismo cambio del
+     * préstamo se informa además con {@code registrar*}.
+     */
+    public void descontarReservado(Long clienteId, BigDecimal monto) {
+        registrar(clienteId, -centavos(monto));
+    }
+
+    /**
+     * Comprueba que la exposición del cliente, que ya incluye sus préstamos en proceso, no exceda el límite. Se usa al
+     * aprobar un préstamo, cuando los intereses devengados o un límite menor pueden haberla dejado por encima.
+     *
+     * @throws CustomExceptions.CreditLimitExceededException Si la exposición del cliente excede el límite.
+     */
+    public void verificar(Long clienteId) {
+        BigDecimal actual = obtener(clienteId);
+        if (centavos(actual) > limiteCentavos) {
+            throw new CustomExceptions.CreditLimitExceededException("el cliente con ID " + clienteId + " tiene una exposición de "
+                    + actual + ", mayor que el máximo de " + BigDecimal.valueOf(limiteCentavos, 2) + ".");
+        }
+    }
+
+    /**
+     * Registra un préstamo nuevo que no pasó por {@link #reservar}.
+     *
+     * @param saldoActual El saldo actual, o {@code null} si aún no tiene saldo registrado.
+     */
+    public void registrarAlta(Long clienteId, EstadoPrestamo estado, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        if (cuenta(estado)) {
+            registrar(clienteId, centavos(saldoActual == null ? montoSolicitado : saldoActual));
+        }
+    }
+
+    /**
+     * Registra la eliminación de un préstamo, con los valores que tenía al eliminarse.
+     */
+    public void registrarBaja(Long clienteId, EstadoPrestamo estado, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        if (cuenta(estado)) {
+            registrar(clienteId, -centavos(saldoActual == null ? montoSolicitado : saldoActual));
+        }
+    }
+
+    /**
+     * Registra que un préstamo pasó de un estado a otro, con su monto y su saldo al momento del cambio.
+     */
+    public void registrarCambioEstado(Long clienteId, EstadoPrestamo anterior, EstadoPrestamo nuevo, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        registrarBaja(clienteId, anterior, montoSolicitado, saldoActual);
+        registrarAlta(clienteId, nuevo, montoSolicitado, saldoActual);
+    }
+
+    /**
+     * Registra un cambio en el saldo de un préstamo.
+     *
+     * @param diferencia Lo que cambió el saldo: negativo al aplicar un pago, positivo al revertirlo o al devengar intereses.
+     */
+    public void registrarCambioSaldo(Long clienteId, EstadoPrestamo estado, Dinero diferencia) {
+        if (cuenta(estado)) {
+            registrar(clienteId, diferencia.getCentavos());
+        }
+    }
+
+    /**
+     * @return Lo que un préstamo aporta a la exposición de su cliente: su saldo, o su monto solicitado si aún no tiene
+     * saldo registrado, si está en proceso o aprobado; cero en los demás estados.
+     */
+    public static BigDecimal aporte(EstadoPrestamo estado, BigDecimal montoSolicitado, BigDecimal saldoActual) {
+        if (!cuenta(estado)) {
+            return BigDecimal.ZERO;
+        }
+        return saldoActual == null ? montoSolicitado : saldoActual;
+    }
+
+    /**
+     * Olvida la exposición de un cliente eliminado; su fila de la tabla se elimina con él.
+     */
+    public void quitar(Long clienteId) {
+        ejecutarAlConfirmar(() -> pendientes.remove(clienteId));
+    }
+
+    /**
+     * @return La exposición de crédito del cliente: la de la tabla más lo que esta instancia aún no vuelca.
+     */
+    public BigDecimal obtener(Long clienteId) {
+        List<BigDecimal> filas = jdbcTemplate.queryForList(CONSULTAR, BigDecimal.class, clienteId);
+        long tabla = filas.isEmpty() ? 0 : centavos(filas.get(0));
+        return BigDecimal.valueOf(tabla + pendientes.getOrDefault(clienteId, 0L), 2);
+    }
+
+    /**
+     * Suma a la tabla {@code exposicion_cliente} los cambios de cada cliente desde el volcado anterior. Si la tabla no
+     * se puede actualizar, los cambios se conservan para el siguiente volcado.
+     */
+    public synchronized void volcar() {
+        Map<Long, Long> cambios = new HashMap<>();
+        for (Long clienteId : pendientes.keySet()) {
+            Long cambio = pendientes.remove(clienteId);
+            if (cambio != null) {
+                cambios.put(clienteId, cambio);
+            }
+        }
+        if (cambios.isEmpty()) {
+            return;
+        }
+
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        try {
+            transactionTemplate.executeWithoutResult(transaccion -> cambios.forEach((clienteId, cambio) -> acumularEnTabla(clienteId, cambio, ahora)));
+        } catch (DataAccessException | TransactionException e) {
+            cambios.forEach(this::sumar);
+            log.warn("No se pudo guardar la exposición de crédito de {} clientes; se reintentará en el siguiente volcado: {}", cambios.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula la exposición de cada cliente desde la tabla de préstamos y corrige la tabla {@code exposicion_cliente}
+     * donde no coincida. Lo que esta instancia aún no vuelca no se considera una diferencia.
+     *
+     * @return La diferencia de cada cliente cuya exposición no coincidía (tabla de préstamos menos exposición
+     * mantenida); vacío si todas coincidían.
+     */
+    public synchronized Map<Long, BigDecimal> conciliar() {
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        Map<Long, Long> diferencias = transactionTemplate.execute(transaccion -> {
+            // Se bloquean las filas para que las reservas de otras instancias esperen a que termine la comparación
+            Map<Long, Long> tabla = new HashMap<>();
+            jdbcTemplate.query(CONSULTAR_TODO, rs -> {
+                tabla.put(rs.getLong(1), centavos(rs.getBigDecimal(2)));
+            });
+            Map<Long, Long> fuente = new HashMap<>();
+            jdbcTemplate.query(CALCULAR, rs -> {
+                fuente.put(rs.getLong(1), centavos(rs.getBigDecimal(2)));
+            }, EstadoPrestamo.EN_PROCESO.getCodigo(), EstadoPrestamo.APROBADO.getCodigo());
+
+            Set<Long> clientes = new HashSet<>(tabla.keySet());
+            clientes.addAll(fuente.keySet());
+            Map<Long, Long> encontradas = new HashMap<>();
+            for (Long clienteId : clientes) {
+                long diferencia = fuente.getOrDefault(clienteId, 0L) - tabla.getOrDefault(clienteId, 0L) - pendientes.getOrDefault(clienteId, 0L);
+                if (diferencia != 0) {
+                    encontradas.put(clienteId, diferencia);
+                    acumularEnTabla(clienteId, diferencia, ahora);
+                }
+            }
+            return encontradas;
+        });
+
+        Map<Long, BigDecimal> resultado = new HashMap<>();
+        diferencias.forEach((clienteId, diferencia) -> resultado.put(clienteId, BigDecimal.valueOf(diferencia, 2)));
+        if (!resultado.isEmpty()) {
+            log.warn("Se corrigió desde la tabla de préstamos la exposición de crédito de {} clientes", resultado.size());
+        }
+        return resultado;
+    }
+
+    private void acumularEnTabla(Long clienteId, long cambio, Timestamp ahora) {
+        BigDecimal valor = BigDecimal.valueOf(cambio, 2);
+        if (jdbcTemplate.update(ACUMULAR, valor, ahora, clienteId) == 0) {
+            jdbcTemplate.update(INSERTAR, valor, ahora, clienteId);
+        }
+    }
+
+    /**
+     * Crea la fila del cliente con exposición cero si aún no tiene una.
+     *
+     * @return {@code false} si el cliente no existe o ya tenía su fila.
+     */
+    private boolean crearFila(Long clienteId, Timestamp ahora) {
+        if (!jdbcTemplate.queryForList(CONSULTAR, BigDecimal.class, clienteId).isEmpty()) {
+            return false;
+        }
+        try {
+            return jdbcTemplate.update(INSERTAR, BigDecimal.ZERO, ahora, clienteId) == 1;
+        } catch (DuplicateKeyException e) {
+            // Otra solicitud del cliente creó la fila al mismo tiempo
+            return true;
+        }
+    }
+
+    private void registrar(Long clienteId, long centavos) {
+        if (centavos != 0) {
+            ejecutarAlConfirmar(() -> sumar(clienteId, centavos));
+        }
+    }
+
+    private void sumar(Long clienteId, long centavos) {
+        pendientes.merge(clienteId, centavos, (actual, cambio) -> actual + cambio == 0 ? null : actual + cambio);
+    }
+
+    private static void ejecutarAlConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    private static boolean cuenta(EstadoPrestamo estado) {
+        return estado == EstadoPrestamo.EN_PROCESO || estado == EstadoPrestamo.APROBADO;
+    }
+
+    // Las columnas son DECIMAL(18, 2): un monto con más decimales se cuenta redondeado
+    private static long centavos(BigDecimal monto) {
+        return Dinero.de(monto.setScale(2, RoundingMode.HALF_UP)).getCentavos();
+    }
+}
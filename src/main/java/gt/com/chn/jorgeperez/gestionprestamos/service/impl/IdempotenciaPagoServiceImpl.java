@@ -0,0 +1,188 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.mapper.PagoMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.model.ClaveIdempotencia;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClaveIdempotenciaRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.IdempotenciaPagoService;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PagoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Implementación del registro de pagos con clave de idempotencia.
+ * <p>
+ * Las respuestas se guardan en una caché en memoria acotada por tamaño y por tiempo, respaldada por la tabla
+ * {@code clave_idempotencia}. Un reintento cuya clave está en la caché se responde sin acceder a la base de datos.
+ * Si llegan al mismo tiempo varias solicitudes con la misma clave, solo la primera registra el pago y las demás
+ * esperan su resultado. Entre instancias de la aplicación, la llave primaria de la tabla garantiza que solo una
+ * de ellas registre el pago.
+ */
+@Service
+public class IdempotenciaPagoServiceImpl implements IdempotenciaPagoService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaPagoServiceImpl.class);
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+    private final PagoService pagoService;
+
+    private final PagoRepository pagoRepository;
+
+    private final ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PagoMapper pagoMapper;
+
+    private final AsyncCache<String, RespuestaRegistrada> respuestas;
+
+    private final Duration expiracion;
+
+    @Autowired
+    public IdempotenciaPagoServiceImpl(PagoService pagoService, PagoRepository pagoRepository, ClaveIdempotenciaRepository claveIdempotenciaRepository,
+                                       TransactionTemplate transactionTemplate, PagoMapper pagoMapper,
+                                       @Value("${pagos.idempotencia.maximo-claves:10000}") long maximoClaves,
+                                       @Value("${pagos.idempotencia.expiracion:24h}") Duration expiracion) {
+        this.pagoService = pagoService;
+        this.pagoRepository = pagoRepository;
+        this.claveIdempotenciaRepository = claveIdempotenciaRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pagoMapper = pagoMapper;
+        this.respuestas = Caffeine.newBuilder().maximumSize(maximoClaves).expireAfterWrite(expiracion).buildAsync();
+        this.expiracion = expiracion;
+    }
+
+    /**
+     * Registra un pago, o devuelve el pago ya registrado con la misma clave.
+     * Los errores no se guardan: si el registro falla, un reintento con la misma clave vuelve a procesarse.
+     *
+     * @param claveIdempotencia La clave enviada en la cabecera {@code Idempotency-Key}, o {@code null} si no se envió.
+     * @param solicitudPagoDTO  Los datos del pago.
+     * @return El pago registrado.
+     * @throws CustomExceptions.InvalidOperationException Si la clave es inválida o ya se utilizó con otros datos de pago.
+     */
+    @Override
+    public PagoDTO registrarPago(String claveIdempotencia, SolicitudPagoDTO solicitudPagoDTO) {
+        if (claveIdempotencia == null) {
+            return pagoMapper.aDTO(transactionTemplate.execute(estado -> pagoService.registrarPago(solicitudPagoDTO)));
+        }
+        if (claveIdempotencia.isBlank() || claveIdempotencia.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new CustomExceptions.InvalidOperationException("La clave de idempotencia debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres.");
+        }
+
+        String huella = huella(solicitudPagoDTO);
+        CompletableFuture<RespuestaRegistrada> propia = new CompletableFuture<>();
+        CompletableFuture<RespuestaRegistrada> respuesta = respuestas.asMap().putIfAbsent(claveIdempotencia, propia);
+        if (respuesta == null) {
+            // Esta solicitud es la primera con la clave: registra el pago mientras las demás esperan
+            respuesta = propia;
+            try {
+                propia.complete(registrarConClave(claveIdempotencia, huella, solicitudPagoDTO));
+            } catch (RuntimeException e) {
+                respuestas.asMap().remove(claveIdempotencia, propia);
+                propia.completeExceptionally(e);
+            }
+        }
+
+        RespuestaRegistrada registrada = esperar(respuesta);
+        if (!registrada.huella().equals(huella)) {
+            throw new CustomExceptions.InvalidOperationException("La clave de idempotencia ya fue utilizada con una solicitud de pago diferente.");
+        }
+        return registrada.pago();
+    }
+
+    /**
+     * Registra la clave y el pago en una misma transacción. Si la clave ya existe en la base de datos, porque fue
+     * registrada antes de que la caché la descartara o por otra instancia, se devuelve el pago que tiene asociado.
+     */
+    private RespuestaRegistrada registrarConClave(String clave, String huella, SolicitudPagoDTO solicitud) {
+        try {
+            return transactionTemplate.execute(estado -> {
+                ClaveIdempotencia nueva = new ClaveIdempotencia();
+                nueva.setClave(clave);
+                nueva.setHuellaSolicitud(huella);
+                nueva.setFechaCreacion(new Date());
+                // Se inserta antes del pago: otra transacción con la misma clave queda bloqueada aquí hasta que esta termine
+                nueva = claveIdempotenciaRepository.saveAndFlush(nueva);
+
+                Pago pago = pagoService.registrarPago(solicitud);
+                nueva.setPagoId(pago.getPagoId());
+                return new RespuestaRegistrada(huella, pagoMapper.aDTO(pago));
+            });
+        } catch (DataIntegrityViolationException e) {
+            RespuestaRegistrada existente = transactionTemplate.execute(estado -> claveIdempotenciaRepository.findById(clave)
+                    .map(registrada -> new RespuestaRegistrada(registrada.getHuellaSolicitud(), pagoRepository.findById(registrada.getPagoId()).map(pagoMapper::aDTO).orElseThrow()))
+                    .orElse(null));
+            if (existente == null) {
+                throw e;
+            }
+            log.info("Clave de idempotencia {} ya registrada, se devuelve el pago con ID: {}", clave, existente.pago().getPagoId());
+            return existente;
+        }
+    }
+
+    /**
+     * Elimina de la tabla las claves recibidas hace más de {@code pagos.idempotencia.expiracion}, el mismo tiempo que
+     * se conservan en memoria. Es seguro ejecutarlo en varias instancias a la vez.
+     *
+     * @return La cantidad de claves eliminadas.
+     */
+    @Override
+    public int depurarClavesVencidas() {
+        Date limite = new Date(System.currentTimeMillis() - expiracion.toMillis());
+        Integer eliminadas = transactionTemplate.execute(estado -> claveIdempotenciaRepository.deleteByFechaCreacionBefore(limite));
+        if (eliminadas != null && eliminadas > 0) {
+            log.info("Se eliminaron {} claves de idempotencia recibidas antes de {}", eliminadas, limite);
+        }
+        return eliminadas == null ? 0 : eliminadas;
+    }
+
+    private static RespuestaRegistrada esperar(CompletableFuture<RespuestaRegistrada> respuesta) {
+        try {
+            return respuesta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private static String huella(SolicitudPagoDTO solicitud) {
+        String datos = solicitud.getPrestamoId() + "|"
+                + (solicitud.getMontoPago() == null ? "" : solicitud.getMontoPago().stripTrailingZeros().toPlainString()) + "|"
+                + (solicitud.getFechaPago() == null ? "" : solicitud.getFechaPago().getTime());
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible", e);
+        }
+    }
+
+    /**
+     * Respuesta guardada para una clave: la huella de la solicitud original y el pago que produjo.
+     */
+    private record RespuestaRegistrada(String huella, PagoDTO pago) {
+    }
+}
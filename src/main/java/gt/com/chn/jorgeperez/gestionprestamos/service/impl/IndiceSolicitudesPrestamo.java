@@ -0,0 +1,97 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Índice en memoria de las solicitudes de préstamo recibidas en la última ventana de
+ * {@code prestamos.solicitud.ventana-duplicados}, para rechazar las solicitudes duplicadas sin consultar la base de
+ * datos.
+ * <p>
+ * La huella de una solicitud es el cliente, el monto, el plazo y la tasa. Reservar una huella es una sola operación
+ * atómica del mapa, así que de varias solicitudes idénticas simultáneas solo una la obtiene. Las huellas se olvidan al
+ * cumplirse la ventana o si el préstamo no llega a guardarse.
+ * <p>
+ * El índice solo ve las solicitudes de esta instancia desde que inició. Para los demás casos, el préstamo guarda la
+ * huella junto con el número de ventana en que se recibió y un índice único de la tabla rechaza la segunda solicitud
+ * de la misma ventana. Esas ventanas son intervalos fijos de la duración configurada contados desde la época, no los
+ * últimos minutos antes de cada solicitud: dos solicitudes idénticas que llegan a instancias distintas a ambos lados
+ * del límite entre dos ventanas se aceptan las dos, aunque estén separadas por menos que la ventana.
+ */
+@Component
+public class IndiceSolicitudesPrestamo {
+
+    private final Cache<String, Boolean> recientes;
+
+    private final long ventanaMilisegundos;
+
+    @Autowired
+    public IndiceSolicitudesPrestamo(@Value("${prestamos.solicitud.ventana-duplicados:10m}") Duration ventana) {
+        if (ventana.toMillis() <= 0) {
+            throw new IllegalArgumentException("prestamos.solicitud.ventana-duplicados debe ser de al menos un milisegundo: " + ventana);
+        }
+        this.recientes = Caffeine.newBuilder().expireAfterWrite(ventana).build();
+        this.ventanaMilisegundos = ventana.toMillis();
+    }
+
+    /**
+     * @return La huella de la solicitud. Los montos y tasas iguales con distinta cantidad de decimales tienen la misma huella.
+     */
+    public String huella(SolicitudPrestamoDTO solicitud) {
+        return solicitud.getClienteId() + "|" + normalizar(solicitud.getMontoSolicitado()) + "|" + solicitud.getPlazo() + "|" + normalizar(solicitud.getTasaInteres());
+    }
+
+    /**
+     * @return La huella que se guarda en el préstamo: la huella de la solicitud y el número del intervalo fijo de la
+     * ventana en que cae la hora actual.
+     */
+    public String huellaEnVentana(String huella) {
+        return huella + "|" + System.currentTimeMillis() / ventanaMilisegundos;
+    }
+
+    /**
+     * Reserva la huella de una solicitud.
+     *
+     * @return {@code false} si otra solicitud con la misma huella se recibió dentro de la ventana.
+     */
+    public boolean reservar(String huella) {
+        return recientes.asMap().putIfAbsent(huella, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Libera la huella de una solicitud que no se guardó.
+     */
+    public void liberar(String huella) {
+        recientes.invalidate(huella);
+    }
+
+    /**
+     * Libera la huella si la transacción activa, en la que se guardó el préstamo, se revierte.
+     */
+    public void liberarSiSeRevierte(String huella) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado != STATUS_COMMITTED) {
+                    liberar(huella);
+                }
+            }
+        });
+    }
+
+    private static String normalizar(BigDecimal valor) {
+        return valor == null ? null : valor.stripTrailingZeros().toPlainString();
+    }
+}
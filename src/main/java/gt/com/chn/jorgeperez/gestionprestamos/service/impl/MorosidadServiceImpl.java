@@ -0,0 +1,254 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenMorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.PlanPagos;
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.MorosidadRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.MorosidadService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementación del cálculo de morosidad.
+ * <p>
+ * La cuota {@code n} de un préstamo aprobado vence {@code n} meses después de la fecha de solicitud, con el monto del
+ * plan de pagos con amortización francesa. Los pagos se aplican a las cuotas en orden, así que el atraso se mide desde
+ * el vencimiento de la primera cuota que el total pagado del préstamo no alcanza a cubrir. El total pagado es el
+ * acumulado que se mantiene con cada pago, de modo que el cálculo no lee la tabla de pagos.
+ * <p>
+ * Los préstamos se recorren por rangos de {@code prestamo_id} de {@code morosidad.tamano-bloque} IDs que se procesan
+ * en paralelo en {@code morosidad.hilos} hilos. Cada rango reemplaza sus filas de la tabla {@code morosidad} en su
+ * propia transacción, así que las consultas siempre ven el resultado completo de un rango, del cálculo anterior o del
+ * actual. Los hilos son los mismos para todos los cálculos.
+ * <p>
+ * Solo se ejecuta un cálculo a la vez: dentro de la instancia con un {@link ReentrantLock} y entre instancias con la
+ * fila {@code morosidad} de {@code bloqueo_tarea}, que se toma por {@code morosidad.bloqueo.duracion} y se libera al
+ * terminar. Si el cálculo ya está en curso, el nuevo se rechaza.
+ */
+@Service
+public class MorosidadServiceImpl implements MorosidadService {
+
+    private static final Logger log = LoggerFactory.getLogger(MorosidadServiceImpl.class);
+
+    private static final String CONSULTAR_PRESTAMOS = "select prestamo_id, cliente_id, monto_solicitado, plazo, tasa_interes, fecha_solicitud, total_pagado, " +
+            "coalesce(saldo_actual, monto_solicitado - total_pagado) from prestamo where estado = ? and prestamo_id between ? and ?";
+
+    private static final String ELIMINAR_RANGO = "delete from morosidad where prestamo_id between ? and ?";
+
+    private static final String ELIMINAR_DESDE = "delete from morosidad where prestamo_id > ?";
+
+    private static final String TAREA = "morosidad";
+
+    private static final String INSERTAR = "insert into morosidad (prestamo_id, cliente_id, dias_atraso, tramo, cuotas_vencidas, monto_vencido, saldo_actual, fecha_corte) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PrestamoRepository prestamoRepository;
+
+    private final MorosidadRepository morosidadRepository;
+
+    private final BloqueoTareas bloqueoTareas;
+
+    private final int tamanoBloque;
+
+    private final Duration duracionBloqueo;
+
+    private final ExecutorService ejecutor;
+
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    @Autowired
+    public MorosidadServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PrestamoRepository prestamoRepository,
+                                MorosidadRepository morosidadRepository, BloqueoTareas bloqueoTareas, @Value("${morosidad.hilos:4}") int hilos,
+                                @Value("${morosidad.tamano-bloque:1000}") int tamanoBloque,
+                                @Value("${morosidad.bloqueo.duracion:PT2H}") Duration duracionBloqueo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.prestamoRepository = prestamoRepository;
+        this.morosidadRepository = morosidadRepository;
+        this.bloqueoTareas = bloqueoTareas;
+        this.tamanoBloque = tamanoBloque;
+        this.duracionBloqueo = duracionBloqueo;
+        this.ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "calculo-morosidad");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    @Override
+    public ResumenMorosidadDTO calcularMorosidad(LocalDate fechaCorte) {
+        if (!enCurso.tryLock()) {
+            throw new CustomExceptions.InvalidOperationException("Ya hay un cálculo de morosidad en curso.");
+        }
+        try {
+            if (!bloqueoTareas.tomar(TAREA, duracionBloqueo)) {
+                throw new CustomExceptions.InvalidOperationException("Ya hay un cálculo de morosidad en curso en otra instancia.");
+            }
+            try {
+                return calcular(fechaCorte);
+            } finally {
+                bloqueoTareas.liberar(TAREA);
+            }
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    private ResumenMorosidadDTO calcular(LocalDate fechaCorte) {
+        long inicio = System.currentTimeMillis();
+        Long maximo = prestamoRepository.findMaxPrestamoId();
+        long ultimo = maximo == null ? 0 : maximo;
+
+        List<Future<ResultadoRango>> pendientes = new ArrayList<>();
+        try {
+            for (long desde = 1; desde <= ultimo; desde += tamanoBloque) {
+                long inicioRango = desde;
+                long finRango = Math.min(desde + tamanoBloque - 1, ultimo);
+                pendientes.add(ejecutor.submit(() -> transactionTemplate.execute(estado -> calcularRango(inicioRango, finRango, fechaCorte))));
+            }
+
+            long evaluados = 0;
+            long morosos = 0;
+            long vencido = 0;
+            Map<TramoMorosidad, Long> porTramo = new EnumMap<>(TramoMorosidad.class);
+            for (TramoMorosidad tramo : TramoMorosidad.values()) {
+                porTramo.put(tramo, 0L);
+            }
+            for (Future<ResultadoRango> pendiente : pendientes) {
+                ResultadoRango resultado = pendiente.get();
+                evaluados += resultado.evaluados();
+                morosos += resultado.morosos();
+                vencido += resultado.montoVencido();
+                resultado.porTramo().forEach((tramo, cantidad) -> porTramo.merge(tramo, cantidad, Long::sum));
+            }
+            // Los préstamos eliminados después del cálculo anterior se borran en cascada; esto cubre los rangos vacíos
+            transactionTemplate.executeWithoutResult(estado -> jdbcTemplate.update(ELIMINAR_DESDE, ultimo));
+
+            long duracion = System.currentTimeMillis() - inicio;
+            log.info("Morosidad al {} calculada: {} préstamos evaluados, {} en mora, en {} ms", fechaCorte, evaluados, morosos, duracion);
+            return new ResumenMorosidadDTO(Date.valueOf(fechaCorte), evaluados, morosos, porTramo, Dinero.deCentavos(vencido).aBigDecimal(), duracion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomExceptions.DatabaseOperationException("Cálculo de morosidad interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new CustomExceptions.DatabaseOperationException("Error al calcular la morosidad al " + fechaCorte, e.getCause());
+        } finally {
+            // Si un rango falló, los que no han empezado no se calculan
+            pendientes.forEach(pendiente -> pendiente.cancel(true));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MorosidadDTO> listarMorosos(TramoMorosidad tramo) {
+        return tramo == null ? morosidadRepository.findMorosos() : morosidadRepository.findMorososByTramo(tramo);
+    }
+
+    // Calcula el atraso de los préstamos aprobados del rango y reemplaza sus filas de la tabla de morosidad
+    private ResultadoRango calcularRango(long desde, long hasta, LocalDate fechaCorte) {
+        Map<Terminos, PlanPagos> planes = new HashMap<>();
+        List<Object[]> filas = new ArrayList<>();
+        Map<TramoMorosidad, Long> porTramo = new EnumMap<>(TramoMorosidad.class);
+        long[] evaluados = {0};
+        long[] vencido = {0};
+        Date corte = Date.valueOf(fechaCorte);
+
+        jdbcTemplate.query(CONSULTAR_PRESTAMOS, rs -> {
+            evaluados[0]++;
+            // La columna tasa_interes tiene dos decimales, así que la tasa se representa exactamente en centésimas
+            Terminos terminos = new Terminos(Dinero.de(rs.getBigDecimal(3)).getCentavos(), rs.getInt(4),
+                    rs.getBigDecimal(5).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+            PlanPagos plan = planes.computeIfAbsent(terminos, t -> PlanPagos.calcular(t.montoCentavos(), t.plazo(), t.tasaCentesimas()));
+            Atraso atraso = calcularAtraso(plan, rs.getDate(6).toLocalDate(), Dinero.de(rs.getBigDecimal(7)).getCentavos(), fechaCorte);
+            if (atraso == null) {
+                return;
+            }
+            TramoMorosidad tramo = TramoMorosidad.deDias(atraso.dias());
+            porTramo.merge(tramo, 1L, Long::sum);
+            vencido[0] += atraso.montoVencido();
+            filas.add(new Object[]{rs.getLong(1), rs.getLong(2), atraso.dias(), tramo.name(), atraso.cuotasVencidas(),
+                    Dinero.deCentavos(atraso.montoVencido()).aBigDecimal(), rs.getBigDecimal(8), corte});
+        }, EstadoPrestamo.APROBADO.getCodigo(), desde, hasta);
+
+        jdbcTemplate.update(ELIMINAR_RANGO, desde, hasta);
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERTAR, filas);
+        }
+        return new ResultadoRango(evaluados[0], filas.size(), vencido[0], porTramo);
+    }
+
+    /**
+     * Recorre las cuotas vencidas antes de la fecha de corte y aplica el total pagado en orden.
+     *
+     * @return El atraso desde la primera cuota vencida sin cubrir, o {@code null} si el préstamo está al día.
+     */
+    private static Atraso calcularAtraso(PlanPagos plan, LocalDate fechaSolicitud, long pagadoCentavos, LocalDate fechaCorte) {
+        long exigible = 0;
+        int cuotasVencidas = 0;
+        LocalDate primerVencimiento = null;
+        for (int numeroCuota = 1; numeroCuota <= plan.getPlazo(); numeroCuota++) {
+            LocalDate vencimiento = fechaSolicitud.plusMonths(numeroCuota);
+            if (!vencimiento.isBefore(fechaCorte)) {
+                break;
+            }
+            exigible += plan.getCapital(numeroCuota) + plan.getInteres(numeroCuota);
+            if (exigible > pagadoCentavos) {
+                cuotasVencidas++;
+                if (primerVencimiento == null) {
+                    primerVencimiento = vencimiento;
+                }
+            }
+        }
+        if (primerVencimiento == null) {
+            return null;
+        }
+        return new Atraso((int) ChronoUnit.DAYS.between(primerVencimiento, fechaCorte), cuotasVencidas, exigible - pagadoCentavos);
+    }
+
+    private record Terminos(long montoCentavos, int plazo, long tasaCentesimas) {
+    }
+
+    private record Atraso(int dias, int cuotasVencidas, long montoVencido) {
+    }
+
+    private record ResultadoRango(long evaluados, long morosos, long montoVencido, Map<TramoMorosidad, Long> porTramo) {
+    }
+}
@@ -0,0 +1,111 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Envía por Server-Sent Events las solicitudes de préstamo en proceso a los revisores conectados, para que no tengan
+ * que consultar periódicamente las solicitudes pendientes.
+ * <p>
+ * Cada solicitud se envía solo si la transacción en la que se guardó se confirma. Los envíos se hacen en un hilo
+ * propio, en el orden en que se confirmaron, para que un revisor con una conexión lenta no demore el guardado de las
+ * solicitudes; la conexión que falla se descarta y el revisor debe volver a conectarse. Cada conexión se cierra al
+ * cumplirse {@code prestamos.revision.tiempo-conexion}.
+ */
+@Component
+public class NotificadorSolicitudesPendientes {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificadorSolicitudesPendientes.class);
+
+    static final String EVENTO = "solicitud-pendiente";
+
+    private final List<SseEmitter> emisores = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService envios = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "notificador-solicitudes");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final long tiempoConexionMilisegundos;
+
+    @Autowired
+    public NotificadorSolicitudesPendientes(@Value("${prestamos.revision.tiempo-conexion:PT30M}") Duration tiempoConexion) {
+        this.tiempoConexionMilisegundos = tiempoConexion.toMillis();
+    }
+
+    @PreDestroy
+    void detener() {
+        envios.shutdownNow();
+        emisores.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * @return El emisor de una nueva conexión, que recibe las solicitudes confirmadas a partir de ahora.
+     */
+    public SseEmitter suscribir() {
+        SseEmitter emisor = new SseEmitter(tiempoConexionMilisegundos);
+        emisor.onCompletion(() -> emisores.remove(emisor));
+        emisor.onTimeout(emisor::complete);
+        emisor.onError(error -> emisores.remove(emisor));
+        emisores.add(emisor);
+        return emisor;
+    }
+
+    /**
+     * Envía la solicitud a los revisores conectados cuando se confirme la transacción activa, o de inmediato si no
+     * hay una.
+     */
+    public void notificarAlConfirmar(SolicitudPendienteDTO solicitud) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notificar(solicitud);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificar(solicitud);
+            }
+        });
+    }
+
+    /**
+     * @return La cantidad de revisores conectados.
+     */
+    public int conexiones() {
+        return emisores.size();
+    }
+
+    private void notificar(SolicitudPendienteDTO solicitud) {
+        if (emisores.isEmpty()) {
+            return;
+        }
+        envios.execute(() -> {
+            for (SseEmitter emisor : emisores) {
+                try {
+                    emisor.send(SseEmitter.event().name(EVENTO).id(String.valueOf(solicitud.getPrestamoId())).data(solicitud, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // La conexión se cerró: el contenedor completa el emisor, solo se deja de enviarle eventos
+                    emisores.remove(emisor);
+                    log.debug("Se descartó una conexión de solicitudes pendientes: {}", e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResultadoLineaPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenLotePagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PagoLoteService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Implementación de la carga masiva de pagos.
+ * <p>
+ * El lote se lee línea por línea y se procesa en bloques de tamaño fijo, por lo que la memoria utilizada no depende
+ * del tamaño del archivo. Cada bloque se procesa en su propia transacción: los pagos se agrupan por préstamo,
+ * se bloquean los préstamos involucrados con una sola consulta, los pagos de cada préstamo se aplican en el orden
+ * del archivo y tanto los saldos como las filas de pago se escriben mediante lotes JDBC. Los pagos se insertan
+ * con el EntityManager para que sus identificadores provengan del mismo generador que el resto de la aplicación;
+ * como ese generador reserva los identificadores por bloques, Hibernate agrupa las inserciones según
+ * {@code hibernate.jdbc.batch_size}. Al confirmarse cada bloque se invalidan en las cachés los saldos y
+ * encabezados de los préstamos que recibieron pagos.
+ */
+@Service
+public class PagoLoteServiceImpl implements PagoLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(PagoLoteServiceImpl.class);
+
+    private static final String APLICAR_PAGOS = "update prestamo set saldo_actual = ?, total_pagado = total_pagado + ?, numero_pagos = numero_pagos + ?, " +
+            "fecha_ultimo_pago = case when fecha_ultimo_pago is null or fecha_ultimo_pago < ? then ? else fecha_ultimo_pago end where prestamo_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int tamanoBloque;
+
+    private final Cache saldosCache;
+
+    private final Cache prestamosCache;
+
+    private final AcumuladosCartera acumuladosCartera;
+
+    private final ExposicionCredito exposicionCredito;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public PagoLoteServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                               CacheManager cacheManager, AcumuladosCartera acumuladosCartera, ExposicionCredito exposicionCredito,
+                               @Value("${pagos.lote.tamano-bloque:1000}") int tamanoBloque) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.tamanoBloque = tamanoBloque;
+        this.saldosCache = cacheManager.getCache(CacheConfig.SALDOS);
+        this.prestamosCache = cacheManager.getCache(CacheConfig.PRESTAMOS);
+        this.acumuladosCartera = acumuladosCartera;
+        this.exposicionCredito = exposicionCredito;
+    }
+
+    /**
+     * Registra un lote de pagos leído desde un flujo de texto.
+     *
+     * @param lector     El contenido del lote.
+     * @param formato    El formato de las líneas del lote.
+     * @param consumidor Recibe el resultado de cada línea, en el orden del archivo, a medida que se confirma cada bloque.
+     * @return El resumen del procesamiento, incluyendo el rendimiento en pagos por segundo.
+     * @throws IOException Si ocurre un error al leer el lote.
+     */
+    @Override
+    public ResumenLotePagosDTO registrarLote(Reader lector, Formato formato, Consumer<ResultadoLineaPagoDTO> consumidor) throws IOException {
+        long inicio = System.nanoTime();
+        long[] contadores = new long[3]; // líneas, registrados, rechazados
+        List<LineaPago> bloque = new ArrayList<>(tamanoBloque);
+
+        BufferedReader entrada = new BufferedReader(lector);
+        long numeroLinea = 0;
+        String linea;
+        while ((linea = entrada.readLine()) != null) {
+            numeroLinea++;
+            if (linea.isBlank() || (formato == Formato.CSV && numeroLinea == 1 && esEncabezado(linea))) {
+                continue;
+            }
+            bloque.add(interpretar(numeroLinea, linea.trim(), formato));
+            if (bloque.size() == tamanoBloque) {
+                procesarBloque(bloque, consumidor, contadores);
+                bloque.clear();
+            }
+        }
+        if (!bloque.isEmpty()) {
+            procesarBloque(bloque, consumidor, contadores);
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        double pagosPorSegundo = nanos == 0 ? 0 : contadores[0] * 1_000_000_000.0 / nanos;
+        ResumenLotePagosDTO resumen = new ResumenLotePagosDTO(contadores[0], contadores[1], contadores[2], TimeUnit.NANOSECONDS.toMillis(nanos), pagosPorSegundo);
+        log.info("Lote de pagos procesado: {} líneas, {} registrados, {} rechazados en {} ms ({} pagos/segundo)",
+                resumen.getLineasProcesadas(), resumen.getPagosRegistrados(), resumen.getPagosRechazados(), resumen.getDuracionMilisegundos(), String.format("%.1f", pagosPorSegundo));
+        return resumen;
+    }
+
+    /**
+     * Aplica un bloque de pagos en una transacción y entrega el resultado de cada línea.
+     * Si la transacción falla, todas las líneas válidas del bloque se informan como rechazadas.
+     */
+    private void procesarBloque(List<LineaPago> bloque, Consumer<ResultadoLineaPagoDTO> consumidor, long[] contadores) {
+        Map<Long, List<LineaPago>> pagosPorPrestamo = new LinkedHashMap<>();
+        for (LineaPago linea : bloque) {
+            if (linea.mensaje == null) {
+                pagosPorPrestamo.computeIfAbsent(linea.solicitud.getPrestamoId(), id -> new ArrayList<>()).add(linea);
+            }
+        }
+
+        if (!pagosPorPrestamo.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(estado -> aplicarPagos(pagosPorPrestamo));
+            } catch (DataAccessException | TransactionException e) {
+                log.error("Error al registrar un bloque de pagos: {}", e.getMessage(), e);
+                pagosPorPrestamo.values().forEach(lineas -> lineas.forEach(linea -> linea.rechazar("Error al registrar el bloque de pagos en la base de datos.")));
+            }
+        }
+
+        for (LineaPago linea : bloque) {
+            contadores[0]++;
+            contadores[linea.registrado ? 1 : 2]++;
+            consumidor.accept(linea.aResultado());
+        }
+    }
+
+    /**
+     * Bloquea los préstamos del bloque, calcula la cadena de saldos de cada préstamo en el orden de sus pagos
+     * y escribe los nuevos saldos, los acumulados de pagos de cada préstamo y los pagos aceptados mediante lotes JDBC.
+     */
+    private void aplicarPagos(Map<Long, List<LineaPago>> pagosPorPrestamo) {
+        // Se bloquea en orden de ID para que dos lotes concurrentes no se bloqueen mutuamente
+        List<Long> prestamoIds = new ArrayList<>(pagosPorPrestamo.keySet());
+        Collections.sort(prestamoIds);
+        String marcadores = String.join(", ", Collections.nCopies(prestamoIds.size(), "?"));
+        Map<Long, Dinero> saldos = new HashMap<>();
+        Map<Long, EstadoPrestamo> estados = new HashMap<>();
+        Map<Long, Long> clientes = new HashMap<>();
+        jdbcTemplate.query("select prestamo_id, coalesce(saldo_actual, monto_solicitado), estado, cliente_id from prestamo where prestamo_id in (" + marcadores + ") order by prestamo_id for update",
+                rs -> {
+                    saldos.put(rs.getLong(1), Dinero.de(rs.getBigDecimal(2)));
+                    estados.put(rs.getLong(1), EstadoPrestamo.desdeCodigo(rs.getString(3)));
+                    clientes.put(rs.getLong(1), rs.getLong(4));
+                }, prestamoIds.toArray());
+
+        List<Object[]> prestamosActualizados = new ArrayList<>();
+        List<Pago> pagos = new ArrayList<>();
+        pagosPorPrestamo.forEach((prestamoId, lineas) -> {
+            // Los saldos se llevan en centavos; se convierten a BigDecimal solo al escribir los pagos y los resultados
+            Dinero saldo = saldos.get(prestamoId);
+            if (saldo == null) {
+                lineas.forEach(linea -> linea.rechazar("Préstamo no encontrado con ID: " + prestamoId));
+                return;
+            }
+            String errorEstado = ValidacionPago.validarEstado(prestamoId, estados.get(prestamoId));
+            if (errorEstado != null) {
+                lineas.forEach(linea -> linea.rechazar(errorEstado));
+                return;
+            }
+            Dinero totalPagado = Dinero.CERO;
+            int numeroPagos = 0;
+            Date fechaUltimoPago = null;
+            for (LineaPago linea : lineas) {
+                // Las líneas con más de dos decimales se rechazan al interpretarlas
+                Dinero monto = Dinero.de(linea.solicitud.getMontoPago());
+                if (monto.esMayorQue(saldo)) {
+                    linea.rechazar("El monto del pago excede el saldo pendiente del préstamo con ID: " + prestamoId);
+                    continue;
+                }
+                Dinero saldoAnterior = saldo;
+                saldo = saldo.restar(monto);
+                linea.registrar(saldoAnterior, saldo);
+                pagos.add(nuevoPago(prestamoId, linea.solicitud, saldoAnterior, saldo));
+                totalPagado = totalPagado.sumar(monto);
+                numeroPagos++;
+                Date fechaPago = new Date(linea.solicitud.getFechaPago().getTime());
+                if (fechaUltimoPago == null || fechaPago.after(fechaUltimoPago)) {
+                    fechaUltimoPago = fechaPago;
+                }
+            }
+            if (numeroPagos > 0) {
+                prestamosActualizados.add(new Object[]{saldo.aBigDecimal(), totalPagado.aBigDecimal(), numeroPagos, fechaUltimoPago, fechaUltimoPago, prestamoId});
+                // Se suma a los totales de la cartera y a la exposición del cliente solo si el bloque se confirma
+                acumuladosCartera.registrarCambioSaldo(estados.get(prestamoId), totalPagado.negar());
+                exposicionCredito.registrarCambioSaldo(clientes.get(prestamoId), estados.get(prestamoId), totalPagado.negar());
+            }
+        });
+
+        if (!pagos.isEmpty()) {
+            jdbcTemplate.batchUpdate(APLICAR_PAGOS, prestamosActualizados);
+            // Hibernate no ve las actualizaciones hechas por JDBC: esta sentencia, que no modifica filas, le indica que la
+            // tabla prestamo cambió, para que invalide los préstamos y las consultas de la caché de segundo nivel al confirmar
+            entityManager.createNativeQuery("update prestamo set saldo_actual = saldo_actual where 1 = 0")
+                    .unwrap(NativeQuery.class).addSynchronizedEntityClass(Prestamo.class).executeUpdate();
+            pagos.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+            // Las cachés son transaccionales: se invalidan solo si el bloque se confirma
+            for (Object[] prestamo : prestamosActualizados) {
+                saldosCache.evict(prestamo[5]);
+                prestamosCache.evict(prestamo[5]);
+            }
+        }
+    }
+
+    private Pago nuevoPago(Long prestamoId, SolicitudPagoDTO solicitud, Dinero saldoAnterior, Dinero saldoActual) {
+        Pago pago = new Pago();
+        pago.setPrestamo(entityManager.getReference(Prestamo.class, prestamoId));
+        pago.setMontoPago(solicitud.getMontoPago());
+        pago.setFechaPago(solicitud.getFechaPago());
+        pago.setSaldoAnterior(saldoAnterior.aBigDecimal());
+        pago.setSaldoActual(saldoActual.aBigDecimal());
+        return pago;
+    }
+
+    private LineaPago interpretar(long numeroLinea, String linea, Formato formato) {
+        SolicitudPagoDTO solicitud;
+        try {
+            solicitud = formato == Formato.CSV ? interpretarCsv(linea) : objectMapper.readValue(linea, SolicitudPagoDTO.class);
+        } catch (JsonProcessingException | IllegalArgumentException | DateTimeParseException e) {
+            return LineaPago.invalida(numeroLinea, null, "Línea con formato inválido: " + e.getMessage());
+        }
+
+        String error = ValidacionPago.validar(solicitud);
+        if (error != null) {
+            return LineaPago.invalida(numeroLinea, solicitud, error);
+        }
+        return new LineaPago(numeroLinea, solicitud, null);
+    }
+
+    private static SolicitudPagoDTO interpretarCsv(String linea) {
+        String[] columnas = linea.split(",", -1);
+        if (columnas.length != 3) {
+            throw new IllegalArgumentException("se esperaban 3 columnas y se encontraron " + columnas.length);
+        }
+        SolicitudPagoDTO solicitud = new SolicitudPagoDTO();
+        solicitud.setPrestamoId(Long.valueOf(columnas[0].trim()));
+        solicitud.setMontoPago(new BigDecimal(columnas[1].trim()));
+        solicitud.setFechaPago(Date.valueOf(LocalDate.parse(columnas[2].trim())));
+        return solicitud;
+    }
+
+    private static boolean esEncabezado(String linea) {
+        String primera = linea.trim();
+        return !primera.isEmpty() && !Character.isDigit(primera.charAt(0));
+    }
+
+    /**
+     * Estado de una línea del lote durante su procesamiento.
+     */
+    private static final class LineaPago {
+        private final long numeroLinea;
+        private final SolicitudPagoDTO solicitud;
+        private String mensaje;
+        private boolean registrado;
+        private Dinero saldoAnterior;
+        private Dinero saldoActual;
+
+        private LineaPago(long numeroLinea, SolicitudPagoDTO solicitud, String mensaje) {
+            this.numeroLinea = numeroLinea;
+            this.solicitud = solicitud;
+            this.mensaje = mensaje;
+        }
+
+        static LineaPago invalida(long numeroLinea, SolicitudPagoDTO solicitud, String mensaje) {
+            return new LineaPago(numeroLinea, solicitud, mensaje);
+        }
+
+        void registrar(Dinero saldoAnterior, Dinero saldoActual) {
+            this.registrado = true;
+            this.saldoAnterior = saldoAnterior;
+            this.saldoActual = saldoActual;
+            this.mensaje = null;
+        }
+
+        void rechazar(String mensaje) {
+            this.registrado = false;
+            this.saldoAnterior = null;
+            this.saldoActual = null;
+            this.mensaje = mensaje;
+        }
+
+        ResultadoLineaPagoDTO aResultado() {
+            Long prestamoId = solicitud == null ? null : solicitud.getPrestamoId();
+            BigDecimal montoPago = solicitud == null ? null : solicitud.getMontoPago();
+            return new ResultadoLineaPagoDTO(numeroLinea, prestamoId, montoPago, registrado, saldoAnterior == null ? null : saldoAnterior.aBigDecimal(),
+                    saldoActual == null ? null : saldoActual.aBigDecimal(), registrado ? "Pago registrado" : mensaje);
+        }
+    }
+}
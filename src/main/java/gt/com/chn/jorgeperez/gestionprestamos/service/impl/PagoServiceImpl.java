@@ -1,8 +1,12 @@
 package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
 
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SaldoPrestamoDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
@@ -10,34 +14,82 @@ import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
 import gt.com.chn.jorgeperez.gestionprestamos.service.PagoService;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class PagoServiceImpl implements PagoService {
 
+    /**
+     * Cantidad máxima de préstamos en una consulta de saldos.
+     */
+    private static final int MAXIMO_SALDOS = 10_000;
+
+    /**
+     * Cantidad de IDs en cada sentencia {@code IN} de la consulta de saldos.
+     */
+    private static final int SALDOS_POR_CONSULTA = 500;
+
     private final PagoRepository pagoRepository;
 
     @Autowired
     private PrestamoRepository prestamoRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AcumuladosCartera acumuladosCartera;
+
+    @Autowired
+    private ExposicionCredito exposicionCredito;
+
     @Autowired
     public PagoServiceImpl(PagoRepository pagoRepository) {
         this.pagoRepository = pagoRepository;
     }
 
 
+    /**
+     * Guarda un pago tal como se recibe. Si el pago es nuevo, se acumula en el total pagado,
+     * la cantidad de pagos y la fecha del último pago del préstamo en la misma transacción.
+     *
+     * @param pago El pago a guardar.
+     * @return El pago guardado.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.SALDOS, key = "#pago.prestamo.prestamoId", condition = "#pago.prestamo != null"),
+            @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#pago.prestamo.prestamoId", condition = "#pago.prestamo != null")
+    })
     public Pago guardarPago(Pago pago) {
         try {
-            return pagoRepository.save(pago);
+            boolean nuevo = pago.getPagoId() == null;
+            Pago pagoGuardado = pagoRepository.save(pago);
+            if (nuevo) {
+                prestamoRepository.acumularPago(pagoGuardado.getPrestamo().getPrestamoId(), pagoGuardado.getMontoPago(), pagoGuardado.getFechaPago());
+            }
+            return pagoGuardado;
         } catch (DataIntegrityViolationException ex) {
             throw new CustomExceptions.PagoProcessingException("No se puede procesar el pago: violación de integridad.", ex);
         }
@@ -53,23 +105,76 @@ public class PagoServiceImpl implements PagoService {
         return pagoRepository.findAll();
     }
 
+    /**
+     * Actualiza un pago y aplica al préstamo la diferencia de monto en la misma transacción: la descuenta del saldo,
+     * la suma al total pagado y actualiza la fecha del último pago con un UPDATE condicional, y la registra en los
+     * totales de la cartera y en la exposición de crédito del cliente.
+     *
+     * @param pago El pago con sus nuevos datos.
+     * @return El pago actualizado.
+     * @throws EntityNotFoundException                       Si el pago no existe.
+     * @throws CustomExceptions.InvalidOperationException Si el monto no es positivo, cambia el préstamo del pago o el
+     *                                                       aumento del monto excede el saldo pendiente.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.SALDOS, key = "#result.prestamo.prestamoId"),
+            @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#result.prestamo.prestamoId")
+    })
     public Pago actualizarPago(Pago pago) {
         if (pago == null || pago.getPagoId() == null) {
             throw new IllegalArgumentException("El pago y su ID no pueden ser nulos.");
         }
+        if (pago.getMontoPago() == null || pago.getMontoPago().signum() <= 0) {
+            throw new CustomExceptions.InvalidOperationException("El monto del pago debe ser mayor que cero.");
+        }
+        Dinero montoNuevo;
+        try {
+            montoNuevo = Dinero.de(pago.getMontoPago());
+        } catch (ArithmeticException e) {
+            throw new CustomExceptions.InvalidOperationException("El monto del pago no puede tener más de dos decimales.");
+        }
 
-        // Verificar si el pago existe
+        // Verificar si el pago existe; el monto anterior se lee antes de guardar, porque el merge modifica la entidad cargada
         Pago pagoExistente = pagoRepository.findById(pago.getPagoId()).orElseThrow(() -> new EntityNotFoundException("Pago no encontrado con ID: " + pago.getPagoId()));
+        Long prestamoId = pagoExistente.getPrestamo().getPrestamoId();
+        if (pago.getPrestamo() == null || !prestamoId.equals(pago.getPrestamo().getPrestamoId())) {
+            throw new CustomExceptions.InvalidOperationException("No se puede cambiar el préstamo del pago con ID: " + pago.getPagoId());
+        }
+        Dinero diferencia = montoNuevo.restar(Dinero.de(pagoExistente.getMontoPago()));
+
+        Pago pagoActualizado = pagoRepository.save(pago);
 
-        // Realizar la actualización. Esto podría incluir validaciones adicionales o transformaciones antes de guardar.
-        return pagoRepository.save(pago);
+        if (prestamoRepository.ajustarPago(prestamoId, diferencia.aBigDecimal()) == 0) {
+            throw new CustomExceptions.InvalidOperationException("El nuevo monto del pago excede el saldo pendiente del préstamo con ID: " + prestamoId);
+        }
+        if (diferencia.signum() != 0) {
+            ResumenPrestamoDTO prestamo = prestamoRepository.findResumenByPrestamoId(prestamoId).orElseThrow(() -> new EntityNotFoundException("Préstamo no encontrado con ID: " + prestamoId));
+            acumuladosCartera.registrarCambioSaldo(prestamo.getEstado(), diferencia.negar());
+            exposicionCredito.registrarCambioSaldo(prestamo.getClienteId(), prestamo.getEstado(), diferencia.negar());
+        }
+        return pagoActualizado;
     }
 
+    /**
+     * Elimina un pago y lo revierte en el préstamo: devuelve el monto al saldo y actualiza el total pagado,
+     * la cantidad de pagos y la fecha del último pago en la misma transacción.
+     *
+     * @param id El ID del pago.
+     */
     @Override
+    @Transactional
     public void eliminarPago(Long id) {
         try {
-            pagoRepository.deleteById(id);
+            pagoRepository.findById(id).ifPresent(pago -> {
+                EstadoPrestamo estado = pago.getPrestamo().getEstado();
+                pagoRepository.delete(pago);
+                prestamoRepository.revertirPago(pago.getPrestamo().getPrestamoId(), pago.getMontoPago());
+                acumuladosCartera.registrarCambioSaldo(estado, Dinero.de(pago.getMontoPago()));
+                exposicionCredito.registrarCambioSaldo(pago.getPrestamo().getCliente().getClienteId(), estado, Dinero.de(pago.getMontoPago()));
+                invalidarCaches(pago.getPrestamo().getPrestamoId());
+            });
         } catch (DataAccessException e) {
             throw new CustomExceptions.PagoProcessingException("Error al eliminar el pago", e);
         }
@@ -86,102 +191,175 @@ public class PagoServiceImpl implements PagoService {
 
     @Override
     public Date obtenerFechaUltimoPagoPorPrestamoId(Long prestamoId) {
-        return pagoRepository.findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc(prestamoId).map(Pago::getFechaPago).orElse(null);
+        return prestamoRepository.findFechaUltimoPagoByPrestamoId(prestamoId);
     }
 
 
+    /**
+     * Registra un pago y lo aplica al saldo y a los acumulados de pagos del préstamo en una misma transacción.
+     * El descuento se hace con un UPDATE condicional, de modo que pagos concurrentes sobre el mismo préstamo
+     * se aplican uno tras otro y la cadena saldo anterior / saldo actual de los pagos queda consistente.
+     *
+     * @param solicitudPagoDTO Los datos del pago.
+     * @return El pago registrado.
+     * @throws EntityNotFoundException                       Si el préstamo no existe.
+     * @throws CustomExceptions.InvalidOperationException Si el monto no es positivo o excede el saldo pendiente.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.SALDOS, key = "#solicitudPagoDTO.prestamoId"),
+            @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#solicitudPagoDTO.prestamoId")
+    })
     public Pago registrarPago(SolicitudPagoDTO solicitudPagoDTO) {
-        Prestamo prestamo = prestamoRepository.findById(solicitudPagoDTO.getPrestamoId()).orElseThrow(() -> new EntityNotFoundException("Préstamo no encontrado con ID: " + solicitudPagoDTO.getPrestamoId()));
+        // Las mismas validaciones que el lote de pagos
+        String error = ValidacionPago.validar(solicitudPagoDTO);
+        if (error != null) {
+            throw new CustomExceptions.InvalidOperationException(error);
+        }
+        Long prestamoId = solicitudPagoDTO.getPrestamoId();
+        BigDecimal montoPago = solicitudPagoDTO.getMontoPago();
+        Dinero monto = Dinero.de(montoPago);
 
-        BigDecimal saldoAnterior = prestamo.getSaldoActual() == null ? prestamo.getMontoSolicitado() : prestamo.getSaldoActual();
-        BigDecimal saldoActual = saldoAnterior.subtract(solicitudPagoDTO.getMontoPago());
+        // El UPDATE solo aplica el pago a un préstamo aprobado; si no lo aplicó, se busca el motivo
+        if (prestamoRepository.aplicarPago(prestamoId, montoPago, solicitudPagoDTO.getFechaPago(), EstadoPrestamo.APROBADO) == 0) {
+            EstadoPrestamo estado = prestamoRepository.findEstadoByPrestamoId(prestamoId);
+            if (estado == null) {
+                throw new EntityNotFoundException("Préstamo no encontrado con ID: " + prestamoId);
+            }
+            String errorEstado = ValidacionPago.validarEstado(prestamoId, estado);
+            if (errorEstado != null) {
+                throw new CustomExceptions.InvalidResourceStateException(errorEstado);
+            }
+            throw new CustomExceptions.InvalidOperationException("El monto del pago excede el saldo pendiente del préstamo con ID: " + prestamoId);
+        }
+
+        // La fila del préstamo queda bloqueada por el UPDATE hasta el fin de la transacción, así que este es nuestro saldo
+        ResumenPrestamoDTO prestamo = prestamoRepository.findResumenByPrestamoId(prestamoId).orElseThrow(() -> new EntityNotFoundException("Préstamo no encontrado con ID: " + prestamoId));
+        Dinero saldoActual = Dinero.de(prestamo.getSaldoPendiente());
+        Dinero saldoAnterior = saldoActual.sumar(monto);
+        acumuladosCartera.registrarCambioSaldo(prestamo.getEstado(), monto.negar());
+        exposicionCredito.registrarCambioSaldo(prestamo.getClienteId(), prestamo.getEstado(), monto.negar());
 
         Pago nuevoPago = new Pago();
-        nuevoPago.setPrestamo(prestamo);
-        nuevoPago.setMontoPago(solicitudPagoDTO.getMontoPago());
+        nuevoPago.setPrestamo(prestamoRepository.getReferenceById(prestamoId));
+        nuevoPago.setMontoPago(monto.aBigDecimal());
         nuevoPago.setFechaPago(solicitudPagoDTO.getFechaPago());
-        nuevoPago.setSaldoAnterior(saldoAnterior);
-        nuevoPago.setSaldoActual(saldoActual);
+        nuevoPago.setSaldoAnterior(saldoAnterior.aBigDecimal());
+        nuevoPago.setSaldoActual(saldoActual.aBigDecimal());
 
-        prestamo.setSaldoActual(saldoActual);
         return pagoRepository.save(nuevoPago);
     }
 
+    /**
+     * Consulta el saldo actual de un préstamo. El saldo se guarda en la caché {@value CacheConfig#SALDOS} y se
+     * invalida en cada operación que lo modifica, al confirmarse su transacción.
+     *
+     * @param prestamoId El ID del préstamo.
+     * @return El saldo actual del préstamo.
+     * @throws IllegalArgumentException Si el préstamo no existe.
+     */
     @Override
+    @Cacheable(CacheConfig.SALDOS)
     public BigDecimal consultarSaldoPendiente(Long prestamoId) {
-        Optional<Prestamo> prestamoOptional = prestamoRepository.findById(prestamoId);
-        if (prestamoOptional.isEmpty()) {
+        // Solo es nulo si el préstamo no existe: sin saldo registrado se calcula del monto y lo pagado
+        BigDecimal saldoActual = prestamoRepository.findSaldoActualByPrestamoId(prestamoId);
+        if (saldoActual == null) {
             throw new IllegalArgumentException("Préstamo no encontrado");
         }
-        Prestamo prestamo = prestamoOptional.get();
-        return prestamo.getSaldoActual();
+        return saldoActual;
+    }
+
+    /**
+     * Consulta el saldo actual de varios préstamos. Los saldos que están en la caché {@value CacheConfig#SALDOS} se
+     * toman de ahí; los demás se leen con una sentencia {@code IN} por cada {@value #SALDOS_POR_CONSULTA} préstamos y
+     * se guardan en la caché.
+     *
+     * @param prestamoIds Los IDs de los préstamos; los repetidos se consultan una vez.
+     * @return El saldo de cada préstamo, en el orden de los IDs recibidos. Los préstamos que no existen se omiten.
+     * @throws CustomExceptions.InvalidOperationException Si algún ID es nulo o se piden más de {@value #MAXIMO_SALDOS} préstamos.
+     */
+    @Override
+    public Map<Long, BigDecimal> consultarSaldosPendientes(Collection<Long> prestamoIds) {
+        Set<Long> ids = new LinkedHashSet<>(prestamoIds);
+        if (ids.contains(null)) {
+            throw new CustomExceptions.InvalidOperationException("Los IDs de préstamo no pueden ser nulos.");
+        }
+        if (ids.size() > MAXIMO_SALDOS) {
+            throw new CustomExceptions.InvalidOperationException("No se pueden consultar más de " + MAXIMO_SALDOS + " saldos en una solicitud.");
+        }
+
+        Cache saldosCache = cacheManager.getCache(CacheConfig.SALDOS);
+        Map<Long, BigDecimal> saldos = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : ids) {
+            BigDecimal saldo = saldosCache.get(id, BigDecimal.class);
+            if (saldo != null) {
+                saldos.put(id, saldo);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        for (int desde = 0; desde < faltantes.size(); desde += SALDOS_POR_CONSULTA) {
+            List<Long> bloque = faltantes.subList(desde, Math.min(desde + SALDOS_POR_CONSULTA, faltantes.size()));
+            for (SaldoPrestamoDTO saldo : prestamoRepository.findSaldosActualesByPrestamoIdIn(bloque)) {
+                saldos.put(saldo.getPrestamoId(), saldo.getSaldoActual());
+                saldosCache.put(saldo.getPrestamoId(), saldo.getSaldoActual());
+            }
+        }
+
+        Map<Long, BigDecimal> resultado = new LinkedHashMap<>();
+        for (Long id : ids) {
+            BigDecimal saldo = saldos.get(id);
+            if (saldo != null) {
+                resultado.put(id, saldo);
+            }
+        }
+        return resultado;
     }
 
     @Override
+    @Transactional
+    @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#prestamoId")
     public void finalizarPrestamo(Long prestamoId) {
-        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
-        //BigDecimal saldoPendiente = this.consultarSaldoPendiente(prestamoId);
-        BigDecimal saldoPendiente = calcularSaldoPendiente(prestamoId);
-        if (saldoPendiente.compareTo(BigDecimal.ZERO) <= 0) {
-            prestamo.setEstado("Finalizado");
-            prestamo.setFechaFinalizacion(new Date());
-            prestamoRepository.save(prestamo);
-        } else {
+        // Una sola sentencia UPDATE condicional; si se finalizó, se leen su monto y su saldo para los totales de la cartera,
+        // y si no, su estado para informar por qué
+        if (prestamoRepository.finalizar(prestamoId, EstadoPrestamo.FINALIZADO.getPredecesores(), new Date()) == 1) {
+            prestamoRepository.findResumenByPrestamoId(prestamoId).ifPresent(prestamo -> {
+                acumuladosCartera.registrarCambioEstado(EstadoPrestamo.APROBADO, EstadoPrestamo.FINALIZADO, prestamo.getMontoTotalPrestado(), prestamo.getSaldoPendiente());
+                exposicionCredito.registrarCambioEstado(prestamo.getClienteId(), EstadoPrestamo.APROBADO, EstadoPrestamo.FINALIZADO, prestamo.getMontoTotalPrestado(), prestamo.getSaldoPendiente());
+            });
+            return;
+        }
+        EstadoPrestamo estado = prestamoRepository.findEstadoByPrestamoId(prestamoId);
+        if (estado == null) {
+            throw new RuntimeException("Préstamo no encontrado");
+        }
+        if (estado.puedeCambiarA(EstadoPrestamo.FINALIZADO)) {
             throw new RuntimeException("El préstamo no se puede finalizar porque aún tiene saldo pendiente.");
         }
+        throw new CustomExceptions.InvalidResourceStateException(String.format("el préstamo con ID: %d está %s y no puede finalizarse.", prestamoId, estado.getEtiqueta()));
     }
 
     @Override
     public List<ResumenPrestamoDTO> obtenerResumenPrestamosPorClienteId(Long clienteId) {
-        List<Prestamo> prestamos = prestamoRepository.findByClienteClienteId(clienteId);
-        return prestamos.stream().map(prestamo -> {
-            ResumenPrestamoDTO dto = new ResumenPrestamoDTO();
-            dto.setPrestamoId(prestamo.getPrestamoId());
-            dto.setMontoTotalPrestado(prestamo.getMontoSolicitado());
-            dto.setSaldoPendiente(prestamo.getSaldoActual());
-            dto.setEstado(prestamo.getEstado());
-            // Obtener la fecha del último pago
-            List<Pago> pagosDelPrestamo = pagoRepository.findByPrestamoPrestamoIdOrderByFechaPagoDesc(prestamo.getPrestamoId());
-            if (!pagosDelPrestamo.isEmpty()) {
-                // El primer elemento es el último pago debido al orden descendente
-                dto.setFechaUltimoPago(pagosDelPrestamo.get(0).getFechaPago());
-            }
-            return dto;
-        }).collect(Collectors.toList());
+        // El resumen y la fecha del último pago se obtienen en una sola consulta
+        return prestamoRepository.findResumenByClienteId(clienteId);
     }
 
     @Override
     public List<ResumenPrestamoDTO> listarPrestamosAprobadosPorCliente(Long clienteId) {
         // Filtrar solo los préstamos aprobados del cliente
-        List<Prestamo> prestamos = prestamoRepository.findByClienteClienteIdAndEstado(clienteId, "Aprobado");
-        return prestamos.stream().map(prestamo -> {
-            ResumenPrestamoDTO dto = new ResumenPrestamoDTO();
-            dto.setPrestamoId(prestamo.getPrestamoId());
-            dto.setMontoTotalPrestado(prestamo.getMontoSolicitado());
-            dto.setSaldoPendiente(prestamo.getSaldoActual());
-            dto.setEstado(prestamo.getEstado());
-
-            // Obtener la fecha del último pago
-            List<Pago> pagosDelPrestamo = pagoRepository.findByPrestamoPrestamoIdOrderByFechaPagoDesc(prestamo.getPrestamoId());
-            if (!pagosDelPrestamo.isEmpty()) {
-                dto.setFechaUltimoPago(pagosDelPrestamo.get(0).getFechaPago());
-            }
-
-            return dto;
-        }).collect(Collectors.toList());
+        return prestamoRepository.findResumenByClienteIdAndEstado(clienteId, EstadoPrestamo.APROBADO);
     }
 
     public BigDecimal calcularSaldoPendiente(Long prestamoId) {
-        // Obtén todos los pagos realizados para este préstamo
-        List<Pago> pagos = pagoRepository.findByPrestamoPrestamoId(prestamoId);
-        BigDecimal totalPagado = pagos.stream().map(Pago::getMontoPago).reduce(BigDecimal.ZERO, BigDecimal::add);
-        // Encuentra el monto original del préstamo
-        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(() -> new IllegalArgumentException("Préstamo no encontrado"));
-        BigDecimal montoSolicitado = prestamo.getMontoSolicitado();
-
-        // Calcula el saldo pendiente
-        return montoSolicitado.subtract(totalPagado);
+        // Saldo del préstamo con los intereses devengados, que se mantiene al registrar cada pago
+        BigDecimal saldoPendiente = prestamoRepository.findSaldoPendienteByPrestamoId(prestamoId);
+        if (saldoPendiente == null) {
+            throw new IllegalArgumentException("Préstamo no encontrado");
+        }
+        return saldoPendiente;
     }
 
     @Override
@@ -189,4 +367,14 @@ public class PagoServiceImpl implements PagoService {
         return prestamoRepository.findByClienteClienteId(clienteId);
     }
 
+    /**
+     * Quita de las cachés el saldo y el encabezado de un préstamo. Dentro de una transacción se aplica al confirmarse.
+     *
+     * @param prestamoId El ID del préstamo.
+     */
+    private void invalidarCaches(Long prestamoId) {
+        cacheManager.getCache(CacheConfig.SALDOS).evict(prestamoId);
+        cacheManager.getCache(CacheConfig.PRESTAMOS).evict(prestamoId);
+    }
+
 }
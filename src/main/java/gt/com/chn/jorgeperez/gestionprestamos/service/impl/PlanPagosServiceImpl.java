@@ -0,0 +1,83 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.CuotaPlanPagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PlanPagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.PlanPagos;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PlanPagosService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de la consulta del plan de pagos.
+ * <p>
+ * El plan depende solo del monto, el plazo y la tasa del préstamo, y la mayoría de los préstamos usan unos pocos
+ * términos estándar. Por eso los planes calculados se guardan en una caché en memoria acotada por cantidad de planes
+ * y se comparten entre los préstamos con los mismos términos; no hace falta invalidarlos. La caché publica sus
+ * aciertos y fallos en /actuator/prometheus como {@code cache_gets_total{cache="planesPago"}}.
+ */
+@Service
+public class PlanPagosServiceImpl implements PlanPagosService {
+
+    private final PrestamoRepository prestamoRepository;
+
+    private final Cache<Terminos, PlanPagos> planes;
+
+    @Autowired
+    public PlanPagosServiceImpl(PrestamoRepository prestamoRepository, MeterRegistry meterRegistry,
+                                @Value("${prestamos.plan-pagos.maximo-planes:1000}") long maximoPlanes) {
+        this.prestamoRepository = prestamoRepository;
+        this.planes = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder().maximumSize(maximoPlanes).recordStats().build(), "planesPago");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PlanPagosDTO obtenerPlanPagos(Long prestamoId) {
+        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(() -> new CustomExceptions.PrestamoNotFoundException(prestamoId));
+        // La columna tasa_interes tiene dos decimales, así que la tasa se representa exactamente en centésimas
+        Terminos terminos = new Terminos(Dinero.de(prestamo.getMontoSolicitado()).getCentavos(),
+                prestamo.getPlazo(), prestamo.getTasaInteres().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+        PlanPagos plan = planes.get(terminos, t -> PlanPagos.calcular(t.montoCentavos(), t.plazo(), t.tasaCentesimas()));
+        return aDTO(prestamo, plan);
+    }
+
+    private static PlanPagosDTO aDTO(Prestamo prestamo, PlanPagos plan) {
+        PlanPagosDTO dto = new PlanPagosDTO();
+        dto.setPrestamoId(prestamo.getPrestamoId());
+        dto.setMontoSolicitado(prestamo.getMontoSolicitado());
+        dto.setPlazo(plan.getPlazo());
+        dto.setTasaInteres(prestamo.getTasaInteres());
+        dto.setCuotaMensual(aMonto(plan.getCuotaFija()));
+        dto.setTotalIntereses(aMonto(plan.getTotalIntereses()));
+        dto.setTotalPagar(aMonto(plan.getMontoCentavos() + plan.getTotalIntereses()));
+        List<CuotaPlanPagosDTO> cuotas = new ArrayList<>(plan.getPlazo());
+        for (int numeroCuota = 1; numeroCuota <= plan.getPlazo(); numeroCuota++) {
+            long capital = plan.getCapital(numeroCuota);
+            long interes = plan.getInteres(numeroCuota);
+            cuotas.add(new CuotaPlanPagosDTO(numeroCuota, aMonto(capital + interes), aMonto(capital), aMonto(interes), aMonto(plan.getSaldo(numeroCuota))));
+        }
+        dto.setCuotas(cuotas);
+        return dto;
+    }
+
+    private static BigDecimal aMonto(long centavos) {
+        return Dinero.deCentavos(centavos).aBigDecimal();
+    }
+
+    private record Terminos(long montoCentavos, int plazo, long tasaCentesimas) {
+    }
+}
@@ -1,28 +1,47 @@
 package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
 
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.RespuestaAprobacionDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
 import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
 import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
 import gt.com.chn.jorgeperez.gestionprestamos.repository.ClienteRepository;
 import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
 import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
 import gt.com.chn.jorgeperez.gestionprestamos.service.PrestamoService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class PrestamoServiceImpl implements PrestamoService {
 
+    private static final String INDICE_HUELLA = "uk_prestamo_huella_solicitud";
+
+    // Las columnas de la reserva de revisión no están mapeadas en la entidad, así que el cambio de estado es nativo
+    private static final String DECIDIR_SOLICITUD = "update prestamo set estado = :destino where prestamo_id = :prestamoId and estado in (:predecesores) " +
+            "and (revisor is null or revisor = :revisor or revision_vence < :ahora)";
+
     @Autowired
     private PrestamoRepository prestamoRepository;
 
@@ -32,19 +51,77 @@ public class PrestamoServiceImpl implements PrestamoService {
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private AcumuladosCartera acumuladosCartera;
+
+    @Autowired
+    private IndiceSolicitudesPrestamo indiceSolicitudes;
+
+    @Autowired
+    private ExposicionCredito exposicionCredito;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private NotificadorSolicitudesPendientes notificadorSolicitudes;
+
     @Override
+    @Transactional
     public Prestamo guardarPrestamo(SolicitudPrestamoDTO solicitud) {
-        Cliente cliente = clienteRepository.findById(solicitud.getClienteId()).orElseThrow(() -> new CustomExceptions.ClienteNotFoundException("El cliente con ID: " + solicitud.getClienteId() + " no existe."));
+        // La huella se reserva en memoria antes de cualquier consulta; el índice único de la tabla cubre las solicitudes
+        // que llegan a otra instancia o después de reiniciar la aplicación
+        String huella = indiceSolicitudes.huella(solicitud);
+        if (!indiceSolicitudes.reservar(huella)) {
+            throw new CustomExceptions.DuplicateLoanRequestException(descripcion(solicitud));
+        }
+        EstadoPrestamo estado = solicitud.getEstado() != null ? solicitud.getEstado() : EstadoPrestamo.EN_PROCESO;
+        try {
+            Cliente cliente = clienteRepository.findById(solicitud.getClienteId()).orElseThrow(() -> new CustomExceptions.ClienteNotFoundException("El cliente con ID: " + solicitud.getClienteId() + " no existe."));
+
+            // El límite de crédito se comprueba con la exposición guardada del cliente, sin sumar sus préstamos; si la
+            // transacción se revierte, el monto reservado se devuelve con ella
+            if (solicitud.getMontoSolicitado() != null && (estado == EstadoPrestamo.EN_PROCESO || estado == EstadoPrestamo.APROBADO)) {
+                exposicionCredito.reservar(cliente.getClienteId(), solicitud.getMontoSolicitado());
+            }
 
-        Prestamo prestamo = new Prestamo();
-        prestamo.setCliente(cliente);
-        prestamo.setMontoSolicitado(solicitud.getMontoSolicitado());
-        prestamo.setPlazo(solicitud.getPlazo());
-        prestamo.setEstado(solicitud.getEstado());
-        prestamo.setFechaSolicitud(solicitud.getFechaSolicitud());
-        prestamo.setTasaInteres(solicitud.getTasaInteres());
+            Prestamo prestamo = new Prestamo();
+            prestamo.setCliente(cliente);
+            prestamo.setMontoSolicitado(solicitud.getMontoSolicitado());
+            prestamo.setPlazo(solicitud.getPlazo());
+            prestamo.setEstado(estado);
+            prestamo.setFechaSolicitud(solicitud.getFechaSolicitud());
+            prestamo.setTasaInteres(solicitud.getTasaInteres());
+            // Sin pagos, el saldo es el monto solicitado
+            prestamo.setSaldoActual(solicitud.getMontoSolicitado());
+            prestamo.setHuellaSolicitud(indiceSolicitudes.huellaEnVentana(huella));
+
+            // Se escribe de inmediato para que una violación del índice único se detecte aquí aunque haya una transacción activa
+            Prestamo prestamoGuardado = prestamoRepository.saveAndFlush(prestamo);
+            indiceSolicitudes.liberarSiSeRevierte(huella);
+            acumuladosCartera.registrarAlta(prestamoGuardado.getEstado(), prestamoGuardado.getMontoSolicitado(), prestamoGuardado.getSaldoActual());
+            if (estado == EstadoPrestamo.EN_PROCESO) {
+                notificadorSolicitudes.notificarAlConfirmar(new SolicitudPendienteDTO(prestamoGuardado.getPrestamoId(), cliente.getClienteId(), prestamoGuardado.getMontoSolicitado(),
+                        prestamoGuardado.getPlazo(), prestamoGuardado.getTasaInteres(), prestamoGuardado.getFechaSolicitud(), null, null));
+            }
+            return prestamoGuardado;
+        } catch (DataIntegrityViolationException e) {
+            String causa = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+            if (causa.contains(INDICE_HUELLA)) {
+                // La solicitud original existe: la huella queda reservada hasta que se cumpla la ventana
+                throw new CustomExceptions.DuplicateLoanRequestException(descripcion(solicitud));
+            }
+            indiceSolicitudes.liberar(huella);
+            throw e;
+        } catch (RuntimeException e) {
+            indiceSolicitudes.liberar(huella);
+            throw e;
+        }
+    }
 
-        return prestamoRepository.save(prestamo);
+    private static String descripcion(SolicitudPrestamoDTO solicitud) {
+        return "el cliente con ID " + solicitud.getClienteId() + " ya solicitó un préstamo de " + solicitud.getMontoSolicitado() + " a "
+                + solicitud.getPlazo() + " meses con tasa de " + solicitud.getTasaInteres() + "% recientemente.";
     }
 
     @Override
@@ -53,6 +130,20 @@ public class PrestamoServiceImpl implements PrestamoService {
         return prestamoRepository.findById(id);
     }
 
+    /**
+     * Obtiene el encabezado de un préstamo. El resultado se guarda en la caché {@value CacheConfig#PRESTAMOS} hasta
+     * que el préstamo cambie de estado, reciba un pago, se actualice o se elimine.
+     *
+     * @param id El ID del préstamo.
+     * @return El resumen del préstamo.
+     * @throws CustomExceptions.PrestamoNotFoundException Si el préstamo no existe.
+     */
+    @Override
+    @Cacheable(CacheConfig.PRESTAMOS)
+    public ResumenPrestamoDTO obtenerResumenPrestamoPorId(Long id) {
+        return prestamoRepository.findResumenByPrestamoId(id).orElseThrow(() -> new CustomExceptions.PrestamoNotFoundException(id));
+    }
+
     @Override
     public List<Prestamo> listarTodosLosPrestamos() {
         // Implementación para listar todos los préstamos
@@ -60,6 +151,11 @@ public class PrestamoServiceImpl implements PrestamoService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#prestamo.prestamoId"),
+            @CacheEvict(value = CacheConfig.SALDOS, key = "#prestamo.prestamoId")
+    })
+    @Transactional
     public Prestamo actualizarPrestamo(Prestamo prestamo) {
         // Verificar si el préstamo y su ID no son nulos
         if (prestamo == null || prestamo.getPrestamoId() == null) {
@@ -69,54 +165,155 @@ public class PrestamoServiceImpl implements PrestamoService {
         // Verificar si el préstamo existe
         Prestamo existente = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow(() -> new EntityNotFoundException("El préstamo con ID " + prestamo.getPrestamoId() + " no existe"));
 
-        // Validación del estado del préstamo
-        if (!prestamo.getEstado().matches("Aprobado|Rechazado|En Proceso")) {
+        // Validación del estado del préstamo: la finalización se hace al liquidar el saldo, y cualquier otro cambio
+        // debe seguir la tabla de transiciones
+        if (prestamo.getEstado() == null || (prestamo.getEstado() == EstadoPrestamo.FINALIZADO && existente.getEstado() != EstadoPrestamo.FINALIZADO)) {
             throw new IllegalArgumentException("Estado del préstamo no válido");
         }
+        if (prestamo.getEstado() != existente.getEstado() && !existente.getEstado().puedeCambiarA(prestamo.getEstado())) {
+            throw new IllegalArgumentException("El préstamo no puede pasar de " + existente.getEstado().getEtiqueta() + " a " + prestamo.getEstado().getEtiqueta());
+        }
 
         // Validación del monto solicitado
         if (prestamo.getMontoSolicitado().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("El monto solicitado debe ser mayor que cero");
         }
 
+        // Lo que aumenta la exposición del cliente se reserva antes de guardar, con el mismo límite de crédito que una
+        // solicitud nueva; si la transacción se revierte, el aumento se devuelve con ella
+        Long clienteId = prestamo.getCliente() != null ? prestamo.getCliente().getClienteId() : null;
+        BigDecimal aumento = BigDecimal.ZERO;
+        if (clienteId != null) {
+            BigDecimal aporteAnterior = clienteId.equals(existente.getCliente().getClienteId())
+                    ? ExposicionCredito.aporte(existente.getEstado(), existente.getMontoSolicitado(), existente.getSaldoActual()) : BigDecimal.ZERO;
+            aumento = ExposicionCredito.aporte(prestamo.getEstado(), prestamo.getMontoSolicitado(), prestamo.getSaldoActual()).subtract(aporteAnterior);
+        }
+        boolean reservado = aumento.signum() > 0;
+        if (reservado) {
+            exposicionCredito.reservar(clienteId, aumento);
+        }
+
+        // Los valores anteriores se leen antes de guardar: en la transacción, save copia los nuevos sobre el préstamo existente
+        EstadoPrestamo estadoAnterior = existente.getEstado();
+        BigDecimal montoAnterior = existente.getMontoSolicitado();
+        BigDecimal saldoAnterior = existente.getSaldoActual();
+        Long clienteAnterior = existente.getCliente().getClienteId();
+
         // Si todas las validaciones pasan, actualizar el préstamo
-        return prestamoRepository.save(prestamo);
+        Prestamo prestamoActualizado = prestamoRepository.save(prestamo);
+        acumuladosCartera.registrarBaja(estadoAnterior, montoAnterior, saldoAnterior);
+        acumuladosCartera.registrarAlta(prestamoActualizado.getEstado(), prestamoActualizado.getMontoSolicitado(), prestamoActualizado.getSaldoActual());
+        exposicionCredito.registrarBaja(clienteAnterior, estadoAnterior, montoAnterior, saldoAnterior);
+        if (clienteId != null) {
+            exposicionCredito.registrarAlta(clienteId, prestamoActualizado.getEstado(), prestamoActualizado.getMontoSolicitado(), prestamoActualizado.getSaldoActual());
+        }
+        if (reservado) {
+            // registrarAlta también cuenta el aumento, que ya se sumó a la tabla al reservarlo
+            exposicionCredito.descontarReservado(clienteId, aumento);
+        }
+        return prestamoActualizado;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#id"),
+            @CacheEvict(value = CacheConfig.SALDOS, key = "#id")
+    })
     public void eliminarPrestamo(Long id) {
         // Primero, puedes verificar si el préstamo existe antes de intentar eliminarlo.
         Prestamo prestamo = prestamoRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Préstamo no encontrado con ID: " + id));
 
         // Si el préstamo existe, procedemos a eliminarlo.
         prestamoRepository.deleteById(id);
+        acumuladosCartera.registrarBaja(prestamo.getEstado(), prestamo.getMontoSolicitado(), prestamo.getSaldoActual());
+        exposicionCredito.registrarBaja(prestamo.getCliente().getClienteId(), prestamo.getEstado(), prestamo.getMontoSolicitado(), prestamo.getSaldoActual());
     }
 
     @Override
-    public RespuestaAprobacionDTO aprobarPrestamo(Long id) {
-        Prestamo prestamo = prestamoRepository.findById(id).orElseThrow(() -> new CustomExceptions.PrestamoNotFoundException(id));
+    @Transactional
+    @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#id")
+    public RespuestaAprobacionDTO aprobarPrestamo(Long id, String revisor) {
+        // Una sola sentencia UPDATE condicional: si varios revisores aprueban a la vez, solo uno encuentra el préstamo En Proceso
+        if (decidirSolicitud(id, EstadoPrestamo.APROBADO, revisor) == 0) {
+            throw transicionRechazada(id, EstadoPrestamo.APROBADO);
+        }
+        registrarCambioEstado(id, EstadoPrestamo.EN_PROCESO, EstadoPrestamo.APROBADO);
+        return new RespuestaAprobacionDTO(String.format("La solicitud de préstamo con ID %d ha sido aprobada exitosamente.", id), id, EstadoPrestamo.APROBADO);
+    }
+
 
-        if ("Aprobado".equals(prestamo.getEstado())) {
-            throw new CustomExceptions.PrestamoYaAprobadoException(id);
+    @Override
+    @Transactional
+    @CacheEvict(value = CacheConfig.PRESTAMOS, key = "#id")
+    public void rechazarPrestamo(Long id, String motivoRechazo, String revisor) {
+        if (decidirSolicitud(id, EstadoPrestamo.RECHAZADO, revisor) == 0) {
+            throw transicionRechazada(id, EstadoPrestamo.RECHAZADO);
         }
+        registrarCambioEstado(id, EstadoPrestamo.EN_PROCESO, EstadoPrestamo.RECHAZADO);
+    }
 
-        prestamo.setEstado("Aprobado");
-        Prestamo prestamoActualizado = prestamoRepository.save(prestamo);
-        return new RespuestaAprobacionDTO(String.format("La solicitud de préstamo con ID %d ha sido aprobada exitosamente.", id), prestamoActualizado.getPrestamoId(), prestamoActualizado.getEstado());
+    /**
+     * Cambia el estado del préstamo en una sola sentencia UPDATE condicional, solo si su estado actual es uno de los
+     * predecesores del destino y ningún otro revisor tiene una reserva vigente de la solicitud. La base de datos
+     * serializa los cambios concurrentes sobre el mismo préstamo, por lo que de varias decisiones simultáneas solo una
+     * encuentra el estado esperado.
+     *
+     * @return 1 si el estado cambió; 0 si el préstamo no existe, no está en ninguno de los predecesores o lo tiene
+     * reservado otro revisor.
+     */
+    private int decidirSolicitud(Long id, EstadoPrestamo destino, String revisor) {
+        // Hibernate no ve las columnas de la reserva: se le indica que la tabla prestamo cambia para que invalide solo
+        // los préstamos y las consultas de la caché de segundo nivel
+        return entityManager.createNativeQuery(DECIDIR_SOLICITUD)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Prestamo.class)
+                .setParameter("destino", destino.getCodigo())
+                .setParameter("prestamoId", id)
+                .setParameterList("predecesores", destino.getPredecesores().stream().map(EstadoPrestamo::getCodigo).toList())
+                .setParameter("revisor", revisor, String.class)
+                .setParameter("ahora", new Timestamp(System.currentTimeMillis()))
+                .executeUpdate();
     }
 
+    /**
+     * Informa a los totales de la cartera y a la exposición del cliente el monto y el saldo del préstamo que cambió de
+     * estado. La fila sigue bloqueada por el UPDATE, así que los valores leídos son los del cambio. Al aprobar, si la
+     * exposición del cliente excede el límite de crédito, la excepción revierte el cambio de estado.
+     */
+    private void registrarCambioEstado(Long id, EstadoPrestamo anterior, EstadoPrestamo nuevo) {
+        ResumenPrestamoDTO resumen = prestamoRepository.findResumenByPrestamoId(id).orElseThrow(() -> new CustomExceptions.PrestamoNotFoundException(id));
+        if (nuevo == EstadoPrestamo.APROBADO) {
+            exposicionCredito.verificar(resumen.getClienteId());
+        }
+        acumuladosCartera.registrarCambioEstado(anterior, nuevo, resumen.getMontoTotalPrestado(), resumen.getSaldoPendiente());
+        exposicionCredito.registrarCambioEstado(resumen.getClienteId(), anterior, nuevo, resumen.getMontoTotalPrestado(), resumen.getSaldoPendiente());
+    }
 
-    @Override
-    public void rechazarPrestamo(Long id, String motivoRechazo) {
-        Prestamo prestamo = prestamoRepository.findById(id).orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
-        prestamo.setEstado("Rechazado");
-        prestamoRepository.save(prestamo);
+    /**
+     * Determina por qué no se aplicó una transición de estado. Solo se consulta el préstamo cuando la
+     * actualización condicional no modificó ninguna fila.
+     */
+    private RuntimeException transicionRechazada(Long id, EstadoPrestamo destino) {
+        EstadoPrestamo actual = prestamoRepository.findEstadoByPrestamoId(id);
+        if (actual == null) {
+            return new CustomExceptions.PrestamoNotFoundException(id);
+        }
+        if (actual == EstadoPrestamo.APROBADO && destino == EstadoPrestamo.APROBADO) {
+            return new CustomExceptions.PrestamoYaAprobadoException(id);
+        }
+        if (actual == destino) {
+            return new CustomExceptions.ResourceAlreadyInDesiredStateException(String.format("El préstamo con ID: %d ya está %s.", id, actual.getEtiqueta()));
+        }
+        if (destino.getPredecesores().contains(actual)) {
+            return new CustomExceptions.InvalidOperationException(String.format("La solicitud de préstamo con ID %d está reservada para revisión por otro revisor.", id));
+        }
+        return new CustomExceptions.InvalidResourceStateException(String.format("el préstamo con ID: %d está %s y no puede pasar a %s.", id, actual.getEtiqueta(), destino.getEtiqueta()));
     }
 
     // Implementación de los demás métodos necesarios
 
     @Override
-    public List<Prestamo> buscarPrestamosPorEstado(String estado) {
+    public List<Prestamo> buscarPrestamosPorEstado(EstadoPrestamo estado) {
         return prestamoRepository.findByEstado(estado);
     }
 
@@ -124,9 +321,21 @@ public class PrestamoServiceImpl implements PrestamoService {
         return prestamoRepository.findByMontoSolicitadoGreaterThan(monto);
     }
 
+    /**
+     * Obtiene el total del monto solicitado de los préstamos en un estado desde los totales que se mantienen en
+     * memoria y en la tabla {@code resumen_cartera}, sin recorrer la tabla de préstamos.
+     *
+     * @param estado El estado del préstamo.
+     * @return El total del monto solicitado; cero si no hay préstamos en el estado.
+     */
     @Override
-    public BigDecimal calcularTotalMontoPrestadoPorEstado(String estado) {
-        return prestamoRepository.findTotalMontoPrestadoByEstado(estado);
+    public BigDecimal calcularTotalMontoPrestadoPorEstado(EstadoPrestamo estado) {
+        return acumuladosCartera.obtener(estado).getMontoSolicitado();
+    }
+
+    @Override
+    public List<ResumenCarteraDTO> obtenerResumenCartera() {
+        return acumuladosCartera.obtenerTodos();
     }
 
     @Override
@@ -136,7 +345,7 @@ public class PrestamoServiceImpl implements PrestamoService {
 
     @Override
     public List<Prestamo> obtenerSolicitudesPrestamosPendientes() {
-        return prestamoRepository.findByEstado("En Proceso");
+        return prestamoRepository.findByEstado(EstadoPrestamo.EN_PROCESO);
     }
 
 
@@ -154,34 +363,18 @@ public class PrestamoServiceImpl implements PrestamoService {
 
 
     public BigDecimal calcularSaldoPendiente(Long prestamoId) {
-        // Todos los pagos realizados para este préstamo
-        List<Pago> pagos = pagoRepository.findByPrestamoPrestamoId(prestamoId);
-        BigDecimal totalPagado = pagos.stream().map(Pago::getMontoPago).reduce(BigDecimal.ZERO, BigDecimal::add);
-        // Monto original del préstamo
-        Prestamo prestamo = prestamoRepository.findById(prestamoId).orElseThrow(() -> new IllegalArgumentException("Préstamo no encontrado"));
-        BigDecimal montoSolicitado = prestamo.getMontoSolicitado();
-
-        // Calcular saldo pendiente
-        return montoSolicitado.subtract(totalPagado);
+        // Saldo del préstamo con los intereses devengados, sin recorrer sus pagos
+        BigDecimal saldoPendiente = prestamoRepository.findSaldoPendienteByPrestamoId(prestamoId);
+        if (saldoPendiente == null) {
+            throw new IllegalArgumentException("Préstamo no encontrado");
+        }
+        return saldoPendiente;
     }
 
     @Override
     public List<ResumenPrestamoDTO> obtenerResumenPrestamosPorClienteId(Long clienteId) {
-        List<Prestamo> prestamos = prestamoRepository.findByClienteClienteId(clienteId);
-        return prestamos.stream().map(prestamo -> {
-            ResumenPrestamoDTO dto = new ResumenPrestamoDTO();
-            dto.setPrestamoId(prestamo.getPrestamoId());
-            dto.setMontoTotalPrestado(prestamo.getMontoSolicitado());
-            dto.setSaldoPendiente(prestamo.getSaldoActual());
-            dto.setEstado(prestamo.getEstado());
-            // Obtener la fecha del último pago
-            List<Pago> pagosDelPrestamo = pagoRepository.findByPrestamoPrestamoIdOrderByFechaPagoDesc(prestamo.getPrestamoId());
-            if (!pagosDelPrestamo.isEmpty()) {
-                // El primer elemento es el último pago debido al orden descendente
-                dto.setFechaUltimoPago(pagosDelPrestamo.get(0).getFechaPago());
-            }
-            return dto;
-        }).collect(Collectors.toList());
+        // El resumen y la fecha del último pago se obtienen en una sola consulta
+        return prestamoRepository.findResumenByClienteId(clienteId);
     }
 
     public List<Prestamo> obtenerSolicitudesPrestamosPendientesPorClienteId(Long clienteId) {
@@ -189,7 +382,7 @@ public class PrestamoServiceImpl implements PrestamoService {
             throw new CustomExceptions.ClienteNotFoundException("El cliente con ID " + clienteId + " no existe.");
         }
 
-        List<Prestamo> prestamosPendientes = prestamoRepository.findByClienteClienteIdAndEstado(clienteId, "En Proceso");
+        List<Prestamo> prestamosPendientes = prestamoRepository.findByClienteClienteIdAndEstado(clienteId, EstadoPrestamo.EN_PROCESO);
 
         if (prestamosPendientes.isEmpty()) {
             throw new CustomExceptions.PrestamosPendientesNotFoundException("El cliente con ID " + clienteId + " no tiene préstamos pendientes.");
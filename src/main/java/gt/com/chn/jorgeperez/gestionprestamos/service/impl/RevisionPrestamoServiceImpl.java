@@ -0,0 +1,98 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.service.RevisionPrestamoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cola de revisión de las solicitudes de préstamo en proceso. La reserva de cada solicitud se guarda en las columnas
+ * {@code revisor} y {@code revision_vence} del préstamo.
+ * <p>
+ * Las solicitudes disponibles se bloquean con {@code FOR UPDATE SKIP LOCKED}: si dos revisores reservan al mismo
+ * tiempo, cada uno omite las filas que el otro tiene bloqueadas en lugar de esperarlas, así que ninguna solicitud se
+ * entrega a dos revisores y ninguno queda en espera. Aprobar o rechazar la solicitud la saca de la cola, porque solo se
+ * reservan las que siguen en proceso.
+ */
+@Service
+public class RevisionPrestamoServiceImpl implements RevisionPrestamoService {
+
+    private static final int LONGITUD_MAXIMA_REVISOR = 100;
+
+    private static final String CONSULTAR_DISPONIBLES = "select prestamo_id, cliente_id, monto_solicitado, plazo, tasa_interes, fecha_solicitud from prestamo " +
+            "where estado = ? and (revision_vence is null or revision_vence < ? or revisor = ?) order by prestamo_id limit ? for update skip locked";
+
+    private static final String RESERVAR = "update prestamo set revisor = ?, revision_vence = ? where prestamo_id = ?";
+
+    private static final String LIBERAR = "update prestamo set revisor = null, revision_vence = null where prestamo_id = ? and revisor = ? and estado = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final NotificadorSolicitudesPendientes notificador;
+
+    private final Duration duracionReserva;
+
+    private final int maximoPorReserva;
+
+    @Autowired
+    public RevisionPrestamoServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, NotificadorSolicitudesPendientes notificador,
+                                       @Value("${prestamos.revision.duracion-reserva:PT15M}") Duration duracionReserva,
+                                       @Value("${prestamos.revision.maximo-por-reserva:50}") int maximoPorReserva) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.notificador = notificador;
+        this.duracionReserva = duracionReserva;
+        this.maximoPorReserva = maximoPorReserva;
+    }
+
+    @Override
+    public List<SolicitudPendienteDTO> reservarSolicitudes(String revisor, int cantidad) {
+        validarRevisor(revisor);
+        if (cantidad < 1) {
+            throw new CustomExceptions.InvalidOperationException("La cantidad de solicitudes a reservar debe ser mayor que cero.");
+        }
+        long ahora = System.currentTimeMillis();
+        Timestamp vence = new Timestamp(ahora + duracionReserva.toMillis());
+
+        return transactionTemplate.execute(transaccion -> {
+            List<SolicitudPendienteDTO> solicitudes = jdbcTemplate.query(CONSULTAR_DISPONIBLES, (rs, fila) -> new SolicitudPendienteDTO(
+                            rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3), rs.getInt(4), rs.getBigDecimal(5), rs.getDate(6), revisor, vence),
+                    EstadoPrestamo.EN_PROCESO.getCodigo(), new Timestamp(ahora), revisor, Math.min(cantidad, maximoPorReserva));
+            if (!solicitudes.isEmpty()) {
+                jdbcTemplate.batchUpdate(RESERVAR, solicitudes.stream().map(solicitud -> new Object[]{revisor, vence, solicitud.getPrestamoId()}).toList());
+            }
+            return solicitudes;
+        });
+    }
+
+    @Override
+    public void liberarSolicitud(Long prestamoId, String revisor) {
+        validarRevisor(revisor);
+        if (jdbcTemplate.update(LIBERAR, prestamoId, revisor, EstadoPrestamo.EN_PROCESO.getCodigo()) == 0) {
+            throw new CustomExceptions.InvalidOperationException("La solicitud de préstamo con ID " + prestamoId + " no está en proceso ni reservada por " + revisor + ".");
+        }
+    }
+
+    @Override
+    public SseEmitter suscribirSolicitudesPendientes() {
+        return notificador.suscribir();
+    }
+
+    private static void validarRevisor(String revisor) {
+        if (revisor == null || revisor.isBlank() || revisor.length() > LONGITUD_MAXIMA_REVISOR) {
+            throw new CustomExceptions.InvalidOperationException("El revisor es obligatorio y no puede tener más de " + LONGITUD_MAXIMA_REVISOR + " caracteres.");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service.impl;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+
+/**
+ * Reglas que comparten el registro de un pago y el lote de pagos, para que una misma solicitud se acepte o se rechace
+ * con el mismo mensaje en los dos endpoints.
+ */
+final class ValidacionPago {
+
+    private ValidacionPago() {
+    }
+
+    /**
+     * @return El motivo por el que la solicitud no es válida, o {@code null} si lo es.
+     */
+    static String validar(SolicitudPagoDTO solicitud) {
+        if (solicitud.getPrestamoId() == null || solicitud.getMontoPago() == null || solicitud.getFechaPago() == null) {
+            return "El pago debe indicar prestamoId, montoPago y fechaPago.";
+        }
+        if (solicitud.getMontoPago().signum() <= 0) {
+            return "El monto del pago debe ser mayor que cero.";
+        }
+        if (solicitud.getMontoPago().stripTrailingZeros().scale() > 2) {
+            return "El monto del pago no puede tener más de dos decimales.";
+        }
+        if (solicitud.getFechaPago().getTime() > System.currentTimeMillis()) {
+            return "La fecha del pago no puede ser futura.";
+        }
+        return null;
+    }
+
+    /**
+     * Solo los préstamos aprobados reciben pagos: los que están en proceso aún no se desembolsan y los rechazados y
+     * finalizados ya no tienen saldo que cobrar.
+     *
+     * @return El motivo por el que el préstamo no admite pagos, o {@code null} si los admite.
+     */
+    static String validarEstado(Long prestamoId, EstadoPrestamo estado) {
+        if (estado == EstadoPrestamo.APROBADO) {
+            return null;
+        }
+        return String.format("el préstamo con ID: %d está %s y no admite pagos.", prestamoId, estado.getEtiqueta());
+    }
+}
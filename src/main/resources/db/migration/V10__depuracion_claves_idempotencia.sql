@@ -0,0 +1,3 @@
+-- Las claves de idempotencia se eliminan periódicamente por fecha de creación.
+
+CREATE INDEX idx_clave_idempotencia_fecha ON clave_idempotencia (fecha_creacion);
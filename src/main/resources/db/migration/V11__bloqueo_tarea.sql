@@ -0,0 +1,11 @@
+-- Bloqueo de las tareas que deben ejecutarse en una sola instancia a la vez. La instancia que toma el bloqueo anota su
+-- identificador y hasta cuándo lo tiene; un bloqueo vencido puede tomarlo otra instancia.
+
+CREATE TABLE bloqueo_tarea
+(
+    nombre    VARCHAR(50)  NOT NULL PRIMARY KEY,
+    instancia VARCHAR(100) NULL,
+    vence     TIMESTAMP    NULL
+) ENGINE = InnoDB;
+
+INSERT INTO bloqueo_tarea (nombre) VALUES ('morosidad');
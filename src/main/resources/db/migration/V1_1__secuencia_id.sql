@@ -0,0 +1,16 @@
+-- Identificadores de cliente, prestamo y pago asignados por Hibernate en bloques de 50 (pooled) desde esta tabla, para
+-- poder agrupar las inserciones en lotes JDBC. El valor inicial deja libre el bloque que contiene los identificadores
+-- ya existentes. Las columnas conservan AUTO_INCREMENT, que deja de usarse porque Hibernate envía el identificador.
+
+CREATE TABLE secuencia_id
+(
+    nombre_secuencia VARCHAR(255) NOT NULL PRIMARY KEY,
+    valor_siguiente  BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO secuencia_id (nombre_secuencia, valor_siguiente)
+SELECT 'cliente', COALESCE(MAX(cliente_id), 0) + 50 FROM cliente;
+INSERT INTO secuencia_id (nombre_secuencia, valor_siguiente)
+SELECT 'prestamo', COALESCE(MAX(prestamo_id), 0) + 50 FROM prestamo;
+INSERT INTO secuencia_id (nombre_secuencia, valor_siguiente)
+SELECT 'pago', COALESCE(MAX(pago_id), 0) + 50 FROM pago;
@@ -0,0 +1,10 @@
+-- Claves enviadas en la cabecera Idempotency-Key del registro de pagos, con la huella de la solicitud original y el
+-- pago que produjo.
+
+CREATE TABLE clave_idempotencia
+(
+    clave            VARCHAR(100) NOT NULL PRIMARY KEY,
+    huella_solicitud VARCHAR(64)  NOT NULL,
+    pago_id          BIGINT,
+    fecha_creacion   DATETIME(6)  NOT NULL
+) ENGINE = InnoDB;
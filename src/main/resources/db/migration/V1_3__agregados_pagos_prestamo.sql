@@ -0,0 +1,11 @@
+-- Total pagado, cantidad de pagos y fecha del último pago de cada préstamo, que la aplicación mantiene al registrar,
+-- modificar y eliminar pagos. Los valores de los préstamos existentes se calculan a partir de sus pagos.
+
+ALTER TABLE prestamo ADD COLUMN fecha_ultimo_pago DATE;
+ALTER TABLE prestamo ADD COLUMN total_pagado DECIMAL(18, 2) NOT NULL DEFAULT 0;
+ALTER TABLE prestamo ADD COLUMN numero_pagos INT NOT NULL DEFAULT 0;
+
+UPDATE prestamo p
+SET total_pagado      = COALESCE((SELECT SUM(pg.monto_pago) FROM pago pg WHERE pg.prestamo_id = p.prestamo_id), 0),
+    numero_pagos      = (SELECT COUNT(*) FROM pago pg WHERE pg.prestamo_id = p.prestamo_id),
+    fecha_ultimo_pago = (SELECT MAX(pg.fecha_pago) FROM pago pg WHERE pg.prestamo_id = p.prestamo_id);
@@ -0,0 +1,13 @@
+-- Índices para las consultas más frecuentes de los repositorios
+
+-- findByClienteClienteIdAndEstado y los resúmenes de préstamos por cliente y estado
+CREATE INDEX idx_prestamo_cliente_estado ON prestamo (cliente_id, estado);
+
+-- findByEstado y findTotalMontoPrestadoByEstado
+CREATE INDEX idx_prestamo_estado ON prestamo (estado);
+
+-- findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc y los pagos de un préstamo
+CREATE INDEX idx_pago_prestamo_fecha ON pago (prestamo_id, fecha_pago);
+
+-- findByFechaPagoBetween y findByFechaPago
+CREATE INDEX idx_pago_fecha ON pago (fecha_pago);
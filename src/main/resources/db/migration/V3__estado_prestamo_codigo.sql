@@ -0,0 +1,38 @@
+-- El estado del préstamo se guarda con el código de un carácter de EstadoPrestamo en lugar de su etiqueta.
+-- Los índices idx_prestamo_cliente_estado e idx_prestamo_estado se conservan sobre la columna convertida.
+
+-- Antes el estado se recibía como texto libre: se reconocen las etiquetas, los nombres de EstadoPrestamo y los códigos
+-- sin importar mayúsculas, espacios ni guiones bajos (por ejemplo 'En Proceso', 'EN PROCESO', 'en_proceso ', 'A').
+UPDATE prestamo
+SET estado = CASE REPLACE(REPLACE(UPPER(TRIM(estado)), ' ', ''), '_', '')
+                 WHEN 'ENPROCESO' THEN 'P'
+                 WHEN 'P' THEN 'P'
+                 WHEN 'APROBADO' THEN 'A'
+                 WHEN 'A' THEN 'A'
+                 WHEN 'RECHAZADO' THEN 'R'
+                 WHEN 'R' THEN 'R'
+                 WHEN 'FINALIZADO' THEN 'F'
+                 WHEN 'F' THEN 'F'
+                 ELSE estado
+    END;
+
+-- Si queda algún estado sin reconocer, la migración se detiene aquí con la restricción estado_prestamo_no_reconocido
+-- en el mensaje, en lugar de truncarlo al cambiar la columna. Esos préstamos se deben corregir a mano antes de
+-- repetirla; la tabla de verificación se vuelve a crear en cada intento.
+DROP TABLE IF EXISTS verificacion_estado_prestamo;
+
+CREATE TABLE verificacion_estado_prestamo
+(
+    prestamo_id BIGINT      NOT NULL,
+    estado      VARCHAR(20) NOT NULL,
+    CONSTRAINT estado_prestamo_no_reconocido CHECK (estado IN ('P', 'A', 'R', 'F'))
+) ENGINE = InnoDB;
+
+INSERT INTO verificacion_estado_prestamo (prestamo_id, estado)
+SELECT prestamo_id, estado
+FROM prestamo
+WHERE estado NOT IN ('P', 'A', 'R', 'F');
+
+DROP TABLE verificacion_estado_prestamo;
+
+ALTER TABLE prestamo MODIFY estado CHAR(1) NOT NULL;
@@ -0,0 +1,23 @@
+-- Totales de la cartera por estado del préstamo: cantidad de préstamos, monto solicitado y saldo actual.
+-- La aplicación los mantiene con incrementos al cambiar los préstamos y los concilia periódicamente con la tabla
+-- prestamo. Los préstamos sin saldo registrado cuentan con su monto solicitado.
+
+CREATE TABLE resumen_cartera
+(
+    estado           CHAR(1)        NOT NULL PRIMARY KEY,
+    cantidad         BIGINT         NOT NULL,
+    monto_solicitado DECIMAL(18, 2) NOT NULL,
+    saldo_actual     DECIMAL(18, 2) NOT NULL
+);
+
+INSERT INTO resumen_cartera (estado, cantidad, monto_solicitado, saldo_actual)
+SELECT e.estado,
+       COUNT(p.prestamo_id),
+       COALESCE(SUM(p.monto_solicitado), 0),
+       COALESCE(SUM(COALESCE(p.saldo_actual, p.monto_solicitado)), 0)
+FROM (SELECT 'P' AS estado
+      UNION ALL SELECT 'A'
+      UNION ALL SELECT 'R'
+      UNION ALL SELECT 'F') e
+         LEFT JOIN prestamo p ON p.estado = e.estado
+GROUP BY e.estado;
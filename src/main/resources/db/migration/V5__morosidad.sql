@@ -0,0 +1,18 @@
+-- Resultado del cálculo de morosidad: una fila por préstamo aprobado con cuotas vencidas sin cubrir a la fecha de
+-- corte. La tabla se reemplaza por rangos de prestamo_id en cada cálculo y se consulta sin recorrer los préstamos.
+
+CREATE TABLE morosidad
+(
+    prestamo_id     BIGINT         NOT NULL PRIMARY KEY,
+    cliente_id      BIGINT         NOT NULL,
+    dias_atraso     INT            NOT NULL,
+    tramo           VARCHAR(12)    NOT NULL,
+    cuotas_vencidas INT            NOT NULL,
+    monto_vencido   DECIMAL(18, 2) NOT NULL,
+    saldo_actual    DECIMAL(18, 2) NOT NULL,
+    fecha_corte     DATE           NOT NULL,
+    FOREIGN KEY (prestamo_id) REFERENCES prestamo (prestamo_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Listado de morosos por tramo, del más atrasado al menos atrasado
+CREATE INDEX idx_morosidad_tramo_dias ON morosidad (tramo, dias_atraso);
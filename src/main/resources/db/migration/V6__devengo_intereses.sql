@@ -0,0 +1,27 @@
+-- Devengo diario de intereses de los préstamos aprobados. Cada fila registra el interés de un día sumado al saldo
+-- del préstamo; la clave (prestamo_id, fecha) impide devengar dos veces el mismo día aunque el cálculo se repita.
+
+CREATE TABLE devengo_interes
+(
+    prestamo_id  BIGINT         NOT NULL,
+    fecha        DATE           NOT NULL,
+    saldo_base   DECIMAL(18, 2) NOT NULL,
+    tasa_interes DECIMAL(5, 2)  NOT NULL,
+    interes      DECIMAL(18, 2) NOT NULL,
+    PRIMARY KEY (prestamo_id, fecha),
+    FOREIGN KEY (prestamo_id) REFERENCES prestamo (prestamo_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Totales del devengo de un día
+CREATE INDEX idx_devengo_interes_fecha ON devengo_interes (fecha);
+
+-- Avance del devengo de cada día: todos los préstamos aprobados con ID hasta ultimo_prestamo_id ya se procesaron.
+-- Una ejecución EN_CURSO se reanuda desde ese punto.
+CREATE TABLE ejecucion_devengo
+(
+    fecha              DATE        NOT NULL PRIMARY KEY,
+    estado             VARCHAR(10) NOT NULL,
+    ultimo_prestamo_id BIGINT      NOT NULL,
+    inicio             TIMESTAMP   NOT NULL,
+    fin                TIMESTAMP   NULL
+) ENGINE = InnoDB;
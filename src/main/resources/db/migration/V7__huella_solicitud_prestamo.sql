@@ -0,0 +1,7 @@
+-- Huella de la solicitud de préstamo: cliente, monto, plazo, tasa y ventana de tiempo en que se recibió. El índice
+-- único rechaza una segunda solicitud idéntica en la misma ventana aunque llegue a otra instancia de la aplicación.
+-- Los préstamos anteriores quedan sin huella.
+
+ALTER TABLE prestamo ADD COLUMN huella_solicitud VARCHAR(100) NULL;
+
+CREATE UNIQUE INDEX uk_prestamo_huella_solicitud ON prestamo (huella_solicitud);
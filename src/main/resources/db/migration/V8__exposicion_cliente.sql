@@ -0,0 +1,17 @@
+-- Exposición de crédito de cada cliente: la suma de los saldos de sus préstamos en proceso y aprobados. Los préstamos
+-- sin saldo registrado cuentan con su monto solicitado. La aplicación la mantiene en memoria, la vuelca periódicamente
+-- a esta tabla y la recalcula desde la tabla prestamo al iniciar.
+
+CREATE TABLE exposicion_cliente
+(
+    cliente_id  BIGINT         NOT NULL PRIMARY KEY,
+    exposicion  DECIMAL(18, 2) NOT NULL,
+    actualizado TIMESTAMP      NOT NULL,
+    FOREIGN KEY (cliente_id) REFERENCES cliente (cliente_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+INSERT INTO exposicion_cliente (cliente_id, exposicion, actualizado)
+SELECT cliente_id, SUM(COALESCE(saldo_actual, monto_solicitado)), CURRENT_TIMESTAMP
+FROM prestamo
+WHERE estado IN ('P', 'A')
+GROUP BY cliente_id;
@@ -0,0 +1,8 @@
+-- Reserva de las solicitudes en proceso para su revisión: el revisor que la tomó y hasta cuándo. Una reserva vencida
+-- queda disponible para otro revisor. Las columnas las mantiene la cola de revisión; la entidad Prestamo no las mapea.
+
+ALTER TABLE prestamo ADD COLUMN revisor VARCHAR(100) NULL;
+ALTER TABLE prestamo ADD COLUMN revision_vence TIMESTAMP NULL;
+
+-- Solicitudes en proceso sin reserva o con la reserva vencida
+CREATE INDEX idx_prestamo_estado_revision ON prestamo (estado, revision_vence);
@@ -0,0 +1,139 @@
+package gt.com.chn.jorgeperez.gestionprestamos;
+
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClaveIdempotenciaRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClienteRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Datos compartidos por las pruebas: crea clientes, préstamos y pagos válidos, arma las solicitudes de la API y deja
+ * las tablas vacías al terminar cada prueba. Los clientes reciben un número de identificación y un correo distintos
+ * cada vez, así que una prueba puede crear varios.
+ */
+@Component
+public class DatosPrueba {
+
+    private static final AtomicLong SECUENCIA = new AtomicLong(1_000_000_000_000L);
+
+    private final ClienteRepository clienteRepository;
+
+    private final PrestamoRepository prestamoRepository;
+
+    private final PagoRepository pagoRepository;
+
+    private final ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatosPrueba(ClienteRepository clienteRepository, PrestamoRepository prestamoRepository, PagoRepository pagoRepository,
+                       ClaveIdempotenciaRepository claveIdempotenciaRepository, JdbcTemplate jdbcTemplate) {
+        this.clienteRepository = clienteRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.pagoRepository = pagoRepository;
+        this.claveIdempotenciaRepository = claveIdempotenciaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return Un cliente nuevo, ya guardado.
+     */
+    public Cliente crearCliente() {
+        long numero = SECUENCIA.incrementAndGet();
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Ana");
+        cliente.setApellido("López");
+        cliente.setNumeroIdentificacion(String.valueOf(numero));
+        cliente.setFechaNacimiento(new Date());
+        cliente.setDireccion("Zona 1, Guatemala");
+        cliente.setCorreoElectronico("cliente" + numero + "@example.com");
+        cliente.setTelefono("55555555");
+        return clienteRepository.save(cliente);
+    }
+
+    /**
+     * @return Un préstamo nuevo a 12 meses y al 12 % con el saldo igual al monto, ya guardado.
+     */
+    public Prestamo crearPrestamo(Cliente cliente, EstadoPrestamo estado, String monto) {
+        return prestamoRepository.save(prestamo(cliente, estado, monto));
+    }
+
+    /**
+     * Registra un pago directamente en la tabla, sin pasar por el servicio ni modificar el préstamo.
+     */
+    public Pago crearPago(Prestamo prestamo, String monto, Date fecha) {
+        Pago pago = new Pago();
+        pago.setPrestamo(prestamo);
+        pago.setMontoPago(new BigDecimal(monto));
+        pago.setFechaPago(fecha);
+        pago.setSaldoAnterior(prestamo.getMontoSolicitado());
+        pago.setSaldoActual(prestamo.getMontoSolicitado().subtract(new BigDecimal(monto)));
+        return pagoRepository.save(pago);
+    }
+
+    /**
+     * Elimina los datos que dejan las pruebas. Los préstamos se eliminan con los repositorios para que Hibernate
+     * invalide la caché de segundo nivel; la morosidad, el devengo y la exposición se eliminan en cascada.
+     */
+    public void limpiar() {
+        claveIdempotenciaRepository.deleteAllInBatch();
+        pagoRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from ejecucion_devengo");
+    }
+
+    /**
+     * @return Un préstamo a 12 meses y al 12 % con el saldo igual al monto, sin guardar, para ajustarlo antes de guardarlo.
+     */
+    public static Prestamo prestamo(Cliente cliente, EstadoPrestamo estado, String monto) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setCliente(cliente);
+        prestamo.setMontoSolicitado(new BigDecimal(monto));
+        prestamo.setSaldoActual(new BigDecimal(monto));
+        prestamo.setPlazo(12);
+        prestamo.setEstado(estado);
+        prestamo.setFechaSolicitud(manana());
+        prestamo.setTasaInteres(new BigDecimal("12.00"));
+        return prestamo;
+    }
+
+    /**
+     * @return Una solicitud de préstamo al 12 % con fecha de mañana.
+     */
+    public static SolicitudPrestamoDTO solicitudPrestamo(Long clienteId, String monto, int plazo) {
+        SolicitudPrestamoDTO solicitud = new SolicitudPrestamoDTO();
+        solicitud.setClienteId(clienteId);
+        solicitud.setMontoSolicitado(new BigDecimal(monto));
+        solicitud.setPlazo(plazo);
+        solicitud.setFechaSolicitud(manana());
+        solicitud.setTasaInteres(new BigDecimal("12.00"));
+        return solicitud;
+    }
+
+    public static SolicitudPagoDTO solicitudPago(Long prestamoId, String monto, Date fecha) {
+        SolicitudPagoDTO solicitud = new SolicitudPagoDTO();
+        solicitud.setPrestamoId(prestamoId);
+        solicitud.setMontoPago(new BigDecimal(monto));
+        solicitud.setFechaPago(fecha);
+        return solicitud;
+    }
+
+    /**
+     * @return La fecha de mañana: la fecha de solicitud de un préstamo no puede ser pasada.
+     */
+    public static Date manana() {
+        return new Date(System.currentTimeMillis() + 24L * 60 * 60 * 1000);
+    }
+}
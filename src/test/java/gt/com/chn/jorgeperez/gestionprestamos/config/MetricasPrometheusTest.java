@@ -0,0 +1,76 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que /actuator/prometheus publique las métricas de endpoints, servicios, repositorios (con sus percentiles),
+ * del pool de conexiones, de las regiones de la caché de segundo nivel y de las excepciones manejadas, y que el endpoint
+ * /actuator/caches, que permite vaciar las cachés, no se exponga.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricasPrometheusTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void prometheusPublicaLasMetricasDeLaAplicacion() throws Exception {
+        mockMvc.perform(get("/api/prestamos/cliente/{clienteId}", cliente.getClienteId())).andExpect(status().isOk());
+        mockMvc.perform(post("/api/prestamos/aprobar/{id}", -1L).param("revisor", "ana")).andExpect(status().isNotFound());
+
+        String metricas = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        assertMetrica(metricas, "http_server_requests_seconds_bucket\\{.*uri=\"/api/prestamos/cliente/\\{clienteId\\}\".*");
+        assertMetrica(metricas, "gestion_servicios_seconds_count\\{.*metodo=\"obtenerResumenPrestamosPorClienteId\",resultado=\"exito\",servicio=\"PrestamoServiceImpl\".*");
+        assertMetrica(metricas, "gestion_servicios_seconds_count\\{.*excepcion=\"PrestamoNotFoundException\",metodo=\"aprobarPrestamo\",resultado=\"error\".*");
+        assertMetrica(metricas, "spring_data_repository_invocations_seconds\\{.*method=\"findResumenByClienteId\".*quantile=\"0.95\".*");
+        assertMetrica(metricas, "spring_data_repository_invocations_seconds\\{.*method=\"findResumenByClienteId\".*quantile=\"0.99\".*");
+        assertMetrica(metricas, "hikaricp_connections_active\\{.*");
+        assertMetrica(metricas, "hibernate_second_level_cache_requests_total\\{.*region=\"" + CacheHibernateConfig.REGION_PRESTAMOS + "\".*");
+        assertMetrica(metricas, "gestion_excepciones_manejadas_total\\{.*estado=\"404\",tipo=\"PrestamoNotFoundException\".*");
+    }
+
+    @Test
+    void elEndpointDeCachesNoSeExpone() throws Exception {
+        mockMvc.perform(get("/actuator/caches")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/actuator/caches")).andExpect(status().isNotFound());
+    }
+
+    private static void assertMetrica(String metricas, String patron) {
+        assertTrue(Pattern.compile("^" + patron + "$", Pattern.MULTILINE).matcher(metricas).find(), () -> "No se encontró la métrica " + patron);
+    }
+}
@@ -0,0 +1,93 @@
+package gt.com.chn.jorgeperez.gestionprestamos.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que el registro de solicitudes agregue el endpoint y los IDs como pares clave-valor, que respete el
+ * muestreo de cada endpoint y que el {@code toString()} de las entidades no recorra sus asociaciones.
+ */
+class RegistroSolicitudesTest {
+
+    private Logger log;
+
+    private ListAppender<ILoggingEvent> eventos;
+
+    @BeforeEach
+    void setUp() {
+        log = (Logger) LoggerFactory.getLogger(RegistroSolicitudesTest.class);
+        eventos = new ListAppender<>();
+        eventos.start();
+        log.addAppender(eventos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        log.detachAppender(eventos);
+    }
+
+    @Test
+    void registraElEndpointYLosIdsComoParesClaveValor() {
+        RegistroSolicitudes registro = new RegistroSolicitudes(new MockEnvironment());
+
+        registro.info(log, "registrar-pago").addKeyValue("prestamoId", 7L).addKeyValue("montoPago", new BigDecimal("150.00")).log("Registrando pago");
+
+        assertEquals(1, eventos.list.size());
+        ILoggingEvent evento = eventos.list.get(0);
+        assertEquals("Registrando pago", evento.getFormattedMessage());
+        List<KeyValuePair> pares = evento.getKeyValuePairs();
+        assertEquals(List.of("endpoint", "prestamoId", "montoPago"), pares.stream().map(par -> par.key).toList());
+        assertEquals("registrar-pago", pares.get(0).value);
+        assertEquals(7L, pares.get(1).value);
+    }
+
+    @Test
+    void respetaElMuestreoDeCadaEndpoint() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("registro.solicitudes.muestreo-por-defecto", "0")
+                .withProperty("registro.solicitudes.muestreo.registrar-pago", "1");
+        RegistroSolicitudes registro = new RegistroSolicitudes(environment);
+
+        for (int i = 0; i < 100; i++) {
+            registro.info(log, "saldo-pendiente").addKeyValue("prestamoId", 7L).log("Consultando saldo pendiente");
+            registro.info(log, "registrar-pago").addKeyValue("prestamoId", 7L).log("Registrando pago");
+        }
+
+        assertEquals(100, eventos.list.size());
+        assertTrue(eventos.list.stream().allMatch(evento -> evento.getFormattedMessage().equals("Registrando pago")));
+    }
+
+    @Test
+    void elToStringDeLasEntidadesNoRecorreLasAsociaciones() {
+        Cliente cliente = new Cliente();
+        cliente.setClienteId(3L);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setPrestamoId(5L);
+        prestamo.setCliente(cliente);
+        cliente.getPrestamos().add(prestamo);
+        Pago pago = new Pago();
+        pago.setPagoId(9L);
+        pago.setPrestamo(prestamo);
+        prestamo.getPagos().add(pago);
+
+        assertFalse(cliente.toString().contains("Prestamo{"));
+        assertTrue(prestamo.toString().contains("clienteId=3"));
+        assertFalse(prestamo.toString().contains("Pago{"));
+        assertTrue(pago.toString().contains("prestamoId=5"));
+    }
+}
@@ -0,0 +1,90 @@
+package gt.com.chn.jorgeperez.gestionprestamos.controller;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que el registro de solicitudes de los controladores identifique al cliente y al préstamo por su ID, sin
+ * registrar el número de identificación del cliente ni el motivo de un rechazo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RegistroDatosPersonalesTest {
+
+    private static final String NUMERO_IDENTIFICACION = "2987654321";
+
+    private static final String MOTIVO = "Ingresos insuficientes según constancia laboral";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    private final ListAppender<ILoggingEvent> eventos = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        eventos.start();
+        logger(ClienteController.class).addAppender(eventos);
+        logger(PrestamoController.class).addAppender(eventos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger(ClienteController.class).detachAppender(eventos);
+        logger(PrestamoController.class).detachAppender(eventos);
+        datos.limpiar();
+    }
+
+    @Test
+    void noRegistraElNumeroDeIdentificacionNiElMotivo() throws Exception {
+        String cuerpo = """
+                {"nombre": "Ana", "apellido": "López", "numeroIdentificacion": "%s", "fechaNacimiento": "1990-05-10",
+                 "direccion": "Zona 1, Guatemala", "correoElectronico": "ana.lopez@example.com", "telefono": "55555555"}
+                """.formatted(NUMERO_IDENTIFICACION);
+        mockMvc.perform(post("/clientes").contentType(MediaType.APPLICATION_JSON).content(cuerpo)).andExpect(status().isCreated());
+        Cliente cliente = datos.crearCliente();
+        Prestamo prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "10000.00");
+        mockMvc.perform(post("/api/prestamos/rechazar/{prestamoId}", prestamo.getPrestamoId()).param("revisor", "ana").contentType(MediaType.TEXT_PLAIN).content(MOTIVO))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of("agregar-cliente", "rechazar-prestamo"), eventos.list.stream().map(evento -> valor(evento, "endpoint")).toList());
+        assertNotNull(valor(eventos.list.get(0), "clienteId"));
+        assertEquals(prestamo.getPrestamoId(), valor(eventos.list.get(1), "prestamoId"));
+        for (ILoggingEvent evento : eventos.list) {
+            String registrado = evento.getFormattedMessage() + " " + evento.getKeyValuePairs();
+            assertFalse(registrado.contains(NUMERO_IDENTIFICACION), registrado);
+            assertFalse(registrado.contains(MOTIVO), registrado);
+        }
+    }
+
+    private static Logger logger(Class<?> controlador) {
+        return (Logger) LoggerFactory.getLogger(controlador);
+    }
+
+    private static Object valor(ILoggingEvent evento, String clave) {
+        return evento.getKeyValuePairs().stream().filter(par -> par.key.equals(clave)).map(par -> par.value).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,20 @@
+package gt.com.chn.jorgeperez.gestionprestamos.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Repite la medición de {@link RetencionConexionesTest} con Open Session In View activado, como estaba antes:
+ * la sesión retiene la conexión hasta terminar la solicitud, incluida la serialización de la respuesta.
+ */
+@SpringBootTest(properties = "spring.jpa.open-in-view=true")
+@AutoConfigureMockMvc
+@Import(RetencionConexionesTest.MedidorConexiones.class)
+class RetencionConexionesOpenInViewTest extends RetencionConexionesTest {
+
+    @Override
+    protected int conexionesEnUsoAlSerializar() {
+        return 1;
+    }
+}
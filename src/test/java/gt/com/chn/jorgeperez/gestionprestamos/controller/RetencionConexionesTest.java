@@ -0,0 +1,152 @@
+package gt.com.chn.jorgeperez.gestionprestamos.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Mide cuántas conexiones del pool siguen en uso mientras se serializa la respuesta de los endpoints de consulta, y
+ * registra en el log el tiempo medio que cada solicitud retiene conexiones ({@code hikaricp.connections.usage}).
+ * Sin Open Session In View la conexión vuelve al pool al terminar la transacción, antes de serializar.
+ * {@link RetencionConexionesOpenInViewTest} repite la medición con Open Session In View activado, para comparar.
+ * Solo se ejecuta con el perfil {@code benchmark} de Maven.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(RetencionConexionesTest.MedidorConexiones.class)
+class RetencionConexionesTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RetencionConexionesTest.class);
+
+    private static final int SOLICITUDES = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MedidorConexiones medidorConexiones;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+        for (int i = 0; i < 3; i++) {
+            Prestamo prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "5000.00");
+            for (int j = 0; j < 5; j++) {
+                datos.crearPago(prestamo, "100.00", new Date());
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    /**
+     * Conexiones que se espera encontrar en uso mientras se serializa la respuesta.
+     */
+    protected int conexionesEnUsoAlSerializar() {
+        return 0;
+    }
+
+    @Test
+    void obtenerClientePorId() throws Exception {
+        medir("/clientes/{id}");
+    }
+
+    @Test
+    void solicitudesPendientesPorCliente() throws Exception {
+        medir("/api/prestamos/pendientes/cliente/{clienteId}");
+    }
+
+    @Test
+    void listarPrestamosPorCliente() throws Exception {
+        medir("/api/prestamos/cliente/{clienteId}");
+    }
+
+    private void medir(String uri) throws Exception {
+        Timer uso = meterRegistry.get("hikaricp.connections.usage").timer();
+        long conexionesAntes = uso.count();
+        double milisegundosAntes = uso.totalTime(TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < SOLICITUDES; i++) {
+            medidorConexiones.reiniciar();
+            mockMvc.perform(get(uri, cliente.getClienteId()).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+            assertEquals(conexionesEnUsoAlSerializar(), medidorConexiones.conexionesEnUso, "Conexiones en uso al serializar la respuesta");
+        }
+
+        log.info("{} (open-in-view={}): {} conexiones y {} ms de retención en promedio por solicitud", uri, conexionesEnUsoAlSerializar() > 0,
+                String.format("%.1f", (double) (uso.count() - conexionesAntes) / SOLICITUDES),
+                String.format("%.3f", (uso.totalTime(TimeUnit.MILLISECONDS) - milisegundosAntes) / SOLICITUDES));
+    }
+
+    /**
+     * Registra las conexiones del pool que están en uso justo antes de serializar el cuerpo de la respuesta.
+     */
+    @ControllerAdvice
+    static class MedidorConexiones implements ResponseBodyAdvice<Object> {
+
+        private final HikariDataSource dataSource;
+
+        volatile int conexionesEnUso = -1;
+
+        MedidorConexiones(DataSource dataSource) {
+            this.dataSource = (HikariDataSource) dataSource;
+        }
+
+        void reiniciar() {
+            conexionesEnUso = -1;
+        }
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+            conexionesEnUso = dataSource.getHikariPoolMXBean().getActiveConnections();
+            return body;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package gt.com.chn.jorgeperez.gestionprestamos.controller;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica, con las estadísticas de Hibernate, la cantidad de sentencias SQL que ejecuta cada endpoint.
+ * Si un cambio en los grafos de carga vuelve a traer préstamos o pagos que el endpoint no necesita,
+ * o introduce consultas por cada préstamo, estas pruebas fallan. Las sentencias se cuentan con la caché de segundo
+ * nivel vacía.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SentenciasPorEndpointTest {
+
+    private static final int PRESTAMOS_POR_CLIENTE = 3;
+    private static final int PAGOS_POR_PRESTAMO = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    private Cliente cliente;
+
+    private Prestamo prestamoEnProceso;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        cliente = datos.crearCliente();
+        for (int i = 0; i < PRESTAMOS_POR_CLIENTE; i++) {
+            Prestamo prestamo = datos.crearPrestamo(cliente, i == 0 ? EstadoPrestamo.EN_PROCESO : EstadoPrestamo.APROBADO, "10000.00");
+            if (i == 0) {
+                prestamoEnProceso = prestamo;
+            }
+            for (int j = 0; j < PAGOS_POR_PRESTAMO; j++) {
+                datos.crearPago(prestamo, "100.00", new Date());
+            }
+        }
+
+        // Se mide cada endpoint con la caché de segundo nivel vacía, como la primera vez que se consulta
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void obtenerClientePorIdCargaPrestamosYPagosEnUnaConsulta() throws Exception {
+        assertSentencias(1, mockMvc.perform(get("/clientes/{id}", cliente.getClienteId())));
+    }
+
+    @Test
+    void listarClientesNoCargaPrestamos() throws Exception {
+        assertSentencias(1, mockMvc.perform(get("/clientes").param("after", "0").param("limit", "10")));
+    }
+
+    @Test
+    void actualizarClienteNoCargaPrestamos() throws Exception {
+        String cuerpo = """
+                {"nombre": "Ana María", "apellido": "López", "numeroIdentificacion": "%s",
+                 "fechaNacimiento": "1990-01-01", "direccion": "Zona 10, Guatemala",
+                 "correoElectronico": "%s", "telefono": "55555555"}
+                """.formatted(cliente.getNumeroIdentificacion(), cliente.getCorreoElectronico());
+        // Lectura del cliente y actualización
+        assertSentencias(2, mockMvc.perform(put("/clientes/{id}", cliente.getClienteId()).contentType(MediaType.APPLICATION_JSON).content(cuerpo)));
+    }
+
+    @Test
+    void solicitarPrestamoNoCargaPrestamosDelCliente() throws Exception {
+        String cuerpo = """
+                {"clienteId": %d, "montoSolicitado": 5000, "plazo": 24, "estado": "En Proceso",
+                 "fechaSolicitud": "2099-01-01", "tasaInteres": 10.5}
+                """.formatted(cliente.getClienteId());
+        // Verificación del cliente e inserción del préstamo
+        assertSentencias(2, mockMvc.perform(post("/api/prestamos").contentType(MediaType.APPLICATION_JSON).content(cuerpo)));
+    }
+
+    @Test
+    void listarPrestamosPorClienteEnUnaConsulta() throws Exception {
+        assertSentencias(1, mockMvc.perform(get("/api/prestamos/cliente/{clienteId}", cliente.getClienteId())));
+    }
+
+    @Test
+    void listarPrestamosAprobadosPorClienteEnUnaConsulta() throws Exception {
+        assertSentencias(1, mockMvc.perform(get("/api/pagos/prestamos-aprobados/{clienteId}", cliente.getClienteId())));
+    }
+
+    @Test
+    void solicitudesPendientesPorClienteCarganPagosEnLaMismaConsulta() throws Exception {
+        // Verificación del cliente y consulta de préstamos pendientes con sus pagos
+        assertSentencias(2, mockMvc.perform(get("/api/prestamos/pendientes/cliente/{clienteId}", cliente.getClienteId())));
+    }
+
+    @Test
+    void aprobarPrestamoNoCargaPagos() throws Exception {
+        // La actualización condicional del estado y la lectura del monto y el saldo para los totales de la cartera, sin pagos
+        assertSentencias(2, mockMvc.perform(post("/api/prestamos/aprobar/{id}", prestamoEnProceso.getPrestamoId()).param("revisor", "ana")));
+    }
+
+    @Test
+    void consultarSaldoPendienteEnUnaConsulta() throws Exception {
+        assertSentencias(1, mockMvc.perform(get("/api/pagos/saldo-pendiente/{prestamoId}", prestamoEnProceso.getPrestamoId())));
+    }
+
+    @Test
+    void consultarSaldosDeVariosPrestamosEnUnaConsulta() throws Exception {
+        String cuerpo = "[" + prestamoEnProceso.getPrestamoId() + ", -1]";
+        assertSentencias(1, mockMvc.perform(post("/api/pagos/saldos").contentType(MediaType.APPLICATION_JSON).content(cuerpo)));
+    }
+
+    private void assertSentencias(long esperadas, ResultActions resultado) throws Exception {
+        resultado.andExpect(status().is2xxSuccessful());
+        assertEquals(esperadas, estadisticas.getPrepareStatementCount(), "Cantidad de sentencias SQL ejecutadas");
+    }
+}
@@ -0,0 +1,52 @@
+package gt.com.chn.jorgeperez.gestionprestamos.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import gt.com.chn.jorgeperez.gestionprestamos.config.DineroJsonComponent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la aritmética en centavos de {@link Dinero}, el rechazo de montos que no se representan exactamente, y su
+ * conversión a las columnas {@code DECIMAL(18, 2)} y a JSON.
+ */
+class DineroTest {
+
+    @Test
+    void sumaYRestaEnCentavos() {
+        Dinero saldo = Dinero.de(new BigDecimal("1000.00"));
+
+        Dinero resultado = saldo.restar(Dinero.de(new BigDecimal("150.25"))).sumar(Dinero.de(new BigDecimal("0.5")));
+
+        assertEquals(85025, resultado.getCentavos());
+        assertEquals(new BigDecimal("850.25"), resultado.aBigDecimal());
+        assertEquals("850.25", resultado.toString());
+        assertTrue(saldo.esMayorQue(resultado));
+    }
+
+    @Test
+    void rechazaCentesimasDeCentavoYDesbordamientos() {
+        assertThrows(ArithmeticException.class, () -> Dinero.de(new BigDecimal("10.005")));
+        assertThrows(ArithmeticException.class, () -> Dinero.deCentavos(Long.MAX_VALUE).sumar(Dinero.deCentavos(1)));
+        assertThrows(ArithmeticException.class, () -> Dinero.deCentavos(Long.MIN_VALUE).restar(Dinero.deCentavos(1)));
+    }
+
+    @Test
+    void seConvierteAColumnaYAJson() throws Exception {
+        DineroConverter converter = new DineroConverter();
+        Dinero monto = Dinero.de(new BigDecimal("150"));
+        assertEquals(new BigDecimal("150.00"), converter.convertToDatabaseColumn(monto));
+        assertEquals(monto, converter.convertToEntityAttribute(new BigDecimal("150.00")));
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(Dinero.class, new DineroJsonComponent.Serializador())
+                .addDeserializer(Dinero.class, new DineroJsonComponent.Deserializador()));
+        assertEquals("150.00", objectMapper.writeValueAsString(monto));
+        assertEquals(monto, objectMapper.readValue("150.0", Dinero.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("150.001", Dinero.class));
+    }
+}
@@ -0,0 +1,116 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheHibernateConfig;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.service.PagoLoteService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que las consultas por estado y la colección de préstamos del cliente se sirvan desde la caché de segundo
+ * nivel, y que se invaliden cuando cambian los préstamos, incluso si el cambio se hace por JDBC en la carga masiva de pagos.
+ */
+@SpringBootTest
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PagoLoteService pagoLoteService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    private Cliente cliente;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+        prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.APROBADO, "1000.00");
+        datos.crearPrestamo(cliente, EstadoPrestamo.APROBADO, "2500.00");
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        estadisticas = sessionFactory.getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void lasConsultasPorEstadoSeRepitenSinIrALaBaseDeDatos() {
+        assertEquals(2, prestamoRepository.findByEstado(EstadoPrestamo.APROBADO).size());
+        assertEquals(0, new BigDecimal("3500.00").compareTo(prestamoRepository.findTotalMontoPrestadoByEstado(EstadoPrestamo.APROBADO)));
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        assertEquals(2, prestamoRepository.findByEstado(EstadoPrestamo.APROBADO).size());
+        assertEquals(0, new BigDecimal("3500.00").compareTo(prestamoRepository.findTotalMontoPrestadoByEstado(EstadoPrestamo.APROBADO)));
+
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount(), "Las consultas repetidas no deben ejecutar sentencias");
+        assertEquals(2, estadisticas.getQueryCacheHitCount());
+    }
+
+    @Test
+    void elLoteDePagosInvalidaLosPrestamosDeLaCache() throws Exception {
+        assertEquals(0, new BigDecimal("1000.00").compareTo(saldoEnConsultaPorEstado()));
+
+        pagoLoteService.registrarLote(new StringReader(prestamo.getPrestamoId() + ",150.00,2024-03-01\n"), PagoLoteService.Formato.CSV, resultado -> {
+        });
+
+        assertEquals(0, new BigDecimal("850.00").compareTo(saldoEnConsultaPorEstado()));
+        assertEquals(0, new BigDecimal("850.00").compareTo(prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow().getSaldoActual()));
+    }
+
+    @Test
+    void laColeccionDePrestamosDelClienteSeInvalidaAlAgregarUnPrestamo() {
+        assertEquals(2, cantidadDePrestamosDelCliente());
+        assertEquals(2, cantidadDePrestamosDelCliente());
+        assertEquals(1, estadisticas.getDomainDataRegionStatistics(CacheHibernateConfig.REGION_PRESTAMOS_DE_CLIENTE).getHitCount());
+
+        datos.crearPrestamo(cliente, EstadoPrestamo.APROBADO, "500.00");
+
+        assertEquals(3, cantidadDePrestamosDelCliente());
+    }
+
+    private BigDecimal saldoEnConsultaPorEstado() {
+        return prestamoRepository.findByEstado(EstadoPrestamo.APROBADO).stream()
+                .filter(p -> p.getPrestamoId().equals(prestamo.getPrestamoId()))
+                .findFirst().orElseThrow().getSaldoActual();
+    }
+
+    private int cantidadDePrestamosDelCliente() {
+        return transactionTemplate.execute(estado -> clienteRepository.findById(cliente.getClienteId()).orElseThrow().getPrestamos().size());
+    }
+}
@@ -0,0 +1,41 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda el SQL que Hibernate genera en el hilo actual entre {@link #iniciar()} y {@link #detener()}, para que las
+ * pruebas puedan analizar las sentencias reales de los repositorios. Se registra en las propiedades de prueba con
+ * {@code hibernate.session_factory.statement_inspector}; fuera de una captura no guarda nada.
+ */
+public class CapturaSentencias implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> SENTENCIAS = new ThreadLocal<>();
+
+    /**
+     * Comienza a guardar las sentencias del hilo actual.
+     */
+    public static void iniciar() {
+        SENTENCIAS.set(new ArrayList<>());
+    }
+
+    /**
+     * @return Las sentencias generadas desde {@link #iniciar()}, en orden de ejecución.
+     */
+    public static List<String> detener() {
+        List<String> sentencias = SENTENCIAS.get();
+        SENTENCIAS.remove();
+        return sentencias == null ? List.of() : sentencias;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> sentencias = SENTENCIAS.get();
+        if (sentencias != null) {
+            sentencias.add(sql);
+        }
+        return sql;
+    }
+}
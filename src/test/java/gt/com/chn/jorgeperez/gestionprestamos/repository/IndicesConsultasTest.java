@@ -0,0 +1,119 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica con EXPLAIN, sobre el esquema creado por las migraciones, que las consultas de los repositorios
+ * usen los índices de V2 en lugar de recorrer la tabla completa. Cada prueba llama al método del repositorio, toma el
+ * SQL que Hibernate generó con {@link CapturaSentencias} y obtiene su plan con los mismos parámetros. Antes se vacían
+ * la caché de segundo nivel y la de consultas, para que los métodos cacheables lleguen a la base de datos.
+ * <p>
+ * MySQL descarta el índice implícito de la llave foránea pago.prestamo_id al crear idx_pago_prestamo_fecha, pero H2
+ * lo conserva y puede preferirlo; por eso esa consulta acepta cualquiera de los dos, siempre que no recorra la tabla.
+ */
+@SpringBootTest
+class IndicesConsultasTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicesConsultasTest.class);
+
+    private static final Date INICIO = Date.valueOf("2024-01-01");
+
+    private static final Date FIN = Date.valueOf("2024-01-31");
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    @Test
+    void findByClienteClienteIdAndEstado() {
+        verificarPlan("findByClienteClienteIdAndEstado", () -> prestamoRepository.findByClienteClienteIdAndEstado(1L, EstadoPrestamo.EN_PROCESO),
+                new Object[]{1L, EstadoPrestamo.EN_PROCESO.getCodigo()}, "idx_prestamo_cliente_estado");
+    }
+
+    @Test
+    void findResumenByClienteIdAndEstado() {
+        verificarPlan("findResumenByClienteIdAndEstado", () -> prestamoRepository.findResumenByClienteIdAndEstado(1L, EstadoPrestamo.APROBADO),
+                new Object[]{1L, EstadoPrestamo.APROBADO.getCodigo()}, "idx_prestamo_cliente_estado");
+    }
+
+    @Test
+    void findByEstado() {
+        verificarPlan("findByEstado", () -> prestamoRepository.findByEstado(EstadoPrestamo.APROBADO),
+                new Object[]{EstadoPrestamo.APROBADO.getCodigo()}, "idx_prestamo_estado");
+    }
+
+    @Test
+    void findTotalMontoPrestadoByEstado() {
+        verificarPlan("findTotalMontoPrestadoByEstado", () -> prestamoRepository.findTotalMontoPrestadoByEstado(EstadoPrestamo.APROBADO),
+                new Object[]{EstadoPrestamo.APROBADO.getCodigo()}, "idx_prestamo_estado");
+    }
+
+    @Test
+    void findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc() {
+        verificarPlan("findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc", () -> pagoRepository.findFirstByPrestamoPrestamoIdOrderByFechaPagoDesc(1L),
+                new Object[]{1L}, "idx_pago_prestamo_fecha", "constraint_index");
+    }
+
+    @Test
+    void findByFechaPagoBetween() {
+        verificarPlan("findByFechaPagoBetween", () -> pagoRepository.findByFechaPagoBetween(INICIO, FIN), new Object[]{INICIO, FIN}, "idx_pago_fecha");
+    }
+
+    @Test
+    void findByFechaPago() {
+        verificarPlan("findByFechaPago", () -> pagoRepository.findByFechaPago(INICIO), new Object[]{INICIO}, "idx_pago_fecha");
+    }
+
+    /**
+     * Ejecuta el método del repositorio, verifica que genere una sola consulta y que su plan use alguno de los índices.
+     *
+     * @param parametros Los valores de los parámetros de la consulta, en el orden en que aparecen en el SQL.
+     */
+    private void verificarPlan(String metodo, Runnable llamada, Object[] parametros, String... indices) {
+        CapturaSentencias.iniciar();
+        List<String> sentencias;
+        try {
+            llamada.run();
+        } finally {
+            sentencias = CapturaSentencias.detener();
+        }
+        assertEquals(1, sentencias.size(), () -> metodo + " ejecutó " + sentencias);
+
+        String sql = sentencias.get(0);
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parametros).toLowerCase();
+        log.info("Plan de {} ({}): {}", metodo, sql, plan);
+        assertFalse(plan.contains("tablescan"), () -> metodo + " recorre la tabla completa: " + plan);
+        assertTrue(Arrays.stream(indices).anyMatch(plan::contains), () -> metodo + " no usa ninguno de los índices " + Arrays.toString(indices) + ": " + plan);
+    }
+}
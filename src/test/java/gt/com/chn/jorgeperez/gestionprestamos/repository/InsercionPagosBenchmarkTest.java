@@ -0,0 +1,156 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara las inserciones por segundo de 100,000 pagos con identificadores {@code GenerationType.IDENTITY} y con el
+ * generador de tabla agrupado ({@code secuencia_id}, bloques de 50) que usan las entidades. Con IDENTITY, Hibernate
+ * ejecuta cada inserción de inmediato para leer el identificador generado y no puede agruparlas en lotes JDBC; con el
+ * generador de tabla los identificadores se reservan por bloques y las inserciones se envían en lotes del
+ * {@code hibernate.jdbc.batch_size} configurado.
+ * <p>
+ * Las dos variantes insertan en la tabla temporal {@code pago_benchmark}, con las mismas columnas y la misma
+ * configuración de lotes, mapeada en {@code benchmark/insercion-pagos-orm.xml} sobre una fábrica de sesiones propia para
+ * no agregar entidades a la aplicación. La cantidad de pagos se puede cambiar con {@code -Dbenchmark.pagos}. Solo se
+ * ejecuta con el perfil {@code benchmark} de Maven.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class InsercionPagosBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsercionPagosBenchmarkTest.class);
+
+    private static final int PAGOS = Integer.getInteger("benchmark.pagos", 100_000);
+
+    private static final int PAGOS_POR_FLUSH = 1000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int tamanoLote;
+
+    private StandardServiceRegistry registro;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table pago_benchmark (pago_id bigint auto_increment primary key, prestamo_id bigint not null, " +
+                "monto_pago decimal(18,2) not null, fecha_pago date not null)");
+        registro = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, tamanoLote)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.GENERATE_STATISTICS, true)
+                .build();
+        sessionFactory = new MetadataSources(registro).addResource("benchmark/insercion-pagos-orm.xml").buildMetadata().buildSessionFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        StandardServiceRegistryBuilder.destroy(registro);
+        jdbcTemplate.execute("drop table if exists pago_benchmark");
+        jdbcTemplate.update("delete from secuencia_id where nombre_secuencia = 'pago_benchmark'");
+    }
+
+    @Test
+    void generadorDeTablaAgrupadoSuperaAIdentity() {
+        sessionFactory.getStatistics().clear();
+        double identidad = insertarPagos(PagoIdentidad::new, "IDENTITY");
+        long sentenciasIdentidad = sessionFactory.getStatistics().getPrepareStatementCount();
+        assertEquals(PAGOS, contarPagos());
+        jdbcTemplate.update("delete from pago_benchmark");
+
+        sessionFactory.getStatistics().clear();
+        double tablaAgrupada = insertarPagos(PagoTablaAgrupada::new, "tabla agrupada");
+        long sentenciasTabla = sessionFactory.getStatistics().getPrepareStatementCount();
+        assertEquals(PAGOS, contarPagos());
+
+        log.info("Inserción de {} pagos: {} pagos/segundo con IDENTITY ({} sentencias preparadas), {} pagos/segundo con el generador de tabla agrupado ({} sentencias preparadas)",
+                PAGOS, String.format("%.1f", identidad), sentenciasIdentidad, String.format("%.1f", tablaAgrupada), sentenciasTabla);
+        // IDENTITY envía una sentencia por fila; el generador de tabla, una por lote más una por bloque de identificadores
+        assertTrue(sentenciasIdentidad >= PAGOS, "Sentencias preparadas con IDENTITY: " + sentenciasIdentidad);
+        assertTrue(sentenciasTabla < PAGOS / 10, "Sentencias preparadas con el generador de tabla: " + sentenciasTabla);
+    }
+
+    /**
+     * Persiste los pagos en una sola transacción y devuelve las inserciones por segundo.
+     */
+    private double insertarPagos(Supplier<PagoBenchmark> nuevoPago, String estrategia) {
+        long inicio = System.nanoTime();
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaccion = session.beginTransaction();
+            LocalDate hoy = LocalDate.now();
+            for (int i = 0; i < PAGOS; i++) {
+                PagoBenchmark pago = nuevoPago.get();
+                pago.prestamoId = 1L;
+                pago.montoPago = BigDecimal.ONE;
+                pago.fechaPago = hoy;
+                session.persist(pago);
+                if ((i + 1) % PAGOS_POR_FLUSH == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            transaccion.commit();
+        }
+        long nanos = System.nanoTime() - inicio;
+        log.info("{} pagos insertados en {} ms con {}", PAGOS, TimeUnit.NANOSECONDS.toMillis(nanos), estrategia);
+        return PAGOS * 1_000_000_000.0 / nanos;
+    }
+
+    private long contarPagos() {
+        return jdbcTemplate.queryForObject("select count(*) from pago_benchmark", Long.class);
+    }
+
+    abstract static class PagoBenchmark {
+
+        Long prestamoId;
+
+        BigDecimal montoPago;
+
+        LocalDate fechaPago;
+    }
+
+    static class PagoIdentidad extends PagoBenchmark {
+
+        Long pagoId;
+    }
+
+    static class PagoTablaAgrupada extends PagoBenchmark {
+
+        Long pagoId;
+    }
+}
@@ -0,0 +1,68 @@
+package gt.com.chn.jorgeperez.gestionprestamos.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la migración V3 sobre una base de datos H2 propia con préstamos guardados con el estado como texto libre:
+ * que convierta a su código cada variante conocida de las etiquetas y que se detenga con un error claro si queda
+ * algún estado sin reconocer, sin modificar la columna.
+ */
+class MigracionEstadoPrestamoTest {
+
+    @Test
+    void convierteLasVariantesConocidasDelEstado() {
+        DriverManagerDataSource dataSource = baseDeDatos();
+        JdbcTemplate jdbcTemplate = migrarHastaV2(dataSource, List.of("En Proceso", "EN PROCESO", "en_proceso ", " Aprobado", "APROBADO", "rechazado", "Finalizado", "F"));
+
+        migrar(dataSource, "3");
+
+        assertEquals(List.of("P", "P", "P", "A", "A", "R", "F", "F"), jdbcTemplate.queryForList("select estado from prestamo order by prestamo_id", String.class));
+    }
+
+    @Test
+    void seDetieneSiQuedaUnEstadoSinReconocer() {
+        DriverManagerDataSource dataSource = baseDeDatos();
+        JdbcTemplate jdbcTemplate = migrarHastaV2(dataSource, List.of("Aprobado", "Pendiente"));
+
+        FlywayException error = assertThrows(FlywayException.class, () -> migrar(dataSource, "3"));
+
+        assertTrue(error.getMessage().toLowerCase().contains("estado_prestamo_no_reconocido"), error.getMessage());
+        // La columna conserva su tipo y los estados no se truncaron
+        assertEquals(20L, jdbcTemplate.queryForObject("select character_maximum_length from information_schema.columns " +
+                "where table_name = 'prestamo' and column_name = 'estado'", Long.class));
+        assertEquals(List.of("A", "Pendiente"), jdbcTemplate.queryForList("select estado from prestamo order by prestamo_id", String.class));
+    }
+
+    private static DriverManagerDataSource baseDeDatos() {
+        return new DriverManagerDataSource("jdbc:h2:mem:migracion_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    /**
+     * Aplica las migraciones hasta V2 y guarda un préstamo con cada estado.
+     */
+    private static JdbcTemplate migrarHastaV2(DriverManagerDataSource dataSource, List<String> estados) {
+        migrar(dataSource, "2");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into cliente (cliente_id, nombre, apellido, numero_identificacion, fecha_nacimiento, direccion, correo_electronico, telefono) " +
+                "values (1, 'Ana', 'López', '1', date '1990-01-01', 'Zona 1', 'ana@example.com', '55555555')");
+        for (int i = 0; i < estados.size(); i++) {
+            jdbcTemplate.update("insert into prestamo (prestamo_id, cliente_id, monto_solicitado, plazo, estado, fecha_solicitud, tasa_interes) " +
+                    "values (?, 1, 1000.00, 12, ?, date '2024-01-01', 12.00)", i + 1, estados.get(i));
+        }
+        return jdbcTemplate;
+    }
+
+    private static void migrar(DriverManagerDataSource dataSource, String version) {
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").target(version).load().migrate();
+    }
+}
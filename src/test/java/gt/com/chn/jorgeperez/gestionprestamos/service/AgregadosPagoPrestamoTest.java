@@ -0,0 +1,152 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.job.RecalculoAgregadosPagoJob;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.ExposicionCredito;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que el saldo, el total pagado, la cantidad de pagos y la fecha del último pago del préstamo se mantengan
+ * al registrar, modificar y eliminar pagos, que el recálculo inicial los obtenga a partir de los pagos existentes y que
+ * el saldo de un préstamo sin saldo registrado se calcule del monto solicitado y lo pagado.
+ */
+@SpringBootTest(properties = "prestamos.agregados-pagos.recalcular-al-iniciar=true")
+class AgregadosPagoPrestamoTest {
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private RecalculoAgregadosPagoJob recalculoAgregadosPagoJob;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private ExposicionCredito exposicionCredito;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        prestamo = datos.crearPrestamo(datos.crearCliente(), EstadoPrestamo.APROBADO, "3000.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void elSaldoDeUnPrestamoSinSaldoRegistradoSeCalculaDelMontoYLoPagado() {
+        // Como los préstamos solicitados antes de que se guardara el saldo
+        Long anterior = prestamoRepository.save(DatosPrueba.prestamo(prestamo.getCliente(), EstadoPrestamo.APROBADO, "5000.00")).getPrestamoId();
+        jdbcTemplate.update("update prestamo set saldo_actual = null, total_pagado = 1200.00 where prestamo_id = ?", anterior);
+
+        assertEquals(0, new BigDecimal("3800.00").compareTo(pagoService.consultarSaldoPendiente(anterior)));
+        assertThrows(IllegalArgumentException.class, () -> pagoService.consultarSaldoPendiente(-1L));
+        // La consulta de varios saldos lo incluye; solo omite los préstamos que no existen
+        assertEquals(Map.of(anterior, new BigDecimal("3800.00")), pagoService.consultarSaldosPendientes(List.of(anterior, -1L)));
+    }
+
+    @Test
+    void registrarYEliminarPagosMantienenLosAcumulados() {
+        pagoService.registrarPago(solicitud("500.00", "2024-03-01"));
+        Pago ultimo = pagoService.registrarPago(solicitud("250.00", "2024-03-15"));
+        pagoService.registrarPago(solicitud("100.00", "2024-02-01"));
+
+        Prestamo actual = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        assertEquals(0, new BigDecimal("850.00").compareTo(actual.getTotalPagado()));
+        assertEquals(3, actual.getNumeroPagos());
+        assertEquals(LocalDate.parse("2024-03-15"), fecha(actual.getFechaUltimoPago()));
+        assertEquals(0, new BigDecimal("2150.00").compareTo(pagoService.consultarSaldoPendiente(prestamo.getPrestamoId())));
+
+        pagoService.eliminarPago(ultimo.getPagoId());
+
+        actual = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        assertEquals(0, new BigDecimal("600.00").compareTo(actual.getTotalPagado()));
+        assertEquals(2, actual.getNumeroPagos());
+        assertEquals(LocalDate.parse("2024-03-01"), fecha(actual.getFechaUltimoPago()));
+        assertEquals(0, new BigDecimal("2400.00").compareTo(actual.getSaldoActual()));
+    }
+
+    @Test
+    void actualizarPagoAplicaLaDiferenciaAlSaldo() {
+        Pago pago = pagoService.registrarPago(solicitud("500.00", "2024-03-01"));
+        BigDecimal exposicion = exposicionCredito.obtener(prestamo.getCliente().getClienteId());
+
+        pago.setMontoPago(new BigDecimal("800.00"));
+        pago.setFechaPago(Date.valueOf("2024-03-20"));
+        pagoService.actualizarPago(pago);
+
+        Prestamo actual = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        assertEquals(0, new BigDecimal("2200.00").compareTo(actual.getSaldoActual()));
+        assertEquals(0, new BigDecimal("800.00").compareTo(actual.getTotalPagado()));
+        assertEquals(1, actual.getNumeroPagos());
+        assertEquals(LocalDate.parse("2024-03-20"), fecha(actual.getFechaUltimoPago()));
+        assertEquals(0, new BigDecimal("2200.00").compareTo(pagoService.consultarSaldoPendiente(prestamo.getPrestamoId())));
+        assertEquals(0, exposicion.subtract(new BigDecimal("300.00")).compareTo(exposicionCredito.obtener(prestamo.getCliente().getClienteId())));
+
+        // Un aumento mayor que el saldo pendiente se rechaza y no modifica el pago ni el préstamo
+        pago.setMontoPago(new BigDecimal("3000.01"));
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> pagoService.actualizarPago(pago));
+        assertEquals(0, new BigDecimal("800.00").compareTo(pagoRepository.findById(pago.getPagoId()).orElseThrow().getMontoPago()));
+        assertEquals(0, new BigDecimal("2200.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+
+        pago.setMontoPago(new BigDecimal("100.00"));
+        pagoService.actualizarPago(pago);
+        assertEquals(0, new BigDecimal("2900.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+        assertEquals(0, exposicion.add(new BigDecimal("400.00")).compareTo(exposicionCredito.obtener(prestamo.getCliente().getClienteId())));
+    }
+
+    @Test
+    void recalculoObtieneLosAcumuladosDeLosPagosExistentes() {
+        // Pagos cargados directamente, como los que existían antes de agregar las columnas
+        datos.crearPago(prestamo, "1000.00", Date.valueOf("2024-01-10"));
+        datos.crearPago(prestamo, "400.00", Date.valueOf("2024-01-20"));
+
+        assertTrue(recalculoAgregadosPagoJob.recalcular() >= 1);
+
+        Prestamo actual = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        assertEquals(0, new BigDecimal("1400.00").compareTo(actual.getTotalPagado()));
+        assertEquals(2, actual.getNumeroPagos());
+        assertEquals(LocalDate.parse("2024-01-20"), fecha(actual.getFechaUltimoPago()));
+    }
+
+    private SolicitudPagoDTO solicitud(String monto, String fecha) {
+        return DatosPrueba.solicitudPago(prestamo.getPrestamoId(), monto, Date.valueOf(fecha));
+    }
+
+    private static LocalDate fecha(java.util.Date fecha) {
+        return new Date(fecha.getTime()).toLocalDate();
+    }
+}
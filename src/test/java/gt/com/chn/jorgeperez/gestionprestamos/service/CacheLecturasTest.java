@@ -0,0 +1,178 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.config.CacheConfig;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClienteRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que las lecturas de saldos, préstamos y clientes se sirvan desde la caché y que cada operación que
+ * modifica los datos invalide la entrada, de modo que la siguiente lectura nunca devuelva un valor anterior.
+ */
+@SpringBootTest
+class CacheLecturasTest {
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private PagoLoteService pagoLoteService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cliente cliente;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+        prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "2000.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void elSaldoSeInvalidaAlRegistrarPagos() throws Exception {
+        Long prestamoId = prestamo.getPrestamoId();
+        // Solo los préstamos aprobados reciben pagos
+        prestamoService.aprobarPrestamo(prestamoId, "ana");
+        CacheStats antes = estadisticas(CacheConfig.SALDOS);
+
+        assertEquals(0, new BigDecimal("2000.00").compareTo(pagoService.consultarSaldoPendiente(prestamoId)));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(pagoService.consultarSaldoPendiente(prestamoId)));
+        CacheStats despues = estadisticas(CacheConfig.SALDOS);
+        assertEquals(1, despues.missCount() - antes.missCount());
+        assertEquals(1, despues.hitCount() - antes.hitCount());
+
+        pagoService.registrarPago(solicitud(prestamoId, "300.00"));
+        assertEquals(0, new BigDecimal("1700.00").compareTo(pagoService.consultarSaldoPendiente(prestamoId)));
+
+        pagoLoteService.registrarLote(new StringReader(prestamoId + ",200.00,2024-03-02\n"), PagoLoteService.Formato.CSV, resultado -> {
+        });
+        assertEquals(0, new BigDecimal("1500.00").compareTo(pagoService.consultarSaldoPendiente(prestamoId)));
+
+        Pago pagoLote = pagoRepository.findByPrestamoPrestamoId(prestamoId).stream()
+                .filter(pago -> pago.getMontoPago().compareTo(new BigDecimal("200.00")) == 0).findFirst().orElseThrow();
+        pagoService.eliminarPago(pagoLote.getPagoId());
+        assertEquals(0, new BigDecimal("1700.00").compareTo(pagoService.consultarSaldoPendiente(prestamoId)));
+    }
+
+    @Test
+    void losSaldosDeVariosPrestamosSeLeenPorBloquesYSeGuardanEnLaCache() {
+        List<Prestamo> prestamos = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            prestamos.add(DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, String.valueOf(1000 + i)));
+        }
+        prestamos = prestamoRepository.saveAll(prestamos);
+        List<Long> ids = new ArrayList<>(prestamos.stream().map(Prestamo::getPrestamoId).toList());
+        ids.add(-1L);
+        Statistics sentencias = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // 1200 préstamos en bloques de 500: tres sentencias; el préstamo inexistente se omite
+        sentencias.clear();
+        Map<Long, BigDecimal> saldos = pagoService.consultarSaldosPendientes(ids);
+        assertEquals(3, sentencias.getPrepareStatementCount());
+        assertEquals(ids.subList(0, 1200), new ArrayList<>(saldos.keySet()));
+        assertEquals(0, new BigDecimal("1199").compareTo(saldos.get(prestamos.get(199).getPrestamoId())));
+
+        // La segunda consulta se sirve desde la caché salvo el préstamo inexistente, y el préstamo que recibe un pago
+        // se vuelve a leer en la misma sentencia
+        sentencias.clear();
+        assertEquals(saldos, pagoService.consultarSaldosPendientes(ids));
+        assertEquals(1, sentencias.getPrepareStatementCount());
+        Long prestamoId = prestamos.get(0).getPrestamoId();
+        pagoService.registrarPago(solicitud(prestamoId, "400.00"));
+        sentencias.clear();
+        assertEquals(0, new BigDecimal("600.00").compareTo(pagoService.consultarSaldosPendientes(ids).get(prestamoId)));
+        assertEquals(1, sentencias.getPrepareStatementCount());
+    }
+
+    @Test
+    void elPrestamoSeInvalidaAlCambiarDeEstado() {
+        Long prestamoId = prestamo.getPrestamoId();
+
+        assertEquals(EstadoPrestamo.EN_PROCESO, prestamoService.obtenerResumenPrestamoPorId(prestamoId).getEstado());
+        prestamoService.aprobarPrestamo(prestamoId, "ana");
+        assertEquals(EstadoPrestamo.APROBADO, prestamoService.obtenerResumenPrestamoPorId(prestamoId).getEstado());
+
+        pagoService.registrarPago(solicitud(prestamoId, "2000.00"));
+        assertNotNull(prestamoService.obtenerResumenPrestamoPorId(prestamoId).getFechaUltimoPago());
+        pagoService.finalizarPrestamo(prestamoId);
+        assertEquals(EstadoPrestamo.FINALIZADO, prestamoService.obtenerResumenPrestamoPorId(prestamoId).getEstado());
+    }
+
+    @Test
+    void elClienteSeInvalidaAlActualizarlo() {
+        Long clienteId = cliente.getClienteId();
+        assertEquals(cliente.getNombre(), clienteService.obtenerResumenClientePorId(clienteId).getNombre());
+
+        Cliente cambios = clienteRepository.findById(clienteId).orElseThrow();
+        cambios.setNombre("Ana María");
+        clienteService.actualizarCliente(clienteId, cambios);
+
+        assertEquals("Ana María", clienteService.obtenerResumenClientePorId(clienteId).getNombre());
+    }
+
+    private CacheStats estadisticas(String nombre) {
+        TransactionAwareCacheDecorator cache = (TransactionAwareCacheDecorator) cacheManager.getCache(nombre);
+        return ((CaffeineCache) cache.getTargetCache()).getNativeCache().stats();
+    }
+
+    private static SolicitudPagoDTO solicitud(Long prestamoId, String monto) {
+        return DatosPrueba.solicitudPago(prestamoId, monto, Date.valueOf(LocalDate.of(2024, 3, 1)));
+    }
+}
@@ -0,0 +1,186 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenDevengoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el devengo diario de intereses: el interés de un día sobre el saldo, que solo se devenguen los préstamos
+ * aprobados, que repetir el devengo de un día no vuelva a sumar intereses, que un devengo interrumpido continúe sin
+ * devengar dos veces los préstamos ya procesados, que se devenguen los días que faltan desde el último devengo
+ * completado, que solo una instancia devengue a la vez y que un préstamo con intereses devengados no se finalice al
+ * pagar solo el monto solicitado.
+ */
+@SpringBootTest
+class DevengoInteresServiceTest {
+
+    private static final LocalDate FECHA_SOLICITUD = LocalDate.of(2024, 1, 15);
+
+    @Autowired
+    private DevengoInteresService devengoInteresService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        // El devengo que se ejecuta al iniciar la aplicación registra el día anterior como el último completado
+        jdbcTemplate.update("delete from ejecucion_devengo");
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void devengaElInteresDeUnDiaUnaSolaVez() {
+        LocalDate fecha = LocalDate.of(2024, 3, 1);
+        // 36,500.00 al 10 % anual: 10.00 por día; 1,000.00 al 12.5 %: 0.342... que se redondea a 0.34
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        Prestamo pequeno = nuevoPrestamo(EstadoPrestamo.APROBADO, "1000.00", "12.50");
+        Prestamo enProceso = nuevoPrestamo(EstadoPrestamo.EN_PROCESO, "36500.00", "10.00");
+        assertEquals(0, new BigDecimal("36500.00").compareTo(pagoService.consultarSaldoPendiente(prestamo.getPrestamoId())));
+
+        ResumenDevengoDTO resumen = devengoInteresService.devengarIntereses(fecha);
+
+        assertEquals(2, resumen.getPrestamosDevengados());
+        assertEquals(0, new BigDecimal("10.34").compareTo(resumen.getInteresDevengado()));
+        assertTrue(resumen.getPrestamosPorSegundo() > 0);
+        assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(prestamo)));
+        assertEquals(0, new BigDecimal("1000.34").compareTo(saldo(pequeno)));
+        assertEquals(0, new BigDecimal("36500.00").compareTo(saldo(enProceso)));
+        // El saldo guardado en la caché antes del devengo se invalidó
+        assertEquals(0, new BigDecimal("36510.00").compareTo(pagoService.consultarSaldoPendiente(prestamo.getPrestamoId())));
+
+        ResumenDevengoDTO repetido = devengoInteresService.devengarIntereses(fecha);
+
+        assertEquals(2, repetido.getPrestamosDevengados());
+        assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(prestamo)));
+
+        // El día siguiente se devenga sobre el saldo con el interés anterior: 36,510.00 * 10 % / 365 = 10.0027...
+        devengoInteresService.devengarIntereses(fecha.plusDays(1));
+        assertEquals(0, new BigDecimal("36520.00").compareTo(saldo(prestamo)));
+    }
+
+    @Test
+    void unDevengoInterrumpidoContinuaSinDevengarDosVeces() {
+        LocalDate fecha = LocalDate.of(2024, 3, 2);
+        Prestamo antesDelAvance = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        Prestamo pendiente = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        Prestamo confirmadoSinAvance = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+
+        // Estado que deja una ejecución detenida: el primer préstamo está dentro del avance guardado y el tercero se
+        // confirmó en una página que terminó antes que la del segundo, por lo que no se guardó su avance
+        devengoSimulado(antesDelAvance, fecha);
+        devengoSimulado(confirmadoSinAvance, fecha);
+        jdbcTemplate.update("insert into ejecucion_devengo (fecha, estado, ultimo_prestamo_id, inicio) values (?, 'EN_CURSO', ?, ?)",
+                java.sql.Date.valueOf(fecha), antesDelAvance.getPrestamoId(), new Timestamp(System.currentTimeMillis()));
+
+        assertEquals(1, devengoInteresService.devengarPendientes(fecha).size());
+
+        assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(antesDelAvance)));
+        assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(pendiente)));
+        assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(confirmadoSinAvance)));
+        assertEquals("COMPLETADO", jdbcTemplate.queryForObject("select estado from ejecucion_devengo where fecha = ?", String.class, java.sql.Date.valueOf(fecha)));
+        assertTrue(devengoInteresService.devengarPendientes(fecha).isEmpty());
+    }
+
+    @Test
+    void devengaLosDiasQueFaltanDesdeElUltimoCompletado() {
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        devengoInteresService.devengarIntereses(LocalDate.of(2024, 3, 4));
+
+        // Las ejecuciones del 5 y el 6 no llegaron a ejecutarse
+        List<ResumenDevengoDTO> resumenes = devengoInteresService.devengarPendientes(LocalDate.of(2024, 3, 7));
+
+        assertEquals(List.of(LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 6), LocalDate.of(2024, 3, 7)),
+                resumenes.stream().map(resumen -> ((java.sql.Date) resumen.getFecha()).toLocalDate()).toList());
+        // Cada día se devenga sobre el saldo con los intereses anteriores: 10.00, 10.00, 10.01 y 10.01
+        assertEquals(0, new BigDecimal("36540.02").compareTo(saldo(prestamo)));
+        assertTrue(devengoInteresService.devengarPendientes(LocalDate.of(2024, 3, 7)).isEmpty());
+    }
+
+    @Test
+    void noDevengaMientrasOtraInstanciaTieneElBloqueo() {
+        LocalDate fecha = LocalDate.of(2024, 3, 8);
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        // La fila se crea la primera vez que se toma el bloqueo; se simula que otra instancia lo tiene
+        devengoInteresService.devengarPendientes(fecha.minusDays(1));
+        jdbcTemplate.update("update bloqueo_tarea set instancia = 'otra-instancia', vence = ? where nombre = 'devengo'",
+                new Timestamp(System.currentTimeMillis() + 3_600_000));
+        try {
+            assertThrows(CustomExceptions.InvalidOperationException.class, () -> devengoInteresService.devengarIntereses(fecha));
+            assertTrue(devengoInteresService.devengarPendientes(fecha).isEmpty());
+            assertEquals(0, new BigDecimal("36510.00").compareTo(saldo(prestamo)));
+        } finally {
+            jdbcTemplate.update("update bloqueo_tarea set instancia = null, vence = null where nombre = 'devengo'");
+        }
+        assertEquals(1, devengoInteresService.devengarPendientes(fecha).size());
+        assertEquals(0, new BigDecimal("36520.00").compareTo(saldo(prestamo)));
+    }
+
+    @Test
+    void noFinalizaSiSoloSePagoElMontoSolicitado() {
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "36500.00", "10.00");
+        devengoInteresService.devengarIntereses(LocalDate.of(2024, 3, 3));
+        pagoService.registrarPago(DatosPrueba.solicitudPago(prestamo.getPrestamoId(), "36500.00", new Date()));
+
+        assertThrows(RuntimeException.class, () -> pagoService.finalizarPrestamo(prestamo.getPrestamoId()));
+        assertEquals(EstadoPrestamo.APROBADO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(prestamoRepository.findSaldoPendienteByPrestamoId(prestamo.getPrestamoId())));
+
+        pagoService.registrarPago(DatosPrueba.solicitudPago(prestamo.getPrestamoId(), "10.00", new Date()));
+        pagoService.finalizarPrestamo(prestamo.getPrestamoId());
+        assertEquals(EstadoPrestamo.FINALIZADO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+    }
+
+    private void devengoSimulado(Prestamo prestamo, LocalDate fecha) {
+        jdbcTemplate.update("insert into devengo_interes (prestamo_id, fecha, saldo_base, tasa_interes, interes) values (?, ?, 36500.00, 10.00, 10.00)",
+                prestamo.getPrestamoId(), java.sql.Date.valueOf(fecha));
+        jdbcTemplate.update("update prestamo set saldo_actual = saldo_actual + 10.00 where prestamo_id = ?", prestamo.getPrestamoId());
+    }
+
+    private BigDecimal saldo(Prestamo prestamo) {
+        return jdbcTemplate.queryForObject("select saldo_actual from prestamo where prestamo_id = ?", BigDecimal.class, prestamo.getPrestamoId());
+    }
+
+    // La fecha de solicitud no puede ser pasada al guardar el préstamo, así que se fija directamente en la tabla
+    private Prestamo nuevoPrestamo(EstadoPrestamo estado, String monto, String tasa) {
+        Prestamo prestamo = DatosPrueba.prestamo(cliente, estado, monto);
+        prestamo.setTasaInteres(new BigDecimal(tasa));
+        prestamo = prestamoRepository.save(prestamo);
+        jdbcTemplate.update("update prestamo set fecha_solicitud = ? where prestamo_id = ?", java.sql.Date.valueOf(FECHA_SOLICITUD), prestamo.getPrestamoId());
+        return prestamo;
+    }
+}
@@ -0,0 +1,219 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Dinero;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClienteRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.ExposicionCredito;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el límite de crédito por cliente (500,000.00 en las pruebas): que se rechacen las solicitudes, las
+ * aprobaciones y las actualizaciones de préstamos que lo excederían, que los préstamos rechazados liberen su monto, que
+ * el límite y los volcados tengan en cuenta lo que otra instancia sumó a la tabla, que la conciliación corrija solo los
+ * clientes que no coinciden y que, con miles de solicitudes simultáneas de pocos clientes, ningún cliente lo exceda y
+ * la exposición coincida con sus préstamos. La prueba con miles de solicitudes solo se ejecuta con el perfil
+ * {@code benchmark} de Maven.
+ */
+@SpringBootTest
+class ExposicionCreditoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExposicionCreditoTest.class);
+
+    private static final Set<EstadoPrestamo> ACTIVOS = Set.of(EstadoPrestamo.EN_PROCESO, EstadoPrestamo.APROBADO);
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private ExposicionCredito exposicionCredito;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void rechazaLaSolicitudQueExcederiaElLimite() {
+        Cliente cliente = datos.crearCliente();
+        Prestamo grande = prestamoService.guardarPrestamo(solicitud(cliente, "400000.00", 24));
+        prestamoService.guardarPrestamo(solicitud(cliente, "90000.00", 12));
+
+        assertThrows(CustomExceptions.CreditLimitExceededException.class, () -> prestamoService.guardarPrestamo(solicitud(cliente, "10000.01", 12)));
+        prestamoService.guardarPrestamo(solicitud(cliente, "10000.00", 12));
+        assertEquals(0, new BigDecimal("500000.00").compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+
+        // El préstamo rechazado deja de contar
+        prestamoService.rechazarPrestamo(grande.getPrestamoId(), "Capacidad de pago insuficiente", "ana");
+        prestamoService.guardarPrestamo(solicitud(cliente, "150000.00", 36));
+        assertEquals(0, new BigDecimal("250000.00").compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+
+        // La exposición se vuelca a la tabla
+        exposicionCredito.volcar();
+        assertEquals(0, new BigDecimal("250000.00").compareTo(
+                jdbcTemplate.queryForObject("select exposicion from exposicion_cliente where cliente_id = ?", BigDecimal.class, cliente.getClienteId())));
+    }
+
+    @Test
+    void noApruebaSiLaExposicionExcedeElLimite() {
+        Cliente cliente = datos.crearCliente();
+        Prestamo prestamo = prestamoService.guardarPrestamo(solicitud(cliente, "450000.00", 24));
+        // Como si otro préstamo aprobado del cliente hubiera devengado intereses
+        exposicionCredito.registrarCambioSaldo(cliente.getClienteId(), EstadoPrestamo.APROBADO, Dinero.de(new BigDecimal("60000.00")));
+
+        assertThrows(CustomExceptions.CreditLimitExceededException.class, () -> prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana"));
+        assertEquals(EstadoPrestamo.EN_PROCESO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+
+        exposicionCredito.registrarCambioSaldo(cliente.getClienteId(), EstadoPrestamo.APROBADO, Dinero.de(new BigDecimal("-60000.00")));
+        prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana");
+        assertEquals(EstadoPrestamo.APROBADO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+    }
+
+    @Test
+    void noActualizaElMontoSiLaExposicionExcederiaElLimite() {
+        Cliente cliente = datos.crearCliente();
+        Prestamo prestamo = prestamoService.guardarPrestamo(solicitud(cliente, "450000.00", 24));
+
+        Prestamo mayor = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        mayor.setMontoSolicitado(new BigDecimal("510000.00"));
+        mayor.setSaldoActual(new BigDecimal("510000.00"));
+        assertThrows(CustomExceptions.CreditLimitExceededException.class, () -> prestamoService.actualizarPrestamo(mayor));
+        assertEquals(0, new BigDecimal("450000.00").compareTo(prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow().getMontoSolicitado()));
+        assertEquals(0, new BigDecimal("450000.00").compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+
+        Prestamo cabe = prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow();
+        cabe.setMontoSolicitado(new BigDecimal("500000.00"));
+        cabe.setSaldoActual(new BigDecimal("500000.00"));
+        prestamoService.actualizarPrestamo(cabe);
+        assertEquals(0, new BigDecimal("500000.00").compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+        assertEquals(0, new BigDecimal("500000.00").compareTo(clienteRepository.findExposicionByClienteId(cliente.getClienteId(), ACTIVOS)));
+    }
+
+    @Test
+    void elLimiteYLosVolcadosConsideranLoQueSumoOtraInstancia() {
+        Cliente cliente = datos.crearCliente();
+        Prestamo prestamo = prestamoService.guardarPrestamo(solicitud(cliente, "300000.00", 24));
+        // Como si otra instancia hubiera guardado un préstamo de 150,000.00 del mismo cliente
+        jdbcTemplate.update("update exposicion_cliente set exposicion = exposicion + 150000.00 where cliente_id = ?", cliente.getClienteId());
+
+        assertThrows(CustomExceptions.CreditLimitExceededException.class, () -> prestamoService.guardarPrestamo(solicitud(cliente, "50000.01", 12)));
+        prestamoService.guardarPrestamo(solicitud(cliente, "50000.00", 12));
+
+        // El rechazo se suma a la tabla como una diferencia, sin pisar lo que sumó la otra instancia
+        prestamoService.rechazarPrestamo(prestamo.getPrestamoId(), "Capacidad de pago insuficiente", "ana");
+        exposicionCredito.volcar();
+        assertEquals(0, new BigDecimal("200000.00").compareTo(
+                jdbcTemplate.queryForObject("select exposicion from exposicion_cliente where cliente_id = ?", BigDecimal.class, cliente.getClienteId())));
+    }
+
+    @Test
+    void laConciliacionCorrigeSoloLosClientesQueNoCoinciden() {
+        Cliente cliente = datos.crearCliente();
+        Cliente otro = datos.crearCliente();
+        prestamoService.guardarPrestamo(solicitud(cliente, "100000.00", 24));
+        prestamoService.guardarPrestamo(solicitud(otro, "80000.00", 24));
+        exposicionCredito.volcar();
+        exposicionCredito.conciliar();
+        // Como si una instancia se hubiera detenido sin volcar un pago de 20,000.00 del cliente
+        jdbcTemplate.update("update prestamo set saldo_actual = 80000.00 where cliente_id = ?", cliente.getClienteId());
+
+        assertEquals(java.util.Map.of(cliente.getClienteId(), new BigDecimal("-20000.00")), exposicionCredito.conciliar());
+        assertEquals(0, new BigDecimal("80000.00").compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+        assertEquals(0, new BigDecimal("80000.00").compareTo(exposicionCredito.obtener(otro.getClienteId())));
+        assertTrue(exposicionCredito.conciliar().isEmpty());
+    }
+
+    @Tag("benchmark")
+    @Test
+    void ningunClienteExcedeElLimiteConMilesDeSolicitudesSimultaneas() throws Exception {
+        int clientes = 4;
+        int solicitudes = 2000;
+        List<Cliente> deudores = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            deudores.add(datos.crearCliente());
+        }
+
+        // Cada cliente recibe 500 solicitudes de entre 1,500.00 y 1,999.00, que suman más que el límite. Los hilos no
+        // superan las conexiones del pool: el generador de IDs de los préstamos usa una segunda conexión
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        long inicioNanos;
+        int aceptadas = 0;
+        try {
+            for (int i = 0; i < solicitudes; i++) {
+                Cliente cliente = deudores.get(i % clientes);
+                String monto = (1500 + i / clientes) + ".00";
+                resultados.add(ejecutor.submit(() -> {
+                    inicio.await();
+                    try {
+                        prestamoService.guardarPrestamo(solicitud(cliente, monto, 12));
+                        return true;
+                    } catch (CustomExceptions.CreditLimitExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            inicioNanos = System.nanoTime();
+            inicio.countDown();
+            for (Future<Boolean> resultado : resultados) {
+                aceptadas += resultado.get(120, TimeUnit.SECONDS) ? 1 : 0;
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        long milisegundos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos);
+        log.info("{} solicitudes de {} clientes en {} ms ({} solicitudes/segundo): {} aceptadas, {} rechazadas por el límite de crédito",
+                solicitudes, clientes, milisegundos, String.format("%.0f", solicitudes * 1000.0 / Math.max(milisegundos, 1)), aceptadas, solicitudes - aceptadas);
+
+        assertTrue(aceptadas < solicitudes);
+        BigDecimal limite = new BigDecimal("500000.00");
+        for (Cliente cliente : deudores) {
+            BigDecimal exposicion = clienteRepository.findExposicionByClienteId(cliente.getClienteId(), ACTIVOS);
+            assertTrue(exposicion.compareTo(limite) <= 0, "La exposición del cliente " + cliente.getClienteId() + " es " + exposicion);
+            // El cliente llegó al límite: ninguna solicitud restante cabía
+            assertTrue(exposicion.compareTo(limite.subtract(new BigDecimal("1999.00"))) > 0, "La exposición del cliente " + cliente.getClienteId() + " es " + exposicion);
+            assertEquals(0, exposicion.compareTo(exposicionCredito.obtener(cliente.getClienteId())));
+        }
+    }
+
+    private static SolicitudPrestamoDTO solicitud(Cliente cliente, String monto, int plazo) {
+        return DatosPrueba.solicitudPrestamo(cliente.getClienteId(), monto, plazo);
+    }
+}
@@ -0,0 +1,153 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.ClaveIdempotenciaRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del registro de pagos con clave de idempotencia: los reintentos devuelven el pago original,
+ * las solicitudes simultáneas con la misma clave registran un único pago, una clave no puede reutilizarse
+ * con otros datos de pago y las claves vencidas se eliminan de la tabla.
+ */
+@SpringBootTest
+class IdempotenciaPagoServiceTest {
+
+    private static final int HILOS = 8;
+
+    @Autowired
+    private IdempotenciaPagoService idempotenciaPagoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        prestamo = datos.crearPrestamo(datos.crearCliente(), EstadoPrestamo.APROBADO, "5000.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void reintentoConLaMismaClaveDevuelveElPagoOriginalSinAccederALaBaseDeDatos() {
+        String clave = UUID.randomUUID().toString();
+        PagoDTO original = idempotenciaPagoService.registrarPago(clave, solicitud("100.00"));
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        PagoDTO reintento = idempotenciaPagoService.registrarPago(clave, solicitud("100.00"));
+
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(original.getPagoId(), reintento.getPagoId());
+        assertEquals(1, pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()).size());
+        assertEquals(0, new BigDecimal("4900.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+    }
+
+    @Test
+    void solicitudesSimultaneasConLaMismaClaveRegistranUnSoloPago() throws Exception {
+        String clave = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<PagoDTO>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                return idempotenciaPagoService.registrarPago(clave, solicitud("250.00"));
+            }));
+        }
+        inicio.countDown();
+
+        List<Long> pagoIds = new ArrayList<>();
+        for (Future<PagoDTO> tarea : tareas) {
+            pagoIds.add(tarea.get(1, TimeUnit.MINUTES).getPagoId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, pagoIds.stream().distinct().count());
+        assertEquals(1, pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()).size());
+        assertEquals(0, new BigDecimal("4750.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+    }
+
+    @Test
+    void claveReutilizadaConOtrosDatosSeRechaza() {
+        String clave = UUID.randomUUID().toString();
+        idempotenciaPagoService.registrarPago(clave, solicitud("100.00"));
+
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> idempotenciaPagoService.registrarPago(clave, solicitud("200.00")));
+        assertEquals(1, pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()).size());
+    }
+
+    @Test
+    void pagoRechazadoNoConsumeLaClave() {
+        String clave = UUID.randomUUID().toString();
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> idempotenciaPagoService.registrarPago(clave, solicitud("9999.00")));
+        assertFalse(claveIdempotenciaRepository.existsById(clave));
+
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> idempotenciaPagoService.registrarPago(clave, solicitud("9999.00")));
+        assertTrue(pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()).isEmpty());
+    }
+
+    @Test
+    void depuracionEliminaSoloLasClavesVencidas() {
+        String vencida = UUID.randomUUID().toString();
+        String vigente = UUID.randomUUID().toString();
+        idempotenciaPagoService.registrarPago(vencida, solicitud("100.00"));
+        idempotenciaPagoService.registrarPago(vigente, solicitud("200.00"));
+        jdbcTemplate.update("update clave_idempotencia set fecha_creacion = ? where clave = ?", new Date(System.currentTimeMillis() - 25L * 60 * 60 * 1000), vencida);
+
+        assertEquals(1, idempotenciaPagoService.depurarClavesVencidas());
+        assertFalse(claveIdempotenciaRepository.existsById(vencida));
+        assertTrue(claveIdempotenciaRepository.existsById(vigente));
+    }
+
+    private SolicitudPagoDTO solicitud(String monto) {
+        return DatosPrueba.solicitudPago(prestamo.getPrestamoId(), monto, new Date(0));
+    }
+}
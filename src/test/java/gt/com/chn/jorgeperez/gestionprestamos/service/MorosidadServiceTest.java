@@ -0,0 +1,155 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.MorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenMorosidadDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.TramoMorosidad;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el cálculo de morosidad: los días de atraso desde la primera cuota vencida sin cubrir, el tramo, las cuotas
+ * y el monto vencidos, que los préstamos al día y los no aprobados no aparezcan, que un nuevo cálculo quite a los
+ * préstamos que se pusieron al día y que no se calcule mientras otra instancia tiene el bloqueo.
+ */
+@SpringBootTest
+class MorosidadServiceTest {
+
+    // Préstamos de 12,000.00 a 12 meses sin intereses: cuotas de 1,000.00 que vencen el 15 de cada mes desde febrero
+    private static final LocalDate FECHA_SOLICITUD = LocalDate.of(2024, 1, 15);
+
+    private static final LocalDate FECHA_CORTE = LocalDate.of(2024, 5, 1);
+
+    @Autowired
+    private MorosidadService morosidadService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void calculaElAtrasoDesdeLaPrimeraCuotaVencidaSinCubrir() {
+        Prestamo sinPagos = nuevoPrestamo(EstadoPrestamo.APROBADO, "0.00");
+        Prestamo conPagoParcial = nuevoPrestamo(EstadoPrestamo.APROBADO, "2500.00");
+        Prestamo alDia = nuevoPrestamo(EstadoPrestamo.APROBADO, "3000.00");
+        Prestamo enProceso = nuevoPrestamo(EstadoPrestamo.EN_PROCESO, "0.00");
+
+        ResumenMorosidadDTO resumen = morosidadService.calcularMorosidad(FECHA_CORTE);
+
+        assertTrue(resumen.getPrestamosEvaluados() >= 3);
+        assertTrue(resumen.getMorososPorTramo().get(TramoMorosidad.DE_61_A_90) >= 1);
+        List<MorosidadDTO> morosos = morosidadService.listarMorosos(null);
+        List<Long> ids = morosos.stream().map(MorosidadDTO::getPrestamoId).toList();
+        assertFalse(ids.contains(alDia.getPrestamoId()));
+        assertFalse(ids.contains(enProceso.getPrestamoId()));
+
+        // Vencieron el 15 de febrero, marzo y abril; ninguna está pagada
+        MorosidadDTO atrasado = buscar(morosos, sinPagos);
+        assertEquals(76, atrasado.getDiasAtraso());
+        assertEquals(TramoMorosidad.DE_61_A_90, atrasado.getTramo());
+        assertEquals(3, atrasado.getCuotasVencidas());
+        assertEquals(0, new BigDecimal("3000.00").compareTo(atrasado.getMontoVencido()));
+        assertEquals(cliente.getClienteId(), atrasado.getClienteId());
+
+        // Lo pagado cubre febrero y marzo y la mitad de abril
+        MorosidadDTO parcial = buscar(morosos, conPagoParcial);
+        assertEquals(16, parcial.getDiasAtraso());
+        assertEquals(TramoMorosidad.DE_1_A_30, parcial.getTramo());
+        assertEquals(1, parcial.getCuotasVencidas());
+        assertEquals(0, new BigDecimal("500.00").compareTo(parcial.getMontoVencido()));
+        assertEquals(0, new BigDecimal("9500.00").compareTo(parcial.getSaldoActual()));
+
+        assertTrue(ids.indexOf(sinPagos.getPrestamoId()) < ids.indexOf(conPagoParcial.getPrestamoId()));
+        assertEquals(List.of(conPagoParcial.getPrestamoId()), morosidadService.listarMorosos(TramoMorosidad.DE_1_A_30).stream()
+                .map(MorosidadDTO::getPrestamoId).filter(id -> id >= sinPagos.getPrestamoId()).toList());
+    }
+
+    @Test
+    void unNuevoCalculoQuitaALosPrestamosQueSePusieronAlDia() {
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "2500.00");
+        morosidadService.calcularMorosidad(FECHA_CORTE);
+        assertTrue(contiene(prestamo));
+
+        pagoService.registrarPago(DatosPrueba.solicitudPago(prestamo.getPrestamoId(), "500.00", new Date()));
+        morosidadService.calcularMorosidad(FECHA_CORTE);
+
+        assertFalse(contiene(prestamo));
+    }
+
+    @Test
+    void noCalculaMientrasOtraInstanciaTieneElBloqueo() {
+        Prestamo prestamo = nuevoPrestamo(EstadoPrestamo.APROBADO, "0.00");
+        long hora = 60L * 60 * 1000;
+        jdbcTemplate.update("update bloqueo_tarea set instancia = 'otra-instancia', vence = ? where nombre = 'morosidad'",
+                new java.sql.Timestamp(System.currentTimeMillis() + hora));
+        try {
+            assertThrows(CustomExceptions.InvalidOperationException.class, () -> morosidadService.calcularMorosidad(FECHA_CORTE));
+            assertFalse(contiene(prestamo));
+            assertEquals("otra-instancia", jdbcTemplate.queryForObject("select instancia from bloqueo_tarea where nombre = 'morosidad'", String.class));
+
+            // Un bloqueo vencido lo puede tomar otra instancia, que lo libera al terminar
+            jdbcTemplate.update("update bloqueo_tarea set vence = ? where nombre = 'morosidad'", new java.sql.Timestamp(System.currentTimeMillis() - hora));
+            morosidadService.calcularMorosidad(FECHA_CORTE);
+            assertTrue(contiene(prestamo));
+            assertNull(jdbcTemplate.queryForObject("select instancia from bloqueo_tarea where nombre = 'morosidad'", String.class));
+        } finally {
+            jdbcTemplate.update("update bloqueo_tarea set instancia = null, vence = null where nombre = 'morosidad'");
+        }
+    }
+
+    private boolean contiene(Prestamo prestamo) {
+        return morosidadService.listarMorosos(null).stream().anyMatch(moroso -> moroso.getPrestamoId().equals(prestamo.getPrestamoId()));
+    }
+
+    private static MorosidadDTO buscar(List<MorosidadDTO> morosos, Prestamo prestamo) {
+        return morosos.stream().filter(moroso -> moroso.getPrestamoId().equals(prestamo.getPrestamoId())).findFirst()
+                .orElseThrow(() -> new AssertionError("El préstamo " + prestamo.getPrestamoId() + " no aparece en mora"));
+    }
+
+    // La fecha de solicitud no puede ser pasada al guardar el préstamo, así que se fija directamente en la tabla
+    private Prestamo nuevoPrestamo(EstadoPrestamo estado, String pagado) {
+        Prestamo prestamo = DatosPrueba.prestamo(cliente, estado, "12000.00");
+        prestamo.setSaldoActual(prestamo.getMontoSolicitado().subtract(new BigDecimal(pagado)));
+        prestamo.setTasaInteres(BigDecimal.ZERO);
+        prestamo = prestamoRepository.save(prestamo);
+        jdbcTemplate.update("update prestamo set fecha_solicitud = ?, total_pagado = ? where prestamo_id = ?",
+                java.sql.Date.valueOf(FECHA_SOLICITUD), new BigDecimal(pagado), prestamo.getPrestamoId());
+        return prestamo;
+    }
+}
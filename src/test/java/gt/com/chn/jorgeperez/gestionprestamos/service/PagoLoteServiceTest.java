@@ -0,0 +1,222 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResultadoLineaPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenLotePagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de la carga masiva de pagos: líneas válidas e inválidas mezcladas, la cadena de saldos de varios pagos
+ * al mismo préstamo dentro de un lote, que el lote y el registro de un pago rechacen las mismas solicitudes y el rendimiento de un lote grande, que solo se mide con el perfil
+ * {@code benchmark} de Maven.
+ */
+@SpringBootTest(properties = "pagos.lote.tamano-bloque=500")
+@AutoConfigureMockMvc
+class PagoLoteServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PagoLoteServiceTest.class);
+
+    private static final int PAGOS_LOTE_GRANDE = 100_000;
+
+    @Autowired
+    private PagoLoteService pagoLoteService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Prestamo prestamoA;
+
+    private Prestamo prestamoB;
+
+    @BeforeEach
+    void setUp() {
+        // Sin saldo registrado: el primer pago parte del monto solicitado
+        Cliente cliente = datos.crearCliente();
+        prestamoA = prestamoRepository.save(prestamo(cliente, "1000.00"));
+        prestamoB = prestamoRepository.save(prestamo(cliente, "10000000.00"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void loteCsvRegistraLineasValidasYRechazaLasInvalidas() throws Exception {
+        long a = prestamoA.getPrestamoId();
+        String csv = String.join("\n",
+                "prestamoId,montoPago,fechaPago",
+                a + ",100.00,2024-01-01",
+                a + ",abc,2024-01-01",
+                "",
+                a + ",-5,2024-01-01",
+                a + ",1.001,2024-01-01",
+                "999999,10.00,2024-01-01",
+                a + ",300.00,2024-01-02",
+                a + ",700.00,2024-01-03",
+                a + ",50.00,2024-01-04");
+
+        List<ResultadoLineaPagoDTO> resultados = new ArrayList<>();
+        ResumenLotePagosDTO resumen = pagoLoteService.registrarLote(new StringReader(csv), PagoLoteService.Formato.CSV, resultados::add);
+
+        assertEquals(8, resumen.getLineasProcesadas());
+        assertEquals(3, resumen.getPagosRegistrados());
+        assertEquals(5, resumen.getPagosRechazados());
+        assertEquals(List.of(2L, 3L, 5L, 6L, 7L, 8L, 9L, 10L), resultados.stream().map(ResultadoLineaPagoDTO::getLinea).toList());
+        assertEquals(List.of(true, false, false, false, false, true, false, true), resultados.stream().map(ResultadoLineaPagoDTO::isRegistrado).toList());
+
+        // El pago de 700 excede el saldo restante (600) y los pagos siguientes continúan desde 600
+        ResultadoLineaPagoDTO ultimo = resultados.get(7);
+        assertEquals(0, new BigDecimal("600.00").compareTo(ultimo.getSaldoAnterior()));
+        assertEquals(0, new BigDecimal("550.00").compareTo(ultimo.getSaldoActual()));
+        assertEquals(0, new BigDecimal("550.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(a)));
+        assertEquals(3, pagoRepository.findByPrestamoPrestamoId(a).size());
+        Prestamo actual = prestamoRepository.findById(a).orElseThrow();
+        assertEquals(0, new BigDecimal("450.00").compareTo(actual.getTotalPagado()));
+        assertEquals(3, actual.getNumeroPagos());
+        assertEquals(LocalDate.parse("2024-01-04"), new java.sql.Date(actual.getFechaUltimoPago().getTime()).toLocalDate());
+    }
+
+    @Test
+    void elLoteYElRegistroDeUnPagoRechazanLasMismasSolicitudes() throws Exception {
+        Cliente cliente = datos.crearCliente();
+        long enProceso = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "1000.00").getPrestamoId();
+        long aprobado = prestamoA.getPrestamoId();
+        String futura = LocalDate.now().plusDays(2).toString();
+
+        List<ResultadoLineaPagoDTO> resultados = new ArrayList<>();
+        pagoLoteService.registrarLote(new StringReader(enProceso + ",100.00,2024-01-01\n" + aprobado + ",100.00," + futura),
+                PagoLoteService.Formato.CSV, resultados::add);
+        assertFalse(resultados.get(0).isRegistrado());
+        assertFalse(resultados.get(1).isRegistrado());
+
+        CustomExceptions.InvalidResourceStateException estado = assertThrows(CustomExceptions.InvalidResourceStateException.class,
+                () -> pagoService.registrarPago(DatosPrueba.solicitudPago(enProceso, "100.00", java.sql.Date.valueOf("2024-01-01"))));
+        assertTrue(estado.getMessage().endsWith(resultados.get(0).getMensaje()), estado.getMessage());
+        CustomExceptions.InvalidOperationException fecha = assertThrows(CustomExceptions.InvalidOperationException.class,
+                () -> pagoService.registrarPago(DatosPrueba.solicitudPago(aprobado, "100.00", java.sql.Date.valueOf(futura))));
+        assertEquals(resultados.get(1).getMensaje(), fecha.getMessage());
+        assertTrue(pagoRepository.findByPrestamoPrestamoId(enProceso).isEmpty());
+        assertTrue(pagoRepository.findByPrestamoPrestamoId(aprobado).isEmpty());
+    }
+
+    @Test
+    void endpointNdjsonDevuelveUnResultadoPorLineaYElResumen() throws Exception {
+        long a = prestamoA.getPrestamoId();
+        String ndjson = """
+                {"prestamoId": %d, "montoPago": 100.00, "fechaPago": "2024-01-01"}
+                {"prestamoId": %d, "montoPago": 5000.00, "fechaPago": "2024-01-01"}
+                no es json
+                """.formatted(a, a);
+
+        String respuesta = mockMvc.perform(post("/api/pagos/lote").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = respuesta.split("\n");
+        assertEquals(4, lineas.length);
+        assertTrue(lineas[0].contains("\"registrado\":true"));
+        assertTrue(lineas[1].contains("\"registrado\":false"));
+        assertTrue(lineas[2].contains("\"registrado\":false"));
+        assertTrue(lineas[3].contains("\"pagosRegistrados\":1"));
+        assertEquals(0, new BigDecimal("900.00").compareTo(prestamoRepository.findSaldoActualByPrestamoId(a)));
+    }
+
+    @Tag("benchmark")
+    @Test
+    void loteGrandeSeRegistraEnBloques() throws Exception {
+        long b = prestamoB.getPrestamoId();
+        ResumenLotePagosDTO resumen = pagoLoteService.registrarLote(new LoteGenerado(b, PAGOS_LOTE_GRANDE), PagoLoteService.Formato.CSV, resultado -> {
+        });
+
+        log.info("Lote de {} pagos registrado en {} ms ({} pagos/segundo)", PAGOS_LOTE_GRANDE, resumen.getDuracionMilisegundos(), String.format("%.1f", resumen.getPagosPorSegundo()));
+        assertEquals(PAGOS_LOTE_GRANDE, resumen.getPagosRegistrados());
+        assertEquals(0, resumen.getPagosRechazados());
+        BigDecimal saldoEsperado = new BigDecimal("10000000.00").subtract(BigDecimal.valueOf(PAGOS_LOTE_GRANDE));
+        assertEquals(0, saldoEsperado.compareTo(prestamoRepository.findSaldoActualByPrestamoId(b)));
+        assertEquals(PAGOS_LOTE_GRANDE, pagoRepository.count());
+    }
+
+    private static Prestamo prestamo(Cliente cliente, String monto) {
+        Prestamo prestamo = DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, monto);
+        prestamo.setSaldoActual(null);
+        return prestamo;
+    }
+
+    /**
+     * Genera las líneas de un lote CSV a medida que se leen, sin construir el archivo completo en memoria.
+     */
+    private static final class LoteGenerado extends Reader {
+        private final long prestamoId;
+        private final int lineas;
+        private int generadas;
+        private String actual = "";
+        private int posicion;
+
+        LoteGenerado(long prestamoId, int lineas) {
+            this.prestamoId = prestamoId;
+            this.lineas = lineas;
+        }
+
+        @Override
+        public int read(char[] destino, int desde, int cantidad) {
+            if (posicion == actual.length()) {
+                if (generadas == lineas) {
+                    return -1;
+                }
+                actual = prestamoId + ",1.00,2024-01-01\n";
+                posicion = 0;
+                generadas++;
+            }
+            int copiados = Math.min(cantidad, actual.length() - posicion);
+            actual.getChars(posicion, posicion + copiados, destino, desde);
+            posicion += copiados;
+            return copiados;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PagoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueba de estrés del registro de pagos: varios hilos pagan al mismo tiempo el mismo préstamo
+ * y el saldo final debe coincidir exactamente con la suma de los pagos, sin actualizaciones perdidas.
+ */
+@SpringBootTest
+class PagoServiceConcurrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PagoServiceConcurrenciaTest.class);
+
+    private static final int HILOS = 8;
+    private static final int PAGOS_POR_HILO = 50;
+    private static final BigDecimal MONTO_PRESTAMO = new BigDecimal("1000000.00");
+    private static final BigDecimal MONTO_PAGO = new BigDecimal("10.00");
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        // Sin saldo registrado: el primer pago parte del monto solicitado
+        prestamo = DatosPrueba.prestamo(datos.crearCliente(), EstadoPrestamo.APROBADO, MONTO_PRESTAMO.toPlainString());
+        prestamo.setSaldoActual(null);
+        prestamo = prestamoRepository.save(prestamo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void pagosConcurrentesProducenElSaldoEsperado() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int j = 0; j < PAGOS_POR_HILO; j++) {
+                    pagoService.registrarPago(solicitud(MONTO_PAGO));
+                }
+                return null;
+            }));
+        }
+
+        long nanosInicio = System.nanoTime();
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(2, TimeUnit.MINUTES);
+        }
+        long nanos = System.nanoTime() - nanosInicio;
+        executor.shutdown();
+
+        int totalPagos = HILOS * PAGOS_POR_HILO;
+        log.info("{} pagos concurrentes en {} ms ({} pagos/segundo)", totalPagos, TimeUnit.NANOSECONDS.toMillis(nanos), String.format("%.1f", totalPagos * 1_000_000_000.0 / nanos));
+
+        BigDecimal saldoEsperado = MONTO_PRESTAMO.subtract(MONTO_PAGO.multiply(BigDecimal.valueOf(totalPagos)));
+        assertEquals(0, saldoEsperado.compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+
+        // Cada pago debe partir exactamente del saldo que dejó el pago anterior
+        List<Pago> pagos = new ArrayList<>(pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()));
+        assertEquals(totalPagos, pagos.size());
+        pagos.sort(Comparator.comparing(Pago::getSaldoAnterior).reversed());
+        BigDecimal saldo = MONTO_PRESTAMO;
+        for (Pago pago : pagos) {
+            assertEquals(0, saldo.compareTo(pago.getSaldoAnterior()));
+            assertEquals(0, pago.getSaldoAnterior().subtract(pago.getMontoPago()).compareTo(pago.getSaldoActual()));
+            saldo = pago.getSaldoActual();
+        }
+        assertEquals(0, saldoEsperado.compareTo(saldo));
+    }
+
+    @Test
+    void pagoMayorAlSaldoSeRechazaSinModificarElPrestamo() {
+        BigDecimal excedente = MONTO_PRESTAMO.add(BigDecimal.ONE);
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> pagoService.registrarPago(solicitud(excedente)));
+        assertEquals(0, MONTO_PRESTAMO.compareTo(prestamoRepository.findSaldoActualByPrestamoId(prestamo.getPrestamoId())));
+        assertNull(prestamoRepository.findById(prestamo.getPrestamoId()).orElseThrow().getSaldoActual());
+        assertTrue(pagoRepository.findByPrestamoPrestamoId(prestamo.getPrestamoId()).isEmpty());
+    }
+
+    private SolicitudPagoDTO solicitud(BigDecimal monto) {
+        return DatosPrueba.solicitudPago(prestamo.getPrestamoId(), monto.toPlainString(), new Date());
+    }
+}
@@ -0,0 +1,103 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.CuotaPlanPagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.PlanPagosDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el plan de pagos con amortización francesa: la cuota fija, el ajuste de la última cuota para que el saldo
+ * termine en cero, y que los préstamos con los mismos términos compartan el plan guardado en la caché.
+ */
+@SpringBootTest
+class PlanPagosServiceTest {
+
+    @Autowired
+    private PlanPagosService planPagosService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void calculaLaCuotaFijaYCierraElSaldoEnCero() {
+        PlanPagosDTO plan = planPagosService.obtenerPlanPagos(nuevoPrestamo("10000.00", 12, "12.00").getPrestamoId());
+
+        assertEquals(0, new BigDecimal("888.49").compareTo(plan.getCuotaMensual()));
+        assertEquals(12, plan.getCuotas().size());
+        CuotaPlanPagosDTO primera = plan.getCuotas().get(0);
+        assertEquals(0, new BigDecimal("100.00").compareTo(primera.getInteres()));
+        assertEquals(0, new BigDecimal("788.49").compareTo(primera.getCapital()));
+        assertEquals(0, new BigDecimal("9211.51").compareTo(primera.getSaldo()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(plan.getCuotas().get(11).getSaldo()));
+
+        BigDecimal capital = plan.getCuotas().stream().map(CuotaPlanPagosDTO::getCapital).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalPagado = plan.getCuotas().stream().map(CuotaPlanPagosDTO::getCuota).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, new BigDecimal("10000.00").compareTo(capital));
+        assertEquals(0, plan.getTotalPagar().compareTo(totalPagado));
+        assertEquals(0, plan.getTotalPagar().subtract(plan.getMontoSolicitado()).compareTo(plan.getTotalIntereses()));
+    }
+
+    @Test
+    void losPrestamosConLosMismosTerminosCompartenElPlan() {
+        Prestamo primero = nuevoPrestamo("250000.00", 360, "9.75");
+        Prestamo segundo = nuevoPrestamo("250000.00", 360, "9.75");
+        double aciertosAntes = aciertos();
+
+        PlanPagosDTO planPrimero = planPagosService.obtenerPlanPagos(primero.getPrestamoId());
+        PlanPagosDTO planSegundo = planPagosService.obtenerPlanPagos(segundo.getPrestamoId());
+
+        assertEquals(1, aciertos() - aciertosAntes);
+        assertEquals(segundo.getPrestamoId(), planSegundo.getPrestamoId());
+        assertEquals(360, planSegundo.getCuotas().size());
+        assertEquals(0, planPrimero.getTotalIntereses().compareTo(planSegundo.getTotalIntereses()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(planSegundo.getCuotas().get(359).getSaldo()));
+    }
+
+    @Test
+    void elPrestamoInexistenteSeInforma() {
+        assertThrows(CustomExceptions.PrestamoNotFoundException.class, () -> planPagosService.obtenerPlanPagos(-1L));
+    }
+
+    private double aciertos() {
+        return meterRegistry.get("cache.gets").tag("cache", "planesPago").tag("result", "hit").functionCounter().count();
+    }
+
+    private Prestamo nuevoPrestamo(String monto, int plazo, String tasa) {
+        Prestamo prestamo = DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, monto);
+        prestamo.setPlazo(plazo);
+        prestamo.setTasaInteres(new BigDecimal(tasa));
+        return prestamoRepository.save(prestamo);
+    }
+}
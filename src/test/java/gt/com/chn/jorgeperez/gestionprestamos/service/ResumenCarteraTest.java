@@ -0,0 +1,167 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.ResumenCarteraDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPagoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.job.ConciliacionCarteraJob;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Pago;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.AcumuladosCartera;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que los totales de la cartera por estado sigan a los préstamos a lo largo de su ciclo de vida sin consultar
+ * la tabla de préstamos, que el volcado deje la tabla {@code resumen_cartera} igual a la fuente y que la conciliación
+ * detecte y corrija los cambios hechos fuera de los servicios, en una sola instancia a la vez.
+ */
+@SpringBootTest
+class ResumenCarteraTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private AcumuladosCartera acumuladosCartera;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConciliacionCarteraJob conciliacionCarteraJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+        // Otras pruebas eliminan préstamos directamente con el repositorio: se parte de totales conciliados
+        acumuladosCartera.conciliar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void losTotalesSiguenAlPrestamoDesdeLaSolicitudHastaLaFinalizacion() {
+        ResumenCarteraDTO enProcesoAntes = acumuladosCartera.obtener(EstadoPrestamo.EN_PROCESO);
+        ResumenCarteraDTO aprobadosAntes = acumuladosCartera.obtener(EstadoPrestamo.APROBADO);
+        ResumenCarteraDTO finalizadosAntes = acumuladosCartera.obtener(EstadoPrestamo.FINALIZADO);
+
+        Prestamo prestamo = prestamoService.guardarPrestamo(solicitud("10000.00"));
+        assertTotales(enProcesoAntes, 1, "10000.00", "10000.00", acumuladosCartera.obtener(EstadoPrestamo.EN_PROCESO));
+
+        prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana");
+        assertTotales(enProcesoAntes, 0, "0.00", "0.00", acumuladosCartera.obtener(EstadoPrestamo.EN_PROCESO));
+        assertTotales(aprobadosAntes, 1, "10000.00", "10000.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+
+        Pago pago = pagoService.registrarPago(pago(prestamo, "2500.00"));
+        assertTotales(aprobadosAntes, 1, "10000.00", "7500.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+        pagoService.eliminarPago(pago.getPagoId());
+        assertTotales(aprobadosAntes, 1, "10000.00", "10000.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+
+        pagoService.registrarPago(pago(prestamo, "10000.00"));
+        pagoService.finalizarPrestamo(prestamo.getPrestamoId());
+        assertTotales(aprobadosAntes, 0, "0.00", "0.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+        assertTotales(finalizadosAntes, 1, "10000.00", "0.00", acumuladosCartera.obtener(EstadoPrestamo.FINALIZADO));
+        assertEquals(0, finalizadosAntes.getMontoSolicitado().add(new BigDecimal("10000.00")).compareTo(prestamoService.calcularTotalMontoPrestadoPorEstado(EstadoPrestamo.FINALIZADO)));
+
+        // Tras el volcado, la tabla del resumen coincide con la tabla de préstamos
+        acumuladosCartera.volcar();
+        assertTrue(acumuladosCartera.conciliar().isEmpty());
+    }
+
+    @Test
+    void laConciliacionCorrigeLosCambiosHechosFueraDeLosServicios() {
+        ResumenCarteraDTO aprobadosAntes = acumuladosCartera.obtener(EstadoPrestamo.APROBADO);
+        double diferenciasAntes = diferencias();
+
+        // Un préstamo guardado sin pasar por el servicio no se refleja en los totales hasta la conciliación
+        Prestamo prestamo = DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, "5000.00");
+        prestamo.setSaldoActual(new BigDecimal("4000.00"));
+        prestamoRepository.save(prestamo);
+
+        Map<EstadoPrestamo, ResumenCarteraDTO> diferencias = acumuladosCartera.conciliar();
+
+        assertEquals(1, diferencias.size());
+        assertTotales(new ResumenCarteraDTO(EstadoPrestamo.APROBADO, 0, BigDecimal.ZERO, BigDecimal.ZERO), 1, "5000.00", "4000.00", diferencias.get(EstadoPrestamo.APROBADO));
+        assertTotales(aprobadosAntes, 1, "5000.00", "4000.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+        assertEquals(1, diferencias() - diferenciasAntes);
+        assertTrue(acumuladosCartera.conciliar().isEmpty());
+    }
+
+    @Test
+    void laConciliacionProgramadaEsperaAQueOtraInstanciaLibereElBloqueo() {
+        ResumenCarteraDTO aprobadosAntes = acumuladosCartera.obtener(EstadoPrestamo.APROBADO);
+        prestamoRepository.save(DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, "3000.00"));
+
+        // La fila se crea la primera vez que se toma el bloqueo; se simula que otra instancia lo tiene
+        conciliacionCarteraJob.conciliar();
+        prestamoRepository.save(DatosPrueba.prestamo(cliente, EstadoPrestamo.APROBADO, "2000.00"));
+        long hora = 3_600_000;
+        jdbcTemplate.update("update bloqueo_tarea set instancia = 'otra-instancia', vence = ? where nombre = 'cartera'",
+                new Timestamp(System.currentTimeMillis() + hora));
+        try {
+            conciliacionCarteraJob.conciliar();
+            assertTotales(aprobadosAntes, 1, "3000.00", "3000.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+            assertEquals("otra-instancia", jdbcTemplate.queryForObject("select instancia from bloqueo_tarea where nombre = 'cartera'", String.class));
+
+            // Si la otra instancia se detuvo sin liberarlo, el bloqueo se toma cuando vence y se libera al terminar
+            jdbcTemplate.update("update bloqueo_tarea set vence = ? where nombre = 'cartera'", new Timestamp(System.currentTimeMillis() - hora));
+            conciliacionCarteraJob.conciliar();
+            assertTotales(aprobadosAntes, 2, "5000.00", "5000.00", acumuladosCartera.obtener(EstadoPrestamo.APROBADO));
+            assertNull(jdbcTemplate.queryForObject("select instancia from bloqueo_tarea where nombre = 'cartera'", String.class));
+        } finally {
+            jdbcTemplate.update("update bloqueo_tarea set instancia = null, vence = null where nombre = 'cartera'");
+        }
+    }
+
+    private double diferencias() {
+        var contador = meterRegistry.find("gestion.cartera.diferencias").tag("estado", EstadoPrestamo.APROBADO.getCodigo()).counter();
+        return contador == null ? 0 : contador.count();
+    }
+
+    private static void assertTotales(ResumenCarteraDTO antes, long cantidad, String monto, String saldo, ResumenCarteraDTO actual) {
+        assertEquals(antes.getCantidad() + cantidad, actual.getCantidad(), "Cantidad de préstamos");
+        assertEquals(0, antes.getMontoSolicitado().add(new BigDecimal(monto)).compareTo(actual.getMontoSolicitado()), "Monto solicitado");
+        assertEquals(0, antes.getSaldoActual().add(new BigDecimal(saldo)).compareTo(actual.getSaldoActual()), "Saldo actual");
+    }
+
+    private SolicitudPrestamoDTO solicitud(String monto) {
+        return DatosPrueba.solicitudPrestamo(cliente.getClienteId(), monto, 12);
+    }
+
+    private static SolicitudPagoDTO pago(Prestamo prestamo, String monto) {
+        return DatosPrueba.solicitudPago(prestamo.getPrestamoId(), monto, new Date());
+    }
+}
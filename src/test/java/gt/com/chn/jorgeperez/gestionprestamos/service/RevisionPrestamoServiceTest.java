@@ -0,0 +1,176 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPendienteDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.NotificadorSolicitudesPendientes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Verifica la cola de revisión: que los revisores que reservan al mismo tiempo no reciban la misma solicitud, que una
+ * reserva vencida o liberada quede disponible para otro revisor, que solo el revisor que tiene la reserva vigente
+ * pueda aprobar o rechazar la solicitud, que las solicitudes aprobadas salgan de la cola y que las solicitudes nuevas
+ * se envíen a los revisores conectados por Server-Sent Events.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RevisionPrestamoServiceTest {
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private RevisionPrestamoService revisionPrestamoService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private NotificadorSolicitudesPendientes notificador;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void losRevisoresSimultaneosNoRecibenLaMismaSolicitud() throws Exception {
+        Set<Long> enProceso = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            enProceso.add(datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "10000.00").getPrestamoId());
+        }
+        Prestamo aprobado = datos.crearPrestamo(cliente, EstadoPrestamo.APROBADO, "10000.00");
+
+        int revisores = 4;
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(revisores);
+        List<Future<List<SolicitudPendienteDTO>>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < revisores; i++) {
+                String revisor = "revisor-" + i;
+                resultados.add(ejecutor.submit(() -> {
+                    inicio.await();
+                    return revisionPrestamoService.reservarSolicitudes(revisor, 5);
+                }));
+            }
+            inicio.countDown();
+            List<Long> reservadas = new ArrayList<>();
+            for (Future<List<SolicitudPendienteDTO>> resultado : resultados) {
+                resultado.get(30, TimeUnit.SECONDS).forEach(solicitud -> reservadas.add(solicitud.getPrestamoId()));
+            }
+            // Un revisor puede recibir menos de las pedidas si las demás estaban bloqueadas; las restantes se reservan después
+            revisionPrestamoService.reservarSolicitudes("revisor-" + revisores, 50).forEach(solicitud -> reservadas.add(solicitud.getPrestamoId()));
+            assertEquals(reservadas.size(), new HashSet<>(reservadas).size(), "Una solicitud se entregó a dos revisores");
+            assertTrue(reservadas.containsAll(enProceso));
+            assertFalse(reservadas.contains(aprobado.getPrestamoId()));
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        assertTrue(revisionPrestamoService.reservarSolicitudes("otro-revisor", 50).stream().noneMatch(solicitud -> enProceso.contains(solicitud.getPrestamoId())));
+    }
+
+    @Test
+    void laReservaVencidaOLiberadaQuedaDisponible() {
+        Prestamo prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "10000.00");
+
+        SolicitudPendienteDTO reservada = buscar(revisionPrestamoService.reservarSolicitudes("ana", 50), prestamo);
+        assertEquals("ana", reservada.getRevisor());
+        assertEquals(cliente.getClienteId(), reservada.getClienteId());
+        assertNull(buscar(revisionPrestamoService.reservarSolicitudes("beto", 50), prestamo));
+        // El revisor vuelve a recibir lo que tiene reservado
+        assertNotNull(buscar(revisionPrestamoService.reservarSolicitudes("ana", 50), prestamo));
+
+        jdbcTemplate.update("update prestamo set revision_vence = ? where prestamo_id = ?", new Date(System.currentTimeMillis() - 1000), prestamo.getPrestamoId());
+        assertNotNull(buscar(revisionPrestamoService.reservarSolicitudes("beto", 50), prestamo));
+
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> revisionPrestamoService.liberarSolicitud(prestamo.getPrestamoId(), "ana"));
+        revisionPrestamoService.liberarSolicitud(prestamo.getPrestamoId(), "beto");
+        assertNotNull(buscar(revisionPrestamoService.reservarSolicitudes("ana", 50), prestamo));
+
+        prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana");
+        assertNull(buscar(revisionPrestamoService.reservarSolicitudes("ana", 50), prestamo));
+    }
+
+    @Test
+    void soloElRevisorConLaReservaVigentePuedeDecidir() {
+        Prestamo prestamo = datos.crearPrestamo(cliente, EstadoPrestamo.EN_PROCESO, "10000.00");
+        assertNotNull(buscar(revisionPrestamoService.reservarSolicitudes("ana", 50), prestamo));
+
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "beto"));
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> prestamoService.rechazarPrestamo(prestamo.getPrestamoId(), "Ingresos insuficientes", "beto"));
+        assertThrows(CustomExceptions.InvalidOperationException.class, () -> prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), null));
+        assertEquals(EstadoPrestamo.EN_PROCESO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+
+        // Al vencer la reserva, cualquier revisor puede decidir
+        jdbcTemplate.update("update prestamo set revision_vence = ? where prestamo_id = ?", new Date(System.currentTimeMillis() - 1000), prestamo.getPrestamoId());
+        prestamoService.rechazarPrestamo(prestamo.getPrestamoId(), "Ingresos insuficientes", "beto");
+        assertEquals(EstadoPrestamo.RECHAZADO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+    }
+
+    @Test
+    void enviaLasSolicitudesNuevasALosRevisoresConectados() throws Exception {
+        int conectados = notificador.conexiones();
+        MvcResult conexion = mockMvc.perform(get("/api/prestamos/revision/eventos")).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(conectados + 1, notificador.conexiones());
+
+        Prestamo prestamo = prestamoService.guardarPrestamo(DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "8000.00", 12));
+
+        MockHttpServletResponse respuesta = conexion.getResponse();
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!respuesta.getContentAsString().contains("\"prestamoId\":" + prestamo.getPrestamoId()) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        String eventos = respuesta.getContentAsString();
+        assertTrue(eventos.contains("event:solicitud-pendiente"), eventos);
+        assertTrue(eventos.contains("id:" + prestamo.getPrestamoId()), eventos);
+        assertTrue(eventos.contains("\"clienteId\":" + cliente.getClienteId()), eventos);
+    }
+
+    private static SolicitudPendienteDTO buscar(List<SolicitudPendienteDTO> solicitudes, Prestamo prestamo) {
+        return solicitudes.stream().filter(solicitud -> solicitud.getPrestamoId().equals(prestamo.getPrestamoId())).findFirst().orElse(null);
+    }
+}
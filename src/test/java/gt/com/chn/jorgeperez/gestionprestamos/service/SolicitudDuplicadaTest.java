@@ -0,0 +1,121 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.dto.SolicitudPrestamoDTO;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Cliente;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import gt.com.chn.jorgeperez.gestionprestamos.service.impl.IndiceSolicitudesPrestamo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que una solicitud de préstamo idéntica a otra reciente del mismo cliente se rechace, tanto si llega después
+ * como al mismo tiempo, que el índice único de la tabla la rechace aunque el índice en memoria no la conozca y que la
+ * ventana configurada sea positiva.
+ */
+@SpringBootTest
+class SolicitudDuplicadaTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private IndiceSolicitudesPrestamo indiceSolicitudes;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    private Cliente cliente;
+
+    @BeforeEach
+    void setUp() {
+        cliente = datos.crearCliente();
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void rechazaUnaVentanaNoPositiva() {
+        assertThrows(IllegalArgumentException.class, () -> new IndiceSolicitudesPrestamo(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new IndiceSolicitudesPrestamo(Duration.ofMinutes(-1)));
+    }
+
+    @Test
+    void rechazaLaSolicitudRepetidaDentroDeLaVentana() {
+        prestamoService.guardarPrestamo(DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "5000", 24));
+
+        assertThrows(CustomExceptions.DuplicateLoanRequestException.class, () -> prestamoService.guardarPrestamo(DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "5000.00", 24)));
+        prestamoService.guardarPrestamo(DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "5000.00", 36));
+        assertEquals(2, prestamoRepository.findByClienteClienteId(cliente.getClienteId()).size());
+    }
+
+    @Test
+    void soloUnaDeVariasSolicitudesSimultaneasSeGuarda() throws Exception {
+        int solicitudes = 8;
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(solicitudes);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < solicitudes; i++) {
+                resultados.add(ejecutor.submit(() -> {
+                    inicio.await();
+                    try {
+                        prestamoService.guardarPrestamo(DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "7500.00", 12));
+                        return true;
+                    } catch (CustomExceptions.DuplicateLoanRequestException e) {
+                        return false;
+                    }
+                }));
+            }
+            inicio.countDown();
+            int guardadas = 0;
+            for (Future<Boolean> resultado : resultados) {
+                guardadas += resultado.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, guardadas);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        assertEquals(1, prestamoRepository.findByClienteClienteId(cliente.getClienteId()).size());
+    }
+
+    @Test
+    void elIndiceUnicoRechazaLaSolicitudQueLaMemoriaNoConoce() {
+        SolicitudPrestamoDTO solicitud = DatosPrueba.solicitudPrestamo(cliente.getClienteId(), "9000.00", 18);
+        prestamoService.guardarPrestamo(solicitud);
+        // Como si la solicitud repetida llegara a otra instancia o después de reiniciar la aplicación
+        indiceSolicitudes.liberar(indiceSolicitudes.huella(solicitud));
+
+        assertThrows(CustomExceptions.DuplicateLoanRequestException.class, () -> prestamoService.guardarPrestamo(solicitud));
+        assertEquals(1, prestamoRepository.findByClienteClienteId(cliente.getClienteId()).size());
+    }
+
+    @Test
+    void laSolicitudQueNoSeGuardaNoBloqueaLaSiguiente() {
+        SolicitudPrestamoDTO solicitud = DatosPrueba.solicitudPrestamo(-1L, "3000.00", 6);
+
+        assertThrows(CustomExceptions.ClienteNotFoundException.class, () -> prestamoService.guardarPrestamo(solicitud));
+        assertThrows(CustomExceptions.ClienteNotFoundException.class, () -> prestamoService.guardarPrestamo(solicitud));
+    }
+}
@@ -0,0 +1,109 @@
+package gt.com.chn.jorgeperez.gestionprestamos.service;
+
+import gt.com.chn.jorgeperez.gestionprestamos.DatosPrueba;
+import gt.com.chn.jorgeperez.gestionprestamos.exception.CustomExceptions;
+import gt.com.chn.jorgeperez.gestionprestamos.model.EstadoPrestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.model.Prestamo;
+import gt.com.chn.jorgeperez.gestionprestamos.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de las transiciones de estado del préstamo: varios revisores que aprueban al mismo tiempo el mismo
+ * préstamo, transiciones no permitidas por la tabla de estados y el código con el que se guarda cada estado.
+ */
+@SpringBootTest
+class TransicionEstadoPrestamoTest {
+
+    private static final int REVISORES = 8;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Prestamo prestamo;
+
+    @BeforeEach
+    void setUp() {
+        prestamo = datos.crearPrestamo(datos.crearCliente(), EstadoPrestamo.EN_PROCESO, "8000.00");
+    }
+
+    @AfterEach
+    void tearDown() {
+        datos.limpiar();
+    }
+
+    @Test
+    void revisoresSimultaneosAprobandoElMismoPrestamoSoloUnoGana() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(REVISORES);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < REVISORES; i++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                return prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana");
+            }));
+        }
+        inicio.countDown();
+
+        int aprobados = 0;
+        int yaAprobados = 0;
+        for (Future<?> tarea : tareas) {
+            try {
+                tarea.get(1, TimeUnit.MINUTES);
+                aprobados++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(CustomExceptions.PrestamoYaAprobadoException.class, e.getCause());
+                yaAprobados++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, aprobados);
+        assertEquals(REVISORES - 1, yaAprobados);
+        assertEquals(EstadoPrestamo.APROBADO, prestamoRepository.findEstadoByPrestamoId(prestamo.getPrestamoId()));
+    }
+
+    @Test
+    void transicionesNoPermitidasSeRechazan() {
+        Long id = prestamo.getPrestamoId();
+        prestamoService.rechazarPrestamo(id, "Ingresos insuficientes", "ana");
+
+        assertThrows(CustomExceptions.InvalidResourceStateException.class, () -> prestamoService.aprobarPrestamo(id, "ana"));
+        assertThrows(CustomExceptions.ResourceAlreadyInDesiredStateException.class, () -> prestamoService.rechazarPrestamo(id, "Duplicado", "ana"));
+        assertThrows(CustomExceptions.PrestamoNotFoundException.class, () -> prestamoService.aprobarPrestamo(-1L, "ana"));
+        assertEquals(EstadoPrestamo.RECHAZADO, prestamoRepository.findEstadoByPrestamoId(id));
+    }
+
+    @Test
+    void estadoSeGuardaConSuCodigo() {
+        prestamoService.aprobarPrestamo(prestamo.getPrestamoId(), "ana");
+
+        assertEquals("A", jdbcTemplate.queryForObject("select estado from prestamo where prestamo_id = ?", String.class, prestamo.getPrestamoId()));
+        assertTrue(EstadoPrestamo.APROBADO.puedeCambiarA(EstadoPrestamo.FINALIZADO));
+        assertFalse(EstadoPrestamo.FINALIZADO.puedeCambiarA(EstadoPrestamo.EN_PROCESO));
+    }
+}